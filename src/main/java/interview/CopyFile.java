@@ -27,11 +27,7 @@ public class CopyFile {
     public static void copyFile(String fileName,String target) throws IOException {
         try(InputStream in = new FileInputStream(fileName)){
             try(OutputStream out = new FileOutputStream(target)){
-                byte[] buffer = new byte[4096];
-                int bytesToRead;
-                while((bytesToRead=in.read(buffer))!=-1){
-                    out.write(buffer,0,bytesToRead);
-                }
+                in.transferTo(out);
             }
         }
     }
@@ -0,0 +1,93 @@
+package interview;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 4K 随机读压测：在一个临时文件上，按不同的队列深度比较逐个发起的位置读
+ * （{@link AsynchronousFileChannel#read(ByteBuffer, long)}）与批量位置读
+ * （{@link AsynchronousFileChannel#read(ByteBuffer[], long[])}）两种方式。
+ *
+ * 用法：{@code MyAsyncFileReadBenchmark [每轮秒数，默认 3] [文件 MB 数，默认 256]}。
+ * 队列深度为 d 时，每一轮同时发起 d 个读，等它们全部完成再发起下一轮。
+ * 文件刚写完，大多留在页缓存里，结果反映的是提交和完成的开销而不是磁盘本身；
+ * 要测磁盘，文件应远大于内存。
+ *
+ * @author Silence_w
+ */
+public class MyAsyncFileReadBenchmark {
+
+    private static final int BLOCK = 4096;
+    private static final int[] DEPTHS = { 1, 32, 128 };
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        long size = (args.length > 1 ? Long.parseLong(args[1]) : 256) << 20;
+        Path file = Files.createTempFile("async-read", ".dat");
+        try {
+            fill(file, size);
+            try (AsynchronousFileChannel ch =
+                     AsynchronousFileChannel.open(file, StandardOpenOption.READ)) {
+                for (int depth : DEPTHS) {
+                    run("逐个读取", ch, size, depth, seconds, false);
+                    run("批量读取", ch, size, depth, seconds, true);
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static void fill(Path file, long size) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocateDirect(1 << 20);
+            while (b.hasRemaining())
+                b.put((byte) b.position());
+            for (long pos = 0; pos < size; pos += b.capacity()) {
+                b.clear();
+                while (b.hasRemaining())
+                    ch.write(b, pos + b.position());
+            }
+        }
+    }
+
+    private static void run(String name, AsynchronousFileChannel ch, long size, int depth,
+                            int seconds, boolean batch) throws Exception {
+        ByteBuffer[] buffers = new ByteBuffer[depth];
+        for (int i = 0; i < depth; i++)
+            buffers[i] = ByteBuffer.allocateDirect(BLOCK);
+        long[] positions = new long[depth];
+        @SuppressWarnings("unchecked")
+        Future<Integer>[] futures = new Future[depth];
+        long blocks = size / BLOCK;
+        long reads = 0;
+        long start = System.nanoTime();
+        long end = start + seconds * 1000000000L;
+        while (System.nanoTime() < end) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < depth; i++) {
+                positions[i] = random.nextLong(blocks) * BLOCK;
+                buffers[i].clear();
+            }
+            if (batch) {
+                ch.read(buffers, positions).get();
+            } else {
+                for (int i = 0; i < depth; i++)
+                    futures[i] = ch.read(buffers[i], positions[i]);
+                for (int i = 0; i < depth; i++)
+                    futures[i].get();
+            }
+            reads += depth;
+        }
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%s，队列深度 %3d：%d 次读，%.0f 次/秒，平均每轮 %.1f 微秒%n",
+                name, depth, reads, reads * 1e9 / nanos, nanos / 1e3 / (reads / depth));
+    }
+}
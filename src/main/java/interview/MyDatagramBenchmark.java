@@ -0,0 +1,117 @@
+package interview;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * 回环地址上的 UDP 吞吐压测：一个线程不停发送小数据报，主线程接收并统计，
+ * 依次比较逐个收发（{@code receive}/{@code send}）与批量收发
+ * （{@link DatagramChannel#receive(ByteBuffer[], int, int, SocketAddress[])}/
+ * {@link DatagramChannel#send(ByteBuffer[], int, int, SocketAddress[])}）两种方式。
+ *
+ * 用法：{@code MyDatagramBenchmark [每轮秒数，默认 5] [数据报字节数，默认 64] [批量大小，默认 64]}。
+ * 接收端为非阻塞模式，每次 select 之后把已到达的数据报全部取完；
+ * UDP 会丢包，结果以接收端实际收到的数据报为准。
+ *
+ * @author Silence_w
+ */
+public class MyDatagramBenchmark {
+
+    private static volatile boolean running;
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int size = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int batch = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        run("逐个收发", seconds, size, 1);
+        run("批量收发", seconds, size, batch);
+    }
+
+    private static void run(String name, int seconds, int size, int batch) throws Exception {
+        try (DatagramChannel receiver = DatagramChannel.open();
+             DatagramChannel sender = DatagramChannel.open();
+             Selector selector = Selector.open()) {
+            receiver.setOption(StandardSocketOptions.SO_RCVBUF, 4 << 20);
+            receiver.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            receiver.configureBlocking(false);
+            receiver.register(selector, SelectionKey.OP_READ);
+            SocketAddress target = receiver.getLocalAddress();
+
+            running = true;
+            long[] sent = new long[1];
+            Thread t = new Thread(() -> {
+                try {
+                    send(sender, target, size, batch, sent);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
+            t.start();
+
+            ByteBuffer[] buffers = new ByteBuffer[batch];
+            for (int i = 0; i < batch; i++)
+                buffers[i] = ByteBuffer.allocateDirect(size);
+            // 地址数组在各次调用之间复用
+            SocketAddress[] sources = new SocketAddress[batch];
+            long received = 0;
+            long bytes = 0;
+            long start = System.nanoTime();
+            long end = start + seconds * 1000000000L;
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                if (selector.select(Math.max(1, (end - now) / 1000000)) == 0)
+                    continue;
+                selector.selectedKeys().clear();
+                int n;
+                do {
+                    if (batch == 1)
+                        n = receiver.receive(buffers[0]) != null ? 1 : 0;
+                    else
+                        n = receiver.receive(buffers, 0, batch, sources);
+                    for (int i = 0; i < n; i++) {
+                        bytes += buffers[i].position();
+                        buffers[i].clear();
+                    }
+                    received += n;
+                } while (n > 0);
+            }
+            long nanos = System.nanoTime() - start;
+            running = false;
+            t.join();
+            System.out.printf("%s：发送 %d 个，接收 %d 个（%d 字节），%.0f 个/秒%n",
+                    name, sent[0], received, bytes, received * 1e9 / nanos);
+        }
+    }
+
+    private static void send(DatagramChannel sender, SocketAddress target, int size, int batch,
+                             long[] sent) throws IOException {
+        byte[] payload = new byte[size];
+        ByteBuffer[] buffers = new ByteBuffer[batch];
+        SocketAddress[] targets = new SocketAddress[batch];
+        for (int i = 0; i < batch; i++) {
+            buffers[i] = ByteBuffer.allocateDirect(size);
+            targets[i] = target;
+        }
+        long count = 0;
+        while (running) {
+            for (ByteBuffer b : buffers) {
+                b.clear();
+                b.put(payload).flip();
+            }
+            if (batch == 1)
+                count += sender.send(buffers[0], target) > 0 ? 1 : 0;
+            else
+                count += sender.send(buffers, 0, batch, targets);
+            // 接收端处理不过来时让出 CPU，减少丢包
+            Thread.yield();
+        }
+        sent[0] = count;
+    }
+}
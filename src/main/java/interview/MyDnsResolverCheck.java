@@ -0,0 +1,225 @@
+package interview;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.DnsResolver;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用回环地址上的桩 DNS 服务器检查 {@link DnsResolver}：TTL 缓存、提前刷新、
+ * 同名查询合并、CNAME、否定缓存、超时与换服务器、只有一个地址族应答的情况，
+ * 以及缓存的条目上限。
+ *
+ * 桩服务器按名字的前缀决定怎么应答：{@code nx} 开头返回 NXDOMAIN（SOA 最小 TTL 为 1 秒），
+ * {@code alias} 开头返回指向 {@code target.example} 的 CNAME，{@code v4only} 开头不应答
+ * AAAA 查询，{@code drop} 开头什么都不应答；其余名字的 A 记录为 10.0.0.n，n 是这个名字
+ * 被查询 A 记录的次数，TTL 为 3 秒，AAAA 记录固定为 fd00::1。
+ *
+ * 用法：{@code MyDnsResolverCheck}，全部通过时退出码为 0。
+ *
+ * @author Silence_w
+ */
+public class MyDnsResolverCheck {
+
+    private static final int TYPE_A = 1;
+    private static final int TYPE_AAAA = 28;
+    private static final int TTL = 3;
+
+    /** 每个 “名字/类型” 被查询的次数 */
+    private static final Map<String, AtomicInteger> queries = new ConcurrentHashMap<>();
+    private static volatile long delayMillis;
+    private static int failures;
+
+    public static void main(String[] args) throws Exception {
+        DatagramSocket server = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        DatagramSocket silent = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        Thread t = new Thread(() -> serve(server));
+        t.setDaemon(true);
+        t.start();
+        InetSocketAddress live = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getLocalPort());
+        InetSocketAddress dead = new InetSocketAddress(InetAddress.getLoopbackAddress(), silent.getLocalPort());
+
+        try (DnsResolver r = new DnsResolver(Arrays.asList(live), 300, TimeUnit.MILLISECONDS, 1000)) {
+            check("A 和 AAAA 一起返回", resolve(r, "www.example"), "10.0.0.1", "fd00:0:0:0:0:0:0:1");
+            long cachedAt = System.currentTimeMillis();
+            resolve(r, "WWW.example.");
+            check("大小写和结尾的点不影响缓存", count("www.example", TYPE_A) == 1);
+
+            delayMillis = 200;
+            List<CompletableFuture<InetAddress[]>> fs = new ArrayList<>();
+            for (int i = 0; i < 50; i++)
+                fs.add(r.resolve("merge.example"));
+            for (CompletableFuture<InetAddress[]> f : fs)
+                f.get();
+            delayMillis = 0;
+            check("50 个并发查询合并成一次", count("merge.example", TYPE_A) == 1);
+
+            // TTL 的五分之四过后再查，返回旧地址，同时在后台刷新
+            sleepUntil(cachedAt + TTL * 1000 * 9 / 10);
+            check("提前刷新时仍返回缓存的地址", resolve(r, "www.example"), "10.0.0.1", "fd00:0:0:0:0:0:0:1");
+            Thread.sleep(200);
+            check("刷新后返回新地址", resolve(r, "www.example"), "10.0.0.2", "fd00:0:0:0:0:0:0:1");
+
+            sleepUntil(System.currentTimeMillis() + TTL * 1000 + 200);
+            check("过期后重新查询", resolve(r, "www.example"), "10.0.0.3", "fd00:0:0:0:0:0:0:1");
+
+            check("跟随 CNAME", resolve(r, "alias.example"), "10.0.0.9", "fd00:0:0:0:0:0:0:9");
+
+            for (int i = 0; i < 3; i++)
+                check("不存在的名字解析失败", fails(r, "nx.example"));
+            check("不存在的名字按 SOA 缓存", count("nx.example", TYPE_A) == 1);
+            Thread.sleep(1200);
+            fails(r, "nx.example");
+            check("否定缓存过期后重新查询", count("nx.example", TYPE_A) == 2);
+
+            check("地址字面量不发查询", resolve(r, "1.2.3.4"), "1.2.3.4");
+        }
+
+        try (DnsResolver r = new DnsResolver(Arrays.asList(dead, live), 200, TimeUnit.MILLISECONDS, 10)) {
+            check("第一个服务器不应答时换下一个", resolve(r, "failover.example"), "10.0.0.1", "fd00:0:0:0:0:0:0:1");
+            check("AAAA 超时时只用 A 记录", resolve(r, "v4only.example"), "10.0.0.1");
+            check("所有查询都超时时解析失败", fails(r, "drop.example"));
+            for (int i = 0; i < 100; i++)
+                resolve(r, "h" + i + ".example");
+            check("缓存条目有上限", r.getCacheSize() <= 16);
+        }
+
+        System.out.println(failures == 0 ? "全部通过" : failures + " 项失败");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+
+    private static void sleepUntil(long millis) throws InterruptedException {
+        long d = millis - System.currentTimeMillis();
+        if (d > 0)
+            Thread.sleep(d);
+    }
+
+    private static InetAddress[] resolve(DnsResolver r, String name) throws Exception {
+        return r.resolve(name).get();
+    }
+
+    private static boolean fails(DnsResolver r, String name) throws InterruptedException {
+        try {
+            r.resolve(name).get();
+            return false;
+        } catch (ExecutionException e) {
+            return true;
+        }
+    }
+
+    private static int count(String name, int type) {
+        AtomicInteger n = queries.get(name + "/" + type);
+        return (n == null) ? 0 : n.get();
+    }
+
+    private static void check(String what, InetAddress[] addresses, String... expected) {
+        String[] actual = new String[addresses.length];
+        for (int i = 0; i < addresses.length; i++)
+            actual[i] = addresses[i].getHostAddress();
+        check(what + " " + Arrays.toString(actual), Arrays.equals(actual, expected));
+    }
+
+    private static void check(String what, boolean ok) {
+        System.out.println((ok ? "通过：" : "失败：") + what);
+        if (!ok)
+            failures++;
+    }
+
+    // -- 桩服务器 --
+
+    private static void serve(DatagramSocket socket) {
+        byte[] buf = new byte[512];
+        try {
+            while (true) {
+                DatagramPacket p = new DatagramPacket(buf, buf.length);
+                socket.receive(p);
+                ByteBuffer reply = answer(ByteBuffer.wrap(p.getData(), 0, p.getLength()));
+                if (reply != null)
+                    socket.send(new DatagramPacket(reply.array(), reply.position(), p.getSocketAddress()));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static ByteBuffer answer(ByteBuffer q) throws InterruptedException {
+        int id = q.getShort(0) & 0xffff;
+        q.position(12);
+        String name = readName(q);
+        int type = q.getShort() & 0xffff;
+        q.getShort();
+        int questionEnd = q.position();
+        int n = queries.computeIfAbsent(name + "/" + type, k -> new AtomicInteger()).incrementAndGet();
+        if (name.startsWith("drop") || (name.startsWith("v4only") && type == TYPE_AAAA))
+            return null;
+        if (delayMillis > 0)
+            Thread.sleep(delayMillis);
+
+        boolean nx = name.startsWith("nx");
+        ByteBuffer r = ByteBuffer.allocate(512);
+        r.putShort((short) id);
+        r.putShort((short) (0x8180 | (nx ? 3 : 0)));   // 应答、期望递归、可以递归
+        r.putShort((short) 1);
+        int countsAt = r.position();
+        r.putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        r.put(q.array(), 12, questionEnd - 12);
+        if (nx) {
+            // 权威部分放一条 SOA，最小 TTL 为 1 秒
+            r.putShort(countsAt + 2, (short) 1);
+            r.putShort((short) 0xc00c).putShort((short) 6).putShort((short) 1).putInt(100);
+            int lengthAt = r.position();
+            r.putShort((short) 0);
+            r.put(new byte[] { 2, 'n', 's', 0, 1, 'h', 0 });
+            r.putInt(1).putInt(1).putInt(1).putInt(1).putInt(1);
+            r.putShort(lengthAt, (short) (r.position() - lengthAt - 2));
+        } else if (name.startsWith("alias")) {
+            r.putShort(countsAt, (short) 2);
+            r.putShort((short) 0xc00c).putShort((short) 5).putShort((short) 1).putInt(TTL);
+            byte[] target = { 6, 't', 'a', 'r', 'g', 'e', 't', 7, 'e', 'x', 'a', 'm', 'p', 'l', 'e', 0 };
+            r.putShort((short) target.length);
+            int targetAt = r.position();
+            r.put(target);
+            r.putShort((short) (0xc000 | targetAt)).putShort((short) type).putShort((short) 1).putInt(TTL);
+            putAddress(r, type, 9);
+        } else {
+            r.putShort(countsAt, (short) 1);
+            r.putShort((short) 0xc00c).putShort((short) type).putShort((short) 1).putInt(TTL);
+            putAddress(r, type, (type == TYPE_A) ? n : 1);
+        }
+        return r;
+    }
+
+    private static void putAddress(ByteBuffer r, int type, int last) {
+        if (type == TYPE_A) {
+            r.putShort((short) 4).put(new byte[] { 10, 0, 0, (byte) last });
+        } else {
+            byte[] a = new byte[16];
+            a[0] = (byte) 0xfd;
+            a[15] = (byte) last;
+            r.putShort((short) 16).put(a);
+        }
+    }
+
+    private static String readName(ByteBuffer b) {
+        StringBuilder sb = new StringBuilder();
+        int len;
+        while ((len = b.get() & 0xff) != 0) {
+            if (sb.length() > 0)
+                sb.append('.');
+            for (int i = 0; i < len; i++)
+                sb.append((char) b.get());
+        }
+        return sb.toString();
+    }
+}
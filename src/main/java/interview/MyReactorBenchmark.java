@@ -0,0 +1,114 @@
+package interview;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * {@link MyReactorServer} 的压测客户端：先建立全部连接并保持，
+ * 再在所有连接上同时发送一行，等待每个连接收到回显并被服务器关闭。
+ *
+ * 用法：{@code MyReactorBenchmark [连接数，默认 100000] [服务器端口，默认 6789]}。
+ * 每个回环地址 127.0.0.x 最多建立 {@value #CONNECTIONS_PER_ADDRESS} 个连接，
+ * 以免耗尽本地端口；服务器和客户端进程都需要足够大的文件描述符上限（ulimit -n）。
+ *
+ * @author Silence_w
+ */
+public class MyReactorBenchmark {
+
+    private static final int CONNECTIONS_PER_ADDRESS = 20000;
+    private static final int MAX_PENDING_CONNECTS = 1000;
+
+    private static class Client {
+        final ByteBuffer out;
+        final ByteBuffer in;
+
+        Client(int id) {
+            out = ByteBuffer.wrap(("hello " + id + "\n").getBytes(StandardCharsets.US_ASCII));
+            in = ByteBuffer.allocate(out.capacity() + 1);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int connections = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : 6789;
+        SocketChannel[] channels = new SocketChannel[connections];
+
+        try (Selector selector = Selector.open()) {
+            // 建立连接，最多同时进行 MAX_PENDING_CONNECTS 个
+            long start = System.nanoTime();
+            int opened = 0;
+            int connected = 0;
+            while (connected < connections) {
+                while (opened < connections && opened - connected < MAX_PENDING_CONNECTS) {
+                    SocketChannel ch = SocketChannel.open();
+                    ch.configureBlocking(false);
+                    String host = "127.0.0." + (1 + opened / CONNECTIONS_PER_ADDRESS);
+                    if (ch.connect(new InetSocketAddress(host, port)))
+                        connected++;
+                    else
+                        ch.register(selector, SelectionKey.OP_CONNECT);
+                    channels[opened++] = ch;
+                }
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    ((SocketChannel) key.channel()).finishConnect();
+                    key.interestOps(0);
+                    connected++;
+                }
+                selector.selectedKeys().clear();
+            }
+            long connectNanos = System.nanoTime() - start;
+            System.out.printf("%d 个连接建立完成，用时 %d ms%n", connections, connectNanos / 1000000);
+
+            // 所有连接同时发送一行并等待回显
+            start = System.nanoTime();
+            for (int i = 0; i < connections; i++) {
+                Client c = new Client(i);
+                channels[i].write(c.out);
+                int ops = c.out.hasRemaining() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+                SelectionKey key = channels[i].keyFor(selector);
+                if (key == null)
+                    channels[i].register(selector, ops, c);
+                else {
+                    key.attach(c);
+                    key.interestOps(ops);
+                }
+            }
+            int done = 0;
+            int failed = 0;
+            while (done < connections) {
+                selector.select();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    SocketChannel ch = (SocketChannel) key.channel();
+                    Client c = (Client) key.attachment();
+                    if (key.isWritable()) {
+                        ch.write(c.out);
+                        if (!c.out.hasRemaining())
+                            key.interestOps(SelectionKey.OP_READ);
+                    } else if (ch.read(c.in) < 0 || !c.in.hasRemaining()) {
+                        c.in.flip();
+                        c.out.flip();
+                        if (!c.in.equals(c.out))
+                            failed++;
+                        ch.close();
+                        done++;
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+            long echoNanos = System.nanoTime() - start;
+            System.out.printf("%d 个请求完成，失败 %d 个，用时 %d ms，%.0f 请求/秒%n",
+                    connections, failed, echoNanos / 1000000, connections * 1e9 / echoNanos);
+        } finally {
+            for (SocketChannel ch : channels) {
+                if (ch != null)
+                    ch.close();
+            }
+        }
+    }
+}
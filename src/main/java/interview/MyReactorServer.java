@@ -0,0 +1,45 @@
+package interview;
+
+import interview.reactor.Connection;
+import interview.reactor.ConnectionHandler;
+import interview.reactor.ReactorServer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 用 {@link ReactorServer} 实现的 {@link MySocketServer}：协议相同，
+ * 读一行、原样返回、关闭连接，但不再为每个连接创建一个线程。
+ *
+ * @author Silence_w
+ */
+public class MyReactorServer {
+
+    private static final int ECHO_SERVER_PORT = 6789;
+
+    public static void main(String[] args) throws IOException {
+        new ReactorServer(ECHO_SERVER_PORT, new EchoHandler()).start();
+        System.out.println("服务器已经启动");
+    }
+
+    static class EchoHandler implements ConnectionHandler {
+        @Override
+        public void read(Connection connection, ByteBuffer in) throws IOException {
+            int end = -1;
+            for (int i = in.position(); i < in.limit(); i++) {
+                if (in.get(i) == '\n') {
+                    end = i + 1;
+                    break;
+                }
+            }
+            if (end < 0)
+                return;             // 一行还没收完
+            // 连接数很多时逐行打印会成为瓶颈，这里不再像 MySocketServer 那样打印收到的内容
+            ByteBuffer line = in.duplicate();
+            line.limit(end);
+            in.position(in.limit());
+            connection.write(line);
+            connection.closeAfterWrite();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package interview.reactor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.DirectBufferPool;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+
+/**
+ * reactor 上的一个连接。
+ *
+ * 读写缓冲区都从 {@link DirectBufferPool} 借用：读缓冲区只在有未消费的字节时保留，
+ * 写缓冲区只在 socket 发送缓冲区满、还有字节没写出去时保留，其余时间都归还给池。
+ * 所以大量空闲连接几乎不占用缓冲区内存。
+ *
+ * 除了 {@link #attach} 和 {@link #attachment} 以外，方法只能在 reactor 线程中调用，
+ * 也就是在 {@link ConnectionHandler} 的回调里调用。
+ *
+ * @author Silence_w
+ */
+public final class Connection {
+
+    static final int BUFFER_SIZE = 4096;
+
+    private final SocketChannel channel;
+    private final ConnectionHandler handler;
+    private SelectionKey key;
+    private ByteBuffer readBuffer;
+    private final ArrayDeque<ByteBuffer> pendingWrites = new ArrayDeque<>(2);
+    private boolean closeAfterWrite;
+    private volatile Object attachment;
+
+    Connection(SocketChannel channel, ConnectionHandler handler) {
+        this.channel = channel;
+        this.handler = handler;
+    }
+
+    public SocketChannel channel() {
+        return channel;
+    }
+
+    public Object attach(Object attachment) {
+        Object old = this.attachment;
+        this.attachment = attachment;
+        return old;
+    }
+
+    public Object attachment() {
+        return attachment;
+    }
+
+    /**
+     * 发送 {@code src} 中剩余的字节。能立即写出的直接写出，
+     * 其余的复制到写缓冲区，等 socket 可写时再发送。
+     */
+    public void write(ByteBuffer src) throws IOException {
+        if (pendingWrites.isEmpty()) {
+            channel.write(src);
+            if (!src.hasRemaining())
+                return;
+        }
+        while (src.hasRemaining()) {
+            ByteBuffer last = pendingWrites.peekLast();
+            if (last == null || !last.hasRemaining()) {
+                last = DirectBufferPool.allocate(BUFFER_SIZE);
+                pendingWrites.addLast(last);
+            }
+            int n = Math.min(src.remaining(), last.remaining());
+            ByteBuffer chunk = src.duplicate();
+            chunk.limit(chunk.position() + n);
+            last.put(chunk);
+            src.position(src.position() + n);
+        }
+        key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * 已经交给 {@link #write} 的字节全部发送完之后关闭连接。
+     */
+    public void closeAfterWrite() {
+        if (pendingWrites.isEmpty())
+            close();
+        else
+            closeAfterWrite = true;
+    }
+
+    public void close() {
+        if (!channel.isOpen())
+            return;
+        try {
+            channel.close();
+        } catch (IOException ignore) {
+        }
+        if (readBuffer != null) {
+            DirectBufferPool.release(readBuffer);
+            readBuffer = null;
+        }
+        ByteBuffer b;
+        while ((b = pendingWrites.pollFirst()) != null)
+            DirectBufferPool.release(b);
+        handler.closed(this);
+    }
+
+    void register(SelectionKey key) throws IOException {
+        this.key = key;
+        handler.connected(this);
+    }
+
+    void handleRead() throws IOException {
+        if (readBuffer == null)
+            readBuffer = DirectBufferPool.allocate(BUFFER_SIZE);
+        ByteBuffer in = readBuffer;
+        if (channel.read(in) < 0) {
+            close();
+            return;
+        }
+        in.flip();
+        handler.read(this, in);
+        if (readBuffer == null)
+            return;                 // 处理器关闭了连接
+        if (!in.hasRemaining()) {
+            readBuffer = null;
+            DirectBufferPool.release(in);
+        } else {
+            in.compact();
+            // 缓冲区已满而处理器仍不消费，再读下去只会空转
+            if (!in.hasRemaining())
+                close();
+        }
+    }
+
+    void handleWrite() throws IOException {
+        ByteBuffer b;
+        while ((b = pendingWrites.peekFirst()) != null) {
+            b.flip();
+            channel.write(b);
+            if (b.hasRemaining()) {
+                b.compact();
+                return;
+            }
+            pendingWrites.pollFirst();
+            DirectBufferPool.release(b);
+        }
+        key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+        if (closeAfterWrite)
+            close();
+    }
+}
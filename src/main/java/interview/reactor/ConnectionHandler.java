@@ -0,0 +1,30 @@
+package interview.reactor;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 连接事件的回调，由连接所属 reactor 的线程调用，同一个连接的回调不会并发执行。
+ *
+ * @author Silence_w
+ */
+public interface ConnectionHandler {
+
+    /**
+     * 连接被 reactor 接管后调用。
+     */
+    default void connected(Connection connection) throws IOException {
+    }
+
+    /**
+     * 收到数据时调用。{@code in} 已经 flip，包含上次未消费的字节和新读到的字节；
+     * 没有消费完的字节会保留到下一次调用。
+     */
+    void read(Connection connection, ByteBuffer in) throws IOException;
+
+    /**
+     * 连接关闭后调用。
+     */
+    default void closed(Connection connection) {
+    }
+}
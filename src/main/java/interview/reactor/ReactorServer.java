@@ -0,0 +1,182 @@
+package interview.reactor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 基于 Selector 的多 reactor 服务器：一个 acceptor 线程接受连接，
+ * 按轮询的方式分给每个 CPU 核一个的 reactor 线程，之后这个连接的所有读写都在
+ * 同一个 reactor 线程里完成，不需要加锁。
+ *
+ * reactor 用 {@link Selector#select(java.util.function.Consumer, long)} 把就绪的
+ * key 收集到一个复用的数组里再逐个处理，不用自己遍历、清理 selectedKeys。注意默认实现
+ * 仍然先把 key 加进 selectedKeys 的 HashSet，每个就绪的 key 都会分配一个节点，
+ * 只有覆盖了这个方法的 Selector 实现才能做到每次唤醒不产生垃圾。
+ *
+ * @author Silence_w
+ */
+public class ReactorServer implements Closeable {
+
+    private static final int BACKLOG = 4096;
+
+    private final ServerSocketChannel server;
+    private final Reactor[] reactors;
+    private final Thread acceptor;
+    private volatile boolean closed;
+
+    public ReactorServer(int port, ConnectionHandler handler) throws IOException {
+        this(port, handler, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ReactorServer(int port, ConnectionHandler handler, int reactorCount) throws IOException {
+        if (reactorCount <= 0)
+            throw new IllegalArgumentException("reactorCount: " + reactorCount);
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), BACKLOG);
+        reactors = new Reactor[reactorCount];
+        for (int i = 0; i < reactorCount; i++)
+            reactors[i] = new Reactor("reactor-" + i, handler);
+        acceptor = new Thread(this::accept, "acceptor");
+    }
+
+    public ReactorServer start() {
+        for (Reactor r : reactors)
+            r.start();
+        acceptor.start();
+        return this;
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        server.close();
+        for (Reactor r : reactors)
+            r.shutdown();
+    }
+
+    private void accept() {
+        int next = 0;
+        while (!closed) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+            } catch (ClosedChannelException e) {
+                break;
+            } catch (IOException e) {
+                // 例如文件描述符耗尽，稍后重试
+                e.printStackTrace();
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException ie) {
+                    break;
+                }
+                continue;
+            }
+            reactors[next].add(channel);
+            if (++next == reactors.length)
+                next = 0;
+        }
+    }
+
+    private static final class Reactor extends Thread {
+        private final Selector selector;
+        private final ConnectionHandler handler;
+        private final ConcurrentLinkedQueue<SocketChannel> pending = new ConcurrentLinkedQueue<>();
+        private SelectionKey[] ready = new SelectionKey[256];
+        private int readyCount;
+        private volatile boolean closed;
+
+        Reactor(String name, ConnectionHandler handler) throws IOException {
+            super(name);
+            this.selector = Selector.open();
+            this.handler = handler;
+        }
+
+        void add(SocketChannel channel) {
+            pending.add(channel);
+            selector.wakeup();
+        }
+
+        void shutdown() {
+            closed = true;
+            selector.wakeup();
+        }
+
+        private void collect(SelectionKey key) {
+            if (readyCount == ready.length)
+                ready = Arrays.copyOf(ready, readyCount << 1);
+            ready[readyCount++] = key;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    selector.select(this::collect, 0);
+                    for (int i = 0; i < readyCount; i++) {
+                        SelectionKey key = ready[i];
+                        ready[i] = null;
+                        process(key);
+                    }
+                    readyCount = 0;
+                    registerPending();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                for (SelectionKey key : selector.keys())
+                    ((Connection) key.attachment()).close();
+                SocketChannel channel;
+                while ((channel = pending.poll()) != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException ignore) {
+                    }
+                }
+                try {
+                    selector.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel channel;
+            while ((channel = pending.poll()) != null) {
+                Connection c = new Connection(channel, handler);
+                try {
+                    channel.configureBlocking(false);
+                    channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    c.register(channel.register(selector, SelectionKey.OP_READ, c));
+                } catch (IOException e) {
+                    c.close();
+                }
+            }
+        }
+
+        private void process(SelectionKey key) {
+            Connection c = (Connection) key.attachment();
+            try {
+                if (key.isValid() && key.isReadable())
+                    c.handleRead();
+                if (key.isValid() && key.isWritable())
+                    c.handleWrite();
+            } catch (IOException e) {
+                c.close();
+            }
+        }
+    }
+}
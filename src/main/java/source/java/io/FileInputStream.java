@@ -404,6 +404,57 @@ class FileInputStream extends InputStream
         }
     }
 
+    /**
+     * Reads all bytes from this input stream and writes the bytes to the
+     * given output stream in the order that they are read.
+     *
+     * <p> If the output stream is a {@link FileOutputStream}, including the
+     * output stream of a {@link java.net.Socket Socket}, then the bytes
+     * remaining in the file are handed to {@link FileChannel#transferTo
+     * FileChannel.transferTo}, which lets the operating system move them
+     * directly between the descriptors (for example with {@code sendfile} or
+     * {@code copy_file_range}) rather than copying them through a buffer on
+     * the Java heap. Otherwise, and for any bytes appended to the file during
+     * the transfer, the bytes are copied as by {@link InputStream#transferTo}.
+     *
+     * @param  out the output stream, non-null
+     * @return the number of bytes transferred
+     * @throws IOException if an I/O error occurs when reading or writing
+     * @throws NullPointerException if {@code out} is {@code null}
+     *
+     * @since 1.8
+     */
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        long transferred = 0;
+        FileChannel src;
+        if (out instanceof FileOutputStream && (src = getChannel()) != null) {
+            FileOutputStream fos = (FileOutputStream) out;
+            FileChannel dst = fos.getChannel();
+            // Socket streams have no channel of their own, so write to the
+            // socket through a channel that does not own its descriptor
+            if (dst == null && fos.getFD().valid())
+                dst = FileChannelImpl.open(fos.getFD(), null, false, true, null);
+            if (dst != null) {
+                long pos = src.position();
+                long start = pos;
+                try {
+                    long size;
+                    while (pos < (size = src.size())) {
+                        long n = src.transferTo(pos, size - pos, dst);
+                        if (n <= 0)
+                            break;
+                        pos += n;
+                    }
+                } finally {
+                    src.position(pos);
+                }
+                transferred = pos - start;
+            }
+        }
+        return transferred + super.transferTo(out);
+    }
+
     private static native void initIDs();
 
     private native void close0() throws IOException;
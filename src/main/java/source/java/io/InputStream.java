@@ -51,6 +51,9 @@ public abstract class InputStream implements Closeable {
     //使用的最大缓冲区大小。
     private static final int MAX_SKIP_BUFFER_SIZE = 2048;
 
+    // Size of the buffer through which transferTo copies by default
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
     /**
      * Reads the next byte of data from the input stream. The value byte is
      * returned as an <code>int</code> in the range <code>0</code> to
@@ -426,4 +429,45 @@ public abstract class InputStream implements Closeable {
         return false;
     }
 
+    /**
+     * Reads all bytes from this input stream and writes the bytes to the
+     * given output stream in the order that they are read. On return, this
+     * input stream will be at end of stream. This method does not close either
+     * stream.
+     *
+     * <p> This method may block indefinitely reading from the input stream, or
+     * writing to the output stream. The behavior for the case where the input
+     * and/or output stream is <i>asynchronously closed</i>, or the thread
+     * interrupted during the transfer, is highly input and output stream
+     * specific, and therefore not specified.
+     *
+     * <p> If an I/O error occurs reading from the input stream or writing to
+     * the output stream, then it may do so after some bytes have been read or
+     * written. Consequently the input stream may not be at end of stream and
+     * one, or both, streams may be in an inconsistent state.
+     *
+     * <p> Subclasses are encouraged to override this method when the bytes
+     * can be moved without passing through the Java heap, as {@link
+     * FileInputStream} does when writing to a file or socket.
+     *
+     * @param  out the output stream, non-null
+     * @return the number of bytes transferred
+     * @throws IOException if an I/O error occurs when reading or writing
+     * @throws NullPointerException if {@code out} is {@code null}
+     *
+     * @since 1.8
+     */
+    public long transferTo(OutputStream out) throws IOException {
+        if (out == null)
+            throw new NullPointerException("out");
+        long transferred = 0;
+        byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+        int read;
+        while ((read = read(buffer, 0, TRANSFER_BUFFER_SIZE)) >= 0) {
+            out.write(buffer, 0, read);
+            transferred += read;
+        }
+        return transferred;
+    }
+
 }
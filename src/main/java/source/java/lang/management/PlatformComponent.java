@@ -25,6 +25,7 @@
 
 package java.lang.management;
 
+import java.nio.DirectBufferPool;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -32,6 +33,8 @@ import java.util.HashSet;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.SynchronizerContentionMXBean;
 import javax.management.MBeanServerConnection;
 import javax.management.ObjectName;
 
@@ -212,7 +215,23 @@ enum PlatformComponent {
         false, // zero or more instances
         new MXBeanFetcher<BufferPoolMXBean>() {
             public List<BufferPoolMXBean> getMXBeans() {
-                return ManagementFactoryHelper.getBufferPoolMXBeans();
+                List<BufferPoolMXBean> pools =
+                    new ArrayList<>(ManagementFactoryHelper.getBufferPoolMXBeans());
+                pools.add(DirectBufferPool.getBufferPoolMXBean());
+                return pools;
+            }
+        }),
+
+    /**
+     * Contention on java.util.concurrent synchronizers.
+     */
+    SYNCHRONIZER_CONTENTION(
+        "java.util.concurrent.locks.SynchronizerContentionMXBean",
+        "java.util.concurrent.locks", "SynchronizerContention", defaultKeyProperties(),
+        true, // singleton
+        new MXBeanFetcher<SynchronizerContentionMXBean>() {
+            public List<SynchronizerContentionMXBean> getMXBeans() {
+                return Collections.singletonList(AbstractQueuedSynchronizer.getContentionMXBean());
             }
         }),
 
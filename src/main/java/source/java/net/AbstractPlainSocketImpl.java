@@ -29,6 +29,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.FileDescriptor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
 
 import sun.net.ConnectionResetException;
 import sun.net.NetHooks;
@@ -406,12 +409,51 @@ abstract class AbstractPlainSocketImpl extends SocketImpl
     protected void accept(SocketImpl s) throws IOException {
         acquireFD();
         try {
-            socketAccept(s);
+            if (Thread.currentThread() instanceof ForkJoinWorkerThread)
+                managedAccept(s);
+            else
+                socketAccept(s);
         } finally {
             releaseFD();
         }
     }
 
+    /**
+     * Accepts a connection through {@link ForkJoinPool#managedBlock},
+     * so that the pool of the calling worker thread may activate a
+     * spare thread while this one is blocked.  If the pool has reached
+     * its limit of spare threads, the accept simply blocks.
+     */
+    private void managedAccept(final SocketImpl s) throws IOException {
+        final IOException[] failure = new IOException[1];
+        ForkJoinPool.ManagedBlocker blocker = new ForkJoinPool.ManagedBlocker() {
+            boolean done;
+            public boolean block() {
+                if (!done) {
+                    try {
+                        socketAccept(s);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                    done = true;
+                }
+                return true;
+            }
+            public boolean isReleasable() {
+                return done;
+            }
+        };
+        try {
+            ForkJoinPool.managedBlock(blocker);
+        } catch (InterruptedException ie) { // not thrown by block()
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException ree) {
+            blocker.block();    // no spare thread may be activated
+        }
+        if (failure[0] != null)
+            throw failure[0];
+    }
+
     /**
      * Gets an InputStream for this socket.
      */
@@ -0,0 +1,1435 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.net;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * An asynchronous HTTP/1.1 client.
+ *
+ * <p> {@link #send send} returns at once with a {@link CompletableFuture}
+ * that completes when the response headers have been received, so no thread
+ * waits while the server is slow to respond.  Request and response bodies
+ * are streams of {@link ByteBuffer}s published through {@link Flow}: the
+ * request body is read from its publisher only as fast as it can be written
+ * to the connection, and the response body is read from the connection only
+ * as fast as its subscriber requests it.
+ *
+ * <p> Connections are made with {@link AsynchronousSocketChannel}s in the
+ * client's channel group and kept in a pool shared by all requests sent with
+ * the client.  Each route, that is destination host and port, has at most a
+ * given number of open connections; further requests to the route wait for
+ * a connection to be released.  A connection is released when the response
+ * body has been consumed, and is closed if it has been idle for the
+ * keep-alive time.  A request that fails on a reused connection before any
+ * part of the response has been received, which happens when the server has
+ * closed the idle connection, is retried once on a new connection if its
+ * method is idempotent.
+ *
+ * <p> Unless the request sets its own {@code Accept-Encoding} header, the
+ * client asks for {@code gzip} content and decodes it transparently with an
+ * {@link Inflater} that reads directly from the buffers received from the
+ * connection.
+ *
+ * <p> The body of a response must be consumed, or its subscription
+ * cancelled, or the connection is never released.  The futures and the body
+ * subscribers are completed and called by the threads of the channel group,
+ * so they should not block.  Only the {@code http} scheme is supported.
+ *
+ * @see HttpConnectionPool
+ * @since 1.8
+ */
+public final class AsyncHttpClient implements Closeable {
+
+    /** The size of the buffers that responses are read into */
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+
+    /** The size of the buffers that gzip content is inflated into */
+    private static final int INFLATE_BUFFER_SIZE = 16 * 1024;
+
+    /** The longest response head accepted */
+    private static final int MAX_HEAD_LENGTH = 64 * 1024;
+
+    private final int maxConnectionsPerRoute;
+    private final long keepAliveNanos;
+    private final AsynchronousChannelGroup group;
+
+    // All state below is guarded by this client
+    private final Map<String, Route> routes = new HashMap<>();
+    private Thread evictor;
+    private boolean closed;
+
+    /**
+     * Creates a client that uses the default channel group, with up to eight
+     * connections per route and a keep-alive time of five seconds.
+     */
+    public AsyncHttpClient() {
+        this(8, 5, TimeUnit.SECONDS, null);
+    }
+
+    /**
+     * Creates a client.
+     *
+     * @param  maxConnectionsPerRoute
+     *         The maximum number of open connections per route
+     * @param  keepAlive
+     *         The time for which an idle connection is kept open
+     * @param  unit
+     *         The unit of {@code keepAlive}
+     * @param  group
+     *         The group in which connections are opened, or {@code null}
+     *         for the default group
+     *
+     * @throws IllegalArgumentException
+     *         If {@code maxConnectionsPerRoute} is not positive or {@code
+     *         keepAlive} is negative
+     */
+    public AsyncHttpClient(int maxConnectionsPerRoute, long keepAlive, TimeUnit unit,
+                           AsynchronousChannelGroup group) {
+        if (maxConnectionsPerRoute <= 0 || keepAlive < 0)
+            throw new IllegalArgumentException();
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.keepAliveNanos = unit.toNanos(keepAlive);
+        this.group = group;
+    }
+
+    /**
+     * Sends a request.
+     *
+     * @param  request
+     *         The request, which must not be modified afterwards
+     *
+     * @return A future that completes with the response once its headers
+     *         have been received, or exceptionally if the request fails
+     */
+    public CompletableFuture<Response> send(Request request) {
+        CompletableFuture<Response> result = new CompletableFuture<>();
+        new Exchange(request, result, false).start();
+        return result;
+    }
+
+    /**
+     * Returns a publisher of the given bytes, suitable as a request body.
+     * The publisher may be subscribed to any number of times.
+     *
+     * @param  body
+     *         The bytes, which must not be modified afterwards
+     *
+     * @return The publisher
+     */
+    public static Flow.Publisher<ByteBuffer> bodyOf(byte[] body) {
+        return subscriber -> {
+            AtomicInteger state = new AtomicInteger();   // 0 new, 1 sent, 2 done
+            subscriber.onSubscribe(new Flow.Subscription() {
+                public void request(long n) {
+                    if (n <= 0 && state.getAndSet(2) != 2) {
+                        subscriber.onError(new IllegalArgumentException("non-positive request"));
+                    } else if (state.compareAndSet(0, 1)) {
+                        if (body.length > 0)
+                            subscriber.onNext(ByteBuffer.wrap(body).asReadOnlyBuffer());
+                        if (state.compareAndSet(1, 2))
+                            subscriber.onComplete();
+                    }
+                }
+                public void cancel() {
+                    state.set(2);
+                }
+            });
+        };
+    }
+
+    /**
+     * Returns the number of open connections, in use or idle.
+     *
+     * @return The number of open connections
+     */
+    public synchronized int getOpenCount() {
+        int n = 0;
+        for (Route r : routes.values())
+            n += r.open;
+        return n;
+    }
+
+    /**
+     * Returns the number of idle connections.
+     *
+     * @return The number of idle connections
+     */
+    public synchronized int getIdleCount() {
+        int n = 0;
+        for (Route r : routes.values())
+            n += r.idle.size();
+        return n;
+    }
+
+    /**
+     * Closes this client.  Idle connections are closed, requests waiting for
+     * a connection fail, and connections in use are closed when released.
+     */
+    @Override
+    public void close() {
+        List<Conn> idle = new ArrayList<>();
+        List<CompletableFuture<Conn>> waiters = new ArrayList<>();
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            for (Route r : routes.values()) {
+                idle.addAll(r.idle);
+                r.open -= r.idle.size();
+                r.idle.clear();
+                waiters.addAll(r.waiters);
+                r.waiters.clear();
+            }
+            if (evictor != null)
+                evictor.interrupt();
+        }
+        for (Conn c : idle)
+            c.close();
+        for (CompletableFuture<Conn> w : waiters)
+            w.completeExceptionally(new IOException("Client closed"));
+    }
+
+    // -- Connection pool --
+
+    private static final class Route {
+        final String host;
+        final int port;
+        final ArrayDeque<Conn> idle = new ArrayDeque<>();
+        final ArrayDeque<CompletableFuture<Conn>> waiters = new ArrayDeque<>();
+        int open;
+
+        Route(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+    }
+
+    private static final class Conn {
+        final Route route;
+        final AsynchronousSocketChannel channel;
+        boolean reused;
+        long idleSince;
+
+        Conn(Route route, AsynchronousSocketChannel channel) {
+            this.route = route;
+            this.channel = channel;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    /**
+     * Acquires a connection to the host and port of the request: the most
+     * recently used idle connection unless {@code fresh} is true, otherwise
+     * a new connection if the route is below its limit, otherwise the next
+     * connection released.
+     */
+    private CompletableFuture<Conn> acquire(Request request, boolean fresh) {
+        CompletableFuture<Conn> f = new CompletableFuture<>();
+        Route r;
+        Conn c = null;
+        Conn expired = null;
+        boolean connect = false;
+        synchronized (this) {
+            if (closed) {
+                f.completeExceptionally(new IOException("Client closed"));
+                return f;
+            }
+            String key = request.host.toLowerCase() + ":" + request.port;
+            r = routes.get(key);
+            if (r == null)
+                routes.put(key, r = new Route(request.host, request.port));
+            if (fresh && r.open >= maxConnectionsPerRoute && !r.idle.isEmpty()) {
+                expired = r.idle.pollLast();
+                r.open--;
+            }
+            if (!fresh)
+                c = r.idle.pollFirst();
+            if (c != null) {
+                c.reused = true;
+            } else if (r.open < maxConnectionsPerRoute) {
+                r.open++;
+                connect = true;
+            } else {
+                r.waiters.add(f);
+            }
+        }
+        if (expired != null)
+            expired.close();
+        if (c != null)
+            f.complete(c);
+        else if (connect)
+            connect(r, f);
+        return f;
+    }
+
+    /**
+     * Opens a connection for which the route's open count has already been
+     * incremented.
+     */
+    private void connect(Route r, CompletableFuture<Conn> f) {
+        AsynchronousSocketChannel ch;
+        try {
+            ch = AsynchronousSocketChannel.open(group);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException | RuntimeException e) {
+            connectFailed(r);
+            f.completeExceptionally(e);
+            return;
+        }
+        InetSocketAddress address = new InetSocketAddress(r.host, r.port);
+        if (address.isUnresolved()) {
+            try {
+                ch.close();
+            } catch (IOException ignore) {
+            }
+            connectFailed(r);
+            f.completeExceptionally(new UnknownHostException(r.host));
+            return;
+        }
+        ch.connect(address, null, new CompletionHandler<Void,Void>() {
+            public void completed(Void v, Void att) {
+                f.complete(new Conn(r, ch));
+            }
+            public void failed(Throwable exc, Void att) {
+                try {
+                    ch.close();
+                } catch (IOException ignore) {
+                }
+                connectFailed(r);
+                f.completeExceptionally(exc);
+            }
+        });
+    }
+
+    private void connectFailed(Route r) {
+        CompletableFuture<Conn> waiter;
+        synchronized (this) {
+            r.open--;
+            waiter = r.waiters.poll();
+            if (waiter != null)
+                r.open++;
+        }
+        if (waiter != null)
+            connect(r, waiter);
+    }
+
+    /**
+     * Releases a connection once an exchange is over, handing it to a
+     * waiting request or keeping it idle if it may be reused, and otherwise
+     * closing it and opening a new connection for a waiting request.
+     */
+    private void release(Conn c, boolean reusable) {
+        Route r = c.route;
+        CompletableFuture<Conn> waiter;
+        boolean keep = false;
+        synchronized (this) {
+            waiter = r.waiters.poll();
+            if (reusable && !closed) {
+                keep = true;
+                if (waiter == null) {
+                    c.idleSince = System.nanoTime();
+                    r.idle.addFirst(c);
+                    if (evictor == null) {
+                        evictor = new Thread(this::evictIdle, "AsyncHttpClient-Evictor");
+                        evictor.setDaemon(true);
+                        evictor.start();
+                    }
+                }
+            } else {
+                r.open--;
+                if (waiter != null)
+                    r.open++;
+            }
+        }
+        if (keep) {
+            if (waiter != null) {
+                c.reused = true;
+                waiter.complete(c);
+            }
+        } else {
+            c.close();
+            if (waiter != null)
+                connect(r, waiter);
+        }
+    }
+
+    /**
+     * Closes idle connections once their keep-alive time has elapsed, until
+     * no idle connections remain.
+     */
+    private void evictIdle() {
+        long sleep = Math.max(TimeUnit.NANOSECONDS.toMillis(keepAliveNanos) / 2, 1L);
+        List<Conn> expired = new ArrayList<>();
+        for (;;) {
+            try {
+                Thread.sleep(sleep);
+            } catch (InterruptedException e) {
+                // closed
+            }
+            boolean done;
+            synchronized (this) {
+                long now = System.nanoTime();
+                boolean remaining = false;
+                for (Iterator<Route> it = routes.values().iterator(); it.hasNext(); ) {
+                    Route r = it.next();
+                    Conn c;
+                    while ((c = r.idle.peekLast()) != null
+                           && (closed || now - c.idleSince >= keepAliveNanos)) {
+                        r.idle.pollLast();
+                        r.open--;
+                        expired.add(c);
+                    }
+                    if (!r.idle.isEmpty())
+                        remaining = true;
+                    else if (r.open == 0 && r.waiters.isEmpty())
+                        it.remove();
+                }
+                done = !remaining;
+                if (done)
+                    evictor = null;
+            }
+            for (Conn c : expired)
+                c.close();
+            expired.clear();
+            if (done)
+                return;
+        }
+    }
+
+    // -- Exchanges --
+
+    /**
+     * A request and its response on one connection.  The request is written
+     * first, its body as it is published; the response head is then read
+     * and the response completed; and the body is read as it is requested,
+     * after which the connection is released.
+     */
+    private final class Exchange {
+        final Request request;
+        final CompletableFuture<Response> result;
+        final boolean retry;
+        Conn conn;
+        boolean failed;
+        final LineReader lines = new LineReader();
+        ByteBuffer in;                  // unconsumed input, in read mode
+        boolean received;               // whether any response bytes arrived
+        int headLength;
+        String status;
+        final Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+        Exchange(Request request, CompletableFuture<Response> result, boolean retry) {
+            this.request = request;
+            this.result = result;
+            this.retry = retry;
+        }
+
+        void start() {
+            acquire(request, retry).whenComplete((c, exc) -> {
+                if (exc != null) {
+                    result.completeExceptionally(exc);
+                } else {
+                    conn = c;
+                    writeHead();
+                }
+            });
+        }
+
+        /**
+         * Fails the exchange, closing the connection, and retries it on a new
+         * connection if the failure is probably due to a stale connection.
+         */
+        void fail(Throwable exc) {
+            if (failed)
+                return;
+            failed = true;
+            boolean again = conn.reused && !received && !retry && request.isIdempotent();
+            release(conn, false);
+            if (again)
+                new Exchange(request, result, true).start();
+            else
+                result.completeExceptionally(exc);
+        }
+
+        void write(ByteBuffer[] srcs, Runnable next) {
+            startWrite(srcs, new CompletionHandler<Long,Void>() {
+                public void completed(Long n, Void att) {
+                    for (ByteBuffer b : srcs) {
+                        if (b.hasRemaining()) {
+                            startWrite(srcs, this);
+                            return;
+                        }
+                    }
+                    next.run();
+                }
+                public void failed(Throwable exc, Void att) {
+                    fail(exc);
+                }
+            });
+        }
+
+        /**
+         * Starts a write, failing the handler if the channel refuses it, for
+         * example because its group has been shut down.
+         */
+        private void startWrite(ByteBuffer[] srcs, CompletionHandler<Long,Void> handler) {
+            try {
+                conn.channel.write(srcs, 0, srcs.length, 0L, TimeUnit.MILLISECONDS, null, handler);
+            } catch (RuntimeException e) {
+                handler.failed(e, null);
+            }
+        }
+
+        void writeHead() {
+            ByteBuffer head = ByteBuffer.wrap(request.head().getBytes(StandardCharsets.ISO_8859_1));
+            if (request.body == null)
+                write(new ByteBuffer[] { head }, this::readHead);
+            else
+                write(new ByteBuffer[] { head }, () -> request.body.subscribe(new BodyWriter()));
+        }
+
+        /**
+         * Writes the request body as it is published, one buffer at a time,
+         * in chunks if its length is unknown.
+         */
+        final class BodyWriter implements Flow.Subscriber<ByteBuffer> {
+            Flow.Subscription subscription;
+            long written;
+            boolean done;
+
+            public void onSubscribe(Flow.Subscription subscription) {
+                (this.subscription = subscription).request(1);
+            }
+
+            public void onNext(ByteBuffer item) {
+                if (done)
+                    return;
+                long length = request.contentLength;
+                written += item.remaining();
+                if (length >= 0 && written > length) {
+                    onError(new IOException("Body longer than Content-Length"));
+                    subscription.cancel();
+                    return;
+                }
+                if (!item.hasRemaining()) {
+                    subscription.request(1);
+                } else if (length >= 0) {
+                    write(new ByteBuffer[] { item }, () -> subscription.request(1));
+                } else {
+                    ByteBuffer size = ascii(Integer.toHexString(item.remaining()) + "\r\n");
+                    write(new ByteBuffer[] { size, item, ascii("\r\n") },
+                          () -> subscription.request(1));
+                }
+            }
+
+            public void onError(Throwable throwable) {
+                if (done)
+                    return;
+                done = true;
+                fail(throwable);
+            }
+
+            public void onComplete() {
+                if (done)
+                    return;
+                done = true;
+                long length = request.contentLength;
+                if (length < 0)
+                    write(new ByteBuffer[] { ascii("0\r\n\r\n") }, Exchange.this::readHead);
+                else if (written < length)
+                    fail(new IOException("Body shorter than Content-Length"));
+                else
+                    readHead();
+            }
+        }
+
+        /**
+         * Reads more input, keeping the unconsumed input.  A fresh buffer is
+         * used each time, since buffers already read may have been handed on
+         * as slices of the response body.  The handler is failed if the
+         * channel refuses the read.
+         */
+        void read(CompletionHandler<Integer,Void> handler) {
+            int leftover = (in == null) ? 0 : in.remaining();
+            ByteBuffer buf = ByteBuffer.allocate(Math.max(READ_BUFFER_SIZE, leftover << 1));
+            if (leftover > 0)
+                buf.put(in);
+            in = buf;
+            try {
+                conn.channel.read(buf, null, handler);
+            } catch (RuntimeException e) {
+                handler.failed(e, null);
+            }
+        }
+
+        void readHead() {
+            read(new CompletionHandler<Integer,Void>() {
+                public void completed(Integer n, Void att) {
+                    in.flip();
+                    if (n < 0) {
+                        fail(new EOFException("Connection closed by server"));
+                        return;
+                    }
+                    received = true;
+                    headLength += n;
+                    Response r;
+                    try {
+                        r = parseHead();
+                    } catch (IOException e) {
+                        fail(e);
+                        return;
+                    }
+                    if (r == null) {
+                        if (headLength > MAX_HEAD_LENGTH)
+                            fail(new ProtocolException("Response head too long"));
+                        else
+                            readHead();
+                        return;
+                    }
+                    result.complete(r);
+                }
+                public void failed(Throwable exc, Void att) {
+                    fail(exc);
+                }
+            });
+        }
+
+        /**
+         * Parses as much of the response head as has been read, returning the
+         * response once a final status and all headers have been parsed.
+         */
+        Response parseHead() throws IOException {
+            String line;
+            while ((line = lines.read(in)) != null) {
+                if (status == null) {
+                    if (!line.startsWith("HTTP/1.") || line.length() < 12
+                            || line.charAt(8) != ' ')
+                        throw new ProtocolException("Malformed status line: " + line);
+                    status = line;
+                    continue;
+                }
+                if (!line.isEmpty()) {
+                    int colon = line.indexOf(':');
+                    if (colon <= 0)
+                        throw new ProtocolException("Malformed header: " + line);
+                    String name = line.substring(0, colon).trim();
+                    List<String> values = headers.get(name);
+                    if (values == null)
+                        headers.put(name, values = new ArrayList<>(1));
+                    values.add(line.substring(colon + 1).trim());
+                    continue;
+                }
+                int code;
+                try {
+                    code = Integer.parseInt(status.substring(9, 12));
+                } catch (NumberFormatException e) {
+                    throw new ProtocolException("Malformed status line: " + status);
+                }
+                if (code >= 100 && code < 200 && code != 101) {
+                    // interim response
+                    status = null;
+                    headers.clear();
+                    continue;
+                }
+                return newResponse(code);
+            }
+            return null;
+        }
+
+        Response newResponse(int code) throws IOException {
+            String reason = (status.length() > 13) ? status.substring(13) : "";
+            Map<String, List<String>> h = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            h.putAll(headers);
+            String connection = first(h, "Connection");
+            boolean keepAlive = (status.charAt(7) == '0')
+                ? "keep-alive".equalsIgnoreCase(connection)
+                : !"close".equalsIgnoreCase(connection);
+            Framing framing;
+            String te = first(h, "Transfer-Encoding");
+            String cl = first(h, "Content-Length");
+            if (request.method.equals("HEAD") || code < 200 || code == 204 || code == 304) {
+                framing = new Framing(0L);
+                if (code == 101)
+                    keepAlive = false;
+            } else if (te != null && te.toLowerCase().endsWith("chunked")) {
+                framing = new Framing(-1L);
+            } else if (cl != null) {
+                try {
+                    framing = new Framing(Long.parseLong(cl));
+                } catch (NumberFormatException e) {
+                    throw new ProtocolException("Malformed Content-Length: " + cl);
+                }
+            } else {
+                framing = null;
+                keepAlive = false;
+            }
+            GzipDecoder gzip = null;
+            if (request.decodeGzip && (framing == null || !framing.isDone())) {
+                String ce = first(h, "Content-Encoding");
+                if (ce != null && (ce.equalsIgnoreCase("gzip") || ce.equalsIgnoreCase("x-gzip")))
+                    gzip = new GzipDecoder();
+            }
+            BodyReader body = new BodyReader(framing, gzip, keepAlive);
+            if (framing != null && framing.isDone()) {
+                // nothing to read, so release the connection at once
+                body.finish();
+            }
+            return new Response(code, reason, h, body);
+        }
+
+        /**
+         * Publishes the response body, reading from the connection only while
+         * the subscriber has outstanding demand.  Calls to the subscriber are
+         * serialized by a work-in-progress count.
+         */
+        final class BodyReader implements Flow.Publisher<ByteBuffer>, Flow.Subscription {
+            final Framing framing;      // null if delimited by end of stream
+            final GzipDecoder gzip;
+            final boolean keepAlive;
+            final AtomicInteger wip = new AtomicInteger();
+            final AtomicLong demand = new AtomicLong();
+            Flow.Subscriber<? super ByteBuffer> subscriber;
+            ByteBuffer encoded;         // body bytes not yet inflated
+            volatile Throwable error;
+            volatile boolean cancelled;
+            volatile boolean eof;
+            volatile boolean reading;
+            boolean finished;
+            boolean terminated;
+
+            BodyReader(Framing framing, GzipDecoder gzip, boolean keepAlive) {
+                this.framing = framing;
+                this.gzip = gzip;
+                this.keepAlive = keepAlive;
+            }
+
+            public void subscribe(Flow.Subscriber<? super ByteBuffer> s) {
+                synchronized (this) {
+                    if (subscriber != null) {
+                        s.onSubscribe(new Flow.Subscription() {
+                            public void request(long n) { }
+                            public void cancel() { }
+                        });
+                        s.onError(new IllegalStateException("Body already subscribed"));
+                        return;
+                    }
+                    subscriber = s;
+                }
+                s.onSubscribe(this);
+                pump();
+            }
+
+            public void request(long n) {
+                if (n <= 0) {
+                    error = new IllegalArgumentException("non-positive request");
+                } else {
+                    long d, nd;
+                    do {
+                        d = demand.get();
+                        nd = d + n;
+                        if (nd < 0)
+                            nd = Long.MAX_VALUE;
+                    } while (!demand.compareAndSet(d, nd));
+                }
+                pump();
+            }
+
+            public void cancel() {
+                cancelled = true;
+                pump();
+            }
+
+            void pump() {
+                if (wip.getAndIncrement() != 0)
+                    return;
+                do {
+                    drain();
+                } while (wip.decrementAndGet() != 0);
+            }
+
+            private void drain() {
+                if (subscriber == null)
+                    return;
+                while (!terminated) {
+                    if (cancelled) {
+                        terminated = true;
+                        finish(false);
+                        return;
+                    }
+                    Throwable exc = error;
+                    if (exc != null) {
+                        terminated = true;
+                        finish(false);
+                        subscriber.onError(exc);
+                        return;
+                    }
+                    if (reading || demand.get() == 0L)
+                        return;
+                    ByteBuffer next;
+                    try {
+                        next = decode();
+                    } catch (IOException e) {
+                        error = e;
+                        continue;
+                    }
+                    if (next != null) {
+                        demand.decrementAndGet();
+                        subscriber.onNext(next);
+                        continue;
+                    }
+                    if (isDone()) {
+                        terminated = true;
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    if (eof) {
+                        error = new EOFException("Connection closed by server");
+                        continue;
+                    }
+                    reading = true;
+                    read(new CompletionHandler<Integer,Void>() {
+                            public void completed(Integer n, Void att) {
+                                in.flip();
+                                if (n < 0)
+                                    eof = true;
+                                reading = false;
+                                pump();
+                            }
+                            public void failed(Throwable exc, Void att) {
+                                error = exc;
+                                reading = false;
+                                pump();
+                            }
+                        });
+                    return;
+                }
+            }
+
+            private boolean isDone() {
+                boolean framed = (framing == null) ? eof && !in.hasRemaining()
+                                                   : framing.isDone();
+                return framed && (gzip == null || gzip.isDone());
+            }
+
+            /**
+             * Returns the next non-empty buffer of the body, or null if more
+             * input is needed or the body is complete.
+             */
+            private ByteBuffer decode() throws IOException {
+                for (;;) {
+                    if (encoded == null || !encoded.hasRemaining()) {
+                        encoded = (framing == null) ? sliceAll(in) : framing.next(in, lines);
+                        if (encoded == null)
+                            return null;
+                    }
+                    if (gzip == null) {
+                        ByteBuffer b = encoded;
+                        encoded = null;
+                        if (b.hasRemaining())
+                            return b;
+                        continue;
+                    }
+                    ByteBuffer b = gzip.decode(encoded);
+                    if (b != null)
+                        return b;
+                    if (gzip.isDone() && encoded.hasRemaining())
+                        throw new ZipException("Trailing data after gzip content");
+                }
+            }
+
+            void finish() {
+                finish(keepAlive && !in.hasRemaining());
+            }
+
+            private void finish(boolean reusable) {
+                if (finished)
+                    return;
+                finished = true;
+                if (gzip != null)
+                    gzip.end();
+                release(conn, reusable);
+            }
+        }
+    }
+
+    private static ByteBuffer sliceAll(ByteBuffer in) {
+        if (!in.hasRemaining())
+            return null;
+        ByteBuffer b = in.slice();
+        in.position(in.limit());
+        return b;
+    }
+
+    private static ByteBuffer ascii(String s) {
+        return ByteBuffer.wrap(s.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    private static String first(Map<String, List<String>> headers, String name) {
+        List<String> values = headers.get(name);
+        return (values == null) ? null : values.get(0);
+    }
+
+    /**
+     * Reads CRLF or LF terminated lines from successive buffers.
+     */
+    private static final class LineReader {
+        private final StringBuilder line = new StringBuilder(64);
+
+        /**
+         * Returns the next complete line, consuming it, or null if the buffer
+         * ends first, in which case the partial line is kept.
+         */
+        String read(ByteBuffer in) throws ProtocolException {
+            while (in.hasRemaining()) {
+                char c = (char) (in.get() & 0xff);
+                if (c == '\n') {
+                    int len = line.length();
+                    if (len > 0 && line.charAt(len - 1) == '\r')
+                        line.setLength(len - 1);
+                    String s = line.toString();
+                    line.setLength(0);
+                    return s;
+                }
+                if (line.length() == MAX_HEAD_LENGTH)
+                    throw new ProtocolException("Line too long");
+                line.append(c);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Extracts the body bytes from the input according to a Content-Length,
+     * or the chunked transfer coding if the length is negative, as slices of
+     * the input buffers.
+     */
+    private static final class Framing {
+        private static final int SIZE = 0, DATA = 1, DATA_END = 2, TRAILER = 3, DONE = 4;
+
+        private final boolean chunked;
+        private long remaining;
+        private int state;
+
+        Framing(long length) {
+            chunked = length < 0;
+            remaining = chunked ? 0L : length;
+            state = chunked ? SIZE : (length == 0 ? DONE : DATA);
+        }
+
+        boolean isDone() {
+            return state == DONE;
+        }
+
+        ByteBuffer next(ByteBuffer in, LineReader lines) throws IOException {
+            for (;;) {
+                switch (state) {
+                case DATA:
+                    int n = (int) Math.min(remaining, in.remaining());
+                    if (n == 0)
+                        return null;
+                    ByteBuffer b = in.slice();
+                    b.limit(n);
+                    in.position(in.position() + n);
+                    if ((remaining -= n) == 0)
+                        state = chunked ? DATA_END : DONE;
+                    return b;
+                case SIZE:
+                    String size = lines.read(in);
+                    if (size == null)
+                        return null;
+                    int semi = size.indexOf(';');
+                    try {
+                        remaining = Long.parseLong(
+                            ((semi < 0) ? size : size.substring(0, semi)).trim(), 16);
+                    } catch (NumberFormatException e) {
+                        throw new ProtocolException("Malformed chunk size: " + size);
+                    }
+                    if (remaining < 0)
+                        throw new ProtocolException("Malformed chunk size: " + size);
+                    state = (remaining == 0) ? TRAILER : DATA;
+                    break;
+                case DATA_END:
+                    String end = lines.read(in);
+                    if (end == null)
+                        return null;
+                    if (!end.isEmpty())
+                        throw new ProtocolException("Missing chunk terminator");
+                    state = SIZE;
+                    break;
+                case TRAILER:
+                    String trailer = lines.read(in);
+                    if (trailer == null)
+                        return null;
+                    if (trailer.isEmpty())
+                        state = DONE;
+                    break;
+                default:
+                    return null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Decodes a gzip member (RFC 1952) from successive buffers.  The
+     * inflater reads directly from the arrays of the input buffers and
+     * inflates directly into the buffers it returns.
+     */
+    private static final class GzipDecoder {
+        private static final int FHCRC = 2, FEXTRA = 4, FNAME = 8, FCOMMENT = 16;
+        private static final int HEADER = 0, EXTRA_LENGTH = 1, EXTRA = 2, NAME = 3,
+            COMMENT = 4, HEADER_CRC = 5, DATA = 6, TRAILER = 7, DONE = 8;
+
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private final byte[] fields = new byte[10];
+        private int state = HEADER;
+        private int count;              // bytes of the current field read
+        private int need;               // bytes of the current field needed
+        private int flags;
+
+        boolean isDone() {
+            return state == DONE;
+        }
+
+        /**
+         * Consumes input, returning inflated data, or null once the input is
+         * exhausted or the member is complete.
+         */
+        ByteBuffer decode(ByteBuffer src) throws IOException {
+            while (state != DONE) {
+                if (state == DATA) {
+                    ByteBuffer out = inflate(src);
+                    if (out != null || state != TRAILER)
+                        return out;
+                    continue;
+                }
+                if (!src.hasRemaining())
+                    return null;
+                int b = src.get() & 0xff;
+                switch (state) {
+                case HEADER:
+                    fields[count++] = (byte) b;
+                    if (count < 10)
+                        break;
+                    if ((fields[0] & 0xff) != 0x1f || (fields[1] & 0xff) != 0x8b)
+                        throw new ZipException("Not in GZIP format");
+                    if (fields[2] != 8)
+                        throw new ZipException("Unsupported compression method");
+                    flags = fields[3];
+                    next(EXTRA_LENGTH);
+                    break;
+                case EXTRA_LENGTH:
+                    need |= b << (8 * count++);
+                    if (count == 2) {
+                        int length = need;
+                        count = 0;
+                        state = EXTRA;
+                        need = length;
+                        if (need == 0)
+                            next(NAME);
+                    }
+                    break;
+                case EXTRA:
+                    if (++count == need)
+                        next(NAME);
+                    break;
+                case NAME:
+                    if (b == 0)
+                        next(COMMENT);
+                    break;
+                case COMMENT:
+                    if (b == 0)
+                        next(HEADER_CRC);
+                    break;
+                case HEADER_CRC:
+                    if (++count == 2)
+                        next(DATA);
+                    break;
+                case TRAILER:
+                    fields[count++] = (byte) b;
+                    if (count == 8) {
+                        if (le32(0) != (int) crc.getValue())
+                            throw new ZipException("Corrupt GZIP trailer");
+                        if (le32(4) != (int) inflater.getBytesWritten())
+                            throw new ZipException("Corrupt GZIP trailer");
+                        end();
+                        state = DONE;
+                    }
+                    break;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Moves on to the given field, skipping the optional fields absent
+         * from the header.
+         */
+        private void next(int field) {
+            count = 0;
+            need = 0;
+            if (field == EXTRA_LENGTH && (flags & FEXTRA) == 0)
+                field = NAME;
+            if (field == NAME && (flags & FNAME) == 0)
+                field = COMMENT;
+            if (field == COMMENT && (flags & FCOMMENT) == 0)
+                field = HEADER_CRC;
+            if (field == HEADER_CRC && (flags & FHCRC) == 0)
+                field = DATA;
+            state = field;
+        }
+
+        void end() {
+            inflater.end();
+        }
+
+        /**
+         * Inflates from the source buffer, whose unread bytes are always the
+         * input held by the inflater.
+         */
+        private ByteBuffer inflate(ByteBuffer src) throws IOException {
+            if (inflater.needsInput()) {
+                if (!src.hasRemaining())
+                    return null;
+                inflater.setInput(src.array(), src.arrayOffset() + src.position(),
+                                  src.remaining());
+            }
+            byte[] out = new byte[INFLATE_BUFFER_SIZE];
+            int n;
+            try {
+                n = inflater.inflate(out);
+            } catch (DataFormatException e) {
+                String s = e.getMessage();
+                throw new ZipException(s != null ? s : "Invalid ZLIB data format");
+            }
+            crc.update(out, 0, n);
+            src.position(src.limit() - inflater.getRemaining());
+            if (inflater.finished()) {
+                // the unused input begins the trailer
+                state = TRAILER;
+                count = 0;
+            } else if (n == 0 && inflater.needsDictionary()) {
+                throw new ZipException("Preset dictionary not supported");
+            }
+            return (n > 0) ? ByteBuffer.wrap(out, 0, n) : null;
+        }
+
+        private int le32(int off) {
+            return (fields[off] & 0xff) | (fields[off + 1] & 0xff) << 8
+                | (fields[off + 2] & 0xff) << 16 | (fields[off + 3] & 0xff) << 24;
+        }
+    }
+
+    // -- Requests and responses --
+
+    /**
+     * A request to be sent with an {@link AsyncHttpClient}.
+     *
+     * @since 1.8
+     */
+    public static final class Request {
+        final String method;
+        final URI uri;
+        final String host;
+        final int port;
+        private final Map<String, List<String>> headers = new LinkedHashMap<>();
+        Flow.Publisher<ByteBuffer> body;
+        long contentLength = -1L;
+        boolean decodeGzip = true;
+
+        /**
+         * Creates a request without a body.
+         *
+         * @param  method
+         *         The request method, for example {@code "GET"}
+         * @param  uri
+         *         The absolute {@code http} URI
+         *
+         * @throws IllegalArgumentException
+         *         If the method is not a token, or the URI is not an absolute
+         *         {@code http} URI with a host
+         */
+        public Request(String method, URI uri) {
+            checkToken(method);
+            if (!"http".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null)
+                throw new IllegalArgumentException("Not an http URI: " + uri);
+            this.method = method;
+            this.uri = uri;
+            this.host = uri.getHost();
+            this.port = (uri.getPort() == -1) ? 80 : uri.getPort();
+        }
+
+        /**
+         * Adds a header value.
+         *
+         * @param  name
+         *         The header name
+         * @param  value
+         *         The value
+         *
+         * @return This request
+         *
+         * @throws IllegalArgumentException
+         *         If the name is not a token, or the value contains a line
+         *         break or a character outside ISO-8859-1, or the header is
+         *         one the client sets itself
+         */
+        public Request header(String name, String value) {
+            checkToken(name);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\r' || c == '\n' || c > 0xff)
+                    throw new IllegalArgumentException("Illegal header value: " + value);
+            }
+            if (name.equalsIgnoreCase("Host") || name.equalsIgnoreCase("Content-Length")
+                    || name.equalsIgnoreCase("Transfer-Encoding"))
+                throw new IllegalArgumentException("Restricted header: " + name);
+            if (name.equalsIgnoreCase("Accept-Encoding"))
+                decodeGzip = false;
+            List<String> values = headers.get(name);
+            if (values == null)
+                headers.put(name, values = new ArrayList<>(1));
+            values.add(value);
+            return this;
+        }
+
+        /**
+         * Sets the body.
+         *
+         * @param  body
+         *         The publisher of the body, which will be subscribed to once
+         *         for each time the request is sent
+         * @param  contentLength
+         *         The number of bytes the publisher will publish, or {@code
+         *         -1} if unknown, in which case the body is sent in chunks
+         *
+         * @return This request
+         */
+        public Request body(Flow.Publisher<ByteBuffer> body, long contentLength) {
+            if (contentLength < -1L)
+                throw new IllegalArgumentException("contentLength: " + contentLength);
+            this.body = body;
+            this.contentLength = contentLength;
+            return this;
+        }
+
+        /**
+         * Sets the body to the given bytes.
+         *
+         * @param  body
+         *         The bytes, which must not be modified afterwards
+         *
+         * @return This request
+         */
+        public Request body(byte[] body) {
+            return body(bodyOf(body), body.length);
+        }
+
+        boolean isIdempotent() {
+            switch (method) {
+            case "GET": case "HEAD": case "PUT": case "DELETE":
+            case "OPTIONS": case "TRACE":
+                return true;
+            default:
+                return false;
+            }
+        }
+
+        String head() {
+            StringBuilder sb = new StringBuilder(128);
+            String path = uri.getRawPath();
+            sb.append(method).append(' ')
+              .append((path == null || path.isEmpty()) ? "/" : path);
+            if (uri.getRawQuery() != null)
+                sb.append('?').append(uri.getRawQuery());
+            sb.append(" HTTP/1.1\r\nHost: ").append(host);
+            if (port != 80)
+                sb.append(':').append(port);
+            sb.append("\r\n");
+            for (Map.Entry<String, List<String>> e : headers.entrySet())
+                for (String v : e.getValue())
+                    sb.append(e.getKey()).append(": ").append(v).append("\r\n");
+            if (decodeGzip)
+                sb.append("Accept-Encoding: gzip\r\n");
+            if (body != null) {
+                if (contentLength >= 0)
+                    sb.append("Content-Length: ").append(contentLength).append("\r\n");
+                else
+                    sb.append("Transfer-Encoding: chunked\r\n");
+            }
+            return sb.append("\r\n").toString();
+        }
+    }
+
+    private static void checkToken(String s) {
+        if (s.isEmpty())
+            throw new IllegalArgumentException("Empty token");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c <= ' ' || c >= 0x7f || "()<>@,;:\\\"/[]?={}".indexOf(c) >= 0)
+                throw new IllegalArgumentException("Illegal character in token: " + s);
+        }
+    }
+
+    /**
+     * A response received by an {@link AsyncHttpClient}.  The headers are
+     * available at once; the body is published as it is read.
+     *
+     * @since 1.8
+     */
+    public static final class Response {
+        private final int status;
+        private final String reason;
+        private final Map<String, List<String>> headers;
+        private final Flow.Publisher<ByteBuffer> body;
+
+        Response(int status, String reason, Map<String, List<String>> headers,
+                 Flow.Publisher<ByteBuffer> body) {
+            this.status = status;
+            this.reason = reason;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        /**
+         * Returns the status code, for example 200.
+         *
+         * @return The status code
+         */
+        public int getStatusCode() {
+            return status;
+        }
+
+        /**
+         * Returns the reason phrase, for example {@code "OK"}.
+         *
+         * @return The reason phrase, possibly empty
+         */
+        public String getReasonPhrase() {
+            return reason;
+        }
+
+        /**
+         * Returns the first value of the named header, ignoring case.
+         *
+         * @param  name
+         *         The header name
+         *
+         * @return The value, or {@code null} if there is no such header
+         */
+        public String getHeaderField(String name) {
+            return first(headers, name);
+        }
+
+        /**
+         * Returns an unmodifiable map of the header names, ignoring case, to
+         * their values in the order they were received.
+         *
+         * @return The headers
+         */
+        public Map<String, List<String>> getHeaderFields() {
+            return Collections.unmodifiableMap(headers);
+        }
+
+        /**
+         * Returns the publisher of the body, decoded from its transfer coding
+         * and, if the client asked for it, from gzip.  The publisher accepts
+         * a single subscriber, which may keep the buffers it receives.
+         *
+         * @return The body publisher
+         */
+        public Flow.Publisher<ByteBuffer> body() {
+            return body;
+        }
+
+        /**
+         * Subscribes to the body and collects it into a byte array.
+         *
+         * @return A future that completes with the body
+         */
+        public CompletableFuture<byte[]> bodyAsBytes() {
+            CompletableFuture<byte[]> f = new CompletableFuture<>();
+            body.subscribe(new Flow.Subscriber<ByteBuffer>() {
+                final List<ByteBuffer> buffers = new ArrayList<>();
+                int size;
+
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.request(Long.MAX_VALUE);
+                }
+                public void onNext(ByteBuffer item) {
+                    buffers.add(item);
+                    size += item.remaining();
+                }
+                public void onError(Throwable throwable) {
+                    f.completeExceptionally(throwable);
+                }
+                public void onComplete() {
+                    byte[] bytes = new byte[size];
+                    int off = 0;
+                    for (ByteBuffer b : buffers) {
+                        int n = b.remaining();
+                        b.get(bytes, off, n);
+                        off += n;
+                    }
+                    f.complete(bytes);
+                }
+            });
+            return f;
+        }
+    }
+}
@@ -0,0 +1,791 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import sun.net.util.IPAddressUtil;
+
+/**
+ * An asynchronous, caching resolver of host names to addresses that speaks
+ * the DNS protocol (RFC 1035) over UDP itself, rather than calling the
+ * blocking resolver of the operating system.
+ *
+ * <p> {@link #resolve resolve} returns at once with a {@link
+ * CompletableFuture}.  The {@code A} and, unless IPv4 only is preferred,
+ * {@code AAAA} records of the name are queried in parallel from the name
+ * servers, in turn, with a timeout per attempt.  If one of the two queries
+ * fails, the addresses found by the other are used, provided it found any.
+ * All queries are sent and received by a single thread of the resolver, so
+ * slow name servers hold up no other thread.
+ *
+ * <p> Answers are cached for as long as the time-to-live of their records.
+ * Names that do not exist, or have no addresses, are cached for the time
+ * given by the {@code SOA} record of the answer (RFC 2308), or ten seconds
+ * if it has none; failures to reach a name server are not cached.  An entry
+ * that is looked up after four fifths of its time-to-live has elapsed is
+ * refreshed in the background while the cached addresses are still
+ * returned, so that frequently used names do not expire.  Concurrent lookups
+ * of a name that is not cached share a single query.  The cache is divided
+ * into shards with separate locks and a bounded number of entries each,
+ * evicting the least recently used entries.
+ *
+ * <p> The resolver does not consult the hosts file or apply search domains,
+ * and takes the answer of a truncated response as it is, without retrying
+ * over TCP.  Setting the {@code sun.net.spi.nameservice.provider.1} system
+ * property to {@code async} makes {@link InetAddress} look up names with a
+ * default resolver that uses the name servers of the operating system.
+ *
+ * @since 1.8
+ */
+public final class DnsResolver implements Closeable {
+
+    private static final int DNS_PORT = 53;
+    private static final int TYPE_A = 1;
+    private static final int TYPE_CNAME = 5;
+    private static final int TYPE_SOA = 6;
+    private static final int TYPE_AAAA = 28;
+    private static final int CLASS_IN = 1;
+    private static final int RCODE_NXDOMAIN = 3;
+
+    /** The number of cache shards, a power of two */
+    private static final int SHARDS = 16;
+
+    /** The negative time-to-live when an answer carries no SOA record */
+    private static final long DEFAULT_NEGATIVE_TTL = 10;
+
+    /** The number of times each name server is tried */
+    private static final int ATTEMPTS = 2;
+
+    private final List<InetSocketAddress> nameservers;
+    private final long timeoutNanos;
+    private final Shard[] shards;
+    private final boolean ipv4Only;
+    private final boolean preferIPv6;
+    private final Transport transport;
+
+    /**
+     * Creates a resolver that queries the given name servers.
+     *
+     * @param  nameservers
+     *         The name servers, tried in order
+     * @param  timeout
+     *         The time to wait for each attempt
+     * @param  unit
+     *         The unit of {@code timeout}
+     * @param  maxEntries
+     *         The maximum number of names to cache
+     *
+     * @throws IllegalArgumentException
+     *         If there are no name servers, or the timeout or the maximum
+     *         number of entries is not positive
+     * @throws IOException
+     *         If the socket of the resolver cannot be opened
+     */
+    public DnsResolver(List<InetSocketAddress> nameservers, long timeout, TimeUnit unit,
+                       int maxEntries) throws IOException {
+        if (nameservers.isEmpty() || timeout <= 0 || maxEntries <= 0)
+            throw new IllegalArgumentException();
+        for (InetSocketAddress ns : nameservers)
+            if (ns.isUnresolved())
+                throw new IllegalArgumentException("Unresolved name server: " + ns);
+        this.nameservers = new ArrayList<>(nameservers);
+        this.timeoutNanos = unit.toNanos(timeout);
+        this.shards = new Shard[SHARDS];
+        int perShard = Math.max(1, (maxEntries + SHARDS - 1) / SHARDS);
+        for (int i = 0; i < SHARDS; i++)
+            shards[i] = new Shard(perShard);
+        this.ipv4Only = Boolean.parseBoolean(property("java.net.preferIPv4Stack"));
+        this.preferIPv6 = Boolean.parseBoolean(property("java.net.preferIPv6Addresses"));
+        this.transport = new Transport();
+    }
+
+    /**
+     * Creates a resolver that queries the name servers configured for the
+     * operating system, with a timeout of five seconds per attempt and up to
+     * 10000 cached names.
+     *
+     * @throws IOException
+     *         If no name servers are configured, or the socket of the
+     *         resolver cannot be opened
+     */
+    public DnsResolver() throws IOException {
+        this(systemNameservers(), 5, TimeUnit.SECONDS, 10000);
+    }
+
+    private static List<InetSocketAddress> systemNameservers() throws IOException {
+        List<InetSocketAddress> list = new ArrayList<>();
+        for (Object ns : sun.net.dns.ResolverConfiguration.open().nameservers()) {
+            String s = (String) ns;
+            byte[] addr = IPAddressUtil.textToNumericFormatV4(s);
+            if (addr == null)
+                addr = IPAddressUtil.textToNumericFormatV6(s);
+            if (addr != null)
+                list.add(new InetSocketAddress(InetAddress.getByAddress(addr), DNS_PORT));
+        }
+        if (list.isEmpty())
+            throw new IOException("No name servers configured");
+        return list;
+    }
+
+    private static String property(String name) {
+        return AccessController.doPrivileged(
+            (PrivilegedAction<String>) () -> System.getProperty(name));
+    }
+
+    /**
+     * Resolves a host name to its addresses.  An address literal is returned
+     * as it is, without a query.
+     *
+     * @param  host
+     *         The host name
+     *
+     * @return A future that completes with the addresses, or exceptionally
+     *         with an {@link UnknownHostException} if the name cannot be
+     *         resolved
+     */
+    public CompletableFuture<InetAddress[]> resolve(String host) {
+        byte[] literal = IPAddressUtil.textToNumericFormatV4(host);
+        if (literal == null && host.indexOf(':') >= 0) {
+            String h = (host.startsWith("[") && host.endsWith("]"))
+                ? host.substring(1, host.length() - 1) : host;
+            literal = IPAddressUtil.textToNumericFormatV6(h);
+        }
+        if (literal != null) {
+            try {
+                return CompletableFuture.completedFuture(
+                    new InetAddress[] { InetAddress.getByAddress(literal) });
+            } catch (UnknownHostException e) {
+                throw new InternalError(e);
+            }
+        }
+        String name = host.toLowerCase();
+        if (name.endsWith("."))
+            name = name.substring(0, name.length() - 1);
+        if (name.isEmpty() || name.length() > 253)
+            return failed(new UnknownHostException(host));
+        Shard shard = shards[name.hashCode() & (SHARDS - 1)];
+        CompletableFuture<InetAddress[]> result;
+        synchronized (shard) {
+            long now = System.nanoTime();
+            Entry e = shard.get(name);
+            if (e != null && e.isValid(now)) {
+                if (e.lookup == null && now - e.refreshAt >= 0)
+                    e.lookup = lookup(shard, name, e);
+                result = e.result;
+            } else if (e != null && e.lookup != null) {
+                result = e.lookup;
+            } else {
+                if (e == null)
+                    shard.put(name, e = new Entry());
+                e.result = null;
+                result = e.lookup = lookup(shard, name, e);
+            }
+        }
+        return result.thenApply(InetAddress[]::clone);
+    }
+
+    /**
+     * Returns the number of names in the cache, including those cached as
+     * not existing.
+     *
+     * @return The number of cached names
+     */
+    public int getCacheSize() {
+        int n = 0;
+        for (Shard s : shards) {
+            synchronized (s) {
+                n += s.size();
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Closes this resolver.  Lookups in progress fail.
+     */
+    @Override
+    public void close() throws IOException {
+        transport.close();
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable exc) {
+        CompletableFuture<T> f = new CompletableFuture<>();
+        f.completeExceptionally(exc);
+        return f;
+    }
+
+    // -- Cache --
+
+    /**
+     * A cached name.  {@code result} holds the addresses, or the exception
+     * for a name that does not exist, until {@code expiresAt}; {@code
+     * lookup} is the query in progress, if any.
+     */
+    private static final class Entry {
+        CompletableFuture<InetAddress[]> result;
+        CompletableFuture<InetAddress[]> lookup;
+        long expiresAt;
+        long refreshAt;
+
+        boolean isValid(long now) {
+            return result != null && now - expiresAt < 0;
+        }
+    }
+
+    /**
+     * A shard of the cache, in least recently used order.
+     */
+    private static final class Shard extends LinkedHashMap<String, Entry> {
+        private static final long serialVersionUID = 1L;
+        private final int maxEntries;
+
+        Shard(int maxEntries) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries && eldest.getValue().lookup == null;
+        }
+    }
+
+    /**
+     * Starts the queries for a name and arranges for the entry to be
+     * updated with the answer.
+     */
+    private CompletableFuture<InetAddress[]> lookup(Shard shard, String name, Entry e) {
+        CompletableFuture<Answer> first;
+        CompletableFuture<Answer> second = null;
+        if (ipv4Only) {
+            first = query(name, TYPE_A);
+        } else {
+            first = query(name, preferIPv6 ? TYPE_AAAA : TYPE_A);
+            second = query(name, preferIPv6 ? TYPE_A : TYPE_AAAA);
+        }
+        CompletableFuture<Answer> answer = (second == null) ? first
+            : either(first, second);
+        CompletableFuture<InetAddress[]> lookup = new CompletableFuture<>();
+        answer.whenComplete((a, exc) -> {
+            CompletableFuture<InetAddress[]> result;
+            long now = System.nanoTime();
+            synchronized (shard) {
+                e.lookup = null;
+                if (exc != null) {
+                    // keep a refreshed entry until it expires
+                    if (!e.isValid(now) && shard.get(name) == e)
+                        shard.remove(name);
+                    result = failed(unknownHost(name, exc));
+                } else {
+                    if (a.addresses.isEmpty())
+                        result = failed(new UnknownHostException(name));
+                    else
+                        result = CompletableFuture.completedFuture(
+                            a.addresses.toArray(new InetAddress[a.addresses.size()]));
+                    long ttl = TimeUnit.SECONDS.toNanos(a.ttl);
+                    e.result = result;
+                    e.expiresAt = now + ttl;
+                    e.refreshAt = now + ttl / 5 * 4;
+                }
+            }
+            result.whenComplete((addresses, x) -> {
+                if (x != null)
+                    lookup.completeExceptionally(x);
+                else
+                    lookup.complete(addresses);
+            });
+        });
+        return lookup;
+    }
+
+    /**
+     * Combines the answers of the queries for the two address families,
+     * failing only if neither found addresses and at least one failed.
+     */
+    private static CompletableFuture<Answer> either(CompletableFuture<Answer> first,
+                                                    CompletableFuture<Answer> second) {
+        CompletableFuture<Answer> answer = new CompletableFuture<>();
+        first.whenComplete((a, x) -> second.whenComplete((b, y) -> {
+            if (x == null && y == null)
+                answer.complete(Answer.merge(a, b));
+            else if (x == null && !a.addresses.isEmpty())
+                answer.complete(a);
+            else if (y == null && !b.addresses.isEmpty())
+                answer.complete(b);
+            else
+                answer.completeExceptionally((x != null) ? x : y);
+        }));
+        return answer;
+    }
+
+    private static UnknownHostException unknownHost(String name, Throwable exc) {
+        if (exc instanceof java.util.concurrent.CompletionException && exc.getCause() != null)
+            exc = exc.getCause();
+        if (exc instanceof UnknownHostException)
+            return (UnknownHostException) exc;
+        UnknownHostException uhe = new UnknownHostException(name + ": " + exc.getMessage());
+        uhe.initCause(exc);
+        return uhe;
+    }
+
+    // -- Protocol --
+
+    /**
+     * The addresses of an answer, and the time in seconds for which they,
+     * or their absence, may be cached.
+     */
+    private static final class Answer {
+        final List<InetAddress> addresses;
+        final long ttl;
+
+        Answer(List<InetAddress> addresses, long ttl) {
+            this.addresses = addresses;
+            this.ttl = ttl;
+        }
+
+        static Answer merge(Answer a, Answer b) {
+            if (a.addresses.isEmpty())
+                return b.addresses.isEmpty() ? new Answer(a.addresses, Math.min(a.ttl, b.ttl)) : b;
+            if (b.addresses.isEmpty())
+                return a;
+            List<InetAddress> all = new ArrayList<>(a.addresses);
+            all.addAll(b.addresses);
+            return new Answer(all, Math.min(a.ttl, b.ttl));
+        }
+    }
+
+    private CompletableFuture<Answer> query(String name, int type) {
+        CompletableFuture<Answer> f = new CompletableFuture<>();
+        String ascii;
+        byte[] packet;
+        try {
+            ascii = IDN.toASCII(name);
+            packet = encodeQuery(ascii, type);
+        } catch (IllegalArgumentException e) {
+            f.completeExceptionally(new UnknownHostException(name));
+            return f;
+        }
+        transport.submit(new Query(name, ascii, type, packet, f));
+        return f;
+    }
+
+    /**
+     * Encodes a recursive query for the given name and type, leaving the
+     * identifier zero.
+     */
+    private static byte[] encodeQuery(String name, int type) {
+        ByteBuffer b = ByteBuffer.allocate(18 + name.length());
+        b.putShort((short) 0);          // id
+        b.putShort((short) 0x0100);     // RD
+        b.putShort((short) 1);          // QDCOUNT
+        b.putShort((short) 0);
+        b.putShort((short) 0);
+        b.putShort((short) 0);
+        for (String label : name.split("\\.", -1)) {
+            if (label.isEmpty() || label.length() > 63)
+                throw new IllegalArgumentException(name);
+            b.put((byte) label.length());
+            for (int i = 0; i < label.length(); i++)
+                b.put((byte) label.charAt(i));
+        }
+        b.put((byte) 0);
+        b.putShort((short) type);
+        b.putShort((short) CLASS_IN);
+        return b.array();
+    }
+
+    /**
+     * Decodes a response to the given query, or returns null if the
+     * response does not match the query.
+     */
+    private static Answer decode(ByteBuffer b, Query q) throws IOException {
+        try {
+            int flags = b.getShort(2) & 0xffff;
+            if ((flags & 0x8000) == 0)
+                return null;                    // not a response
+            int qd = b.getShort(4) & 0xffff;
+            int an = b.getShort(6) & 0xffff;
+            int ns = b.getShort(8) & 0xffff;
+            b.position(12);
+            if (qd != 1 || !readName(b).equalsIgnoreCase(q.ascii)
+                    || (b.getShort() & 0xffff) != q.type || (b.getShort() & 0xffff) != CLASS_IN)
+                return null;
+            int rcode = flags & 0xf;
+            if (rcode != 0 && rcode != RCODE_NXDOMAIN)
+                throw new IOException("Name server failure, rcode " + rcode);
+
+            // follow the CNAME chain from the queried name
+            Map<String, String> aliases = new HashMap<>();
+            Map<String, List<byte[]>> records = new HashMap<>();
+            long ttl = Long.MAX_VALUE;
+            Map<String, Long> ttls = new HashMap<>();
+            for (int i = 0; i < an; i++) {
+                String owner = readName(b).toLowerCase();
+                int type = b.getShort() & 0xffff;
+                int cls = b.getShort() & 0xffff;
+                long rrTtl = b.getInt() & 0xffffffffL;
+                int length = b.getShort() & 0xffff;
+                int end = b.position() + length;
+                if (cls == CLASS_IN) {
+                    if (type == TYPE_CNAME) {
+                        aliases.put(owner, readName(b).toLowerCase());
+                        ttls.merge(owner, rrTtl, Math::min);
+                    } else if (type == q.type && length == (type == TYPE_A ? 4 : 16)) {
+                        byte[] addr = new byte[length];
+                        b.get(addr);
+                        List<byte[]> list = records.get(owner);
+                        if (list == null)
+                            records.put(owner, list = new ArrayList<>());
+                        list.add(addr);
+                        ttls.merge(owner, rrTtl, Math::min);
+                    }
+                }
+                b.position(end);
+            }
+            String owner = q.ascii.toLowerCase();
+            for (int hops = 0; aliases.containsKey(owner) && hops < 16; hops++) {
+                ttl = Math.min(ttl, ttls.get(owner));
+                owner = aliases.get(owner);
+            }
+            List<byte[]> found = records.get(owner);
+            if (found != null) {
+                ttl = Math.min(ttl, ttls.get(owner));
+                List<InetAddress> addresses = new ArrayList<>(found.size());
+                for (byte[] addr : found)
+                    addresses.add(InetAddress.getByAddress(q.name, addr));
+                return new Answer(addresses, ttl);
+            }
+
+            // negative answer, cached for the SOA's minimum (RFC 2308)
+            long negative = DEFAULT_NEGATIVE_TTL;
+            for (int i = 0; i < ns; i++) {
+                readName(b);
+                int type = b.getShort() & 0xffff;
+                b.getShort();
+                long rrTtl = b.getInt() & 0xffffffffL;
+                int length = b.getShort() & 0xffff;
+                int end = b.position() + length;
+                if (type == TYPE_SOA) {
+                    readName(b);                // MNAME
+                    readName(b);                // RNAME
+                    b.position(b.position() + 16);
+                    long minimum = b.getInt() & 0xffffffffL;
+                    negative = Math.min(rrTtl, minimum);
+                }
+                b.position(end);
+            }
+            return new Answer(Collections.<InetAddress>emptyList(), negative);
+        } catch (RuntimeException e) {
+            // BufferUnderflowException, IllegalArgumentException, ...
+            throw new ProtocolException("Malformed DNS response");
+        }
+    }
+
+    /**
+     * Reads a possibly compressed domain name.
+     */
+    private static String readName(ByteBuffer b) {
+        StringBuilder sb = new StringBuilder(64);
+        int end = -1;
+        int pos = b.position();
+        for (int jumps = 0; ; ) {
+            int len = b.get(pos++) & 0xff;
+            if (len == 0)
+                break;
+            if ((len & 0xc0) == 0xc0) {
+                if (++jumps > 32)
+                    throw new IllegalArgumentException("Compression loop");
+                if (end < 0)
+                    end = pos + 1;
+                pos = ((len & 0x3f) << 8) | (b.get(pos) & 0xff);
+                continue;
+            }
+            if (len > 63)
+                throw new IllegalArgumentException("Bad label length");
+            if (sb.length() > 0)
+                sb.append('.');
+            for (int i = 0; i < len; i++)
+                sb.append((char) (b.get(pos++) & 0xff));
+        }
+        b.position(end < 0 ? pos : end);
+        return sb.toString();
+    }
+
+    // -- Transport --
+
+    private static final class Query {
+        final String name;
+        final String ascii;
+        final int type;
+        final byte[] packet;
+        final CompletableFuture<Answer> future;
+        int id;
+        int attempt;
+        long deadline;
+
+        Query(String name, String ascii, int type, byte[] packet,
+              CompletableFuture<Answer> future) {
+            this.name = name;
+            this.ascii = ascii;
+            this.type = type;
+            this.packet = packet;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Sends queries and receives responses on a single datagram channel, in
+     * a thread of its own, retrying each query on the next name server when
+     * an attempt times out.  Responses are matched to queries by identifier,
+     * source address and question.
+     */
+    private final class Transport implements Runnable {
+        private final DatagramChannel channel;
+        private final Selector selector;
+        private final Thread thread;
+        // unpredictable identifiers, since all queries share one source port
+        private final SecureRandom random = new SecureRandom();
+        private final ArrayDeque<Query> submitted = new ArrayDeque<>();     // guarded by this
+        private final Map<Integer, Query> outstanding = new HashMap<>();   // resolver thread only
+        private final ByteBuffer receiveBuffer = ByteBuffer.allocate(4096);
+        private volatile boolean closed;
+
+        Transport() throws IOException {
+            channel = DatagramChannel.open();
+            try {
+                channel.configureBlocking(false);
+                channel.bind(null);
+                selector = Selector.open();
+                channel.register(selector, SelectionKey.OP_READ);
+            } catch (IOException e) {
+                channel.close();
+                throw e;
+            }
+            thread = new Thread(this, "DnsResolver");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void submit(Query q) {
+            synchronized (this) {
+                if (!closed) {
+                    submitted.add(q);
+                    selector.wakeup();
+                    return;
+                }
+            }
+            q.future.completeExceptionally(new IOException("Resolver closed"));
+        }
+
+        void close() throws IOException {
+            synchronized (this) {
+                closed = true;
+            }
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    long now = System.nanoTime();
+                    long wait = 0L;
+                    for (Query q : outstanding.values()) {
+                        long w = q.deadline - now;
+                        wait = (wait == 0L) ? w : Math.min(wait, w);
+                    }
+                    if (wait < 0L || (wait == 0L && !outstanding.isEmpty()))
+                        selector.selectNow();
+                    else
+                        selector.select(TimeUnit.NANOSECONDS.toMillis(wait + 999_999));
+                    selector.selectedKeys().clear();
+                    receive();
+                    sendSubmitted();
+                    expire();
+                }
+            } catch (IOException | RuntimeException e) {
+                failAll(e);
+            } finally {
+                synchronized (this) {
+                    closed = true;
+                }
+                failAll(new IOException("Resolver closed"));
+                try {
+                    selector.close();
+                    channel.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+
+        private void sendSubmitted() throws IOException {
+            for (;;) {
+                Query q;
+                synchronized (this) {
+                    q = submitted.poll();
+                }
+                if (q == null)
+                    return;
+                int id;
+                do {
+                    id = random.nextInt(0x10000);
+                } while (outstanding.containsKey(id));
+                q.id = id;
+                q.packet[0] = (byte) (id >> 8);
+                q.packet[1] = (byte) id;
+                outstanding.put(id, q);
+                send(q);
+            }
+        }
+
+        private void send(Query q) throws IOException {
+            InetSocketAddress server = nameservers.get(q.attempt % nameservers.size());
+            q.deadline = System.nanoTime() + timeoutNanos;
+            channel.send(ByteBuffer.wrap(q.packet), server);
+        }
+
+        private void receive() throws IOException {
+            SocketAddress source;
+            while ((source = channel.receive(receiveBuffer)) != null) {
+                receiveBuffer.flip();
+                try {
+                    if (receiveBuffer.remaining() < 12)
+                        continue;
+                    int id = receiveBuffer.getShort(0) & 0xffff;
+                    Query q = outstanding.get(id);
+                    if (q == null || !source.equals(
+                            nameservers.get(q.attempt % nameservers.size())))
+                        continue;
+                    Answer a;
+                    try {
+                        a = decode(receiveBuffer, q);
+                    } catch (IOException e) {
+                        // try the next name server
+                        retry(q, e);
+                        continue;
+                    }
+                    if (a != null) {
+                        outstanding.remove(id);
+                        q.future.complete(a);
+                    }
+                } finally {
+                    receiveBuffer.clear();
+                }
+            }
+        }
+
+        private void expire() throws IOException {
+            long now = System.nanoTime();
+            List<Query> timedOut = null;
+            for (Query q : outstanding.values()) {
+                if (now - q.deadline >= 0) {
+                    if (timedOut == null)
+                        timedOut = new ArrayList<>();
+                    timedOut.add(q);
+                }
+            }
+            if (timedOut != null) {
+                for (Query q : timedOut)
+                    retry(q, new SocketTimeoutException("DNS query timed out"));
+            }
+        }
+
+        private void retry(Query q, IOException exc) throws IOException {
+            if (++q.attempt < ATTEMPTS * nameservers.size()) {
+                send(q);
+            } else {
+                outstanding.remove(q.id);
+                q.future.completeExceptionally(exc);
+            }
+        }
+
+        private void failAll(Exception exc) {
+            List<Query> all = new ArrayList<>(outstanding.values());
+            outstanding.clear();
+            synchronized (this) {
+                all.addAll(submitted);
+                submitted.clear();
+            }
+            for (Query q : all)
+                q.future.completeExceptionally(exc);
+        }
+    }
+
+    // -- Default resolver for InetAddress --
+
+    private static volatile DnsResolver defaultResolver;
+
+    /**
+     * Looks up a host with the default resolver, blocking until done, for
+     * the {@code async} name service provider of {@link InetAddress}.
+     */
+    static InetAddress[] lookupAllHostAddr(String host) throws UnknownHostException {
+        DnsResolver r = defaultResolver;
+        if (r == null) {
+            synchronized (DnsResolver.class) {
+                if ((r = defaultResolver) == null) {
+                    try {
+                        defaultResolver = r = new DnsResolver();
+                    } catch (IOException e) {
+                        throw unknownHost(host, e);
+                    }
+                }
+            }
+        }
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                try {
+                    return r.resolve(host).get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw unknownHost(host, e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+}
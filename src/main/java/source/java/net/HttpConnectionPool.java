@@ -0,0 +1,1007 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.net;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded pool of persistent HTTP/1.1 connections, kept per route.
+ *
+ * <p> A <i>route</i> is a destination host and port.  For each route the pool
+ * holds at most {@code maxConnectionsPerRoute} connections at a time, of
+ * which at most {@code maxIdlePerRoute} are kept idle for reuse once
+ * released; {@link #acquire acquire} waits while a route is at its limit.
+ * An idle connection that has not been used for the keep-alive time is
+ * closed, and an idle connection that the server has closed is detected and
+ * discarded before it is handed out again.
+ *
+ * <p> A {@link Connection} supports <i>pipelining</i>: several requests may
+ * be {@link Connection#send sent} before the first response is {@link
+ * Connection#receive received}, and the responses are then received in the
+ * order of the requests.  A burst of requests to one route therefore costs a
+ * single round trip to the server rather than one per request, and no new
+ * TCP handshake while a pooled connection is idle.  Since a server may close
+ * a connection before it has answered all pipelined requests, only
+ * idempotent requests should be pipelined.
+ *
+ * <p> Usage of the pool is reported by the {@code get...Count} methods.
+ *
+ * <p> A pool is safe for use by multiple concurrent threads; a connection
+ * is used by one thread at a time, between {@code acquire} and {@link
+ * Connection#close close}.  The pool speaks plain HTTP; the keep-alive cache
+ * of {@link HttpURLConnection} is separate and is still configured by the
+ * {@code http.keepAlive} and {@code http.maxConnections} properties.
+ *
+ * @since 1.8
+ */
+public final class HttpConnectionPool implements Closeable {
+
+    /** The default keep-alive time, in milliseconds */
+    private static final long DEFAULT_KEEP_ALIVE = 5000;
+
+    /** The longest status or header line accepted */
+    private static final int MAX_LINE_LENGTH = 8192;
+
+    /** The number of connections in a row that {@link #pipeline} lets fail without a response */
+    private static final int MAX_PIPELINE_RETRIES = 3;
+
+    private final int maxConnectionsPerRoute;
+    private final int maxIdlePerRoute;
+    private final long keepAliveNanos;
+    private final int connectTimeout;
+
+    // All state below is guarded by this pool
+    private final Map<String, Route> routes = new HashMap<>();
+    private Thread evictor;
+    private boolean closed;
+    private long createdCount;
+    private long reusedCount;
+    private long evictedCount;
+
+    /**
+     * Creates a pool with the same per-route idle limit as {@link
+     * HttpURLConnection}, given by the {@code http.maxConnections} property
+     * (default 5), no more than four times as many connections per route, and
+     * a keep-alive time of five seconds.
+     */
+    public HttpConnectionPool() {
+        this(4 * maxConnectionsProperty(), maxConnectionsProperty(),
+             DEFAULT_KEEP_ALIVE, TimeUnit.MILLISECONDS, 0);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param  maxConnectionsPerRoute
+     *         The maximum number of connections, leased or idle, per route
+     * @param  maxIdlePerRoute
+     *         The maximum number of idle connections kept per route
+     * @param  keepAlive
+     *         The time for which an idle connection is kept
+     * @param  unit
+     *         The unit of {@code keepAlive}
+     * @param  connectTimeout
+     *         The connect timeout in milliseconds, or zero for none
+     *
+     * @throws IllegalArgumentException
+     *         If {@code maxConnectionsPerRoute} is not positive, or if
+     *         {@code maxIdlePerRoute}, {@code keepAlive} or {@code
+     *         connectTimeout} is negative
+     */
+    public HttpConnectionPool(int maxConnectionsPerRoute, int maxIdlePerRoute,
+                              long keepAlive, TimeUnit unit, int connectTimeout) {
+        if (maxConnectionsPerRoute <= 0 || maxIdlePerRoute < 0 || keepAlive < 0
+                || connectTimeout < 0)
+            throw new IllegalArgumentException();
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.maxIdlePerRoute = Math.min(maxIdlePerRoute, maxConnectionsPerRoute);
+        this.keepAliveNanos = unit.toNanos(keepAlive);
+        this.connectTimeout = connectTimeout;
+    }
+
+    private static int maxConnectionsProperty() {
+        int n = AccessController.doPrivileged(
+            (PrivilegedAction<Integer>) () -> Integer.getInteger("http.maxConnections", 5));
+        return (n > 0) ? n : 5;
+    }
+
+    /**
+     * Acquires a connection to the given host and port, reusing an idle
+     * connection if there is one and otherwise opening a new connection,
+     * and waiting while the route is at its connection limit.
+     *
+     * @param  host
+     *         The host name
+     * @param  port
+     *         The port
+     *
+     * @return The connection
+     *
+     * @throws IOException
+     *         If an I/O error occurs when connecting, or the pool is closed
+     * @throws InterruptedIOException
+     *         If the thread is interrupted while waiting
+     */
+    public Connection acquire(String host, int port) throws IOException {
+        return acquire(host, port, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Acquires a connection to the given host and port, waiting at most the
+     * given time for the route to fall below its connection limit.
+     *
+     * @param  host
+     *         The host name
+     * @param  port
+     *         The port
+     * @param  timeout
+     *         The maximum time to wait, or zero to wait indefinitely
+     * @param  unit
+     *         The unit of {@code timeout}
+     *
+     * @return The connection
+     *
+     * @throws SocketTimeoutException
+     *         If no connection became available in time
+     * @throws IOException
+     *         If an I/O error occurs when connecting, or the pool is closed
+     * @throws InterruptedIOException
+     *         If the thread is interrupted while waiting
+     */
+    public Connection acquire(String host, int port, long timeout, TimeUnit unit)
+        throws IOException
+    {
+        if (port < 0 || port > 0xFFFF)
+            throw new IllegalArgumentException("port out of range:" + port);
+        long nanos = unit.toNanos(timeout);
+        long deadline = System.nanoTime() + nanos;
+        for (;;) {
+            Connection c;
+            Route route;
+            synchronized (this) {
+                if (closed)
+                    throw new IOException("Pool closed");
+                String key = host.toLowerCase() + ":" + port;
+                route = routes.get(key);
+                if (route == null)
+                    routes.put(key, route = new Route(host, port));
+                c = route.idle.pollFirst();
+                if (c != null) {
+                    route.leased++;
+                    reusedCount++;
+                } else if (route.leased + route.idle.size() < maxConnectionsPerRoute) {
+                    route.leased++;
+                    createdCount++;
+                } else {
+                    try {
+                        if (nanos == 0L) {
+                            wait();
+                        } else {
+                            long wait = deadline - System.nanoTime();
+                            if (wait <= 0L)
+                                throw new SocketTimeoutException(
+                                    "Timed out waiting for a connection");
+                            TimeUnit.NANOSECONDS.timedWait(this, wait);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted waiting for a connection");
+                    }
+                    continue;
+                }
+            }
+            if (c != null) {
+                if (!c.isStale()) {
+                    c.released = false;
+                    return c;
+                }
+                c.discard();
+                continue;
+            }
+            boolean opened = false;
+            try {
+                c = new Connection(route);
+                opened = true;
+                return c;
+            } finally {
+                if (!opened)
+                    released(route, null);
+            }
+        }
+    }
+
+    /**
+     * Sends a request on a pooled connection to the route of the given URL
+     * and returns the response.
+     *
+     * @param  method
+     *         The request method
+     * @param  url
+     *         The {@code http} URL
+     * @param  headers
+     *         The request headers, or {@code null}
+     * @param  body
+     *         The request body, or {@code null}
+     *
+     * @return The response
+     *
+     * @throws IOException
+     *         If an I/O error occurs
+     */
+    public Response send(String method, URL url, Map<String, List<String>> headers,
+                         byte[] body) throws IOException {
+        try (Connection c = acquire(url.getHost(), portOf(url))) {
+            c.send(method, fileOf(url), headers, body);
+            return c.receive();
+        }
+    }
+
+    /**
+     * Sends {@code GET} requests for the given URLs, which must have the same
+     * route, pipelined on pooled connections, and returns the responses in
+     * the same order.  If the server closes a connection before answering all
+     * the requests, whether it announced the close in a response or closed
+     * the connection before starting the next response, the remaining
+     * requests are sent again on another connection.  The requests are
+     * given up after {@value #MAX_PIPELINE_RETRIES} retries in a row on
+     * connections that close without answering any of them.
+     *
+     * @param  urls
+     *         The {@code http} URLs
+     *
+     * @return The responses
+     *
+     * @throws IllegalArgumentException
+     *         If the URLs do not all have the same host and port
+     * @throws IOException
+     *         If an I/O error occurs, including a connection closed in the
+     *         middle of a response or too many connections closed without
+     *         a response
+     */
+    public List<Response> pipeline(List<URL> urls) throws IOException {
+        int n = urls.size();
+        List<Response> responses = new ArrayList<>(n);
+        if (n == 0)
+            return responses;
+        String host = urls.get(0).getHost();
+        int port = portOf(urls.get(0));
+        for (URL url : urls) {
+            if (!url.getHost().equalsIgnoreCase(host) || portOf(url) != port)
+                throw new IllegalArgumentException("URLs must share a route");
+        }
+        int retries = 0;
+        while (responses.size() < n) {
+            try (Connection c = acquire(host, port)) {
+                int answered = responses.size();
+                for (int i = answered; i < n; i++)
+                    c.send("GET", fileOf(urls.get(i)), null, null);
+                do {
+                    Response r;
+                    try {
+                        r = c.receive();
+                    } catch (IOException e) {
+                        // closed between responses: retry the rest on another connection
+                        if (!c.unanswered)
+                            throw e;
+                        if (responses.size() > answered)
+                            retries = 0;
+                        if (++retries > MAX_PIPELINE_RETRIES)
+                            throw e;
+                        break;
+                    }
+                    responses.add(r);
+                } while (c.isReusable() && c.getPendingCount() > 0);
+            }
+        }
+        return responses;
+    }
+
+    private static int portOf(URL url) {
+        if (!"http".equalsIgnoreCase(url.getProtocol()))
+            throw new IllegalArgumentException("Not an http URL: " + url);
+        int port = url.getPort();
+        return (port == -1) ? url.getDefaultPort() : port;
+    }
+
+    private static String fileOf(URL url) {
+        String file = url.getFile();
+        return file.isEmpty() ? "/" : file;
+    }
+
+    /**
+     * Returns the number of connections currently leased from this pool.
+     *
+     * @return The number of leased connections
+     */
+    public synchronized int getLeasedCount() {
+        int n = 0;
+        for (Route r : routes.values())
+            n += r.leased;
+        return n;
+    }
+
+    /**
+     * Returns the number of idle connections currently held by this pool.
+     *
+     * @return The number of idle connections
+     */
+    public synchronized int getIdleCount() {
+        int n = 0;
+        for (Route r : routes.values())
+            n += r.idle.size();
+        return n;
+    }
+
+    /**
+     * Returns the number of connections currently leased from this pool to
+     * the given host and port.
+     *
+     * @param  host
+     *         The host name
+     * @param  port
+     *         The port
+     *
+     * @return The number of leased connections for the route
+     */
+    public synchronized int getLeasedCount(String host, int port) {
+        Route r = routes.get(host.toLowerCase() + ":" + port);
+        return (r == null) ? 0 : r.leased;
+    }
+
+    /**
+     * Returns the number of idle connections to the given host and port
+     * currently held by this pool.
+     *
+     * @param  host
+     *         The host name
+     * @param  port
+     *         The port
+     *
+     * @return The number of idle connections for the route
+     */
+    public synchronized int getIdleCount(String host, int port) {
+        Route r = routes.get(host.toLowerCase() + ":" + port);
+        return (r == null) ? 0 : r.idle.size();
+    }
+
+    /**
+     * Returns the number of connections this pool has opened.
+     *
+     * @return The number of connections opened
+     */
+    public synchronized long getCreatedCount() {
+        return createdCount;
+    }
+
+    /**
+     * Returns the number of times an idle connection has been reused.
+     *
+     * @return The number of reuses
+     */
+    public synchronized long getReusedCount() {
+        return reusedCount;
+    }
+
+    /**
+     * Returns the number of idle connections this pool has closed, because
+     * their keep-alive time elapsed, the server closed them, or the pool
+     * was closed.
+     *
+     * @return The number of idle connections evicted
+     */
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    /**
+     * Closes this pool and its idle connections.  Leased connections are
+     * closed when they are released.
+     */
+    @Override
+    public void close() {
+        List<Connection> idle = new ArrayList<>();
+        synchronized (this) {
+            if (closed)
+                return;
+            closed = true;
+            for (Route r : routes.values()) {
+                idle.addAll(r.idle);
+                evictedCount += r.idle.size();
+                r.idle.clear();
+            }
+            if (evictor != null)
+                evictor.interrupt();
+            notifyAll();
+        }
+        for (Connection c : idle)
+            c.closeSocket();
+    }
+
+    /**
+     * Returns a leased connection to its route, keeping it idle if it may be
+     * reused, and wakes up threads waiting for the route.
+     */
+    private void released(Route route, Connection c) {
+        boolean keep = false;
+        synchronized (this) {
+            route.leased--;
+            if (c != null && !closed && route.idle.size() < maxIdlePerRoute) {
+                c.idleSince = System.nanoTime();
+                route.idle.addFirst(c);
+                keep = true;
+                if (evictor == null) {
+                    evictor = new Thread(this::evictIdle, "HttpConnectionPool-Evictor");
+                    evictor.setDaemon(true);
+                    evictor.start();
+                }
+            }
+            notifyAll();
+        }
+        if (c != null && !keep)
+            c.closeSocket();
+    }
+
+    /**
+     * Closes idle connections once their keep-alive time has elapsed, until
+     * no idle connections remain.  The least recently used connections are
+     * at the tail of each route's idle deque.
+     */
+    private void evictIdle() {
+        long sleep = Math.max(TimeUnit.NANOSECONDS.toMillis(keepAliveNanos) / 2, 1L);
+        List<Connection> expired = new ArrayList<>();
+        for (;;) {
+            try {
+                Thread.sleep(sleep);
+            } catch (InterruptedException e) {
+                // closed
+            }
+            synchronized (this) {
+                long now = System.nanoTime();
+                boolean remaining = false;
+                for (Iterator<Route> it = routes.values().iterator(); it.hasNext(); ) {
+                    Route r = it.next();
+                    Connection c;
+                    while ((c = r.idle.peekLast()) != null
+                           && (closed || now - c.idleSince >= keepAliveNanos)) {
+                        r.idle.pollLast();
+                        expired.add(c);
+                    }
+                    if (!r.idle.isEmpty())
+                        remaining = true;
+                    else if (r.leased == 0)
+                        it.remove();
+                }
+                evictedCount += expired.size();
+                if (!remaining)
+                    evictor = null;
+            }
+            for (Connection c : expired)
+                c.closeSocket();
+            expired.clear();
+            synchronized (this) {
+                if (evictor == null)
+                    return;
+            }
+        }
+    }
+
+    private static final class Route {
+        final String host;
+        final int port;
+        final ArrayDeque<Connection> idle = new ArrayDeque<>();
+        int leased;
+
+        Route(String host, int port) {
+            this.host = host;
+            this.port = port;
+        }
+    }
+
+    /**
+     * A persistent connection leased from a {@link HttpConnectionPool}.
+     * Requests are buffered by {@link #send send} and written when the first
+     * of their responses is {@link #receive received}, or by {@link #flush}.
+     * Closing the connection returns it to the pool if all requests sent on
+     * it have been answered and the server has not asked for it to be closed;
+     * otherwise the socket is closed.
+     *
+     * @since 1.8
+     */
+    public final class Connection implements Closeable {
+        private final Route route;
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+        private final ArrayDeque<String> pending = new ArrayDeque<>();
+        private boolean reusable = true;
+        private boolean released;
+        private long idleSince;
+        private boolean unanswered;     // no byte of the response being received was read
+
+        Connection(Route route) throws IOException {
+            this.route = route;
+            Socket s = new Socket();
+            try {
+                s.setTcpNoDelay(true);
+                s.connect(new InetSocketAddress(route.host, route.port), connectTimeout);
+            } catch (IOException e) {
+                s.close();
+                throw e;
+            }
+            this.socket = s;
+            this.in = new BufferedInputStream(s.getInputStream());
+            this.out = new BufferedOutputStream(s.getOutputStream());
+        }
+
+        /**
+         * Returns the socket of this connection.
+         *
+         * @return The socket
+         */
+        public Socket getSocket() {
+            return socket;
+        }
+
+        /**
+         * Returns the number of requests sent on this connection whose
+         * responses have not been received.
+         *
+         * @return The number of pending requests
+         */
+        public int getPendingCount() {
+            return pending.size();
+        }
+
+        /**
+         * Tells whether further requests may be sent on this connection,
+         * that is, whether no I/O error has occurred and no response has
+         * asked for the connection to be closed.
+         *
+         * @return {@code true} if the connection may be reused
+         */
+        public boolean isReusable() {
+            return reusable;
+        }
+
+        /**
+         * Sends a request without a body.
+         *
+         * @param  method
+         *         The request method
+         * @param  target
+         *         The request target, for example {@code "/index.html"}
+         *
+         * @throws IOException
+         *         If an I/O error occurs
+         */
+        public void send(String method, String target) throws IOException {
+            send(method, target, null, null);
+        }
+
+        /**
+         * Sends a request.  A {@code Host} header is added, and a {@code
+         * Content-Length} header if there is a body.
+         *
+         * @param  method
+         *         The request method
+         * @param  target
+         *         The request target, for example {@code "/index.html"}
+         * @param  headers
+         *         The request headers, or {@code null}
+         * @param  body
+         *         The request body, or {@code null}
+         *
+         * @throws IllegalArgumentException
+         *         If the method, target or a header is malformed
+         * @throws IOException
+         *         If an I/O error occurs, or the connection may not be reused
+         */
+        public void send(String method, String target,
+                         Map<String, List<String>> headers, byte[] body)
+            throws IOException
+        {
+            checkToken(method);
+            checkText(target);
+            if (target.isEmpty() || target.indexOf(' ') >= 0)
+                throw new IllegalArgumentException("Illegal request target: " + target);
+            ensureUsable();
+            StringBuilder sb = new StringBuilder(128);
+            sb.append(method).append(' ').append(target).append(" HTTP/1.1\r\n");
+            sb.append("Host: ").append(route.host);
+            if (route.port != 80)
+                sb.append(':').append(route.port);
+            sb.append("\r\n");
+            if (headers != null) {
+                for (Map.Entry<String, List<String>> e : headers.entrySet()) {
+                    checkToken(e.getKey());
+                    for (String v : e.getValue()) {
+                        checkText(v);
+                        sb.append(e.getKey()).append(": ").append(v).append("\r\n");
+                    }
+                }
+            }
+            if (body != null)
+                sb.append("Content-Length: ").append(body.length).append("\r\n");
+            sb.append("\r\n");
+            try {
+                out.write(sb.toString().getBytes(StandardCharsets.ISO_8859_1));
+                if (body != null)
+                    out.write(body);
+            } catch (IOException e) {
+                reusable = false;
+                throw e;
+            }
+            pending.addLast(method);
+        }
+
+        /**
+         * Writes any buffered requests to the server.
+         *
+         * @throws IOException
+         *         If an I/O error occurs
+         */
+        public void flush() throws IOException {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                reusable = false;
+                throw e;
+            }
+        }
+
+        /**
+         * Receives the response to the oldest pending request, flushing the
+         * buffered requests first.  Interim {@code 1xx} responses are skipped.
+         *
+         * @return The response
+         *
+         * @throws IllegalStateException
+         *         If no request is pending
+         * @throws ProtocolException
+         *         If the response is malformed
+         * @throws IOException
+         *         If an I/O error occurs, or the server closed the connection
+         *         before responding
+         */
+        public Response receive() throws IOException {
+            if (pending.isEmpty())
+                throw new IllegalStateException("No request pending");
+            ensureUsable();
+            unanswered = true;
+            flush();
+            String method = pending.peekFirst();
+            try {
+                Response r;
+                do {
+                    r = readHead();
+                } while (r.status >= 100 && r.status < 200 && r.status != 101);
+                r.body = readBody(method, r);
+                pending.pollFirst();
+                return r;
+            } catch (IOException | RuntimeException e) {
+                reusable = false;
+                throw e;
+            }
+        }
+
+        /**
+         * Releases this connection to the pool.
+         */
+        @Override
+        public void close() {
+            if (released)
+                return;
+            released = true;
+            boolean keep = reusable && pending.isEmpty() && !socket.isClosed();
+            if (keep) {
+                released(route, this);
+            } else {
+                released(route, null);
+                closeSocket();
+            }
+        }
+
+        private void ensureUsable() throws IOException {
+            if (released)
+                throw new IOException("Connection released");
+            if (!reusable)
+                throw new IOException("Connection closed");
+        }
+
+        /**
+         * Tells whether the server has closed this idle connection, or sent
+         * unsolicited data on it.
+         */
+        boolean isStale() {
+            try {
+                if (in.available() > 0)
+                    return true;
+                int timeout = socket.getSoTimeout();
+                socket.setSoTimeout(1);
+                try {
+                    in.read();      // end of stream, or unsolicited data
+                    return true;
+                } catch (SocketTimeoutException e) {
+                    return false;
+                } finally {
+                    socket.setSoTimeout(timeout);
+                }
+            } catch (IOException e) {
+                return true;
+            }
+        }
+
+        /**
+         * Closes a stale connection taken from the idle deque.
+         */
+        void discard() {
+            released = true;
+            synchronized (HttpConnectionPool.this) {
+                evictedCount++;
+            }
+            released(route, null);
+            closeSocket();
+        }
+
+        void closeSocket() {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+
+        private Response readHead() throws IOException {
+            String status = readLine();
+            if (status == null)
+                throw new EOFException("Connection closed by server");
+            // HTTP-version SP status-code SP reason-phrase
+            if (!status.startsWith("HTTP/1.") || status.length() < 12
+                    || status.charAt(8) != ' ')
+                throw new ProtocolException("Malformed status line: " + status);
+            int code;
+            try {
+                code = Integer.parseInt(status.substring(9, 12));
+            } catch (NumberFormatException e) {
+                throw new ProtocolException("Malformed status line: " + status);
+            }
+            String reason = (status.length() > 13) ? status.substring(13) : "";
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            String line;
+            while ((line = readLine()) != null && !line.isEmpty()) {
+                int colon = line.indexOf(':');
+                if (colon <= 0)
+                    throw new ProtocolException("Malformed header: " + line);
+                String name = line.substring(0, colon).trim();
+                String value = line.substring(colon + 1).trim();
+                List<String> values = headers.get(name);
+                if (values == null)
+                    headers.put(name, values = new ArrayList<>(1));
+                values.add(value);
+            }
+            if (line == null)
+                throw new EOFException("Connection closed by server");
+            Response r = new Response(code, reason, headers);
+            String connection = r.getHeaderField("Connection");
+            boolean http10 = status.charAt(7) == '0';
+            if (http10 ? !"keep-alive".equalsIgnoreCase(connection)
+                       : "close".equalsIgnoreCase(connection))
+                reusable = false;
+            return r;
+        }
+
+        private byte[] readBody(String method, Response r) throws IOException {
+            int code = r.status;
+            if (method.equals("HEAD") || code < 200 || code == 204 || code == 304) {
+                if (code == 101)
+                    reusable = false;
+                return new byte[0];
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            String te = r.getHeaderField("Transfer-Encoding");
+            String cl = r.getHeaderField("Content-Length");
+            if (te != null && te.toLowerCase().endsWith("chunked")) {
+                long size;
+                do {
+                    String line = readLine();
+                    if (line == null)
+                        throw new EOFException("Connection closed by server");
+                    int semi = line.indexOf(';');
+                    try {
+                        size = Long.parseLong((semi < 0) ? line.trim()
+                                                         : line.substring(0, semi).trim(), 16);
+                    } catch (NumberFormatException e) {
+                        throw new ProtocolException("Malformed chunk size: " + line);
+                    }
+                    copy(size, body);
+                    if (size > 0 && !"".equals(readLine()))
+                        throw new ProtocolException("Missing chunk terminator");
+                } while (size > 0);
+                String trailer;
+                while ((trailer = readLine()) != null && !trailer.isEmpty())
+                    ;
+            } else if (cl != null) {
+                long length;
+                try {
+                    length = Long.parseLong(cl);
+                } catch (NumberFormatException e) {
+                    throw new ProtocolException("Malformed Content-Length: " + cl);
+                }
+                copy(length, body);
+            } else {
+                // delimited by the end of the connection
+                reusable = false;
+                copy(Long.MAX_VALUE, body);
+            }
+            return body.toByteArray();
+        }
+
+        /**
+         * Copies up to the given number of bytes of the body, failing if the
+         * stream ends early unless the length is unbounded.
+         */
+        private void copy(long length, ByteArrayOutputStream body) throws IOException {
+            byte[] buf = new byte[(int) Math.min(length, 8192)];
+            while (length > 0) {
+                int n = in.read(buf, 0, (int) Math.min(length, buf.length));
+                if (n < 0) {
+                    if (length == Long.MAX_VALUE)
+                        return;
+                    throw new EOFException("Connection closed by server");
+                }
+                body.write(buf, 0, n);
+                if (length != Long.MAX_VALUE)
+                    length -= n;
+            }
+        }
+
+        /**
+         * Reads a line terminated by CRLF or LF, or returns null at the end
+         * of the stream.
+         */
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder(64);
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0)
+                    return (sb.length() == 0) ? null : sb.toString();
+                unanswered = false;
+                if (sb.length() == MAX_LINE_LENGTH)
+                    throw new ProtocolException("Line too long");
+                sb.append((char) c);
+            }
+            unanswered = false;
+            int len = sb.length();
+            if (len > 0 && sb.charAt(len - 1) == '\r')
+                sb.setLength(len - 1);
+            return sb.toString();
+        }
+    }
+
+    private static void checkToken(String s) {
+        if (s.isEmpty())
+            throw new IllegalArgumentException("Empty token");
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c <= ' ' || c >= 0x7f || "()<>@,;:\\\"/[]?={}".indexOf(c) >= 0)
+                throw new IllegalArgumentException("Illegal character in token: " + s);
+        }
+    }
+
+    private static void checkText(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\r' || c == '\n' || c > 0xff)
+                throw new IllegalArgumentException("Illegal character in: " + s);
+        }
+    }
+
+    /**
+     * An HTTP response received on a pooled {@link Connection}.
+     *
+     * @since 1.8
+     */
+    public static final class Response {
+        final int status;
+        private final String reason;
+        private final Map<String, List<String>> headers;
+        byte[] body;
+
+        Response(int status, String reason, Map<String, List<String>> headers) {
+            this.status = status;
+            this.reason = reason;
+            this.headers = headers;
+        }
+
+        /**
+         * Returns the status code, for example 200.
+         *
+         * @return The status code
+         */
+        public int getStatusCode() {
+            return status;
+        }
+
+        /**
+         * Returns the reason phrase, for example {@code "OK"}.
+         *
+         * @return The reason phrase, possibly empty
+         */
+        public String getReasonPhrase() {
+            return reason;
+        }
+
+        /**
+         * Returns the first value of the named header, ignoring case.
+         *
+         * @param  name
+         *         The header name
+         *
+         * @return The value, or {@code null} if there is no such header
+         */
+        public String getHeaderField(String name) {
+            List<String> values = headers.get(name);
+            return (values == null) ? null : values.get(0);
+        }
+
+        /**
+         * Returns an unmodifiable map of the header names, ignoring case, to
+         * their values in the order they were received.
+         *
+         * @return The headers
+         */
+        public Map<String, List<String>> getHeaderFields() {
+            return Collections.unmodifiableMap(headers);
+        }
+
+        /**
+         * Returns the body, decoded from any chunked transfer coding.
+         *
+         * @return The body, possibly empty
+         */
+        public byte[] getBody() {
+            return body.clone();
+        }
+    }
+}
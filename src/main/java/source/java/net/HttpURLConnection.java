@@ -64,6 +64,7 @@ import java.util.Date;
  * redirected host/URL.
  *
  * @see     java.net.HttpURLConnection#disconnect()
+ * @see     java.net.HttpConnectionPool
  * @since JDK1.1
  */
 abstract public class HttpURLConnection extends URLConnection {
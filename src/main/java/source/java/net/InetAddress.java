@@ -932,6 +932,18 @@ class InetAddress implements java.io.Serializable {
                     return impl.getHostByAddr(addr);
                 }
             };
+        } else if (provider.equals("async")) {
+            // pure Java resolver, see DnsResolver
+            nameService = new NameService() {
+                public InetAddress[] lookupAllHostAddr(String host)
+                    throws UnknownHostException {
+                    return DnsResolver.lookupAllHostAddr(host);
+                }
+                public String getHostByAddr(byte[] addr)
+                    throws UnknownHostException {
+                    return impl.getHostByAddr(addr);
+                }
+            };
         } else {
             final String providerName = provider;
             try {
@@ -29,6 +29,9 @@ import java.io.FileDescriptor;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.channels.FileChannel;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
 
 import sun.net.ConnectionResetException;
 
@@ -113,9 +116,82 @@ class SocketInputStream extends FileInputStream
                            byte b[], int off, int len,
                            int timeout)
         throws IOException {
+        if (Thread.currentThread() instanceof ForkJoinWorkerThread && !hasBuffered())
+            return managedRead(fd, b, off, len, timeout);
         return socketRead0(fd, b, off, len, timeout);
     }
 
+    /**
+     * Tells whether received data is already buffered, so that a read
+     * will not block.  A failure is left to the read to report.
+     */
+    private boolean hasBuffered() {
+        try {
+            return impl.available() > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Performs a read through {@link ForkJoinPool#managedBlock}, so
+     * that the pool of the calling worker thread may activate a spare
+     * thread while this one is blocked, as it does for workers waiting
+     * on a CompletableFuture or a Phaser.  This lets thread-per-request
+     * code run in a ForkJoinPool without starving it.  If the pool has
+     * reached its limit of spare threads, the read simply blocks.
+     */
+    private int managedRead(FileDescriptor fd,
+                            byte b[], int off, int len,
+                            int timeout)
+        throws IOException {
+        BlockingRead r = new BlockingRead(fd, b, off, len, timeout);
+        try {
+            ForkJoinPool.managedBlock(r);
+        } catch (InterruptedException ie) { // not thrown by block()
+            Thread.currentThread().interrupt();
+        } catch (RejectedExecutionException ree) {
+            r.block();      // no spare thread may be activated
+        }
+        if (r.ex != null)
+            throw r.ex;
+        return r.n;
+    }
+
+    private final class BlockingRead implements ForkJoinPool.ManagedBlocker {
+        final FileDescriptor fd;
+        final byte[] b;
+        final int off, len, timeout;
+        int n;
+        IOException ex;
+        boolean done;
+
+        BlockingRead(FileDescriptor fd, byte[] b, int off, int len,
+                     int timeout) {
+            this.fd = fd;
+            this.b = b;
+            this.off = off;
+            this.len = len;
+            this.timeout = timeout;
+        }
+
+        public boolean block() {
+            if (!done) {
+                try {
+                    n = socketRead0(fd, b, off, len, timeout);
+                } catch (IOException e) {
+                    ex = e;
+                }
+                done = true;
+            }
+            return true;
+        }
+
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
     /**
      * Reads into a byte array data from the socket.
      * @param b the buffer into which the data is read
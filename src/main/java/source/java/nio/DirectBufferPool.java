@@ -0,0 +1,477 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.nio;
+
+import java.lang.management.BufferPoolMXBean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.management.ObjectName;
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * A pool of reusable direct byte buffers.
+ *
+ * <p> {@link ByteBuffer#allocateDirect ByteBuffer.allocateDirect} reserves
+ * memory against the direct memory limit on every call, and when the limit
+ * is near it triggers a garbage collection and sleeps until enough buffers
+ * have been freed.  Code that needs a short-lived direct buffer for each
+ * I/O operation can instead {@link #allocate allocate} one from this pool
+ * and {@link #release release} it afterwards, so that the memory is
+ * reserved once and then reused.
+ *
+ * <p> Requests are rounded up to a power-of-two size class, from 512 bytes
+ * to 1 MB.  The buffers of a size class are carved from arenas, large
+ * direct buffers that are each reserved with a single call to {@code
+ * allocateDirect}.  Released buffers are kept first in a small cache owned
+ * by the releasing thread, so that a thread that repeatedly allocates and
+ * releases buffers of the same size does not synchronize with other
+ * threads, and otherwise in a free list shared by all threads.  The cache
+ * of a thread is moved to the shared free lists once the thread has
+ * terminated and become unreachable.  Requests
+ * larger than the largest size class are not pooled: they are allocated
+ * directly and their memory is freed as soon as they are released.
+ *
+ * <p> A pooled buffer must not be used after it has been released, since
+ * it may by then have been handed out again.  A buffer that is never
+ * released is not lost: the memory of an arena is freed once it and all
+ * the buffers carved from it have become unreachable.
+ *
+ * <p> The usage of the pool is reported by a {@link BufferPoolMXBean} named
+ * {@code "pooled"}; the buffers it counts are those carved from the live
+ * arenas, whether in use or free, together with the unpooled buffers that
+ * have not yet been released.
+ *
+ * @since 1.8
+ */
+public final class DirectBufferPool {
+
+    private DirectBufferPool() { }
+
+    /** The shift of the smallest size class */
+    private static final int MIN_CLASS_SHIFT = 9;
+
+    /** The shift of the largest size class */
+    private static final int MAX_CLASS_SHIFT = 20;
+
+    /** The smallest arena size, in bytes */
+    private static final int MIN_ARENA_SIZE = 64 << 10;
+
+    /** The number of bytes of each size class a thread may cache */
+    private static final int THREAD_CACHE_BYTES = 256 << 10;
+
+    /** The maximum number of buffers of each size class a thread may cache */
+    private static final int MAX_THREAD_CACHE_DEPTH = 16;
+
+    private static final SizeClass[] classes =
+        new SizeClass[MAX_CLASS_SHIFT - MIN_CLASS_SHIFT + 1];
+
+    static {
+        for (int i = 0; i < classes.length; i++)
+            classes[i] = new SizeClass(i);
+    }
+
+    private static final ThreadLocal<ThreadCache> threadCache =
+        new ThreadLocal<ThreadCache>() {
+            @Override
+            protected ThreadCache initialValue() {
+                ThreadCache cache = new ThreadCache();
+                Cleaner.create(Thread.currentThread(), cache);
+                return cache;
+            }
+        };
+
+    // -- Monitoring --
+
+    private static final AtomicLong count = new AtomicLong();
+    private static final AtomicLong totalCapacity = new AtomicLong();
+    private static final AtomicLong reservedMemory = new AtomicLong();
+
+    /**
+     * Returns a direct byte buffer with at least the given capacity.
+     *
+     * <p> The buffer's position is zero, its limit is the requested
+     * capacity, its mark is undefined, and its byte order is {@link
+     * ByteOrder#BIG_ENDIAN BIG_ENDIAN}.  Its capacity may be larger than
+     * requested and, unlike a buffer returned by {@link
+     * ByteBuffer#allocateDirect allocateDirect}, its contents are not
+     * initialized.
+     *
+     * @param  capacity
+     *         The minimum capacity, in bytes
+     *
+     * @return  The buffer, which should later be {@link #release released}
+     *
+     * @throws  IllegalArgumentException
+     *          If the {@code capacity} is a negative integer
+     *
+     * @throws  OutOfMemoryError
+     *          If a new arena is needed and the direct memory limit has
+     *          been reached
+     */
+    public static ByteBuffer allocate(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Negative capacity: " + capacity);
+        int c = sizeClass(capacity);
+        ByteBuffer bb;
+        if (c < 0) {
+            bb = Arena.unpooled(capacity).carve();
+        } else {
+            bb = threadCache.get().pop(c);
+            if (bb == null)
+                bb = classes[c].take();
+        }
+        slotOf(bb).acquire();
+        bb.clear();
+        bb.limit(capacity);
+        bb.order(ByteOrder.BIG_ENDIAN);
+        return bb;
+    }
+
+    /**
+     * Returns a buffer obtained from {@link #allocate allocate} to the pool.
+     * The buffer, and any view, duplicate or slice of it, must not be used
+     * afterwards.
+     *
+     * @param  bb
+     *         The buffer to release
+     *
+     * @throws  IllegalArgumentException
+     *          If the buffer was not returned by {@code allocate}; views,
+     *          duplicates and slices are not accepted
+     *
+     * @throws  IllegalStateException
+     *          If the buffer has already been released
+     */
+    public static void release(ByteBuffer bb) {
+        Slot s = slotOf(bb);
+        if (s == null)
+            throw new IllegalArgumentException("Buffer not allocated by this pool");
+        if (!s.release())
+            throw new IllegalStateException("Buffer already released");
+        int c = s.arena.sizeClass;
+        if (c < 0)
+            s.arena.free();
+        else if (!threadCache.get().push(c, bb))
+            classes[c].give(s);
+    }
+
+    /**
+     * Returns the management interface of this pool.
+     *
+     * @return  The {@code BufferPoolMXBean} named {@code "pooled"}
+     */
+    public static BufferPoolMXBean getBufferPoolMXBean() {
+        return mxBean;
+    }
+
+    /**
+     * Returns the index of the size class for the given capacity, or -1 if
+     * the capacity exceeds the largest size class.
+     */
+    private static int sizeClass(int capacity) {
+        if (capacity <= (1 << MIN_CLASS_SHIFT))
+            return 0;
+        int shift = 32 - Integer.numberOfLeadingZeros(capacity - 1);
+        return (shift <= MAX_CLASS_SHIFT) ? shift - MIN_CLASS_SHIFT : -1;
+    }
+
+    /**
+     * Returns the slot of a buffer carved by this pool, or null.
+     */
+    private static Slot slotOf(ByteBuffer bb) {
+        if (bb instanceof DirectByteBuffer) {
+            Object att = ((DirectByteBuffer) bb).attachment();
+            if (att instanceof Slot && ((Slot) att).buffer == bb)
+                return (Slot) att;
+        }
+        return null;
+    }
+
+    /**
+     * The pool-private state of a carved buffer.  A slot is the attachment
+     * of its buffer and doubles as the node of the free list of its size
+     * class.
+     */
+    private static final class Slot {
+        private static final AtomicIntegerFieldUpdater<Slot> IN_USE =
+            AtomicIntegerFieldUpdater.newUpdater(Slot.class, "inUse");
+
+        final Arena arena;
+        ByteBuffer buffer;
+        Slot next;              // guarded by the size class, or by the orphan stack
+        volatile int inUse;
+
+        Slot(Arena arena) {
+            this.arena = arena;
+        }
+
+        void acquire() {
+            inUse = 1;
+        }
+
+        boolean release() {
+            return IN_USE.compareAndSet(this, 1, 0);
+        }
+    }
+
+    /**
+     * A direct buffer from which the buffers of one size class are carved
+     * on demand.  An unpooled buffer is carved from an arena of its own.
+     */
+    private static final class Arena {
+        final int sizeClass;
+        final int bufferSize;
+        final ByteBuffer memory;
+        final Cleaner cleaner;
+        final Usage usage;
+        private int offset;     // guarded by the size class
+
+        private Arena(int sizeClass, int bufferSize, int size) {
+            this.sizeClass = sizeClass;
+            this.bufferSize = bufferSize;
+            this.memory = ByteBuffer.allocateDirect(size);
+            this.usage = new Usage(size, bufferSize);
+            this.cleaner = Cleaner.create(this, usage);
+            reservedMemory.addAndGet(size);
+        }
+
+        static Arena pooled(int sizeClass) {
+            int bufferSize = 1 << (sizeClass + MIN_CLASS_SHIFT);
+            return new Arena(sizeClass, bufferSize,
+                             Math.max(bufferSize << 3, MIN_ARENA_SIZE));
+        }
+
+        static Arena unpooled(int capacity) {
+            return new Arena(-1, capacity, capacity);
+        }
+
+        boolean isFull() {
+            return offset + bufferSize > memory.capacity();
+        }
+
+        /**
+         * Carves the next buffer, which the arena must have room for.
+         */
+        ByteBuffer carve() {
+            Slot s = new Slot(this);
+            long address = ((DirectBuffer) memory).address() + offset;
+            s.buffer = new DirectByteBuffer(address, bufferSize, s);
+            offset += bufferSize;
+            usage.carved++;
+            count.incrementAndGet();
+            totalCapacity.addAndGet(bufferSize);
+            return s.buffer;
+        }
+
+        /**
+         * Frees the memory of an unpooled arena.
+         */
+        void free() {
+            cleaner.clean();
+            ((DirectBuffer) memory).cleaner().clean();
+        }
+    }
+
+    /**
+     * Reverses the accounting of an arena once it has been freed, either
+     * explicitly or because it has become unreachable.  It must not refer
+     * to the arena, or the arena would never become unreachable.
+     */
+    private static final class Usage implements Runnable {
+        final int size;
+        final int bufferSize;
+        int carved;
+
+        Usage(int size, int bufferSize) {
+            this.size = size;
+            this.bufferSize = bufferSize;
+        }
+
+        public void run() {
+            count.addAndGet(-carved);
+            totalCapacity.addAndGet(-(long) carved * bufferSize);
+            reservedMemory.addAndGet(-size);
+        }
+    }
+
+    /**
+     * The buffers of one size class that are free and not cached by a
+     * thread, and the arena that new buffers are carved from.  Buffers
+     * given back by the cleaner of a thread cache are pushed on a lock-free
+     * stack of orphans, since a cleaner may run while an allocating thread
+     * holds the lock, and are moved to the free list by the next {@link
+     * #take}.
+     */
+    private static final class SizeClass {
+        final int index;
+        private final AtomicReference<Slot> orphans = new AtomicReference<>();
+        private Slot free;
+        private Arena arena;
+
+        SizeClass(int index) {
+            this.index = index;
+        }
+
+        ByteBuffer take() {
+            ByteBuffer bb = takeFree();
+            if (bb != null)
+                return bb;
+            // Reserving memory may run cleaners, so it is done without the lock
+            Arena a;
+            try {
+                a = Arena.pooled(index);
+            } catch (OutOfMemoryError e) {
+                // the cleaners run may have given back buffers of this class
+                bb = takeFree();
+                if (bb == null)
+                    throw e;
+                return bb;
+            }
+            synchronized (this) {
+                // unless another thread installed an arena meanwhile, in
+                // which case the new one is dropped and freed by its cleaner
+                if (arena == null || arena.isFull())
+                    arena = a;
+                return arena.carve();
+            }
+        }
+
+        /**
+         * Takes a free buffer, or carves one from the current arena, or
+         * returns null if a new arena is needed.
+         */
+        private ByteBuffer takeFree() {
+            Slot o = orphans.getAndSet(null);
+            synchronized (this) {
+                while (o != null) {
+                    Slot next = o.next;
+                    o.next = free;
+                    free = o;
+                    o = next;
+                }
+                Slot s = free;
+                if (s != null) {
+                    free = s.next;
+                    s.next = null;
+                    return s.buffer;
+                }
+                if (arena != null && !arena.isFull())
+                    return arena.carve();
+                return null;
+            }
+        }
+
+        synchronized void give(Slot s) {
+            s.next = free;
+            free = s;
+        }
+
+        /**
+         * Gives back a buffer without locking, for the cleaner of a thread
+         * cache.
+         */
+        void giveOrphan(Slot s) {
+            Slot head;
+            do {
+                head = orphans.get();
+                s.next = head;
+            } while (!orphans.compareAndSet(head, s));
+        }
+    }
+
+    /**
+     * The buffers cached by one thread, a small stack per size class.  It
+     * is run as the cleaner of its thread, returning the buffers to the
+     * shared free lists without locking, and so must not refer to the
+     * thread.
+     */
+    private static final class ThreadCache implements Runnable {
+        final ByteBuffer[][] stacks = new ByteBuffer[classes.length][];
+        final int[] sizes = new int[classes.length];
+
+        ByteBuffer pop(int c) {
+            int n = sizes[c];
+            if (n == 0)
+                return null;
+            ByteBuffer[] stack = stacks[c];
+            ByteBuffer bb = stack[--n];
+            stack[n] = null;
+            sizes[c] = n;
+            return bb;
+        }
+
+        boolean push(int c, ByteBuffer bb) {
+            ByteBuffer[] stack = stacks[c];
+            if (stack == null) {
+                int depth = THREAD_CACHE_BYTES >>> (c + MIN_CLASS_SHIFT);
+                stack = stacks[c] = new ByteBuffer[
+                    Math.max(1, Math.min(depth, MAX_THREAD_CACHE_DEPTH))];
+            }
+            int n = sizes[c];
+            if (n == stack.length)
+                return false;
+            stack[n] = bb;
+            sizes[c] = n + 1;
+            return true;
+        }
+
+        public void run() {
+            for (int c = 0; c < stacks.length; c++) {
+                ByteBuffer bb;
+                while ((bb = pop(c)) != null)
+                    classes[c].giveOrphan(slotOf(bb));
+            }
+        }
+    }
+
+    private static final BufferPoolMXBean mxBean = new BufferPoolMXBean() {
+        @Override
+        public ObjectName getObjectName() {
+            try {
+                return ObjectName.getInstance("java.nio:type=BufferPool,name=pooled");
+            } catch (javax.management.MalformedObjectNameException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        @Override
+        public String getName() {
+            return "pooled";
+        }
+        @Override
+        public long getCount() {
+            return count.get();
+        }
+        @Override
+        public long getTotalCapacity() {
+            return totalCapacity.get();
+        }
+        @Override
+        public long getMemoryUsed() {
+            return reservedMemory.get();
+        }
+    };
+}
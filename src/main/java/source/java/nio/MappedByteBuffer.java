@@ -26,6 +26,7 @@
 package java.nio;
 
 import java.io.FileDescriptor;
+import sun.misc.Cleaner;
 import sun.misc.Unsafe;
 
 
@@ -38,7 +39,10 @@ import sun.misc.Unsafe;
  * memory-mapped file regions.
  *
  * <p> A mapped byte buffer and the file mapping that it represents remain
- * valid until the buffer itself is garbage-collected.
+ * valid until the buffer itself is garbage-collected.  There is no way to
+ * release the mapping of a buffer earlier; a region whose mapping must be
+ * released at a known time can instead be mapped as a {@link MappedSegment},
+ * which can be {@link MappedSegment#close closed}.
  *
  * <p> The content of a mapped byte buffer can change at any time, for example
  * if the content of the corresponding region of the mapped file is changed by
@@ -160,6 +164,11 @@ public abstract class MappedByteBuffer
         long length = mappingLength(offset);
         load0(mappingAddress(offset), length);
 
+        // The advice given by load0 may already have brought the content in,
+        // in which case there is no need to fault every page
+        if (isLoaded0(mappingAddress(offset), length, Bits.pageCount(length)))
+            return this;
+
         // Read a byte from each page to bring it into memory. A checksum
         // is computed as we go along to prevent the compiler from otherwise
         // considering the loop as dead code.
@@ -205,6 +214,88 @@ public abstract class MappedByteBuffer
         return this;
     }
 
+    /**
+     * Hints about how the content of a mapped byte buffer will be accessed,
+     * which the operating system may use to tune paging of the mapping.
+     *
+     * @see #advise(Advice)
+     * @see java.nio.channels.FileChannel#map(java.nio.channels.FileChannel.MapMode,long,long,Advice...)
+     * @since 1.8
+     */
+    public enum Advice {
+        /** No particular access pattern; the default. */
+        NORMAL,
+        /** Pages will be accessed in sequential order, so aggressive
+         *  read-ahead pays off and pages may be freed soon after access. */
+        SEQUENTIAL,
+        /** Pages will be accessed in random order, so read-ahead is wasted. */
+        RANDOM,
+        /** Pages will be accessed soon and should be read in ahead of time. */
+        WILL_NEED,
+        /** Pages will not be accessed soon and may be dropped from memory. */
+        DONT_NEED,
+        /** The mapping should be backed by huge pages where supported. */
+        HUGE_PAGES,
+        /** The mapping should be populated now, so that later accesses do
+         *  not fault, as by {@link #load load}. */
+        POPULATE
+    }
+
+    /**
+     * Advises the operating system how this buffer's content will be
+     * accessed.
+     *
+     * <p> The advice applies to the whole region mapped by this buffer. It is
+     * a hint only: it may be ignored, and it does not change the content of
+     * the buffer or the semantics of any operation upon it.  Advising {@link
+     * Advice#POPULATE POPULATE} or {@link Advice#WILL_NEED WILL_NEED} is
+     * equivalent to invoking {@link #load load}.  This implementation has no
+     * means of passing the other hints to the operating system, and ignores
+     * them.  </p>
+     *
+     * @param  advice
+     *         The expected access pattern
+     *
+     * @return  This buffer
+     *
+     * @since 1.8
+     */
+    public final MappedByteBuffer advise(Advice advice) {
+        checkMapped();
+        switch (advice) {
+        case POPULATE:
+        case WILL_NEED:
+            return load();
+        default:
+            return this;
+        }
+    }
+
+    /**
+     * Releases the file mapping of this buffer immediately, rather than when
+     * the buffer is garbage-collected, leaving it with zero capacity.  Only
+     * this buffer is emptied: buffers derived from it still refer to the
+     * released mapping, so the caller must have emptied or dropped every
+     * such buffer, and no other thread may be using this one.  This is not
+     * part of the public API, so that a buffer returned by {@link
+     * java.nio.channels.FileChannel#map FileChannel.map} is only released
+     * when it is garbage-collected; it is used by {@link MappedSegment#close}.
+     *
+     * @throws  UnsupportedOperationException
+     *          If this buffer was derived from a mapped byte buffer
+     */
+    final void unmap() {
+        checkMapped();
+        sun.nio.ch.DirectBuffer db = (sun.nio.ch.DirectBuffer) this;
+        if (db.attachment() != null)
+            throw new UnsupportedOperationException("Not a mapping");
+        Cleaner cleaner = db.cleaner();
+        truncate();
+        address = 0;
+        if (cleaner != null)
+            cleaner.clean();
+    }
+
     private native boolean isLoaded0(long address, long length, int pageCount);
     private native void load0(long address, long length);
     private native void force0(FileDescriptor fd, long address, long length);
@@ -0,0 +1,1131 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.nio;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import sun.misc.Unsafe;
+
+
+/**
+ * A memory-mapped region of a file that is addressed by {@code long}
+ * offsets, and so is not limited to the {@code Integer.MAX_VALUE} bytes of a
+ * {@link MappedByteBuffer}.
+ *
+ * <p> A mapped segment is created by the {@link #map map} method.  It is
+ * backed by a sequence of mapped byte buffers, each of which maps a window of
+ * the region that overlaps the next window by {@link #MAX_SLICE_SIZE} bytes.
+ * Any run of at most that many bytes therefore lies within a single window, so
+ * that every value is accessed directly in memory and any such run can be
+ * {@link #slice sliced} into an ordinary byte buffer that shares the content
+ * of the segment.  Because the windows of a {@link
+ * FileChannel.MapMode#PRIVATE PRIVATE} mapping would not observe each other's
+ * changes, a private segment is limited to a single window.
+ *
+ * <p> The absolute <i>get</i> and <i>put</i> methods for {@code short}, {@code
+ * int}, {@code long}, {@code float} and {@code double} values use the {@link
+ * #order byte order} of the segment, which is initially {@link
+ * ByteOrder#BIG_ENDIAN BIG_ENDIAN}.  The volatile, ordered and atomic methods
+ * use the {@link ByteOrder#nativeOrder native} byte order, and require the
+ * addressed value to be aligned in memory to its size.  They may be used to
+ * coordinate threads, or processes mapping the same file, through the
+ * segment.
+ *
+ * <p> A mapped segment and its mapping remain valid until the segment is
+ * {@link #close closed}, or until it and the buffers sliced from it are
+ * garbage-collected.  Closing a segment releases the mapping at once and
+ * empties the buffers sliced from it, so that later attempts to access the
+ * content through them fail with an exception.  Buffers derived in turn from
+ * a slice, by {@link ByteBuffer#duplicate duplicate} or the view methods for
+ * example, are not emptied; the caller must ensure that they are not used
+ * after the segment is closed, and that no buffer is accessed concurrently
+ * with closing it.
+ *
+ * <p> Mapped segments are safe for use by multiple concurrent threads, except
+ * for {@link #order(ByteOrder)} and {@link #close}, which must not race with
+ * other operations.  </p>
+ *
+ * @see FileChannel#map
+ * @since 1.8
+ */
+
+public final class MappedSegment implements Closeable {
+
+    /**
+     * The maximum length of a run of bytes that is guaranteed to lie within
+     * a single window of a segment, and so the maximum length of a {@link
+     * #slice slice}.
+     */
+    public static final int MAX_SLICE_SIZE = 1 << 29;
+
+    // Windows start every 2^30 bytes and extend MAX_SLICE_SIZE bytes further
+    private static final int WINDOW_SHIFT = 30;
+    private static final long WINDOW_STRIDE = 1L << WINDOW_SHIFT;
+
+    private static final Unsafe unsafe = Bits.unsafe();
+    private static final long arrayBaseOffset = (long)unsafe.arrayBaseOffset(byte[].class);
+    private static final boolean unaligned = Bits.unaligned();
+
+    private final long size;
+    private final boolean readOnly;
+
+    // The windows and their base addresses; null once closed
+    private MappedByteBuffer[] windows;
+    private long[] addresses;
+
+    // The slices handed out, emptied on close; cleared ones are expunged
+    private final Set<Reference<ByteBuffer>> slices = new HashSet<>();
+    private final ReferenceQueue<ByteBuffer> clearedSlices = new ReferenceQueue<>();
+
+    private boolean bigEndian = true;
+    private boolean nativeByteOrder = (Bits.byteOrder() == ByteOrder.BIG_ENDIAN);
+
+    private MappedSegment(MappedByteBuffer[] windows, long size, boolean readOnly) {
+        this.windows = windows;
+        this.size = size;
+        this.readOnly = readOnly;
+        long[] a = new long[windows.length];
+        for (int i = 0; i < a.length; i++)
+            a[i] = windows[i].address;
+        this.addresses = a;
+    }
+
+    /**
+     * Maps a region of a channel's file directly into memory as a mapped
+     * segment.
+     *
+     * <p> This method works in the same manner as the {@link
+     * FileChannel#map FileChannel.map} method, by which the windows of the
+     * segment are mapped, except that the size of the region is not limited
+     * to {@code Integer.MAX_VALUE}.  </p>
+     *
+     * @param  channel
+     *         The channel whose file is to be mapped
+     *
+     * @param  mode
+     *         One of the constants {@link FileChannel.MapMode#READ_ONLY
+     *         READ_ONLY}, {@link FileChannel.MapMode#READ_WRITE READ_WRITE},
+     *         or {@link FileChannel.MapMode#PRIVATE PRIVATE}
+     *
+     * @param  position
+     *         The position within the file at which the mapped region
+     *         is to start; must be non-negative
+     *
+     * @param  size
+     *         The size of the region to be mapped; must be non-negative
+     *
+     * @return  The mapped segment
+     *
+     * @throws  IllegalArgumentException
+     *          If the preconditions on the parameters do not hold
+     *
+     * @throws  UnsupportedOperationException
+     *          If the <tt>mode</tt> is {@link FileChannel.MapMode#PRIVATE
+     *          PRIVATE} and the region does not fit in a single window
+     *
+     * @throws  IOException
+     *          If an I/O error occurs, including the conditions under which
+     *          {@link FileChannel#map FileChannel.map} throws an exception
+     */
+    public static MappedSegment map(FileChannel channel,
+                                    FileChannel.MapMode mode,
+                                    long position, long size)
+        throws IOException
+    {
+        Objects.requireNonNull(channel);
+        Objects.requireNonNull(mode);
+        if (position < 0L)
+            throw new IllegalArgumentException("Negative position");
+        if (size < 0L)
+            throw new IllegalArgumentException("Negative size");
+        if (position + size < 0)
+            throw new IllegalArgumentException("Position + size overflow");
+
+        // Window i starts at i * WINDOW_STRIDE and the last one ends at size
+        int count = 0;
+        while (count * WINDOW_STRIDE + WINDOW_STRIDE + MAX_SLICE_SIZE < size)
+            count++;
+        count++;
+        if (count > 1 && mode == FileChannel.MapMode.PRIVATE)
+            throw new UnsupportedOperationException("Private mapping too large");
+
+        MappedByteBuffer[] windows = new MappedByteBuffer[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                long start = i * WINDOW_STRIDE;
+                long end = (i == count - 1) ? size
+                                            : start + WINDOW_STRIDE + MAX_SLICE_SIZE;
+                windows[i] = channel.map(mode, position + start, end - start);
+            }
+        } catch (IOException | RuntimeException | Error x) {
+            for (MappedByteBuffer w : windows) {
+                if (w != null)
+                    w.unmap();
+            }
+            throw x;
+        }
+        return new MappedSegment(windows, size, mode == FileChannel.MapMode.READ_ONLY);
+    }
+
+    /**
+     * Returns the size of this segment.
+     *
+     * @return  The size of this segment, in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Tells whether or not this segment is read-only.
+     *
+     * @return  <tt>true</tt> if, and only if, this segment is read-only
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Retrieves this segment's byte order.
+     *
+     * @return  This segment's byte order
+     */
+    public ByteOrder order() {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * Modifies this segment's byte order.
+     *
+     * @param  bo
+     *         The new byte order,
+     *         either {@link ByteOrder#BIG_ENDIAN BIG_ENDIAN}
+     *         or {@link ByteOrder#LITTLE_ENDIAN LITTLE_ENDIAN}
+     *
+     * @return  This segment
+     */
+    public MappedSegment order(ByteOrder bo) {
+        bigEndian = (bo == ByteOrder.BIG_ENDIAN);
+        nativeByteOrder = (bigEndian == (Bits.byteOrder() == ByteOrder.BIG_ENDIAN));
+        return this;
+    }
+
+    // -- Addressing --
+
+    private int window(long offset) {
+        int w = (int)(offset >>> WINDOW_SHIFT);
+        return Math.min(w, addresses.length - 1);
+    }
+
+    // Returns the address of the n bytes at the given offset
+    private long address(long offset, int n) {
+        long[] a = addresses;
+        if (a == null)
+            throw new IllegalStateException("Segment is closed");
+        if (offset < 0 || n > size - offset)
+            throw new IndexOutOfBoundsException();
+        int w = Math.min((int)(offset >>> WINDOW_SHIFT), a.length - 1);
+        return a[w] + (offset - w * WINDOW_STRIDE);
+    }
+
+    private long writableAddress(long offset, int n) {
+        if (readOnly)
+            throw new ReadOnlyBufferException();
+        return address(offset, n);
+    }
+
+    // Returns the address of the n-byte value at the given offset,
+    // which must be suitably aligned for atomic access
+    private long alignedAddress(long offset, int n, boolean write) {
+        long a = write ? writableAddress(offset, n) : address(offset, n);
+        if ((a & (n - 1)) != 0)
+            throw new IllegalArgumentException("Misaligned access at offset " + offset);
+        return a;
+    }
+
+    // Returns the number of bytes from offset to the end of its window
+    private long windowRemaining(long offset) {
+        int w = window(offset);
+        long end = (w == addresses.length - 1) ? size
+                                               : w * WINDOW_STRIDE + WINDOW_STRIDE + MAX_SLICE_SIZE;
+        return end - offset;
+    }
+
+    // -- Absolute get/put --
+
+    /**
+     * Reads the byte at the given offset.
+     *
+     * @param  offset
+     *         The offset from which the byte will be read
+     *
+     * @return  The byte at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public byte get(long offset) {
+        return unsafe.getByte(address(offset, 1));
+    }
+
+    /**
+     * Writes the given byte at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the byte will be written
+     *
+     * @param  b
+     *         The byte value to be written
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment put(long offset, byte b) {
+        unsafe.putByte(writableAddress(offset, 1), b);
+        return this;
+    }
+
+    /**
+     * Reads two bytes at the given offset, composing them into a short value
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The short value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus one
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public short getShort(long offset) {
+        long a = address(offset, 2);
+        if (unaligned) {
+            short x = unsafe.getShort(a);
+            return (nativeByteOrder ? x : Bits.swap(x));
+        }
+        return Bits.getShort(a, bigEndian);
+    }
+
+    /**
+     * Writes two bytes containing the given short value, in the current byte
+     * order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The short value to be written
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus one
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment putShort(long offset, short value) {
+        long a = writableAddress(offset, 2);
+        if (unaligned)
+            unsafe.putShort(a, (nativeByteOrder ? value : Bits.swap(value)));
+        else
+            Bits.putShort(a, value, bigEndian);
+        return this;
+    }
+
+    /**
+     * Reads four bytes at the given offset, composing them into an int value
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The int value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus three
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public int getInt(long offset) {
+        long a = address(offset, 4);
+        if (unaligned) {
+            int x = unsafe.getInt(a);
+            return (nativeByteOrder ? x : Bits.swap(x));
+        }
+        return Bits.getInt(a, bigEndian);
+    }
+
+    /**
+     * Writes four bytes containing the given int value, in the current byte
+     * order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The int value to be written
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus three
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment putInt(long offset, int value) {
+        long a = writableAddress(offset, 4);
+        if (unaligned)
+            unsafe.putInt(a, (nativeByteOrder ? value : Bits.swap(value)));
+        else
+            Bits.putInt(a, value, bigEndian);
+        return this;
+    }
+
+    /**
+     * Reads eight bytes at the given offset, composing them into a long value
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The long value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus seven
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public long getLong(long offset) {
+        long a = address(offset, 8);
+        if (unaligned) {
+            long x = unsafe.getLong(a);
+            return (nativeByteOrder ? x : Bits.swap(x));
+        }
+        return Bits.getLong(a, bigEndian);
+    }
+
+    /**
+     * Writes eight bytes containing the given long value, in the current byte
+     * order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The long value to be written
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus seven
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment putLong(long offset, long value) {
+        long a = writableAddress(offset, 8);
+        if (unaligned)
+            unsafe.putLong(a, (nativeByteOrder ? value : Bits.swap(value)));
+        else
+            Bits.putLong(a, value, bigEndian);
+        return this;
+    }
+
+    /**
+     * Reads four bytes at the given offset, composing them into a float value
+     * according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The float value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus three
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public float getFloat(long offset) {
+        return Float.intBitsToFloat(getInt(offset));
+    }
+
+    /**
+     * Writes four bytes containing the given float value, in the current byte
+     * order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The float value to be written
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus three
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment putFloat(long offset, float value) {
+        return putInt(offset, Float.floatToRawIntBits(value));
+    }
+
+    /**
+     * Reads eight bytes at the given offset, composing them into a double
+     * value according to the current byte order.
+     *
+     * @param  offset
+     *         The offset from which the bytes will be read
+     *
+     * @return  The double value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus seven
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public double getDouble(long offset) {
+        return Double.longBitsToDouble(getLong(offset));
+    }
+
+    /**
+     * Writes eight bytes containing the given double value, in the current
+     * byte order, at the given offset.
+     *
+     * @param  offset
+     *         The offset at which the bytes will be written
+     *
+     * @param  value
+     *         The double value to be written
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus seven
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment putDouble(long offset, double value) {
+        return putLong(offset, Double.doubleToRawLongBits(value));
+    }
+
+    // -- Volatile, ordered and atomic access --
+
+    /**
+     * Reads the int value at the given offset, in native byte order, with
+     * volatile semantics.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to four bytes
+     *         in memory
+     *
+     * @return  The int value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus three
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public int getIntVolatile(long offset) {
+        return unsafe.getIntVolatile(null, alignedAddress(offset, 4, false));
+    }
+
+    /**
+     * Writes the given int value at the given offset, in native byte order,
+     * with volatile semantics.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to four bytes
+     *         in memory
+     *
+     * @param  value
+     *         The int value to be written
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus three
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public void putIntVolatile(long offset, int value) {
+        unsafe.putIntVolatile(null, alignedAddress(offset, 4, true), value);
+    }
+
+    /**
+     * Writes the given int value at the given offset, in native byte order,
+     * with the semantics of {@link java.util.concurrent.atomic.AtomicInteger#lazySet
+     * lazySet}: the write is not reordered with prior writes, but may not be
+     * visible to other threads immediately.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to four bytes
+     *         in memory
+     *
+     * @param  value
+     *         The int value to be written
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus three
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public void putIntOrdered(long offset, int value) {
+        unsafe.putOrderedInt(null, alignedAddress(offset, 4, true), value);
+    }
+
+    /**
+     * Atomically sets the int value at the given offset, in native byte
+     * order, to the given updated value if the current value {@code ==} the
+     * expected value.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to four bytes
+     *         in memory
+     *
+     * @param  expect
+     *         The expected value
+     *
+     * @param  update
+     *         The new value
+     *
+     * @return  <tt>true</tt> if successful; <tt>false</tt> if the actual value
+     *          was not equal to the expected value
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus three
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public boolean compareAndSetInt(long offset, int expect, int update) {
+        return unsafe.compareAndSwapInt(null, alignedAddress(offset, 4, true),
+                                        expect, update);
+    }
+
+    /**
+     * Atomically adds the given value to the int value at the given offset,
+     * in native byte order.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to four bytes
+     *         in memory
+     *
+     * @param  delta
+     *         The value to add
+     *
+     * @return  The previous value
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus three
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public int getAndAddInt(long offset, int delta) {
+        return unsafe.getAndAddInt(null, alignedAddress(offset, 4, true), delta);
+    }
+
+    /**
+     * Reads the long value at the given offset, in native byte order, with
+     * volatile semantics.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to eight bytes
+     *         in memory
+     *
+     * @return  The long value at the given offset
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus seven
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public long getLongVolatile(long offset) {
+        return unsafe.getLongVolatile(null, alignedAddress(offset, 8, false));
+    }
+
+    /**
+     * Writes the given long value at the given offset, in native byte order,
+     * with volatile semantics.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to eight bytes
+     *         in memory
+     *
+     * @param  value
+     *         The long value to be written
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus seven
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public void putLongVolatile(long offset, long value) {
+        unsafe.putLongVolatile(null, alignedAddress(offset, 8, true), value);
+    }
+
+    /**
+     * Writes the given long value at the given offset, in native byte order,
+     * with the semantics of {@link java.util.concurrent.atomic.AtomicLong#lazySet
+     * lazySet}.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to eight bytes
+     *         in memory
+     *
+     * @param  value
+     *         The long value to be written
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus seven
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public void putLongOrdered(long offset, long value) {
+        unsafe.putOrderedLong(null, alignedAddress(offset, 8, true), value);
+    }
+
+    /**
+     * Atomically sets the long value at the given offset, in native byte
+     * order, to the given updated value if the current value {@code ==} the
+     * expected value.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to eight bytes
+     *         in memory
+     *
+     * @param  expect
+     *         The expected value
+     *
+     * @param  update
+     *         The new value
+     *
+     * @return  <tt>true</tt> if successful; <tt>false</tt> if the actual value
+     *          was not equal to the expected value
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus seven
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public boolean compareAndSetLong(long offset, long expect, long update) {
+        return unsafe.compareAndSwapLong(null, alignedAddress(offset, 8, true),
+                                         expect, update);
+    }
+
+    /**
+     * Atomically adds the given value to the long value at the given offset,
+     * in native byte order.
+     *
+     * @param  offset
+     *         The offset of the value, which must be aligned to eight bytes
+     *         in memory
+     *
+     * @param  delta
+     *         The value to add
+     *
+     * @return  The previous value
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If <tt>offset</tt> is negative or not smaller than the size,
+     *          minus seven
+     * @throws  IllegalArgumentException
+     *          If the value is not aligned
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public long getAndAddLong(long offset, long delta) {
+        return unsafe.getAndAddLong(null, alignedAddress(offset, 8, true), delta);
+    }
+
+    // -- Bulk get/put --
+
+    /**
+     * Transfers bytes from this segment, starting at the given offset, into
+     * the given array.
+     *
+     * @param  offset
+     *         The offset in this segment of the first byte to be read
+     *
+     * @param  dst
+     *         The array into which bytes are to be written
+     *
+     * @param  off
+     *         The offset within the array of the first byte to be written
+     *
+     * @param  length
+     *         The number of bytes to be transferred
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>offset</tt>, <tt>off</tt> and
+     *          <tt>length</tt> parameters do not hold
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment get(long offset, byte[] dst, int off, int length) {
+        Buffer.checkBounds(off, length, dst.length);
+        address(offset, length);
+        while (length > 0) {
+            int n = (int)Math.min(length, windowRemaining(offset));
+            Bits.copyToArray(address(offset, n), dst, arrayBaseOffset, off, n);
+            offset += n;
+            off += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Transfers bytes from the given array into this segment, starting at the
+     * given offset.
+     *
+     * @param  offset
+     *         The offset in this segment of the first byte to be written
+     *
+     * @param  src
+     *         The array from which bytes are to be read
+     *
+     * @param  off
+     *         The offset within the array of the first byte to be read
+     *
+     * @param  length
+     *         The number of bytes to be transferred
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>offset</tt>, <tt>off</tt> and
+     *          <tt>length</tt> parameters do not hold
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment put(long offset, byte[] src, int off, int length) {
+        Buffer.checkBounds(off, length, src.length);
+        writableAddress(offset, length);
+        while (length > 0) {
+            int n = (int)Math.min(length, windowRemaining(offset));
+            Bits.copyFromArray(src, arrayBaseOffset, off, address(offset, n), n);
+            offset += n;
+            off += n;
+            length -= n;
+        }
+        return this;
+    }
+
+    /**
+     * Transfers the bytes of this segment starting at the given offset into
+     * the given buffer, until the buffer has no bytes remaining.
+     *
+     * @param  offset
+     *         The offset in this segment of the first byte to be read
+     *
+     * @param  dst
+     *         The buffer into which bytes are to be written
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If there are fewer than <tt>dst.remaining()</tt> bytes in this
+     *          segment from the given offset
+     * @throws  ReadOnlyBufferException
+     *          If the given buffer is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment get(long offset, ByteBuffer dst) {
+        if (dst.isReadOnly())
+            throw new ReadOnlyBufferException();
+        address(offset, dst.remaining());
+        while (dst.hasRemaining()) {
+            int n = (int)Math.min(dst.remaining(),
+                                  Math.min(windowRemaining(offset), MAX_SLICE_SIZE));
+            dst.put(view(offset, n));
+            offset += n;
+        }
+        return this;
+    }
+
+    /**
+     * Transfers the remaining bytes of the given buffer into this segment,
+     * starting at the given offset.
+     *
+     * @param  offset
+     *         The offset in this segment of the first byte to be written
+     *
+     * @param  src
+     *         The buffer from which bytes are to be read
+     *
+     * @return  This segment
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If there are fewer than <tt>src.remaining()</tt> bytes in this
+     *          segment from the given offset
+     * @throws  ReadOnlyBufferException
+     *          If this segment is read-only
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public MappedSegment put(long offset, ByteBuffer src) {
+        writableAddress(offset, src.remaining());
+        while (src.hasRemaining()) {
+            int n = (int)Math.min(src.remaining(),
+                                  Math.min(windowRemaining(offset), MAX_SLICE_SIZE));
+            ByteBuffer part = src.duplicate();
+            part.limit(part.position() + n);
+            view(offset, n).put(part);
+            src.position(src.position() + n);
+            offset += n;
+        }
+        return this;
+    }
+
+    // -- Slicing and mapping operations --
+
+    /**
+     * Creates a byte buffer whose content is a shared subsequence of this
+     * segment's content.
+     *
+     * <p> The new buffer starts at the given offset of this segment and has a
+     * position of zero and a capacity and limit of <tt>length</tt>; its byte
+     * order is {@link ByteOrder#BIG_ENDIAN BIG_ENDIAN}.  It is a direct buffer,
+     * read-only if this segment is read-only.  Changes to this segment's
+     * content will be visible in the new buffer, and vice versa.  Once this
+     * segment is closed the buffer has zero capacity, so that any attempt to
+     * access its content fails with an exception.  </p>
+     *
+     * @param  offset
+     *         The offset in this segment of the first byte of the slice
+     *
+     * @param  length
+     *         The length of the slice; must be non-negative and no greater
+     *         than {@link #MAX_SLICE_SIZE}
+     *
+     * @return  The new byte buffer
+     *
+     * @throws  IllegalArgumentException
+     *          If <tt>length</tt> is negative or greater than {@link
+     *          #MAX_SLICE_SIZE}
+     * @throws  IndexOutOfBoundsException
+     *          If there are fewer than <tt>length</tt> bytes in this
+     *          segment from the given offset
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     */
+    public ByteBuffer slice(long offset, int length) {
+        if (length < 0 || length > MAX_SLICE_SIZE)
+            throw new IllegalArgumentException("Illegal slice length: " + length);
+        ByteBuffer slice = view(offset, length).slice();
+        synchronized (slices) {
+            for (Reference<?> r; (r = clearedSlices.poll()) != null; )
+                slices.remove(r);
+            slices.add(new WeakReference<>(slice, clearedSlices));
+        }
+        return slice;
+    }
+
+    // Returns an untracked duplicate of the window holding the n bytes at the
+    // given offset, positioned and limited to them, for copies that do not
+    // let it escape
+    private ByteBuffer view(long offset, int length) {
+        address(offset, length);
+        int w = window(offset);
+        int start = (int)(offset - w * WINDOW_STRIDE);
+        ByteBuffer b = windows[w].duplicate();
+        b.limit(start + length);
+        b.position(start);
+        return b;
+    }
+
+    /**
+     * Loads this segment's content into physical memory.
+     *
+     * @return  This segment
+     *
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     *
+     * @see MappedByteBuffer#load
+     */
+    public MappedSegment load() {
+        for (MappedByteBuffer w : windows())
+            w.load();
+        return this;
+    }
+
+    /**
+     * Advises the operating system how this segment's content will be
+     * accessed.
+     *
+     * @param  advice
+     *         The expected access pattern
+     *
+     * @return  This segment
+     *
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     *
+     * @see MappedByteBuffer#advise
+     */
+    public MappedSegment advise(MappedByteBuffer.Advice advice) {
+        Objects.requireNonNull(advice);
+        for (MappedByteBuffer w : windows())
+            w.advise(advice);
+        return this;
+    }
+
+    /**
+     * Forces any changes made to this segment's content to be written to the
+     * storage device containing the mapped file.
+     *
+     * @return  This segment
+     *
+     * @throws  IllegalStateException
+     *          If this segment is closed
+     *
+     * @see MappedByteBuffer#force
+     */
+    public MappedSegment force() {
+        for (MappedByteBuffer w : windows())
+            w.force();
+        return this;
+    }
+
+    private MappedByteBuffer[] windows() {
+        MappedByteBuffer[] ws = windows;
+        if (ws == null)
+            throw new IllegalStateException("Segment is closed");
+        return ws;
+    }
+
+    /**
+     * Closes this segment, releasing its mapping.
+     *
+     * <p> Once this method returns, any further attempt to access the
+     * segment fails with an {@link IllegalStateException}, and the buffers
+     * sliced from it have zero capacity.  Buffers derived from those slices
+     * must no longer be used.  Invoking this method on a closed segment has
+     * no effect.  </p>
+     */
+    @Override
+    public void close() {
+        MappedByteBuffer[] ws = windows;
+        if (ws != null) {
+            windows = null;
+            addresses = null;
+            synchronized (slices) {
+                for (Reference<ByteBuffer> r : slices) {
+                    ByteBuffer b = r.get();
+                    if (b != null) {
+                        b.truncate();
+                        b.address = 0;
+                    }
+                }
+                slices.clear();
+            }
+            for (MappedByteBuffer w : ws)
+                w.unmap();
+        }
+    }
+}
@@ -30,8 +30,11 @@ import java.nio.file.attribute.FileAttribute;
 import java.nio.file.spi.*;
 import java.nio.ByteBuffer;
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.Collections;
@@ -776,4 +779,281 @@ public abstract class AsynchronousFileChannel
      *          If this channel was not opened for writing
      */
     public abstract Future<Integer> write(ByteBuffer src, long position);
+
+    /**
+     * Reads sequences of bytes from this channel into the given buffers, each
+     * starting at the corresponding file position.
+     *
+     * <p> This method initiates a batch of reads, one for each element of
+     * {@code dsts}, as if by invoking {@link
+     * #read(ByteBuffer,long,Object,CompletionHandler) read(dsts[i],
+     * positions[i], ...)}. The reads may be performed in any order and
+     * concurrently. Their results are gathered into a single completion, so
+     * that a random-access workload at high queue depth is submitted in one
+     * call and consumed by one handler invocation. The result of the batch is
+     * an array whose i-th element is the number of bytes read into {@code
+     * dsts[i]}, or {@code -1} if {@code positions[i]} was greater than or equal
+     * to the file's size at the time that the read was attempted.
+     *
+     * <p> If any read fails then the handler's {@link CompletionHandler#failed
+     * failed} method is invoked, once all reads of the batch have finished,
+     * with the exception of the first read to fail. In that case the contents
+     * and positions of the buffers are unspecified. If {@code dsts} is empty
+     * then the handler is invoked by the initiating thread with an empty
+     * array.
+     *
+     * @implSpec
+     * The default implementation initiates each read with the single-buffer
+     * {@code read} method and counts down their completions. Implementations
+     * that can submit many I/O operations to the operating system in one
+     * system call are encouraged to override it.
+     *
+     * @param   <A>
+     *          The type of the attachment
+     * @param   dsts
+     *          The buffers into which bytes are to be transferred
+     * @param   positions
+     *          The file positions at which the transfers are to begin;
+     *          must be non-negative
+     * @param   attachment
+     *          The object to attach to the I/O operation; can be {@code null}
+     * @param   handler
+     *          The handler for consuming the result
+     *
+     * @throws  IllegalArgumentException
+     *          If the arrays differ in length, a position is negative or a
+     *          buffer is read-only
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     *
+     * @since 1.8
+     */
+    public <A> void read(ByteBuffer[] dsts,
+                         long[] positions,
+                         A attachment,
+                         CompletionHandler<int[],? super A> handler)
+    {
+        if (handler == null)
+            throw new NullPointerException("'handler' is null");
+        checkBatch(dsts, positions, true);
+        submitBatch(dsts, positions, true, attachment, handler);
+    }
+
+    /**
+     * Reads sequences of bytes from this channel into the given buffers, each
+     * starting at the corresponding file position.
+     *
+     * <p> This method initiates a batch of reads in the same manner as the
+     * {@link #read(ByteBuffer[],long[],Object,CompletionHandler)} method and
+     * returns a {@code Future} representing the pending result of the batch.
+     * The {@code Future}'s {@link Future#get() get} method returns an array
+     * whose i-th element is the number of bytes read into {@code dsts[i]}, or
+     * {@code -1} if {@code positions[i]} was greater than or equal to the
+     * file's size at the time that the read was attempted. Cancelling the
+     * {@code Future} does not cancel reads that have already been initiated.
+     *
+     * @param   dsts
+     *          The buffers into which bytes are to be transferred
+     * @param   positions
+     *          The file positions at which the transfers are to begin;
+     *          must be non-negative
+     *
+     * @return  A {@code Future} object representing the pending result
+     *
+     * @throws  IllegalArgumentException
+     *          If the arrays differ in length, a position is negative or a
+     *          buffer is read-only
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     *
+     * @since 1.8
+     */
+    public Future<int[]> read(ByteBuffer[] dsts, long[] positions) {
+        CompletableFuture<int[]> result = new CompletableFuture<>();
+        read(dsts, positions, result, BatchFuture.INSTANCE);
+        return result;
+    }
+
+    /**
+     * Writes sequences of bytes to this channel from the given buffers, each
+     * starting at the corresponding file position.
+     *
+     * <p> This method initiates a batch of writes, one for each element of
+     * {@code srcs}, as if by invoking {@link
+     * #write(ByteBuffer,long,Object,CompletionHandler) write(srcs[i],
+     * positions[i], ...)}. The writes may be performed in any order and
+     * concurrently, so the effect of writes to overlapping regions of the file
+     * is unspecified. The result of the batch is an array whose i-th element
+     * is the number of bytes written from {@code srcs[i]}. Failures are
+     * reported as for {@link #read(ByteBuffer[],long[],Object,CompletionHandler)
+     * batch reads}.
+     *
+     * @implSpec
+     * The default implementation initiates each write with the single-buffer
+     * {@code write} method and counts down their completions.
+     *
+     * @param   <A>
+     *          The type of the attachment
+     * @param   srcs
+     *          The buffers from which bytes are to be transferred
+     * @param   positions
+     *          The file positions at which the transfers are to begin;
+     *          must be non-negative
+     * @param   attachment
+     *          The object to attach to the I/O operation; can be {@code null}
+     * @param   handler
+     *          The handler for consuming the result
+     *
+     * @throws  IllegalArgumentException
+     *          If the arrays differ in length or a position is negative
+     * @throws  NonWritableChannelException
+     *          If this channel was not opened for writing
+     *
+     * @since 1.8
+     */
+    public <A> void write(ByteBuffer[] srcs,
+                          long[] positions,
+                          A attachment,
+                          CompletionHandler<int[],? super A> handler)
+    {
+        if (handler == null)
+            throw new NullPointerException("'handler' is null");
+        checkBatch(srcs, positions, false);
+        submitBatch(srcs, positions, false, attachment, handler);
+    }
+
+    /**
+     * Writes sequences of bytes to this channel from the given buffers, each
+     * starting at the corresponding file position.
+     *
+     * <p> This method initiates a batch of writes in the same manner as the
+     * {@link #write(ByteBuffer[],long[],Object,CompletionHandler)} method and
+     * returns a {@code Future} representing the pending result of the batch.
+     * The {@code Future}'s {@link Future#get() get} method returns an array
+     * whose i-th element is the number of bytes written from {@code srcs[i]}.
+     * Cancelling the {@code Future} does not cancel writes that have already
+     * been initiated.
+     *
+     * @param   srcs
+     *          The buffers from which bytes are to be transferred
+     * @param   positions
+     *          The file positions at which the transfers are to begin;
+     *          must be non-negative
+     *
+     * @return  A {@code Future} object representing the pending result
+     *
+     * @throws  IllegalArgumentException
+     *          If the arrays differ in length or a position is negative
+     * @throws  NonWritableChannelException
+     *          If this channel was not opened for writing
+     *
+     * @since 1.8
+     */
+    public Future<int[]> write(ByteBuffer[] srcs, long[] positions) {
+        CompletableFuture<int[]> result = new CompletableFuture<>();
+        write(srcs, positions, result, BatchFuture.INSTANCE);
+        return result;
+    }
+
+    private static void checkBatch(ByteBuffer[] bufs, long[] positions, boolean read) {
+        if (bufs.length != positions.length)
+            throw new IllegalArgumentException("Buffer and position counts differ");
+        for (int i = 0; i < bufs.length; i++) {
+            if (bufs[i] == null)
+                throw new NullPointerException();
+            if (positions[i] < 0)
+                throw new IllegalArgumentException("Negative position");
+            if (read && bufs[i].isReadOnly())
+                throw new IllegalArgumentException("Read-only buffer");
+        }
+    }
+
+    private <A> void submitBatch(ByteBuffer[] bufs,
+                                 long[] positions,
+                                 boolean read,
+                                 A attachment,
+                                 CompletionHandler<int[],? super A> handler)
+    {
+        int n = bufs.length;
+        if (n == 0) {
+            handler.completed(new int[0], attachment);
+            return;
+        }
+        Batch<A> batch = new Batch<>(n, attachment, handler);
+        for (int i = 0; i < n; i++) {
+            try {
+                if (read)
+                    read(bufs[i], positions[i], i, batch);
+                else
+                    write(bufs[i], positions[i], i, batch);
+            } catch (RuntimeException | Error x) {
+                // nothing is pending if the first operation is rejected
+                if (i == 0)
+                    throw x;
+                for (int j = i; j < n; j++)
+                    batch.failed(x, j);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gathers the completions of the operations of a batch, identified by
+     * their index, and completes the batch when the last one finishes.
+     */
+    private static final class Batch<A> implements CompletionHandler<Integer,Integer> {
+        private final int[] results;
+        private final AtomicInteger remaining;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final A attachment;
+        private final CompletionHandler<int[],? super A> handler;
+
+        Batch(int n, A attachment, CompletionHandler<int[],? super A> handler) {
+            this.results = new int[n];
+            this.remaining = new AtomicInteger(n);
+            this.attachment = attachment;
+            this.handler = handler;
+        }
+
+        @Override
+        public void completed(Integer result, Integer index) {
+            results[index] = result;
+            finish();
+        }
+
+        @Override
+        public void failed(Throwable exc, Integer index) {
+            failure.compareAndSet(null, exc);
+            finish();
+        }
+
+        private void finish() {
+            if (remaining.decrementAndGet() == 0) {
+                Throwable exc = failure.get();
+                if (exc == null)
+                    handler.completed(results, attachment);
+                else
+                    handler.failed(exc, attachment);
+            }
+        }
+    }
+
+    /**
+     * Completes the future passed as attachment with the result of a batch.
+     */
+    private static final class BatchFuture
+        implements CompletionHandler<int[],CompletableFuture<int[]>>
+    {
+        static final BatchFuture INSTANCE = new BatchFuture();
+
+        @Override
+        public void completed(int[] result, CompletableFuture<int[]> future) {
+            future.complete(result);
+        }
+
+        @Override
+        public void failed(Throwable exc, CompletableFuture<int[]> future) {
+            future.completeExceptionally(exc);
+        }
+    }
 }
@@ -463,6 +463,193 @@ public abstract class DatagramChannel
     public abstract int send(ByteBuffer src, SocketAddress target)
         throws IOException;
 
+    /**
+     * Receives a batch of datagrams via this channel.
+     *
+     * <p> This method receives up to {@code length} datagrams, as if by
+     * invoking the {@link #receive(ByteBuffer) receive} method once for each
+     * of the buffers {@code dsts[offset]} through {@code
+     * dsts[offset+length-1]} in turn, the source address of each datagram
+     * being stored at the same index of the {@code sources} array.  Each
+     * datagram is transferred into its buffer starting at the buffer's
+     * current position, and its length is given by how far the position
+     * advances; if there are fewer bytes remaining in a buffer than are
+     * required to hold its datagram then the remainder of the datagram is
+     * silently discarded.
+     *
+     * <p> If this channel is in blocking mode then this method waits until
+     * at least one datagram has been received, and then receives the further
+     * datagrams that are immediately available; if it is in non-blocking mode
+     * then it receives only those datagrams that are immediately available,
+     * possibly none.  It returns as soon as there is no datagram immediately
+     * available, or {@code length} datagrams have been received.
+     *
+     * <p> Receiving a batch of datagrams in one invocation is intended to
+     * let implementations use a single system call for the whole batch, such
+     * as {@code recvmmsg} on Linux, rather than one per datagram.  An
+     * implementation may also store the address already present at an index
+     * of the {@code sources} array, rather than a new but equal address, when
+     * the datagram was sent from that address, so that a caller that reuses
+     * the array across invocations does not cause an address to be allocated
+     * for each datagram from a steady set of senders.
+     *
+     * <p> The default implementation invokes the {@link #receive(ByteBuffer)
+     * receive} method for each buffer in turn, and in blocking mode returns
+     * after the first datagram.  </p>
+     *
+     * @param  dsts
+     *         The buffers into which the datagrams are to be transferred
+     *
+     * @param  offset
+     *         The offset within the buffer and address arrays of the first
+     *         datagram; must be non-negative and no larger than {@code
+     *         dsts.length} and {@code sources.length}
+     *
+     * @param  length
+     *         The maximum number of datagrams to receive; must be
+     *         non-negative and no larger than {@code dsts.length - offset}
+     *         and {@code sources.length - offset}
+     *
+     * @param  sources
+     *         The array in which the source address of each datagram is
+     *         to be stored
+     *
+     * @return  The number of datagrams received, possibly zero if this
+     *          channel is in non-blocking mode
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the {@code offset} and {@code length}
+     *          parameters do not hold
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the read operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the read operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  SecurityException
+     *          If a security manager has been installed
+     *          and it does not permit datagrams to be accepted
+     *          from a datagram's sender
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public int receive(ByteBuffer[] dsts, int offset, int length,
+                       SocketAddress[] sources)
+        throws IOException
+    {
+        if ((offset < 0) || (length < 0) || (offset > dsts.length - length)
+            || (offset > sources.length - length))
+            throw new IndexOutOfBoundsException();
+        int n = 0;
+        while (n < length) {
+            SocketAddress source = receive(dsts[offset + n]);
+            if (source == null)
+                break;
+            if (!source.equals(sources[offset + n]))
+                sources[offset + n] = source;
+            n++;
+            if (isBlocking())
+                break;
+        }
+        return n;
+    }
+
+    /**
+     * Sends a batch of datagrams via this channel.
+     *
+     * <p> This method sends up to {@code length} datagrams, as if by invoking
+     * the {@link #send(ByteBuffer,SocketAddress) send} method once for each of
+     * the buffers {@code srcs[offset]} through {@code srcs[offset+length-1]}
+     * in turn, with the target address at the same index of the {@code
+     * targets} array.  The remaining bytes of each buffer are transmitted as
+     * a single datagram.
+     *
+     * <p> If this channel is in blocking mode then all of the datagrams are
+     * sent.  If it is in non-blocking mode then datagrams are sent until
+     * there is insufficient room for the next one in the underlying output
+     * buffer; that datagram and those after it are not sent, and their
+     * buffers are left unchanged.
+     *
+     * <p> Sending a batch of datagrams in one invocation is intended to let
+     * implementations use a single system call for the whole batch, such as
+     * {@code sendmmsg} on Linux, rather than one per datagram.  The default
+     * implementation invokes the {@link #send(ByteBuffer,SocketAddress) send}
+     * method for each buffer in turn.  </p>
+     *
+     * @param  srcs
+     *         The buffers containing the datagrams to be sent
+     *
+     * @param  offset
+     *         The offset within the buffer and address arrays of the first
+     *         datagram; must be non-negative and no larger than {@code
+     *         srcs.length} and {@code targets.length}
+     *
+     * @param  length
+     *         The maximum number of datagrams to send; must be non-negative
+     *         and no larger than {@code srcs.length - offset} and {@code
+     *         targets.length - offset}
+     *
+     * @param  targets
+     *         The addresses to which the datagrams are to be sent
+     *
+     * @return  The number of datagrams sent, which will be {@code length}
+     *          unless this channel is in non-blocking mode
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the {@code offset} and {@code length}
+     *          parameters do not hold
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the write operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the write operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  SecurityException
+     *          If a security manager has been installed
+     *          and it does not permit datagrams to be sent
+     *          to a given address
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public int send(ByteBuffer[] srcs, int offset, int length,
+                    SocketAddress[] targets)
+        throws IOException
+    {
+        if ((offset < 0) || (length < 0) || (offset > srcs.length - length)
+            || (offset > targets.length - length))
+            throw new IndexOutOfBoundsException();
+        int n = 0;
+        while (n < length) {
+            ByteBuffer src = srcs[offset + n];
+            if (send(src, targets[offset + n]) == 0 && src.hasRemaining())
+                break;
+            n++;
+        }
+        return n;
+    }
+
 
     // -- ByteChannel operations --
 
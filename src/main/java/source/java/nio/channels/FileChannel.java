@@ -777,6 +777,311 @@ public abstract class FileChannel
      */
     public abstract int write(ByteBuffer src, long position) throws IOException;
 
+    /**
+     * Reads a sequence of bytes from this channel into a subsequence of the
+     * given buffers, starting at the given file position.
+     *
+     * <p> This method works in the same manner as the {@link
+     * #read(ByteBuffer[],int,int)} method, except that bytes are read starting
+     * at the given file position rather than at the channel's current
+     * position.  This method does not modify this channel's position.  If the
+     * given position is greater than the file's current size then no bytes are
+     * read.  </p>
+     *
+     * @implSpec
+     * The default implementation fills each buffer in turn by invoking {@link
+     * #read(ByteBuffer,long)}, stopping at end-of-file.  Implementations are
+     * encouraged to override it with a single vectored positional read, such
+     * as {@code preadv}, where the operating system provides one.
+     *
+     * @param  dsts
+     *         The buffers into which bytes are to be transferred
+     *
+     * @param  offset
+     *         The offset within the buffer array of the first buffer into
+     *         which bytes are to be transferred; must be non-negative and no
+     *         larger than <tt>dsts.length</tt>
+     *
+     * @param  length
+     *         The maximum number of buffers to be accessed; must be
+     *         non-negative and no larger than
+     *         <tt>dsts.length</tt>&nbsp;-&nbsp;<tt>offset</tt>
+     *
+     * @param  position
+     *         The file position at which the transfer is to begin;
+     *         must be non-negative
+     *
+     * @return  The number of bytes read, possibly zero, or <tt>-1</tt> if the
+     *          given position is greater than or equal to the file's current
+     *          size
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>offset</tt> and <tt>length</tt>
+     *          parameters do not hold
+     *
+     * @throws  IllegalArgumentException
+     *          If the position is negative
+     *
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the read operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the read operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public long read(ByteBuffer[] dsts, int offset, int length, long position)
+        throws IOException
+    {
+        if ((offset < 0) || (length < 0) || (offset > dsts.length - length))
+            throw new IndexOutOfBoundsException();
+        if (position < 0)
+            throw new IllegalArgumentException("Negative position");
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            ByteBuffer dst = dsts[i];
+            while (dst.hasRemaining()) {
+                int n = read(dst, position + total);
+                if (n < 0)
+                    return (total == 0) ? -1 : total;
+                if (n == 0)
+                    return total;
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Writes a sequence of bytes to this channel from a subsequence of the
+     * given buffers, starting at the given file position.
+     *
+     * <p> This method works in the same manner as the {@link
+     * #write(ByteBuffer[],int,int)} method, except that bytes are written
+     * starting at the given file position rather than at the channel's current
+     * position.  This method does not modify this channel's position.  If the
+     * given position is greater than the file's current size then the file
+     * will be grown to accommodate the new bytes; the values of any bytes
+     * between the previous end-of-file and the newly-written bytes are
+     * unspecified.  </p>
+     *
+     * @implSpec
+     * The default implementation drains each buffer in turn by invoking
+     * {@link #write(ByteBuffer,long)}.  Implementations are encouraged to
+     * override it with a single vectored positional write, such as {@code
+     * pwritev}, where the operating system provides one.
+     *
+     * @param  srcs
+     *         The buffers from which bytes are to be retrieved
+     *
+     * @param  offset
+     *         The offset within the buffer array of the first buffer from
+     *         which bytes are to be retrieved; must be non-negative and no
+     *         larger than <tt>srcs.length</tt>
+     *
+     * @param  length
+     *         The maximum number of buffers to be accessed; must be
+     *         non-negative and no larger than
+     *         <tt>srcs.length</tt>&nbsp;-&nbsp;<tt>offset</tt>
+     *
+     * @param  position
+     *         The file position at which the transfer is to begin;
+     *         must be non-negative
+     *
+     * @return  The number of bytes written, possibly zero
+     *
+     * @throws  IndexOutOfBoundsException
+     *          If the preconditions on the <tt>offset</tt> and <tt>length</tt>
+     *          parameters do not hold
+     *
+     * @throws  IllegalArgumentException
+     *          If the position is negative
+     *
+     * @throws  NonWritableChannelException
+     *          If this channel was not opened for writing
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the write operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the write operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public long write(ByteBuffer[] srcs, int offset, int length, long position)
+        throws IOException
+    {
+        if ((offset < 0) || (length < 0) || (offset > srcs.length - length))
+            throw new IndexOutOfBoundsException();
+        if (position < 0)
+            throw new IllegalArgumentException("Negative position");
+        long total = 0;
+        for (int i = offset; i < offset + length; i++) {
+            ByteBuffer src = srcs[i];
+            while (src.hasRemaining()) {
+                int n = write(src, position + total);
+                if (n <= 0)
+                    return total;
+                total += n;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Reads sequences of bytes from this channel into the given buffers, each
+     * starting at the corresponding file position.
+     *
+     * <p> For each index <i>i</i> this method reads into <tt>dsts[</tt><i>i</i><tt>]</tt>
+     * starting at file position <tt>positions[</tt><i>i</i><tt>]</tt>, as if by
+     * invoking {@link #read(ByteBuffer,long)} until the buffer is full or
+     * end-of-file is reached, so that many small non-contiguous records can be
+     * read with one invocation.  Buffers whose position is at or beyond the
+     * file's current size are left unchanged.  This method does not modify
+     * this channel's position.  </p>
+     *
+     * @implSpec
+     * The default implementation reads each buffer in turn by invoking {@link
+     * #read(ByteBuffer,long)}.  Implementations are encouraged to override it
+     * with fewer system calls where the operating system permits.
+     *
+     * @param  dsts
+     *         The buffers into which bytes are to be transferred
+     *
+     * @param  positions
+     *         The file positions at which the transfers are to begin;
+     *         must be non-negative
+     *
+     * @return  The total number of bytes read, possibly zero, or <tt>-1</tt>
+     *          if every given position is greater than or equal to the file's
+     *          current size
+     *
+     * @throws  IllegalArgumentException
+     *          If the arrays differ in length or a position is negative
+     *
+     * @throws  NonReadableChannelException
+     *          If this channel was not opened for reading
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the read operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the read operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public long read(ByteBuffer[] dsts, long[] positions) throws IOException {
+        checkPositions(dsts, positions);
+        long total = 0;
+        boolean eof = true;
+        for (int i = 0; i < dsts.length; i++) {
+            long n = read(dsts, i, 1, positions[i]);
+            if (n >= 0) {
+                eof = false;
+                total += n;
+            }
+        }
+        return (eof && dsts.length > 0) ? -1 : total;
+    }
+
+    /**
+     * Writes sequences of bytes to this channel from the given buffers, each
+     * starting at the corresponding file position.
+     *
+     * <p> For each index <i>i</i> this method writes the remaining bytes of
+     * <tt>srcs[</tt><i>i</i><tt>]</tt> starting at file position
+     * <tt>positions[</tt><i>i</i><tt>]</tt>, as if by invoking {@link
+     * #write(ByteBuffer,long)}, in order of increasing index.  This method
+     * does not modify this channel's position.  </p>
+     *
+     * @implSpec
+     * The default implementation writes each buffer in turn by invoking
+     * {@link #write(ByteBuffer,long)}.  Implementations are encouraged to
+     * override it with fewer system calls where the operating system permits.
+     *
+     * @param  srcs
+     *         The buffers from which bytes are to be retrieved
+     *
+     * @param  positions
+     *         The file positions at which the transfers are to begin;
+     *         must be non-negative
+     *
+     * @return  The total number of bytes written, possibly zero
+     *
+     * @throws  IllegalArgumentException
+     *          If the arrays differ in length or a position is negative
+     *
+     * @throws  NonWritableChannelException
+     *          If this channel was not opened for writing
+     *
+     * @throws  ClosedChannelException
+     *          If this channel is closed
+     *
+     * @throws  AsynchronousCloseException
+     *          If another thread closes this channel
+     *          while the write operation is in progress
+     *
+     * @throws  ClosedByInterruptException
+     *          If another thread interrupts the current thread
+     *          while the write operation is in progress, thereby
+     *          closing the channel and setting the current thread's
+     *          interrupt status
+     *
+     * @throws  IOException
+     *          If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public long write(ByteBuffer[] srcs, long[] positions) throws IOException {
+        checkPositions(srcs, positions);
+        long total = 0;
+        for (int i = 0; i < srcs.length; i++)
+            total += write(srcs, i, 1, positions[i]);
+        return total;
+    }
+
+    private static void checkPositions(ByteBuffer[] bufs, long[] positions) {
+        if (bufs.length != positions.length)
+            throw new IllegalArgumentException("Buffer and position counts differ");
+        for (long position : positions) {
+            if (position < 0)
+                throw new IllegalArgumentException("Negative position");
+        }
+    }
+
 
     // -- Memory-mapped buffers --
 
@@ -857,7 +1162,9 @@ public abstract class FileChannel
      * returned by this method will have a position of zero and a limit and
      * capacity of <tt>size</tt>; its mark will be undefined.  The buffer and
      * the mapping that it represents will remain valid until the buffer itself
-     * is garbage-collected.
+     * is garbage-collected; there is no way to release it earlier.  A region
+     * whose mapping must be released at a known time can instead be mapped
+     * with {@link java.nio.MappedSegment#map MappedSegment.map} and closed.
      *
      * <p> A mapping, once established, is not dependent upon the file channel
      * that was used to create it.  Closing the channel, in particular, has no
@@ -911,11 +1218,78 @@ public abstract class FileChannel
      *
      * @see java.nio.channels.FileChannel.MapMode
      * @see java.nio.MappedByteBuffer
+     * @see java.nio.MappedSegment
      */
     public abstract MappedByteBuffer map(MapMode mode,
                                          long position, long size)
         throws IOException;
 
+    /**
+     * Maps a region of this channel's file directly into memory, applying
+     * the given access hints to the mapping.
+     *
+     * <p> This method works in the same manner as the {@link
+     * #map(MapMode,long,long)} method, except that the operating system is
+     * advised of the expected use of the mapping before it is returned, so
+     * that, for example, a region that will be scanned once may be mapped
+     * with {@link MappedByteBuffer.Advice#SEQUENTIAL SEQUENTIAL} read-ahead,
+     * or a region that must not fault later may be mapped with {@link
+     * MappedByteBuffer.Advice#POPULATE POPULATE}.  Hints that the operating
+     * system does not support are ignored.  </p>
+     *
+     * @implSpec
+     * The default implementation maps the region with {@link
+     * #map(MapMode,long,long)} and then invokes {@link
+     * MappedByteBuffer#advise advise} with each hint in turn.
+     * Implementations may instead pass hints such as {@code POPULATE} and
+     * {@code HUGE_PAGES} to the operating system when establishing the
+     * mapping.
+     *
+     * @param  mode
+     *         One of the constants {@link MapMode#READ_ONLY READ_ONLY}, {@link
+     *         MapMode#READ_WRITE READ_WRITE}, or {@link MapMode#PRIVATE
+     *         PRIVATE} defined in the {@link MapMode} class
+     *
+     * @param  position
+     *         The position within the file at which the mapped region
+     *         is to start; must be non-negative
+     *
+     * @param  size
+     *         The size of the region to be mapped; must be non-negative and
+     *         no greater than {@link java.lang.Integer#MAX_VALUE}
+     *
+     * @param  advice
+     *         The access hints for the mapping
+     *
+     * @return  The mapped byte buffer
+     *
+     * @throws NonReadableChannelException
+     *         If the <tt>mode</tt> is {@link MapMode#READ_ONLY READ_ONLY} but
+     *         this channel was not opened for reading
+     *
+     * @throws NonWritableChannelException
+     *         If the <tt>mode</tt> is {@link MapMode#READ_WRITE READ_WRITE} or
+     *         {@link MapMode#PRIVATE PRIVATE} but this channel was not opened
+     *         for both reading and writing
+     *
+     * @throws IllegalArgumentException
+     *         If the preconditions on the parameters do not hold
+     *
+     * @throws IOException
+     *         If some other I/O error occurs
+     *
+     * @since 1.8
+     */
+    public MappedByteBuffer map(MapMode mode, long position, long size,
+                                MappedByteBuffer.Advice... advice)
+        throws IOException
+    {
+        MappedByteBuffer mbb = map(mode, position, size);
+        for (MappedByteBuffer.Advice a : advice)
+            mbb.advise(a);
+        return mbb;
+    }
+
 
     // -- Locks --
 
@@ -28,7 +28,10 @@ package java.nio.channels;
 import java.io.Closeable;
 import java.io.IOException;
 import java.nio.channels.spi.SelectorProvider;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 
 
 /**
@@ -210,6 +213,9 @@ public abstract class Selector implements Closeable {
      */
     protected Selector() { }
 
+    // The keys consumed by doSelect, grown as needed and reused; guarded by this
+    private SelectionKey[] selected = new SelectionKey[0];
+
     /**
      * Opens a selector.
      *
@@ -349,6 +355,135 @@ public abstract class Selector implements Closeable {
      */
     public abstract int select() throws IOException;
 
+    /**
+     * Selects and performs an action on the keys whose corresponding channels
+     * are ready for I/O operations.
+     *
+     * <p> This method performs a blocking <a href="#selop">selection
+     * operation</a>, as by {@link #select(long)}, except that rather than
+     * adding each key to the selected-key set, the given action is invoked
+     * on the key, with its ready set updated, as soon as it is selected.  The
+     * selected-key set is therefore left empty, and a selector that does not
+     * use it does not pay for maintaining it.  The action is invoked by the
+     * selecting thread while it holds the selector's lock, so it should not
+     * itself perform selection operations on this selector.
+     *
+     * <p> The default implementation selects as by {@link #select(long)} or
+     * {@link #selectNow()}, copies the selected-key set into an array that
+     * is kept and reused by later invocations, clears the set, and then
+     * invokes the action on each key of the array.  It still adds each key
+     * to the selected-key set first, and so does not avoid the cost of
+     * maintaining it.
+     * Selector implementations are encouraged to override it to invoke the
+     * action directly as ready events are processed.  </p>
+     *
+     * @param  action   The action to perform
+     *
+     * @param  timeout  If positive, block for up to {@code timeout}
+     *                  milliseconds, more or less, while waiting for a
+     *                  channel to become ready; if zero, block indefinitely;
+     *                  must not be negative
+     *
+     * @return  The number of unique keys consumed, possibly zero
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @throws  ClosedSelectorException
+     *          If this selector is closed or is closed by the action
+     *
+     * @throws  IllegalArgumentException
+     *          If the value of the timeout argument is negative
+     *
+     * @since 1.8
+     */
+    public int select(Consumer<SelectionKey> action, long timeout)
+        throws IOException
+    {
+        if (timeout < 0)
+            throw new IllegalArgumentException("Negative timeout");
+        return doSelect(Objects.requireNonNull(action), timeout);
+    }
+
+    /**
+     * Selects and performs an action on the keys whose corresponding channels
+     * are ready for I/O operations.  This method performs a blocking <a
+     * href="#selop">selection operation</a>, as by {@link
+     * #select(Consumer,long) select(action, 0)}.
+     *
+     * @param  action   The action to perform
+     *
+     * @return  The number of unique keys consumed, possibly zero
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @throws  ClosedSelectorException
+     *          If this selector is closed or is closed by the action
+     *
+     * @since 1.8
+     */
+    public int select(Consumer<SelectionKey> action) throws IOException {
+        return select(action, 0);
+    }
+
+    /**
+     * Selects and performs an action on the keys whose corresponding channels
+     * are ready for I/O operations.  This method performs a non-blocking <a
+     * href="#selop">selection operation</a>, as by {@link #selectNow()}, and
+     * otherwise behaves as {@link #select(Consumer,long)}.
+     *
+     * @param  action   The action to perform
+     *
+     * @return  The number of unique keys consumed, possibly zero
+     *
+     * @throws  IOException
+     *          If an I/O error occurs
+     *
+     * @throws  ClosedSelectorException
+     *          If this selector is closed or is closed by the action
+     *
+     * @since 1.8
+     */
+    public int selectNow(Consumer<SelectionKey> action) throws IOException {
+        return doSelect(Objects.requireNonNull(action), -1);
+    }
+
+    /**
+     * Default implementation of select(Consumer) and selectNow(Consumer),
+     * with a negative timeout meaning selectNow.
+     */
+    private int doSelect(Consumer<SelectionKey> action, long timeout)
+        throws IOException
+    {
+        synchronized (this) {
+            Set<SelectionKey> selectedKeys = selectedKeys();
+            synchronized (selectedKeys) {
+                selectedKeys.clear();
+                if (timeout < 0)
+                    selectNow();
+                else
+                    select(timeout);
+                int n = selectedKeys.size();
+                SelectionKey[] keys = selected;
+                if (keys.length < n)
+                    selected = keys = new SelectionKey[Math.max(n, keys.length << 1)];
+                selectedKeys.toArray(keys);
+                selectedKeys.clear();
+                try {
+                    for (int i = 0; i < n; i++) {
+                        action.accept(keys[i]);
+                        if (!isOpen())
+                            throw new ClosedSelectorException();
+                    }
+                } finally {
+                    Arrays.fill(keys, 0, n, null);
+                }
+                return n;
+            }
+        }
+    }
+
     /**
      * Causes the first selection operation that has not yet returned to return
      * immediately.
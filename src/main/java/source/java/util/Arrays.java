@@ -82,6 +82,14 @@ public class Arrays {
      */
     private static final int MIN_ARRAY_SORT_GRAN = 1 << 13;
 
+    /**
+     * The minimum array length at or above which int, long, float and
+     * double arrays are sorted in parallel by sample sort rather than
+     * by sort-merge. Below this size the fixed costs of sampling and
+     * of the per-bucket counts outweigh the savings in data movement.
+     */
+    private static final int MIN_ARRAY_SAMPLE_SORT = 1 << 20;
+
     // Suppresses default constructor, ensuring non-instantiability.
     //禁止默认构造函数，确保不可实例化
     private Arrays() {}
@@ -725,7 +733,11 @@ public class Arrays {
      * Arrays#sort(int[]) Arrays.sort} method. The algorithm requires a
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
-     * execute any parallel tasks.
+     * execute any parallel tasks. Above a larger threshold, unless a
+     * sample of the elements finds them already in ascending or descending
+     * order, the elements are instead distributed into buckets by a
+     * parallel sample sort, and each bucket is sorted using a radix sort;
+     * this needs the same working space.
      * 2.排序算法是一种并行排序合并，它将数组分解为子数组，这些子数组本身已排序然后合并。
      * 当子数组长度达到最小粒度时，使用适当的Arrays.sort(int[])方法对子数组进行排序。
      * 如果指定数组的长度小于最小粒度，则使用适当的Arrays.sort(int[])方法对其进行排序
@@ -739,6 +751,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_SAMPLE_SORT && !sampledInOrder(a, 0, n))
+            new ArraysParallelSortHelpers.FJInt.SampleSorter
+                (a, new int[n], 0, n, 0, p).invoke();
         else
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], 0, n, 0,
@@ -762,7 +777,8 @@ public class Arrays {
      * Arrays#sort(int[]) Arrays.sort} method. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
-     * used to execute any parallel tasks.
+     * used to execute any parallel tasks. Large ranges may instead be
+     * sorted by sample sort, as described for {@link #parallelSort(int[])}.
      * 2.排序算法是一种并行排序合并，它将数组分解为子数组，这些子数组本身已排序然后合并。
      * 当子数组长度达到最小粒度时，使用适当的Arrays.sort(int[])方法对子数组进行排序。
      * 如果指定数组的长度小于最小粒度，则使用适当的Arrays.sort(int[])方法对其进行排序。
@@ -783,6 +799,10 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_SAMPLE_SORT &&
+                 !sampledInOrder(a, fromIndex, n))
+            new ArraysParallelSortHelpers.FJInt.SampleSorter
+                (a, new int[n], fromIndex, n, 0, p).invoke();
         else
             new ArraysParallelSortHelpers.FJInt.Sorter
                 (null, a, new int[n], fromIndex, n, 0,
@@ -802,7 +822,8 @@ public class Arrays {
      * Arrays#sort(long[]) Arrays.sort} method. The algorithm requires a
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
-     * execute any parallel tasks.
+     * execute any parallel tasks. Large arrays may instead be sorted by
+     * sample sort, as described for {@link #parallelSort(int[])}.
      * 2.排序算法是一种并行排序合并，它将数组分解为子数组，这些子数组本身已排序然后合并。
      * 当子数组长度达到最小粒度时，使用适当的Arrays.sort(long[])方法对子数组进行排序。
      * 如果指定数组的长度小于最小粒度，则使用适当的Arrays.sort(long[])方法对其进行排序。
@@ -816,6 +837,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_SAMPLE_SORT && !sampledInOrder(a, 0, n))
+            new ArraysParallelSortHelpers.FJLong.SampleSorter
+                (a, new long[n], 0, n, 0, p).invoke();
         else
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], 0, n, 0,
@@ -839,7 +863,8 @@ public class Arrays {
      * Arrays#sort(long[]) Arrays.sort} method. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
-     * used to execute any parallel tasks.
+     * used to execute any parallel tasks. Large ranges may instead be
+     * sorted by sample sort, as described for {@link #parallelSort(int[])}.
      * 2.排序算法是一种并行排序合并，它将数组分解为子数组，这些子数组本身已排序然后合并。
      * 当子数组长度达到最小粒度时，使用适当的Arrayssort(long[])方法对子数组进行排序。
      * 如果指定数组的长度小于最小粒度，则使用适当的Arrayssort(long[])方法对其进行排序。
@@ -860,6 +885,10 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_SAMPLE_SORT &&
+                 !sampledInOrder(a, fromIndex, n))
+            new ArraysParallelSortHelpers.FJLong.SampleSorter
+                (a, new long[n], fromIndex, n, 0, p).invoke();
         else
             new ArraysParallelSortHelpers.FJLong.Sorter
                 (null, a, new long[n], fromIndex, n, 0,
@@ -889,7 +918,9 @@ public class Arrays {
      * Arrays#sort(float[]) Arrays.sort} method. The algorithm requires a
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
-     * execute any parallel tasks.
+     * execute any parallel tasks. Large arrays are instead sorted by
+     * sample sort whatever their order, as described for {@link
+     * #parallelSort(int[])}.
      * 3.排序算法是一种并行排序合并，它将数组分解为子数组，这些子数组本身已排序然后合并。
      * 当子数组长度达到最小粒度时，使用适当的 Arrays.sort(float[])方法对子数组进行排序。
      * 如果指定数组的长度小于最小粒度，则使用适当的Arrays.sort(float[])方法对其进行排序。
@@ -903,6 +934,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_SAMPLE_SORT)
+            new ArraysParallelSortHelpers.FJFloat.SampleSorter
+                (a, new float[n], 0, n, 0, p).invoke();
         else
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], 0, n, 0,
@@ -936,7 +970,9 @@ public class Arrays {
      * Arrays#sort(float[]) Arrays.sort} method. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
-     * used to execute any parallel tasks.
+     * used to execute any parallel tasks. Large ranges are instead
+     * sorted by sample sort whatever their order, as described for
+     * {@link #parallelSort(int[])}.
      * 3.排序算法是一种并行排序合并，它将数组分解为子数组，这些子数组本身已排序然后合并。当子数组长度达到最小粒度时，
      * 使用适当的Arrayssort(float[])方法对子数组进行排序。如果指定数组的长度小于最小粒度，则使用适当的Arrayssort(float[])
      * 方法对其进行排序。该算法需要一个不大于原始数组指定范围大小的工作空间。ForkJoinPoolcommonPool() ForkJoin 公共池用于执行任何并行任务。
@@ -956,6 +992,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_SAMPLE_SORT)
+            new ArraysParallelSortHelpers.FJFloat.SampleSorter
+                (a, new float[n], fromIndex, n, 0, p).invoke();
         else
             new ArraysParallelSortHelpers.FJFloat.Sorter
                 (null, a, new float[n], fromIndex, n, 0,
@@ -985,7 +1024,9 @@ public class Arrays {
      * Arrays#sort(double[]) Arrays.sort} method. The algorithm requires a
      * working space no greater than the size of the original array. The
      * {@link ForkJoinPool#commonPool() ForkJoin common pool} is used to
-     * execute any parallel tasks.
+     * execute any parallel tasks. Large arrays are instead sorted by
+     * sample sort whatever their order, as described for {@link
+     * #parallelSort(int[])}.
      * 3.排序算法是一种并行排序合并，它将数组分解为子数组，这些子数组本身已排序然后合并。
      * 当子数组长度达到最小粒度时，使用适当的Arrayssort(double[])方法对子数组进行排序。
      * 如果指定数组的长度小于最小粒度，则使用适当的Arrayssort(double[])方法对其进行排序。
@@ -999,6 +1040,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, 0, n - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_SAMPLE_SORT)
+            new ArraysParallelSortHelpers.FJDouble.SampleSorter
+                (a, new double[n], 0, n, 0, p).invoke();
         else
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], 0, n, 0,
@@ -1032,7 +1076,9 @@ public class Arrays {
      * Arrays#sort(double[]) Arrays.sort} method. The algorithm requires a working
      * space no greater than the size of the specified range of the original
      * array. The {@link ForkJoinPool#commonPool() ForkJoin common pool} is
-     * used to execute any parallel tasks.
+     * used to execute any parallel tasks. Large ranges are instead
+     * sorted by sample sort whatever their order, as described for
+     * {@link #parallelSort(int[])}.
      * 3.排序算法是一种并行排序合并，它将数组分解为子数组，这些子数组本身已排序然后合并。当子数组长度达到最小粒度时，
      * 使用适当的Arrayssort(double[])方法对子数组进行排序。如果指定数组的长度小于最小粒度，则使用适当的Arrayssort(double[])
      * 方法对其进行排序。该算法需要一个不大于原始数组指定范围大小的工作空间。 ForkJoinPoolcommonPool() ForkJoin 公共池用于执行任何并行任务。
@@ -1052,6 +1098,9 @@ public class Arrays {
         if (n <= MIN_ARRAY_SORT_GRAN ||
             (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
             DualPivotQuicksort.sort(a, fromIndex, toIndex - 1, null, 0, 0);
+        else if (n >= MIN_ARRAY_SAMPLE_SORT)
+            new ArraysParallelSortHelpers.FJDouble.SampleSorter
+                (a, new double[n], fromIndex, n, 0, p).invoke();
         else
             new ArraysParallelSortHelpers.FJDouble.Sorter
                 (null, a, new double[n], fromIndex, n, 0,
@@ -1059,6 +1108,300 @@ public class Arrays {
                  MIN_ARRAY_SORT_GRAN : g).invoke();
     }
 
+    /**
+     * The number of evenly spaced elements examined to decide whether a
+     * large array is already ordered.
+     */
+    private static final int ORDER_SAMPLE_SIZE = 64;
+
+    /*
+     * Sample sort moves every element through the buckets whatever the
+     * input, while the sort-merge leaves find and reuse existing runs, so
+     * int and long arrays whose sampled elements are all ascending or all
+     * descending (typically sorted or nearly sorted data) keep the
+     * sort-merge path. Float and double arrays always use sample sort,
+     * which orders NaNs and signed zeros in a single prepass over the
+     * whole array rather than within each sort-merge leaf.
+     */
+
+    private static boolean sampledInOrder(int[] a, int from, int n) {
+        int step = n / ORDER_SAMPLE_SIZE, up = 0, down = 0;
+        for (int i = from + step, end = from + n; i < end; i += step) {
+            if (a[i - step] < a[i]) ++up;
+            else if (a[i - step] > a[i]) ++down;
+        }
+        return up == 0 || down == 0;
+    }
+
+    private static boolean sampledInOrder(long[] a, int from, int n) {
+        int step = n / ORDER_SAMPLE_SIZE, up = 0, down = 0;
+        for (int i = from + step, end = from + n; i < end; i += step) {
+            if (a[i - step] < a[i]) ++up;
+            else if (a[i - step] > a[i]) ++down;
+        }
+        return up == 0 || down == 0;
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * applying the same permutation to the specified array of values,
+     * so that each value stays paired with the key at the same index.
+     * This sort is not guaranteed to be <i>stable</i>: values whose keys
+     * are equal may be reordered.
+     *
+     * <p>Implementation note: The sorting algorithm is the Dual-Pivot
+     * Quicksort used by {@link #sort(int[])}, moving each value along with
+     * its key. It allocates no memory and performs no boxing.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted along with keys
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void sortByKey(int[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("keys.length(" + keys.length +
+                ") != values.length(" + values.length + ")");
+        DualPivotQuicksort.sortByKey(keys, values, 0, keys.length - 1);
+    }
+
+    /**
+     * Sorts the specified range of the array of keys into ascending
+     * numerical order, applying the same permutation to the same range
+     * of the array of values. The range to be sorted extends from the
+     * index {@code fromIndex}, inclusive, to the index {@code toIndex},
+     * exclusive. If {@code fromIndex == toIndex}, the range to be sorted
+     * is empty. This sort is not guaranteed to be <i>stable</i>.
+     *
+     * <p>Implementation note: The sorting algorithm is the Dual-Pivot
+     * Quicksort used by {@link #sort(int[], int, int)}, moving each value
+     * along with its key. It allocates no memory and performs no boxing.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted along with keys
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0}, or {@code toIndex} is greater than the
+     *     length of either array
+     *
+     * @since 1.8
+     */
+    public static void sortByKey(int[] keys, int[] values,
+                                 int fromIndex, int toIndex) {
+        rangeCheck(keys.length, fromIndex, toIndex);
+        rangeCheck(values.length, fromIndex, toIndex);
+        DualPivotQuicksort.sortByKey(keys, values, fromIndex, toIndex - 1);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * applying the same permutation to the specified array of values.
+     * This sort is not guaranteed to be <i>stable</i>.
+     *
+     * @implNote The sorting algorithm is a parallel sort-merge, as for
+     * {@link #parallelSort(int[])}, in which each merge moves values along
+     * with their keys and sub-arrays are sorted using {@link
+     * #sortByKey(int[], int[]) sortByKey}. If the length of the arrays is
+     * less than the minimum granularity, they are sorted using {@code
+     * sortByKey}. The algorithm requires working space no greater than
+     * the size of the original arrays. The {@link ForkJoinPool#commonPool()
+     * ForkJoin common pool} is used to execute any parallel tasks.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted along with keys
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void parallelSortByKey(int[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("keys.length(" + keys.length +
+                ") != values.length(" + values.length + ")");
+        parallelSortByKey0(keys, values, 0, keys.length);
+    }
+
+    /**
+     * Sorts the specified range of the array of keys into ascending
+     * numerical order, applying the same permutation to the same range
+     * of the array of values. The range to be sorted extends from the
+     * index {@code fromIndex}, inclusive, to the index {@code toIndex},
+     * exclusive. If {@code fromIndex == toIndex}, the range to be sorted
+     * is empty. This sort is not guaranteed to be <i>stable</i>.
+     *
+     * @implNote The sorting algorithm is a parallel sort-merge, as for
+     * {@link #parallelSort(int[], int, int)}, in which each merge moves
+     * values along with their keys and sub-arrays are sorted using {@link
+     * #sortByKey(int[], int[], int, int) sortByKey}. The algorithm requires
+     * working space no greater than the size of the specified range of
+     * the original arrays. The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted along with keys
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0}, or {@code toIndex} is greater than the
+     *     length of either array
+     *
+     * @since 1.8
+     */
+    public static void parallelSortByKey(int[] keys, int[] values,
+                                         int fromIndex, int toIndex) {
+        rangeCheck(keys.length, fromIndex, toIndex);
+        rangeCheck(values.length, fromIndex, toIndex);
+        parallelSortByKey0(keys, values, fromIndex, toIndex);
+    }
+
+    private static void parallelSortByKey0(int[] keys, int[] values,
+                                           int fromIndex, int toIndex) {
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            DualPivotQuicksort.sortByKey(keys, values, fromIndex, toIndex - 1);
+        else
+            new ArraysParallelSortHelpers.FJIntKeyed.Sorter
+                (null, keys, new int[n], values, new int[n], fromIndex, n, 0,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g).invoke();
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * applying the same permutation to the specified array of values,
+     * so that each value stays paired with the key at the same index.
+     * This sort is not guaranteed to be <i>stable</i>: values whose keys
+     * are equal may be reordered.
+     *
+     * <p>Implementation note: The sorting algorithm is the Dual-Pivot
+     * Quicksort used by {@link #sort(long[])}, moving each value along with
+     * its key. It allocates no memory and performs no boxing.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted along with keys
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void sortByKey(long[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("keys.length(" + keys.length +
+                ") != values.length(" + values.length + ")");
+        DualPivotQuicksort.sortByKey(keys, values, 0, keys.length - 1);
+    }
+
+    /**
+     * Sorts the specified range of the array of keys into ascending
+     * numerical order, applying the same permutation to the same range
+     * of the array of values. The range to be sorted extends from the
+     * index {@code fromIndex}, inclusive, to the index {@code toIndex},
+     * exclusive. If {@code fromIndex == toIndex}, the range to be sorted
+     * is empty. This sort is not guaranteed to be <i>stable</i>.
+     *
+     * <p>Implementation note: The sorting algorithm is the Dual-Pivot
+     * Quicksort used by {@link #sort(long[], int, int)}, moving each value
+     * along with its key. It allocates no memory and performs no boxing.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted along with keys
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0}, or {@code toIndex} is greater than the
+     *     length of either array
+     *
+     * @since 1.8
+     */
+    public static void sortByKey(long[] keys, int[] values,
+                                 int fromIndex, int toIndex) {
+        rangeCheck(keys.length, fromIndex, toIndex);
+        rangeCheck(values.length, fromIndex, toIndex);
+        DualPivotQuicksort.sortByKey(keys, values, fromIndex, toIndex - 1);
+    }
+
+    /**
+     * Sorts the specified array of keys into ascending numerical order,
+     * applying the same permutation to the specified array of values.
+     * This sort is not guaranteed to be <i>stable</i>.
+     *
+     * @implNote The sorting algorithm is a parallel sort-merge, as for
+     * {@link #parallelSort(long[])}, in which each merge moves values along
+     * with their keys and sub-arrays are sorted using {@link
+     * #sortByKey(long[], int[]) sortByKey}. If the length of the arrays is
+     * less than the minimum granularity, they are sorted using {@code
+     * sortByKey}. The algorithm requires working space no greater than
+     * the size of the original arrays. The {@link ForkJoinPool#commonPool()
+     * ForkJoin common pool} is used to execute any parallel tasks.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted along with keys
+     * @throws IllegalArgumentException if the arrays differ in length
+     *
+     * @since 1.8
+     */
+    public static void parallelSortByKey(long[] keys, int[] values) {
+        if (keys.length != values.length)
+            throw new IllegalArgumentException("keys.length(" + keys.length +
+                ") != values.length(" + values.length + ")");
+        parallelSortByKey0(keys, values, 0, keys.length);
+    }
+
+    /**
+     * Sorts the specified range of the array of keys into ascending
+     * numerical order, applying the same permutation to the same range
+     * of the array of values. The range to be sorted extends from the
+     * index {@code fromIndex}, inclusive, to the index {@code toIndex},
+     * exclusive. If {@code fromIndex == toIndex}, the range to be sorted
+     * is empty. This sort is not guaranteed to be <i>stable</i>.
+     *
+     * @implNote The sorting algorithm is a parallel sort-merge, as for
+     * {@link #parallelSort(long[], int, int)}, in which each merge moves
+     * values along with their keys and sub-arrays are sorted using {@link
+     * #sortByKey(long[], int[], int, int) sortByKey}. The algorithm requires
+     * working space no greater than the size of the specified range of
+     * the original arrays. The {@link ForkJoinPool#commonPool() ForkJoin
+     * common pool} is used to execute any parallel tasks.
+     *
+     * @param keys the array of keys to be sorted
+     * @param values the array of values to be permuted along with keys
+     * @param fromIndex the index of the first element, inclusive, to be sorted
+     * @param toIndex the index of the last element, exclusive, to be sorted
+     *
+     * @throws IllegalArgumentException if {@code fromIndex > toIndex}
+     * @throws ArrayIndexOutOfBoundsException
+     *     if {@code fromIndex < 0}, or {@code toIndex} is greater than the
+     *     length of either array
+     *
+     * @since 1.8
+     */
+    public static void parallelSortByKey(long[] keys, int[] values,
+                                         int fromIndex, int toIndex) {
+        rangeCheck(keys.length, fromIndex, toIndex);
+        rangeCheck(values.length, fromIndex, toIndex);
+        parallelSortByKey0(keys, values, fromIndex, toIndex);
+    }
+
+    private static void parallelSortByKey0(long[] keys, int[] values,
+                                           int fromIndex, int toIndex) {
+        int n = toIndex - fromIndex, p, g;
+        if (n <= MIN_ARRAY_SORT_GRAN ||
+            (p = ForkJoinPool.getCommonPoolParallelism()) == 1)
+            DualPivotQuicksort.sortByKey(keys, values, fromIndex, toIndex - 1);
+        else
+            new ArraysParallelSortHelpers.FJLongKeyed.Sorter
+                (null, keys, new long[n], values, new int[n], fromIndex, n, 0,
+                 ((g = n / (p << 2)) <= MIN_ARRAY_SORT_GRAN) ?
+                 MIN_ARRAY_SORT_GRAN : g).invoke();
+    }
+
     /**
      * Sorts the specified array of objects into ascending order, according
      * to the {@linkplain Comparable natural ordering} of its elements.
@@ -26,6 +26,7 @@ package java.util;
 
 import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Helper utilities for the parallel sort methods in Arrays.parallelSort.
@@ -129,6 +130,186 @@ import java.util.concurrent.CountedCompleter;
         }
     }
 
+    /**
+     * Base class of the sample sorters used for large int, long, float
+     * and double arrays.  A sample sort picks bucket boundaries
+     * (splitters) from a random sample of the keys, then in three
+     * parallel phases (1) counts, for each of a number of chunks of
+     * the input, how many keys fall into each bucket, (2) scatters
+     * the keys of each chunk into their bucket's region of the
+     * workspace array, and (3) sorts each bucket with RadixSort,
+     * using the matching region of the main array as workspace, and
+     * copies it back.  Unlike the merge sorts above, every element is
+     * moved only a fixed number of times, and the buckets can be
+     * sorted with no further coordination.
+     *
+     * The number of buckets is a power of two, so that classifying a
+     * key is a binary search of fixed depth with no data-dependent
+     * loop exits.  Keys that equal a splitter occurring more than
+     * once are spread across the buckets between the duplicates by
+     * chunk index; such buckets hold a single key value and need not
+     * be sorted, so heavily duplicated inputs do not pile up in one
+     * bucket.
+     *
+     * Subclasses compare keys by their "sortable" form: the value
+     * itself for int and long, and for float and double the raw bits
+     * with negative values' magnitude bits inverted, which orders
+     * -0.0 before 0.0 consistently with RadixSort.
+     */
+    abstract static class AbstractSampleSorter extends RecursiveAction {
+        static final long serialVersionUID = 2446542900576103244L;
+
+        /** Number of samples taken per bucket */
+        static final int OVERSAMPLE = 16;
+
+        /** Upper bound on the number of buckets */
+        static final int MAX_BUCKETS = 1 << 10;
+
+        /** Number of chunks per worker for the count and scatter phases */
+        static final int CHUNKS_PER_THREAD = 4;
+
+        /** Minimum number of elements per chunk */
+        static final int MIN_CHUNK_SIZE = 1 << 12;
+
+        static final int COUNT = 0, SCATTER = 1, SORT = 2; // phases
+
+        final int base, wbase, parallelism;
+        int size;           // number of elements to sort, after prepare
+        int buckets;        // power of two
+        int chunks;
+        int[] offsets;      // chunks x buckets counts, then write indices
+        int[] bucketBase;   // workspace start of each bucket, plus end
+        int[] ties;         // number of following equal splitters
+
+        AbstractSampleSorter(int base, int size, int wbase,
+                             int parallelism) {
+            this.base = base; this.size = size; this.wbase = wbase;
+            this.parallelism = parallelism;
+        }
+
+        /**
+         * Performs any preliminary work and returns the number of
+         * elements, starting at base, that remain to be sorted.
+         */
+        abstract int prepare();
+
+        /**
+         * Chooses buckets - 1 splitters and fills in ties.
+         */
+        abstract void chooseSplitters(int buckets);
+
+        /**
+         * Adds the bucket counts of the elements in [lo, hi) of the
+         * main array into offsets, starting at row.
+         */
+        abstract void count(int c, int lo, int hi, int[] offsets, int row);
+
+        /**
+         * Moves the elements in [lo, hi) of the main array to the
+         * workspace indices held in offsets, starting at row.
+         */
+        abstract void scatter(int c, int lo, int hi, int[] offsets, int row);
+
+        /**
+         * Sorts workspace range [lo, hi) if it is not pure, and copies
+         * it to the corresponding range of the main array.
+         */
+        abstract void sortBucket(int lo, int hi, boolean pure);
+
+        public final void compute() {
+            int n = size = prepare();
+            if (n < 2)
+                return;
+            int p = parallelism;
+            int nb = Integer.highestOneBit(
+                Math.max(2, Math.min(MAX_BUCKETS,
+                                     Math.min(p * OVERSAMPLE, n >>> 10))));
+            int nc = Math.max(1, Math.min(p * CHUNKS_PER_THREAD,
+                                          n / MIN_CHUNK_SIZE));
+            buckets = nb;
+            chunks = nc;
+            ties = new int[nb - 1];
+            chooseSplitters(nb);
+            offsets = new int[nc * nb];
+            new SampleSortPhase(this, COUNT, 0, nc).invoke();
+            int[] cnt = offsets, bb = bucketBase = new int[nb + 1];
+            int sum = wbase;
+            for (int k = 0; k < nb; ++k) {
+                bb[k] = sum;
+                for (int i = k, end = nc * nb; i < end; i += nb) {
+                    int t = cnt[i];
+                    cnt[i] = sum;
+                    sum += t;
+                }
+            }
+            bb[nb] = sum;
+            new SampleSortPhase(this, SCATTER, 0, nc).invoke();
+            new SampleSortPhase(this, SORT, 0, nb).invoke();
+        }
+
+        /**
+         * Returns the main array index at which chunk c starts.
+         */
+        final int chunkStart(int c) {
+            return base + (int)((long)size * c / chunks);
+        }
+
+        /**
+         * Records in ties, for each splitter, the number of splitters
+         * following it that are equal to it.
+         */
+        final void setTie(int i, boolean equalsNext) {
+            ties[i] = equalsNext ? ties[i + 1] + 1 : 0;
+        }
+
+        /**
+         * Returns the bucket for a key whose lower bound among the
+         * splitters is k, and that equals splitter k if eq is true.
+         */
+        final int spread(int k, boolean eq, int c) {
+            int e;
+            return (eq && (e = ties[k]) > 0) ? k + 1 + c % e : k;
+        }
+
+        final void run(int phase, int i) {
+            int nb = buckets;
+            if (phase == COUNT)
+                count(i, chunkStart(i), chunkStart(i + 1), offsets, i * nb);
+            else if (phase == SCATTER)
+                scatter(i, chunkStart(i), chunkStart(i + 1), offsets, i * nb);
+            else
+                sortBucket(bucketBase[i], bucketBase[i + 1],
+                           i > 0 && ties[i - 1] > 0);
+        }
+    }
+
+    /**
+     * Runs one phase of a sample sort over an index range of chunks
+     * or buckets, splitting the range in halves.
+     */
+    static final class SampleSortPhase extends RecursiveAction {
+        static final long serialVersionUID = 2446542900576103244L;
+        final AbstractSampleSorter sorter;
+        final int phase, lo, hi;
+        SampleSortPhase(AbstractSampleSorter sorter, int phase,
+                        int lo, int hi) {
+            this.sorter = sorter; this.phase = phase;
+            this.lo = lo; this.hi = hi;
+        }
+        protected final void compute() {
+            int l = lo, h = hi;
+            if (h - l > 1) {
+                int m = (l + h) >>> 1;
+                AbstractSampleSorter s = sorter;
+                int p = phase;
+                ForkJoinTask.invokeAll(new SampleSortPhase(s, p, l, m),
+                                       new SampleSortPhase(s, p, m, h));
+            }
+            else if (l < h)
+                sorter.run(phase, l);
+        }
+    }
+
     /** Object + Comparator support class */
     //对象 + 比较器支持类
     static final class FJObject {
@@ -694,6 +875,77 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+        /**
+         * Sample sort for large arrays, see AbstractSampleSorter.
+         */
+        static final class SampleSorter extends AbstractSampleSorter {
+            static final long serialVersionUID = 2446542900576103244L;
+            final int[] a, w;
+            int[] splitters;
+            SampleSorter(int[] a, int[] w, int base, int size, int wbase,
+                         int parallelism) {
+                super(base, size, wbase, parallelism);
+                this.a = a; this.w = w;
+            }
+
+            static int key(int x) { return x; }
+
+            final int prepare() {
+                return size;
+            }
+
+            final void chooseSplitters(int nb) {
+                int[] a = this.a;
+                int b = base, n = size, m = nb * OVERSAMPLE;
+                int[] s = new int[m];
+                long r = 0x9E3779B97F4A7C15L * n;  // deterministic sample
+                for (int i = 0; i < m; ++i) {
+                    r ^= r << 13; r ^= r >>> 7; r ^= r << 17;
+                    s[i] = key(a[b + (int)((r >>> 33) % n)]);
+                }
+                DualPivotQuicksort.sort(s, 0, m - 1, null, 0, 0);
+                int[] sp = splitters = new int[nb - 1];
+                for (int i = 0; i < nb - 1; ++i)
+                    sp[i] = s[(i + 1) * OVERSAMPLE];
+                for (int i = nb - 2; i >= 0; --i)
+                    setTie(i, i < nb - 2 && sp[i] == sp[i + 1]);
+            }
+
+            /**
+             * Returns the number of splitters less than k, spreading
+             * keys equal to duplicated splitters.
+             */
+            final int bucketOf(int k, int c) {
+                int[] sp = splitters;
+                int i = 0;
+                for (int step = buckets >>> 1; step > 0; step >>>= 1) {
+                    if (sp[i + step - 1] < k)
+                        i += step;
+                }
+                return spread(i, i < sp.length && sp[i] == k, c);
+            }
+
+            final void count(int c, int lo, int hi, int[] cnt, int row) {
+                int[] a = this.a;
+                for (int i = lo; i < hi; ++i)
+                    ++cnt[row + bucketOf(key(a[i]), c)];
+            }
+
+            final void scatter(int c, int lo, int hi, int[] off, int row) {
+                int[] a = this.a, w = this.w;
+                for (int i = lo; i < hi; ++i) {
+                    int x = a[i];
+                    w[off[row + bucketOf(key(x), c)]++] = x;
+                }
+            }
+
+            final void sortBucket(int lo, int hi, boolean pure) {
+                int ab = base + (lo - wbase);
+                if (!pure && hi - lo > 1)
+                    RadixSort.sort(w, lo, hi - 1, a, ab);
+                System.arraycopy(w, lo, a, ab, hi - lo);
+            }
+        }
     } // FJInt
 
     /** long support class */
@@ -805,6 +1057,77 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+        /**
+         * Sample sort for large arrays, see AbstractSampleSorter.
+         */
+        static final class SampleSorter extends AbstractSampleSorter {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a, w;
+            long[] splitters;
+            SampleSorter(long[] a, long[] w, int base, int size, int wbase,
+                         int parallelism) {
+                super(base, size, wbase, parallelism);
+                this.a = a; this.w = w;
+            }
+
+            static long key(long x) { return x; }
+
+            final int prepare() {
+                return size;
+            }
+
+            final void chooseSplitters(int nb) {
+                long[] a = this.a;
+                int b = base, n = size, m = nb * OVERSAMPLE;
+                long[] s = new long[m];
+                long r = 0x9E3779B97F4A7C15L * n;  // deterministic sample
+                for (int i = 0; i < m; ++i) {
+                    r ^= r << 13; r ^= r >>> 7; r ^= r << 17;
+                    s[i] = key(a[b + (int)((r >>> 33) % n)]);
+                }
+                DualPivotQuicksort.sort(s, 0, m - 1, null, 0, 0);
+                long[] sp = splitters = new long[nb - 1];
+                for (int i = 0; i < nb - 1; ++i)
+                    sp[i] = s[(i + 1) * OVERSAMPLE];
+                for (int i = nb - 2; i >= 0; --i)
+                    setTie(i, i < nb - 2 && sp[i] == sp[i + 1]);
+            }
+
+            /**
+             * Returns the number of splitters less than k, spreading
+             * keys equal to duplicated splitters.
+             */
+            final int bucketOf(long k, int c) {
+                long[] sp = splitters;
+                int i = 0;
+                for (int step = buckets >>> 1; step > 0; step >>>= 1) {
+                    if (sp[i + step - 1] < k)
+                        i += step;
+                }
+                return spread(i, i < sp.length && sp[i] == k, c);
+            }
+
+            final void count(int c, int lo, int hi, int[] cnt, int row) {
+                long[] a = this.a;
+                for (int i = lo; i < hi; ++i)
+                    ++cnt[row + bucketOf(key(a[i]), c)];
+            }
+
+            final void scatter(int c, int lo, int hi, int[] off, int row) {
+                long[] a = this.a, w = this.w;
+                for (int i = lo; i < hi; ++i) {
+                    long x = a[i];
+                    w[off[row + bucketOf(key(x), c)]++] = x;
+                }
+            }
+
+            final void sortBucket(int lo, int hi, boolean pure) {
+                int ab = base + (lo - wbase);
+                if (!pure && hi - lo > 1)
+                    RadixSort.sort(w, lo, hi - 1, a, ab);
+                System.arraycopy(w, lo, a, ab, hi - lo);
+            }
+        }
     } // FJLong
 
     /** float support class */
@@ -916,6 +1239,83 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+        /**
+         * Sample sort for large arrays, see AbstractSampleSorter.
+         */
+        static final class SampleSorter extends AbstractSampleSorter {
+            static final long serialVersionUID = 2446542900576103244L;
+            final float[] a, w;
+            int[] splitters;
+            SampleSorter(float[] a, float[] w, int base, int size, int wbase,
+                         int parallelism) {
+                super(base, size, wbase, parallelism);
+                this.a = a; this.w = w;
+            }
+
+            /** Returns the sortable form of a non-NaN float. */
+            static int key(float x) {
+                int b = Float.floatToRawIntBits(x);
+                return b ^ ((b >> 31) & 0x7fffffff);
+            }
+
+            final int prepare() {
+                // move NaNs to the end; they are not sorted further
+                return RadixSort.moveNaNsToEnd(a, base, base + size - 1)
+                    - base + 1;
+            }
+
+            final void chooseSplitters(int nb) {
+                float[] a = this.a;
+                int b = base, n = size, m = nb * OVERSAMPLE;
+                int[] s = new int[m];
+                long r = 0x9E3779B97F4A7C15L * n;  // deterministic sample
+                for (int i = 0; i < m; ++i) {
+                    r ^= r << 13; r ^= r >>> 7; r ^= r << 17;
+                    s[i] = key(a[b + (int)((r >>> 33) % n)]);
+                }
+                DualPivotQuicksort.sort(s, 0, m - 1, null, 0, 0);
+                int[] sp = splitters = new int[nb - 1];
+                for (int i = 0; i < nb - 1; ++i)
+                    sp[i] = s[(i + 1) * OVERSAMPLE];
+                for (int i = nb - 2; i >= 0; --i)
+                    setTie(i, i < nb - 2 && sp[i] == sp[i + 1]);
+            }
+
+            /**
+             * Returns the number of splitters less than k, spreading
+             * keys equal to duplicated splitters.
+             */
+            final int bucketOf(int k, int c) {
+                int[] sp = splitters;
+                int i = 0;
+                for (int step = buckets >>> 1; step > 0; step >>>= 1) {
+                    if (sp[i + step - 1] < k)
+                        i += step;
+                }
+                return spread(i, i < sp.length && sp[i] == k, c);
+            }
+
+            final void count(int c, int lo, int hi, int[] cnt, int row) {
+                float[] a = this.a;
+                for (int i = lo; i < hi; ++i)
+                    ++cnt[row + bucketOf(key(a[i]), c)];
+            }
+
+            final void scatter(int c, int lo, int hi, int[] off, int row) {
+                float[] a = this.a, w = this.w;
+                for (int i = lo; i < hi; ++i) {
+                    float x = a[i];
+                    w[off[row + bucketOf(key(x), c)]++] = x;
+                }
+            }
+
+            final void sortBucket(int lo, int hi, boolean pure) {
+                int ab = base + (lo - wbase);
+                if (!pure && hi - lo > 1)
+                    RadixSort.sort(w, lo, hi - 1, a, ab);
+                System.arraycopy(w, lo, a, ab, hi - lo);
+            }
+        }
     } // FJFloat
 
     /** double support class */
@@ -1027,6 +1427,323 @@ import java.util.concurrent.CountedCompleter;
                 tryComplete();
             }
         }
+        /**
+         * Sample sort for large arrays, see AbstractSampleSorter.
+         */
+        static final class SampleSorter extends AbstractSampleSorter {
+            static final long serialVersionUID = 2446542900576103244L;
+            final double[] a, w;
+            long[] splitters;
+            SampleSorter(double[] a, double[] w, int base, int size, int wbase,
+                         int parallelism) {
+                super(base, size, wbase, parallelism);
+                this.a = a; this.w = w;
+            }
+
+            /** Returns the sortable form of a non-NaN double. */
+            static long key(double x) {
+                long b = Double.doubleToRawLongBits(x);
+                return b ^ ((b >> 63) & 0x7fffffffffffffffL);
+            }
+
+            final int prepare() {
+                // move NaNs to the end; they are not sorted further
+                return RadixSort.moveNaNsToEnd(a, base, base + size - 1)
+                    - base + 1;
+            }
+
+            final void chooseSplitters(int nb) {
+                double[] a = this.a;
+                int b = base, n = size, m = nb * OVERSAMPLE;
+                long[] s = new long[m];
+                long r = 0x9E3779B97F4A7C15L * n;  // deterministic sample
+                for (int i = 0; i < m; ++i) {
+                    r ^= r << 13; r ^= r >>> 7; r ^= r << 17;
+                    s[i] = key(a[b + (int)((r >>> 33) % n)]);
+                }
+                DualPivotQuicksort.sort(s, 0, m - 1, null, 0, 0);
+                long[] sp = splitters = new long[nb - 1];
+                for (int i = 0; i < nb - 1; ++i)
+                    sp[i] = s[(i + 1) * OVERSAMPLE];
+                for (int i = nb - 2; i >= 0; --i)
+                    setTie(i, i < nb - 2 && sp[i] == sp[i + 1]);
+            }
+
+            /**
+             * Returns the number of splitters less than k, spreading
+             * keys equal to duplicated splitters.
+             */
+            final int bucketOf(long k, int c) {
+                long[] sp = splitters;
+                int i = 0;
+                for (int step = buckets >>> 1; step > 0; step >>>= 1) {
+                    if (sp[i + step - 1] < k)
+                        i += step;
+                }
+                return spread(i, i < sp.length && sp[i] == k, c);
+            }
+
+            final void count(int c, int lo, int hi, int[] cnt, int row) {
+                double[] a = this.a;
+                for (int i = lo; i < hi; ++i)
+                    ++cnt[row + bucketOf(key(a[i]), c)];
+            }
+
+            final void scatter(int c, int lo, int hi, int[] off, int row) {
+                double[] a = this.a, w = this.w;
+                for (int i = lo; i < hi; ++i) {
+                    double x = a[i];
+                    w[off[row + bucketOf(key(x), c)]++] = x;
+                }
+            }
+
+            final void sortBucket(int lo, int hi, boolean pure) {
+                int ab = base + (lo - wbase);
+                if (!pure && hi - lo > 1)
+                    RadixSort.sort(w, lo, hi - 1, a, ab);
+                System.arraycopy(w, lo, a, ab, hi - lo);
+            }
+        }
     } // FJDouble
 
+    /** int key, int value support class */
+    static final class FJIntKeyed {
+        static final class Sorter extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final int[] a, w; // keys and key workspace
+            final int[] v, vw; // values and value workspace
+            final int base, size, wbase, gran;
+            Sorter(CountedCompleter<?> par, int[] a, int[] w, int[] v,
+                   int[] vw, int base, int size, int wbase, int gran) {
+                super(par);
+                this.a = a; this.w = w; this.v = v; this.vw = vw;
+                this.base = base; this.size = size;
+                this.wbase = wbase; this.gran = gran;
+            }
+            public final void compute() {
+                CountedCompleter<?> s = this;
+                int[] a = this.a, w = this.w; // localize all params
+                int[] v = this.v, vw = this.vw;
+                int b = this.base, n = this.size, wb = this.wbase, g = this.gran;
+                while (n > g) {
+                    int h = n >>> 1, q = h >>> 1, u = h + q; // quartiles
+                    Relay fc = new Relay(new Merger(s, w, a, vw, v, wb, h,
+                                                    wb+h, n-h, b, g));
+                    Relay rc = new Relay(new Merger(fc, a, w, v, vw, b+h, q,
+                                                    b+u, n-u, wb+h, g));
+                    new Sorter(rc, a, w, v, vw, b+u, n-u, wb+u, g).fork();
+                    new Sorter(rc, a, w, v, vw, b+h, q, wb+h, g).fork();
+                    Relay bc = new Relay(new Merger(fc, a, w, v, vw, b, q,
+                                                    b+q, h-q, wb, g));
+                    new Sorter(bc, a, w, v, vw, b+q, h-q, wb+q, g).fork();
+                    s = new EmptyCompleter(bc);
+                    n = q;
+                }
+                DualPivotQuicksort.sortByKey(a, v, b, b + n - 1);
+                s.tryComplete();
+            }
+        }
+
+        static final class Merger extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final int[] a, w; // main and workspace key arrays
+            final int[] v, vw; // main and workspace value arrays
+            final int lbase, lsize, rbase, rsize, wbase, gran;
+            Merger(CountedCompleter<?> par, int[] a, int[] w, int[] v,
+                   int[] vw, int lbase, int lsize, int rbase,
+                   int rsize, int wbase, int gran) {
+                super(par);
+                this.a = a; this.w = w; this.v = v; this.vw = vw;
+                this.lbase = lbase; this.lsize = lsize;
+                this.rbase = rbase; this.rsize = rsize;
+                this.wbase = wbase; this.gran = gran;
+            }
+
+            public final void compute() {
+                int[] a = this.a, w = this.w; // localize all params
+                int[] v = this.v, vw = this.vw;
+                int lb = this.lbase, ln = this.lsize, rb = this.rbase,
+                    rn = this.rsize, k = this.wbase, g = this.gran;
+                if (a == null || w == null || v == null || vw == null ||
+                    lb < 0 || rb < 0 || k < 0)
+                    throw new IllegalStateException(); // hoist checks
+                for (int lh, rh;;) {  // split larger, find point in smaller
+                    if (ln >= rn) {
+                        if (ln <= g)
+                            break;
+                        rh = rn;
+                        int split = a[(lh = ln >>> 1) + lb];
+                        for (int lo = 0; lo < rh; ) {
+                            int rm = (lo + rh) >>> 1;
+                            if (split <= a[rm + rb])
+                                rh = rm;
+                            else
+                                lo = rm + 1;
+                        }
+                    }
+                    else {
+                        if (rn <= g)
+                            break;
+                        lh = ln;
+                        int split = a[(rh = rn >>> 1) + rb];
+                        for (int lo = 0; lo < lh; ) {
+                            int lm = (lo + lh) >>> 1;
+                            if (split <= a[lm + lb])
+                                lh = lm;
+                            else
+                                lo = lm + 1;
+                        }
+                    }
+                    Merger m = new Merger(this, a, w, v, vw, lb + lh, ln - lh,
+                                          rb + rh, rn - rh,
+                                          k + lh + rh, g);
+                    rn = rh;
+                    ln = lh;
+                    addToPendingCount(1);
+                    m.fork();
+                }
+
+                int lf = lb + ln, rf = rb + rn; // index bounds
+                while (lb < lf && rb < rf) {
+                    int al, ar;
+                    if ((al = a[lb]) <= (ar = a[rb])) {
+                        vw[k] = v[lb++]; w[k++] = al;
+                    }
+                    else {
+                        vw[k] = v[rb++]; w[k++] = ar;
+                    }
+                }
+                if (rb < rf) {
+                    System.arraycopy(a, rb, w, k, rf - rb);
+                    System.arraycopy(v, rb, vw, k, rf - rb);
+                }
+                else if (lb < lf) {
+                    System.arraycopy(a, lb, w, k, lf - lb);
+                    System.arraycopy(v, lb, vw, k, lf - lb);
+                }
+                tryComplete();
+            }
+        }
+    } // FJIntKeyed
+
+    /** long key, int value support class */
+    static final class FJLongKeyed {
+        static final class Sorter extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a, w; // keys and key workspace
+            final int[] v, vw; // values and value workspace
+            final int base, size, wbase, gran;
+            Sorter(CountedCompleter<?> par, long[] a, long[] w, int[] v,
+                   int[] vw, int base, int size, int wbase, int gran) {
+                super(par);
+                this.a = a; this.w = w; this.v = v; this.vw = vw;
+                this.base = base; this.size = size;
+                this.wbase = wbase; this.gran = gran;
+            }
+            public final void compute() {
+                CountedCompleter<?> s = this;
+                long[] a = this.a, w = this.w; // localize all params
+                int[] v = this.v, vw = this.vw;
+                int b = this.base, n = this.size, wb = this.wbase, g = this.gran;
+                while (n > g) {
+                    int h = n >>> 1, q = h >>> 1, u = h + q; // quartiles
+                    Relay fc = new Relay(new Merger(s, w, a, vw, v, wb, h,
+                                                    wb+h, n-h, b, g));
+                    Relay rc = new Relay(new Merger(fc, a, w, v, vw, b+h, q,
+                                                    b+u, n-u, wb+h, g));
+                    new Sorter(rc, a, w, v, vw, b+u, n-u, wb+u, g).fork();
+                    new Sorter(rc, a, w, v, vw, b+h, q, wb+h, g).fork();
+                    Relay bc = new Relay(new Merger(fc, a, w, v, vw, b, q,
+                                                    b+q, h-q, wb, g));
+                    new Sorter(bc, a, w, v, vw, b+q, h-q, wb+q, g).fork();
+                    s = new EmptyCompleter(bc);
+                    n = q;
+                }
+                DualPivotQuicksort.sortByKey(a, v, b, b + n - 1);
+                s.tryComplete();
+            }
+        }
+
+        static final class Merger extends CountedCompleter<Void> {
+            static final long serialVersionUID = 2446542900576103244L;
+            final long[] a, w; // main and workspace key arrays
+            final int[] v, vw; // main and workspace value arrays
+            final int lbase, lsize, rbase, rsize, wbase, gran;
+            Merger(CountedCompleter<?> par, long[] a, long[] w, int[] v,
+                   int[] vw, int lbase, int lsize, int rbase,
+                   int rsize, int wbase, int gran) {
+                super(par);
+                this.a = a; this.w = w; this.v = v; this.vw = vw;
+                this.lbase = lbase; this.lsize = lsize;
+                this.rbase = rbase; this.rsize = rsize;
+                this.wbase = wbase; this.gran = gran;
+            }
+
+            public final void compute() {
+                long[] a = this.a, w = this.w; // localize all params
+                int[] v = this.v, vw = this.vw;
+                int lb = this.lbase, ln = this.lsize, rb = this.rbase,
+                    rn = this.rsize, k = this.wbase, g = this.gran;
+                if (a == null || w == null || v == null || vw == null ||
+                    lb < 0 || rb < 0 || k < 0)
+                    throw new IllegalStateException(); // hoist checks
+                for (int lh, rh;;) {  // split larger, find point in smaller
+                    if (ln >= rn) {
+                        if (ln <= g)
+                            break;
+                        rh = rn;
+                        long split = a[(lh = ln >>> 1) + lb];
+                        for (int lo = 0; lo < rh; ) {
+                            int rm = (lo + rh) >>> 1;
+                            if (split <= a[rm + rb])
+                                rh = rm;
+                            else
+                                lo = rm + 1;
+                        }
+                    }
+                    else {
+                        if (rn <= g)
+                            break;
+                        lh = ln;
+                        long split = a[(rh = rn >>> 1) + rb];
+                        for (int lo = 0; lo < lh; ) {
+                            int lm = (lo + lh) >>> 1;
+                            if (split <= a[lm + lb])
+                                lh = lm;
+                            else
+                                lo = lm + 1;
+                        }
+                    }
+                    Merger m = new Merger(this, a, w, v, vw, lb + lh, ln - lh,
+                                          rb + rh, rn - rh,
+                                          k + lh + rh, g);
+                    rn = rh;
+                    ln = lh;
+                    addToPendingCount(1);
+                    m.fork();
+                }
+
+                int lf = lb + ln, rf = rb + rn; // index bounds
+                while (lb < lf && rb < rf) {
+                    long al, ar;
+                    if ((al = a[lb]) <= (ar = a[rb])) {
+                        vw[k] = v[lb++]; w[k++] = al;
+                    }
+                    else {
+                        vw[k] = v[rb++]; w[k++] = ar;
+                    }
+                }
+                if (rb < rf) {
+                    System.arraycopy(a, rb, w, k, rf - rb);
+                    System.arraycopy(v, rb, vw, k, rf - rb);
+                }
+                else if (lb < lf) {
+                    System.arraycopy(a, lb, w, k, lf - lb);
+                    System.arraycopy(v, lb, vw, k, lf - lb);
+                }
+                tryComplete();
+            }
+        }
+    } // FJLongKeyed
+
 }
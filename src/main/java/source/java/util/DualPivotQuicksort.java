@@ -3075,4 +3075,460 @@ final class DualPivotQuicksort {
             sort(a, great + 1, right, false);
         }
     }
+
+    /*
+     * Key-value sorting methods, which sort an int or long key array
+     * and apply the same permutation to a companion int array. Like
+     * the sorts above these are not stable, and they allocate nothing.
+     */
+
+    /**
+     * Sorts the specified range of the key array by Dual-Pivot
+     * Quicksort, moving each value with its key.
+     *
+     * @param a the key array to be sorted
+     * @param v the value array to be permuted along with a
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     */
+    static void sortByKey(int[] a, int[] v, int left, int right) {
+        int length = right - left + 1;
+
+        // Use insertion sort on tiny arrays
+        if (length < INSERTION_SORT_THRESHOLD) {
+            for (int i = left, j = i; i < right; j = ++i) {
+                int ai = a[i + 1];
+                int vi = v[i + 1];
+                while (ai < a[j]) {
+                    a[j + 1] = a[j];
+                    v[j + 1] = v[j];
+                    if (j-- == left) {
+                        break;
+                    }
+                }
+                a[j + 1] = ai;
+                v[j + 1] = vi;
+            }
+            return;
+        }
+
+        // Inexpensive approximation of length / 7
+        int seventh = (length >> 3) + (length >> 6) + 1;
+
+        /*
+         * Sort five evenly spaced elements around (and including) the
+         * center element in the range, as in sort, for pivot selection.
+         */
+        int e3 = (left + right) >>> 1; // The midpoint
+        int e2 = e3 - seventh;
+        int e1 = e2 - seventh;
+        int e4 = e3 + seventh;
+        int e5 = e4 + seventh;
+
+        if (a[e2] < a[e1]) { swap(a, v, e2, e1); }
+        if (a[e3] < a[e2]) { swap(a, v, e3, e2);
+            if (a[e2] < a[e1]) { swap(a, v, e2, e1); }
+        }
+        if (a[e4] < a[e3]) { swap(a, v, e4, e3);
+            if (a[e3] < a[e2]) { swap(a, v, e3, e2);
+                if (a[e2] < a[e1]) { swap(a, v, e2, e1); }
+            }
+        }
+        if (a[e5] < a[e4]) { swap(a, v, e5, e4);
+            if (a[e4] < a[e3]) { swap(a, v, e4, e3);
+                if (a[e3] < a[e2]) { swap(a, v, e3, e2);
+                    if (a[e2] < a[e1]) { swap(a, v, e2, e1); }
+                }
+            }
+        }
+
+        // Pointers
+        int less  = left;  // The index of the first element of center part
+        int great = right; // The index before the first element of right part
+
+        if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4] && a[e4] != a[e5]) {
+            /*
+             * Use the second and fourth of the five sorted elements as
+             * pivots, moving the first and last elements into their
+             * places, as in sort.
+             */
+            int pivot1 = a[e2], pivot2 = a[e4];
+            int value1 = v[e2], value2 = v[e4];
+            a[e2] = a[left];  v[e2] = v[left];
+            a[e4] = a[right]; v[e4] = v[right];
+
+            /*
+             * Skip elements, which are less or greater than pivot values.
+             */
+            while (a[++less] < pivot1);
+            while (a[--great] > pivot2);
+
+            /*
+             * Partitioning, with the same invariants as in sort:
+             *
+             *              all in (left, less)   < pivot1
+             *    pivot1 <= all in [less, k)     <= pivot2
+             *              all in (great, right) > pivot2
+             */
+            outer:
+            for (int k = less - 1; ++k <= great; ) {
+                int ak = a[k];
+                int vk = v[k];
+                if (ak < pivot1) { // Move a[k] to left part
+                    a[k] = a[less]; v[k] = v[less];
+                    a[less] = ak;   v[less] = vk;
+                    ++less;
+                } else if (ak > pivot2) { // Move a[k] to right part
+                    while (a[great] > pivot2) {
+                        if (great-- == k) {
+                            break outer;
+                        }
+                    }
+                    if (a[great] < pivot1) { // a[great] <= pivot2
+                        a[k] = a[less];     v[k] = v[less];
+                        a[less] = a[great]; v[less] = v[great];
+                        ++less;
+                    } else { // pivot1 <= a[great] <= pivot2
+                        a[k] = a[great];    v[k] = v[great];
+                    }
+                    a[great] = ak; v[great] = vk;
+                    --great;
+                }
+            }
+
+            // Swap pivots into their final positions
+            a[left]  = a[less  - 1]; a[less  - 1] = pivot1;
+            v[left]  = v[less  - 1]; v[less  - 1] = value1;
+            a[right] = a[great + 1]; a[great + 1] = pivot2;
+            v[right] = v[great + 1]; v[great + 1] = value2;
+
+            // Sort left and right parts recursively, excluding known pivots
+            sortByKey(a, v, left, less - 2);
+            sortByKey(a, v, great + 2, right);
+
+            /*
+             * If center part is too large (comprises > 4/7 of the array),
+             * swap internal pivot values to ends.
+             */
+            if (less < e1 && e5 < great) {
+                while (a[less] == pivot1) {
+                    ++less;
+                }
+
+                while (a[great] == pivot2) {
+                    --great;
+                }
+
+                /*
+                 * Partitioning, with the same invariants as in sort:
+                 *
+                 *              all in (*,  less) == pivot1
+                 *     pivot1 < all in [less,  k)  < pivot2
+                 *              all in (great, *) == pivot2
+                 */
+                outer:
+                for (int k = less - 1; ++k <= great; ) {
+                    int ak = a[k];
+                    int vk = v[k];
+                    if (ak == pivot1) { // Move a[k] to left part
+                        a[k] = a[less]; v[k] = v[less];
+                        a[less] = ak;   v[less] = vk;
+                        ++less;
+                    } else if (ak == pivot2) { // Move a[k] to right part
+                        while (a[great] == pivot2) {
+                            if (great-- == k) {
+                                break outer;
+                            }
+                        }
+                        if (a[great] == pivot1) { // a[great] < pivot2
+                            a[k] = a[less];     v[k] = v[less];
+                            a[less] = a[great]; v[less] = v[great];
+                            ++less;
+                        } else { // pivot1 < a[great] < pivot2
+                            a[k] = a[great];    v[k] = v[great];
+                        }
+                        a[great] = ak; v[great] = vk;
+                        --great;
+                    }
+                }
+            }
+
+            // Sort center part recursively
+            sortByKey(a, v, less, great);
+
+        } else { // Partitioning with one pivot
+            int pivot = a[e3];
+
+            /*
+             * Partitioning degenerates to the traditional 3-way
+             * (or "Dutch National Flag") schema, as in sort.
+             */
+            for (int k = less; k <= great; ++k) {
+                if (a[k] == pivot) {
+                    continue;
+                }
+                int ak = a[k];
+                int vk = v[k];
+                if (ak < pivot) { // Move a[k] to left part
+                    a[k] = a[less]; v[k] = v[less];
+                    a[less] = ak;   v[less] = vk;
+                    ++less;
+                } else { // a[k] > pivot - Move a[k] to right part
+                    while (a[great] > pivot) {
+                        --great;
+                    }
+                    if (a[great] < pivot) { // a[great] <= pivot
+                        a[k] = a[less];     v[k] = v[less];
+                        a[less] = a[great]; v[less] = v[great];
+                        ++less;
+                    } else { // a[great] == pivot
+                        a[k] = pivot;       v[k] = v[great];
+                    }
+                    a[great] = ak; v[great] = vk;
+                    --great;
+                }
+            }
+
+            /*
+             * Sort left and right parts recursively.
+             * All elements from center part are equal
+             * and, therefore, already sorted.
+             */
+            sortByKey(a, v, left, less - 1);
+            sortByKey(a, v, great + 1, right);
+        }
+    }
+
+    /**
+     * Swaps a[i] with a[j], and v[i] with v[j].
+     */
+    private static void swap(int[] a, int[] v, int i, int j) {
+        int t = a[i]; a[i] = a[j]; a[j] = t;
+        int u = v[i]; v[i] = v[j]; v[j] = u;
+    }
+
+    /**
+     * Sorts the specified range of the key array by Dual-Pivot
+     * Quicksort, moving each value with its key.
+     *
+     * @param a the key array to be sorted
+     * @param v the value array to be permuted along with a
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     */
+    static void sortByKey(long[] a, int[] v, int left, int right) {
+        int length = right - left + 1;
+
+        // Use insertion sort on tiny arrays
+        if (length < INSERTION_SORT_THRESHOLD) {
+            for (int i = left, j = i; i < right; j = ++i) {
+                long ai = a[i + 1];
+                int vi = v[i + 1];
+                while (ai < a[j]) {
+                    a[j + 1] = a[j];
+                    v[j + 1] = v[j];
+                    if (j-- == left) {
+                        break;
+                    }
+                }
+                a[j + 1] = ai;
+                v[j + 1] = vi;
+            }
+            return;
+        }
+
+        // Inexpensive approximation of length / 7
+        int seventh = (length >> 3) + (length >> 6) + 1;
+
+        /*
+         * Sort five evenly spaced elements around (and including) the
+         * center element in the range, as in sort, for pivot selection.
+         */
+        int e3 = (left + right) >>> 1; // The midpoint
+        int e2 = e3 - seventh;
+        int e1 = e2 - seventh;
+        int e4 = e3 + seventh;
+        int e5 = e4 + seventh;
+
+        if (a[e2] < a[e1]) { swap(a, v, e2, e1); }
+        if (a[e3] < a[e2]) { swap(a, v, e3, e2);
+            if (a[e2] < a[e1]) { swap(a, v, e2, e1); }
+        }
+        if (a[e4] < a[e3]) { swap(a, v, e4, e3);
+            if (a[e3] < a[e2]) { swap(a, v, e3, e2);
+                if (a[e2] < a[e1]) { swap(a, v, e2, e1); }
+            }
+        }
+        if (a[e5] < a[e4]) { swap(a, v, e5, e4);
+            if (a[e4] < a[e3]) { swap(a, v, e4, e3);
+                if (a[e3] < a[e2]) { swap(a, v, e3, e2);
+                    if (a[e2] < a[e1]) { swap(a, v, e2, e1); }
+                }
+            }
+        }
+
+        // Pointers
+        int less  = left;  // The index of the first element of center part
+        int great = right; // The index before the first element of right part
+
+        if (a[e1] != a[e2] && a[e2] != a[e3] && a[e3] != a[e4] && a[e4] != a[e5]) {
+            /*
+             * Use the second and fourth of the five sorted elements as
+             * pivots, moving the first and last elements into their
+             * places, as in sort.
+             */
+            long pivot1 = a[e2], pivot2 = a[e4];
+            int value1 = v[e2], value2 = v[e4];
+            a[e2] = a[left];  v[e2] = v[left];
+            a[e4] = a[right]; v[e4] = v[right];
+
+            /*
+             * Skip elements, which are less or greater than pivot values.
+             */
+            while (a[++less] < pivot1);
+            while (a[--great] > pivot2);
+
+            /*
+             * Partitioning, with the same invariants as in sort:
+             *
+             *              all in (left, less)   < pivot1
+             *    pivot1 <= all in [less, k)     <= pivot2
+             *              all in (great, right) > pivot2
+             */
+            outer:
+            for (int k = less - 1; ++k <= great; ) {
+                long ak = a[k];
+                int vk = v[k];
+                if (ak < pivot1) { // Move a[k] to left part
+                    a[k] = a[less]; v[k] = v[less];
+                    a[less] = ak;   v[less] = vk;
+                    ++less;
+                } else if (ak > pivot2) { // Move a[k] to right part
+                    while (a[great] > pivot2) {
+                        if (great-- == k) {
+                            break outer;
+                        }
+                    }
+                    if (a[great] < pivot1) { // a[great] <= pivot2
+                        a[k] = a[less];     v[k] = v[less];
+                        a[less] = a[great]; v[less] = v[great];
+                        ++less;
+                    } else { // pivot1 <= a[great] <= pivot2
+                        a[k] = a[great];    v[k] = v[great];
+                    }
+                    a[great] = ak; v[great] = vk;
+                    --great;
+                }
+            }
+
+            // Swap pivots into their final positions
+            a[left]  = a[less  - 1]; a[less  - 1] = pivot1;
+            v[left]  = v[less  - 1]; v[less  - 1] = value1;
+            a[right] = a[great + 1]; a[great + 1] = pivot2;
+            v[right] = v[great + 1]; v[great + 1] = value2;
+
+            // Sort left and right parts recursively, excluding known pivots
+            sortByKey(a, v, left, less - 2);
+            sortByKey(a, v, great + 2, right);
+
+            /*
+             * If center part is too large (comprises > 4/7 of the array),
+             * swap internal pivot values to ends.
+             */
+            if (less < e1 && e5 < great) {
+                while (a[less] == pivot1) {
+                    ++less;
+                }
+
+                while (a[great] == pivot2) {
+                    --great;
+                }
+
+                /*
+                 * Partitioning, with the same invariants as in sort:
+                 *
+                 *              all in (*,  less) == pivot1
+                 *     pivot1 < all in [less,  k)  < pivot2
+                 *              all in (great, *) == pivot2
+                 */
+                outer:
+                for (int k = less - 1; ++k <= great; ) {
+                    long ak = a[k];
+                    int vk = v[k];
+                    if (ak == pivot1) { // Move a[k] to left part
+                        a[k] = a[less]; v[k] = v[less];
+                        a[less] = ak;   v[less] = vk;
+                        ++less;
+                    } else if (ak == pivot2) { // Move a[k] to right part
+                        while (a[great] == pivot2) {
+                            if (great-- == k) {
+                                break outer;
+                            }
+                        }
+                        if (a[great] == pivot1) { // a[great] < pivot2
+                            a[k] = a[less];     v[k] = v[less];
+                            a[less] = a[great]; v[less] = v[great];
+                            ++less;
+                        } else { // pivot1 < a[great] < pivot2
+                            a[k] = a[great];    v[k] = v[great];
+                        }
+                        a[great] = ak; v[great] = vk;
+                        --great;
+                    }
+                }
+            }
+
+            // Sort center part recursively
+            sortByKey(a, v, less, great);
+
+        } else { // Partitioning with one pivot
+            long pivot = a[e3];
+
+            /*
+             * Partitioning degenerates to the traditional 3-way
+             * (or "Dutch National Flag") schema, as in sort.
+             */
+            for (int k = less; k <= great; ++k) {
+                if (a[k] == pivot) {
+                    continue;
+                }
+                long ak = a[k];
+                int vk = v[k];
+                if (ak < pivot) { // Move a[k] to left part
+                    a[k] = a[less]; v[k] = v[less];
+                    a[less] = ak;   v[less] = vk;
+                    ++less;
+                } else { // a[k] > pivot - Move a[k] to right part
+                    while (a[great] > pivot) {
+                        --great;
+                    }
+                    if (a[great] < pivot) { // a[great] <= pivot
+                        a[k] = a[less];     v[k] = v[less];
+                        a[less] = a[great]; v[less] = v[great];
+                        ++less;
+                    } else { // a[great] == pivot
+                        a[k] = pivot;       v[k] = v[great];
+                    }
+                    a[great] = ak; v[great] = vk;
+                    --great;
+                }
+            }
+
+            /*
+             * Sort left and right parts recursively.
+             * All elements from center part are equal
+             * and, therefore, already sorted.
+             */
+            sortByKey(a, v, left, less - 1);
+            sortByKey(a, v, great + 1, right);
+        }
+    }
+
+    /**
+     * Swaps a[i] with a[j], and v[i] with v[j].
+     */
+    private static void swap(long[] a, int[] v, int i, int j) {
+        long t = a[i]; a[i] = a[j]; a[j] = t;
+        int u = v[i]; v[i] = v[j]; v[j] = u;
+    }
 }
@@ -0,0 +1,890 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Open-addressing hash table mapping primitive <tt>long</tt> keys to
+ * primitive <tt>long</tt> values.  Keys and values are held in two flat
+ * parallel arrays, so a mapping costs sixteen bytes of table space and
+ * no per-entry object; collisions are resolved by linear probing, and
+ * removal shifts subsequent entries of the probe run back into the freed
+ * slot rather than leaving deleted-entry markers.
+ *
+ * <p>Within the table a zero key marks a free slot, so a mapping for the
+ * key <tt>0</tt> is held outside the table.  Since every <tt>long</tt>
+ * is a legal value, methods that would return <tt>null</tt> in a
+ * {@link Map} return <tt>0</tt> here when there is no mapping; use
+ * {@link #containsKey} or {@link #getOrDefault} to tell the two apart.
+ *
+ * <p>The default load factor is .5; see {@link IntObjectMap} for the
+ * rationale.  The {@link #asMap} method returns a boxed
+ * <tt>Map&lt;Long,Long&gt;</tt> view for interoperation with the
+ * collections framework.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The bulk traversal methods ({@link #forEach} and the spliterators) are
+ * <i>fail-fast</i> on a best-effort basis.
+ *
+ * @see     HashMap
+ * @see     IntIntMap
+ * @see     LongObjectMap
+ * @since   1.8
+ */
+public class LongLongMap {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly specified
+     * by either of the constructors with arguments.
+     * MUST be a power of two <= 1<<30.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * Golden-ratio multiplier used to spread keys.
+     */
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The key table, allocated on first use.  Length is always a power
+     * of two.  A zero element marks a free slot.
+     */
+    transient long[] keys;
+
+    /**
+     * The value table, parallel to {@link #keys}.
+     */
+    transient long[] vals;
+
+    /**
+     * True if the map holds a mapping for the key zero.
+     */
+    transient boolean hasZeroKey;
+
+    /**
+     * The value mapped to the key zero, if {@link #hasZeroKey}.
+     */
+    transient long zeroValue;
+
+    /**
+     * The number of key-value mappings contained in this map, including
+     * any mapping for the key zero.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The next table occupancy at which to resize (capacity * load
+     * factor).  Before the tables are allocated this holds the initial
+     * capacity.
+     */
+    int threshold;
+
+    /**
+     * The number of mappings held in the table proper, excluding the
+     * key zero.
+     */
+    transient int used;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * Cached view returned by {@link #asMap}.
+     */
+    transient Map<Long,Long> mapView;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in the range (0, 1)
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is out of range
+     */
+    public LongLongMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (initialCapacity > MAXIMUM_CAPACITY)
+            initialCapacity = MAXIMUM_CAPACITY;
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.threshold = HashMap.tableSizeFor((int)
+            Math.min((long)(initialCapacity / loadFactor) + 1L,
+                     (long)MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Constructs an empty map able to hold the specified number of
+     * mappings without resizing, with the default load factor (.5).
+     *
+     * @param  expectedSize the expected number of mappings
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public LongLongMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16) and
+     * the default load factor (.5).
+     */
+    public LongLongMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.threshold = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /* ---------------- Hashing and table maintenance -------------- */
+
+    /**
+     * Spreads the key bits and folds the high half down so that masking
+     * with a small table length still sees all of the key.
+     */
+    static int hash(long key) {
+        long z = key * SPREAD;
+        int h = (int)(z ^ (z >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the table slot holding the given nonzero key, or -1 if
+     * absent.
+     */
+    final int slotOf(long key) {
+        long[] ks;
+        if (used > 0 && (ks = keys) != null) {
+            int mask = ks.length - 1;
+            long k;
+            for (int i = hash(key) & mask; (k = ks[i]) != 0L;
+                 i = (i + 1) & mask) {
+                if (k == key)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot in which the given nonzero key is, or should be,
+     * stored, allocating or growing the table first if an insertion
+     * there would exceed the threshold.
+     */
+    final int insertionSlot(long key) {
+        if (keys == null)
+            resize();
+        long[] ks = keys;
+        int mask = ks.length - 1, i = hash(key) & mask;
+        long k;
+        while ((k = ks[i]) != 0L) {
+            if (k == key)
+                return i;
+            i = (i + 1) & mask;
+        }
+        if (used >= threshold) {
+            resize();
+            ks = keys;
+            mask = ks.length - 1;
+            for (i = hash(key) & mask; ks[i] != 0L; i = (i + 1) & mask)
+                ;
+        }
+        return i;
+    }
+
+    /**
+     * Allocates the tables, or doubles their size and reinserts every
+     * mapping.
+     */
+    final void resize() {
+        long[] oldKeys = keys, oldVals = vals;
+        int oldCap = (oldKeys == null) ? 0 : oldKeys.length;
+        int newCap;
+        if (oldCap == 0)
+            newCap = Math.max(threshold, 2);
+        else if (oldCap >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("LongLongMap capacity exceeded");
+        else
+            newCap = oldCap << 1;
+        long[] ks = new long[newCap], vs = new long[newCap];
+        int mask = newCap - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            long k;
+            if ((k = oldKeys[j]) != 0L) {
+                int i = hash(k) & mask;
+                while (ks[i] != 0L)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = oldVals[j];
+            }
+        }
+        keys = ks;
+        vals = vs;
+        threshold = (newCap >= MAXIMUM_CAPACITY) ? newCap - 1 :
+            Math.min((int)(newCap * loadFactor), newCap - 1);
+    }
+
+    /**
+     * Removes the mapping in the given table slot and shifts the
+     * remainder of its probe run back so that no lookup passes over a
+     * free slot.
+     */
+    final void removeAt(int pos) {
+        long[] ks = keys, vs = vals;
+        int mask = ks.length - 1;
+        for (;;) {
+            int last = pos, slot;
+            long k;
+            pos = (pos + 1) & mask;
+            for (;;) {
+                if ((k = ks[pos]) == 0L) {
+                    ks[last] = 0L;
+                    ++modCount;
+                    --used;
+                    --size;
+                    return;
+                }
+                slot = hash(k) & mask;
+                // Move the entry unless its home slot lies cyclically
+                // in (last, pos], in which case it must stay put.
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos))
+                    break;
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * <tt>0</tt> if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the mapped value, or <tt>0</tt> if none
+     */
+    public long get(long key) {
+        return getOrDefault(key, 0L);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the mapped value, or {@code defaultValue} if none
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        if (key == 0L)
+            return hasZeroKey ? zeroValue : defaultValue;
+        int i;
+        return ((i = slotOf(key)) < 0) ? defaultValue : vals[i];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return (key == 0L) ? hasZeroKey : slotOf(key) >= 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.  This operation requires a full table scan.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map maps one or more keys to the value
+     */
+    public boolean containsValue(long value) {
+        if (hasZeroKey && zeroValue == value)
+            return true;
+        long[] ks;
+        if (used > 0 && (ks = keys) != null) {
+            long[] vs = vals;
+            for (int i = 0; i < ks.length; ++i) {
+                if (ks[i] != 0L && vs[i] == value)
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>0</tt> if there was no mapping for <tt>key</tt>
+     */
+    public long put(long key, long value) {
+        if (key == 0L) {
+            long old = zeroValue;
+            zeroValue = value;
+            if (hasZeroKey)
+                return old;
+            hasZeroKey = true;
+            ++modCount;
+            ++size;
+            return 0L;
+        }
+        int i = insertionSlot(key);
+        long[] ks = keys, vs = vals;
+        if (ks[i] == key) {
+            long old = vs[i];
+            vs[i] = value;
+            return old;
+        }
+        ks[i] = key;
+        vs[i] = value;
+        ++modCount;
+        ++used;
+        ++size;
+        return 0L;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the value was inserted, <tt>false</tt> if
+     *         a mapping for the key was already present
+     */
+    public boolean putIfAbsent(long key, long value) {
+        if (containsKey(key))
+            return false;
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Adds the given delta to the value mapped to the key, treating an
+     * absent mapping as <tt>0</tt>.  This is the common counting idiom,
+     * performed with a single probe sequence.
+     *
+     * @param key the key whose value is to be incremented
+     * @param delta the value to add
+     * @return the new value associated with the key
+     */
+    public long addTo(long key, long delta) {
+        if (key == 0L) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                zeroValue = 0L;
+                ++modCount;
+                ++size;
+            }
+            return zeroValue += delta;
+        }
+        int i = insertionSlot(key);
+        long[] ks = keys, vs = vals;
+        if (ks[i] == key)
+            return vs[i] += delta;
+        ks[i] = key;
+        vs[i] = delta;
+        ++modCount;
+        ++used;
+        ++size;
+        return delta;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * value with the results of the given remapping function.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key
+     * @throws NullPointerException if the remapping function is null
+     */
+    public long merge(long key, long value,
+                      LongBinaryOperator remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        if (key == 0L) {
+            long v = hasZeroKey ?
+                remappingFunction.applyAsLong(zeroValue, value) : value;
+            put(0L, v);
+            return v;
+        }
+        int i;
+        if ((i = slotOf(key)) >= 0) {
+            int mc = modCount;
+            long v = remappingFunction.applyAsLong(vals[i], value);
+            if (mc != modCount)
+                throw new ConcurrentModificationException();
+            return vals[i] = v;
+        }
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * computes its value using the given mapping function and enters it
+     * into this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if the mapping function
+     *         modified this map
+     */
+    public long computeIfAbsent(long key, LongUnaryOperator mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        if (key == 0L ? hasZeroKey : slotOf(key) >= 0)
+            return get(key);
+        int mc = modCount;
+        long v = mappingFunction.applyAsLong(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        put(key, v);
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>0</tt> if there was no mapping for <tt>key</tt>
+     */
+    public long remove(long key) {
+        if (key == 0L) {
+            if (!hasZeroKey)
+                return 0L;
+            hasZeroKey = false;
+            ++modCount;
+            --size;
+            return zeroValue;
+        }
+        int i;
+        if ((i = slotOf(key)) < 0)
+            return 0L;
+        long v = vals[i];
+        removeAt(i);
+        return v;
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The tables are retained
+     * so that refilling the map to a similar size does not reallocate.
+     */
+    public void clear() {
+        if (size > 0) {
+            if (keys != null)
+                Arrays.fill(keys, 0L);
+            hasZeroKey = false;
+            used = size = 0;
+            ++modCount;
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map until all
+     * mappings have been processed or the action throws an exception.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the action is null
+     * @throws ConcurrentModificationException if the map is structurally
+     *         modified by the action
+     */
+    public void forEach(EntryConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        if (size > 0) {
+            int mc = modCount;
+            if (hasZeroKey)
+                action.accept(0L, zeroValue);
+            long[] ks;
+            if ((ks = keys) != null) {
+                long[] vs = vals;
+                for (int i = 0; i < ks.length; ++i) {
+                    long k;
+                    if ((k = ks[i]) != 0L)
+                        action.accept(k, vs[i]);
+                }
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} over the keys in this map.
+     * The spliterator reports {@link Spliterator#SIZED} before splitting
+     * and {@link Spliterator#DISTINCT}, and splits the table by slot range.
+     *
+     * @return a spliterator over the keys in this map
+     */
+    public Spliterator.OfLong keySpliterator() {
+        return new TableSpliterator(this, 0, -1, 0, 0, true);
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} over the values in this map.
+     *
+     * @return a spliterator over the values in this map
+     */
+    public Spliterator.OfLong valueSpliterator() {
+        return new TableSpliterator(this, 0, -1, 0, 0, false);
+    }
+
+    /**
+     * Returns a {@link Map} view of this map with boxed keys and values.
+     * The view is backed by this map; changes to either are reflected in
+     * the other.  The entry set's iterators do not support removal.
+     *
+     * @return a boxed {@code Map} view of this map
+     */
+    public Map<Long,Long> asMap() {
+        Map<Long,Long> m;
+        return ((m = mapView) != null) ? m : (mapView = new MapView(this));
+    }
+
+    /**
+     * Returns the hash code value for this map, equal to that of
+     * {@code asMap().hashCode()}.
+     */
+    public int hashCode() {
+        int h = hasZeroKey ? Long.hashCode(zeroValue) : 0;
+        long[] ks;
+        if (used > 0 && (ks = keys) != null) {
+            long[] vs = vals;
+            for (int i = 0; i < ks.length; ++i) {
+                long k;
+                if ((k = ks[i]) != 0L)
+                    h += Long.hashCode(k) ^ Long.hashCode(vs[i]);
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Compares the specified object with this map for equality.  Returns
+     * <tt>true</tt> if the given object is also a <tt>LongLongMap</tt>
+     * and the two maps represent the same mappings.
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongLongMap))
+            return false;
+        LongLongMap m = (LongLongMap)o;
+        if (m.size != size)
+            return false;
+        if (hasZeroKey && (!m.hasZeroKey || m.zeroValue != zeroValue))
+            return false;
+        long[] ks;
+        if (used > 0 && (ks = keys) != null) {
+            long[] vs = vals;
+            for (int i = 0; i < ks.length; ++i) {
+                long k; int j;
+                if ((k = ks[i]) != 0L &&
+                    ((j = m.slotOf(k)) < 0 || m.vals[j] != vs[i]))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a string representation of this map, in the same format
+     * as {@link AbstractMap#toString}.
+     */
+    public String toString() {
+        if (size == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        if (hasZeroKey)
+            sb.append(0L).append('=').append(zeroValue);
+        long[] ks;
+        if (used > 0 && (ks = keys) != null) {
+            long[] vs = vals;
+            for (int i = 0; i < ks.length; ++i) {
+                long k;
+                if ((k = ks[i]) != 0L) {
+                    if (sb.length() > 1)
+                        sb.append(',').append(' ');
+                    sb.append(k).append('=').append(vs[i]);
+                }
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /* ---------------- Spliterators and views -------------- */
+
+    /**
+     * Represents an operation that accepts a <tt>long</tt> key and its
+     * <tt>long</tt> value and returns no result.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        /**
+         * Performs this operation on the given mapping.
+         *
+         * @param key the key
+         * @param value the mapped value
+         */
+        void accept(long key, long value);
+    }
+
+    /**
+     * Spliterator over either the keys or the values.  Slot indices run
+     * over the table followed by one virtual slot standing for the key
+     * zero, so that a split covering the table tail also covers it.
+     */
+    static final class TableSpliterator implements Spliterator.OfLong {
+        final LongLongMap map;
+        final boolean keys;         // true to report keys, false for values
+        int index;                  // current index, modified on advance/split
+        int fence;                  // one past last index
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        TableSpliterator(LongLongMap m, int origin, int fence, int est,
+                         int expectedModCount, boolean keys) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+            this.keys = keys;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                LongLongMap m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                long[] ks = m.keys;
+                hi = fence = ((ks == null) ? 0 : ks.length) + 1;
+            }
+            return hi;
+        }
+
+        /**
+         * Reports the element in virtual slot i to the action, returning
+         * false if the slot is free.
+         */
+        private boolean accept(int i, LongConsumer action) {
+            LongLongMap m = map;
+            long[] ks = m.keys;
+            int n = (ks == null) ? 0 : ks.length;
+            if (i == n) {
+                if (!m.hasZeroKey)
+                    return false;
+                action.accept(keys ? 0L : m.zeroValue);
+            }
+            else {
+                long k;
+                if ((k = ks[i]) == 0L)
+                    return false;
+                action.accept(keys ? k : m.vals[i]);
+            }
+            return true;
+        }
+
+        public TableSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new TableSpliterator(map, lo, index = mid, est >>>= 1,
+                                     expectedModCount, keys);
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            int i, hi;
+            if (action == null)
+                throw new NullPointerException();
+            hi = getFence();
+            if ((i = index) >= 0 && i < (index = hi)) {
+                for (; i < hi; ++i)
+                    accept(i, action);
+                if (map.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            int hi;
+            if (action == null)
+                throw new NullPointerException();
+            hi = getFence();
+            while (index >= 0 && index < hi) {
+                if (accept(index++, action)) {
+                    if (map.modCount != expectedModCount)
+                        throw new ConcurrentModificationException();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                (keys ? Spliterator.DISTINCT : 0);
+        }
+    }
+
+    /**
+     * Boxed {@code Map} view returned by {@link #asMap}.
+     */
+    static final class MapView extends AbstractMap<Long,Long> {
+        final LongLongMap map;
+        transient Set<Map.Entry<Long,Long>> entrySet;
+
+        MapView(LongLongMap map) { this.map = map; }
+
+        public int size()                 { return map.size; }
+        public void clear()               { map.clear(); }
+        public boolean containsValue(Object value) {
+            return (value instanceof Long) && map.containsValue((Long)value);
+        }
+        public boolean containsKey(Object key) {
+            return (key instanceof Long) && map.containsKey((Long)key);
+        }
+        public Long get(Object key) {
+            long k;
+            return (key instanceof Long && map.containsKey(k = (Long)key)) ?
+                map.get(k) : null;
+        }
+        public Long put(Long key, Long value) {
+            long k = key, v = value;   // unbox first, for null checks
+            boolean present = map.containsKey(k);
+            long old = map.put(k, v);
+            return present ? Long.valueOf(old) : null;
+        }
+        public Long remove(Object key) {
+            long k;
+            return (key instanceof Long && map.containsKey(k = (Long)key)) ?
+                map.remove(k) : null;
+        }
+        public Set<Map.Entry<Long,Long>> entrySet() {
+            Set<Map.Entry<Long,Long>> es;
+            return (es = entrySet) != null ? es : (entrySet = new EntrySet());
+        }
+
+        final class EntrySet extends AbstractSet<Map.Entry<Long,Long>> {
+            public int size() { return map.size; }
+            public Iterator<Map.Entry<Long,Long>> iterator() {
+                return new EntryIterator();
+            }
+        }
+
+        final class EntryIterator implements Iterator<Map.Entry<Long,Long>> {
+            int next = -1;                  // next slot; -1 is the key zero
+            int expectedModCount = map.modCount;
+
+            public boolean hasNext() {
+                if (next < 0) {
+                    if (map.hasZeroKey)
+                        return true;
+                    next = 0;
+                }
+                long[] ks = map.keys;
+                if (ks == null)
+                    return false;
+                while (next < ks.length && ks[next] == 0L)
+                    ++next;
+                return next < ks.length;
+            }
+
+            public Map.Entry<Long,Long> next() {
+                if (map.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                int i = next++;
+                return (i < 0) ?
+                    new AbstractMap.SimpleImmutableEntry<>(0L, map.zeroValue) :
+                    new AbstractMap.SimpleImmutableEntry<>(map.keys[i],
+                                                           map.vals[i]);
+            }
+        }
+    }
+}
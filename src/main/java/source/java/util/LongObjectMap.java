@@ -0,0 +1,865 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing hash table mapping primitive <tt>long</tt> keys to object
+ * values.  Unlike {@link HashMap}, this class does not allocate a node per
+ * mapping and does not box its keys: keys and values are held in two flat
+ * parallel arrays and collisions are resolved by linear probing.  Removal
+ * shifts subsequent entries of the probe run back into the freed slot, so
+ * the table never accumulates deleted-entry markers.
+ *
+ * <p>This class does not permit <tt>null</tt> values; a <tt>null</tt> slot
+ * in the value array marks a free slot.  Methods returning a value return
+ * <tt>null</tt> if and only if there is no mapping for the key.
+ *
+ * <p>An instance has the same two tuning parameters as <tt>HashMap</tt>,
+ * <i>initial capacity</i> and <i>load factor</i>.  Because probe sequences
+ * get longer much faster than bucket chains as the table fills, the default
+ * load factor is .5 rather than .75.
+ *
+ * <p>The {@link #asMap} method returns a <tt>Map&lt;Long,V&gt;</tt> view
+ * for interoperation with code written against the collections framework.
+ * Operations through that view box their keys, and should not be used on
+ * hot paths.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * The bulk traversal methods ({@link #forEach} and the spliterators) are
+ * <i>fail-fast</i> on a best-effort basis: if the map is structurally
+ * modified during traversal they throw a
+ * {@link ConcurrentModificationException}.
+ *
+ * @param <V> the type of mapped values
+ *
+ * @see     HashMap
+ * @see     IntObjectMap
+ * @see     LongLongMap
+ * @since   1.8
+ */
+public class LongObjectMap<V> {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum capacity, used if a higher value is implicitly specified
+     * by either of the constructors with arguments.
+     * MUST be a power of two <= 1<<30.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * Golden-ratio multiplier used to spread keys.  Sequential keys,
+     * which are the common case, land in well separated slots.
+     */
+    private static final long SPREAD = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The key table, allocated on first use.  Length is always a power
+     * of two, and always equal to the length of {@link #vals}.
+     */
+    transient long[] keys;
+
+    /**
+     * The value table.  A <tt>null</tt> element marks a free slot.
+     */
+    transient Object[] vals;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The size at which the next insertion resizes (capacity * load
+     * factor).  Before the tables are allocated this holds the initial
+     * capacity.
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * Cached view returned by {@link #asMap}.
+     */
+    transient Map<Long,V> mapView;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor, in the range (0, 1)
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is out of range
+     */
+    public LongObjectMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (initialCapacity > MAXIMUM_CAPACITY)
+            initialCapacity = MAXIMUM_CAPACITY;
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        this.threshold = HashMap.tableSizeFor((int)
+            Math.min((long)(initialCapacity / loadFactor) + 1L,
+                     (long)MAXIMUM_CAPACITY));
+    }
+
+    /**
+     * Constructs an empty map able to hold the specified number of
+     * mappings without resizing, with the default load factor (.5).
+     *
+     * @param  expectedSize the expected number of mappings
+     * @throws IllegalArgumentException if the expected size is negative
+     */
+    public LongObjectMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity (16) and
+     * the default load factor (.5).
+     */
+    public LongObjectMap() {
+        this.loadFactor = DEFAULT_LOAD_FACTOR;
+        this.threshold = DEFAULT_INITIAL_CAPACITY;
+    }
+
+    /* ---------------- Hashing and table maintenance -------------- */
+
+    /**
+     * Spreads the key bits and folds the high half down so that masking
+     * with a small table length still sees all of the key.
+     */
+    static int hash(long key) {
+        long z = key * SPREAD;
+        int h = (int)(z ^ (z >>> 32));
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the slot holding the given key, or -1 if absent.
+     */
+    final int slotOf(long key) {
+        long[] ks; Object[] vs;
+        if (size > 0 && (ks = keys) != null) {
+            vs = vals;
+            int mask = ks.length - 1;
+            for (int i = hash(key) & mask; vs[i] != null; i = (i + 1) & mask) {
+                if (ks[i] == key)
+                    return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Allocates the tables, or doubles their size and reinserts every
+     * mapping.
+     */
+    final void resize() {
+        long[] oldKeys = keys;
+        Object[] oldVals = vals;
+        int oldCap = (oldKeys == null) ? 0 : oldKeys.length;
+        int newCap;
+        if (oldCap == 0)
+            newCap = Math.max(threshold, 2);
+        else if (oldCap >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("LongObjectMap capacity exceeded");
+        else
+            newCap = oldCap << 1;
+        long[] ks = new long[newCap];
+        Object[] vs = new Object[newCap];
+        int mask = newCap - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            Object v;
+            if ((v = oldVals[j]) != null) {
+                long k = oldKeys[j]; int i = hash(k) & mask;
+                while (vs[i] != null)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = v;
+            }
+        }
+        keys = ks;
+        vals = vs;
+        threshold = (newCap >= MAXIMUM_CAPACITY) ? newCap - 1 :
+            Math.min((int)(newCap * loadFactor), newCap - 1);
+    }
+
+    /**
+     * Removes the mapping in the given slot and shifts the remainder of
+     * its probe run back so that no lookup passes over a free slot.
+     */
+    final void removeAt(int pos) {
+        long[] ks = keys;
+        Object[] vs = vals;
+        int mask = ks.length - 1;
+        for (;;) {
+            int last = pos, slot;
+            pos = (pos + 1) & mask;
+            for (;;) {
+                if (vs[pos] == null) {
+                    vs[last] = null;
+                    ++modCount;
+                    --size;
+                    return;
+                }
+                slot = hash(ks[pos]) & mask;
+                // Move the entry unless its home slot lies cyclically
+                // in (last, pos], in which case it must stay put.
+                if (last <= pos ? (last >= slot || slot > pos)
+                                : (last >= slot && slot > pos))
+                    break;
+                pos = (pos + 1) & mask;
+            }
+            ks[last] = ks[pos];
+            vs[last] = vs[pos];
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the mapped value, or {@code null} if none
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        int i;
+        return ((i = slotOf(key)) < 0) ? null : (V)vals[i];
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the mapped value, or {@code defaultValue} if none
+     */
+    @SuppressWarnings("unchecked")
+    public V getOrDefault(long key, V defaultValue) {
+        int i;
+        return ((i = slotOf(key)) < 0) ? defaultValue : (V)vals[i];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.  This operation requires a full table scan.
+     *
+     * @param value value whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map maps one or more keys to the value
+     */
+    public boolean containsValue(Object value) {
+        Object[] vs;
+        if (value != null && size > 0 && (vs = vals) != null) {
+            for (Object v : vs) {
+                if (v == value || (v != null && value.equals(v)))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>
+     * @throws NullPointerException if the value is null
+     */
+    public V put(long key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the existing value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if the value was inserted
+     * @throws NullPointerException if the value is null
+     */
+    public V putIfAbsent(long key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /**
+     * Implements put and putIfAbsent.
+     */
+    @SuppressWarnings("unchecked")
+    final V putVal(long key, V value, boolean onlyIfAbsent) {
+        if (value == null)
+            throw new NullPointerException();
+        if (keys == null)
+            resize();
+        long[] ks = keys;
+        Object[] vs = vals;
+        int mask = ks.length - 1, i = hash(key) & mask;
+        Object v;
+        while ((v = vs[i]) != null) {
+            if (ks[i] == key) {
+                if (!onlyIfAbsent)
+                    vs[i] = value;
+                return (V)v;
+            }
+            i = (i + 1) & mask;
+        }
+        if (size >= threshold) {
+            resize();
+            ks = keys;
+            vs = vals;
+            mask = ks.length - 1;
+            for (i = hash(key) & mask; vs[i] != null; i = (i + 1) & mask)
+                ;
+        }
+        ks[i] = key;
+        vs[i] = value;
+        ++modCount;
+        ++size;
+        return null;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * attempts to compute its value using the given mapping function
+     * and enters it into this map unless <tt>null</tt>.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if the mapping function
+     *         modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key,
+                             LongFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        int i;
+        if ((i = slotOf(key)) >= 0)
+            return (V)vals[i];
+        int mc = modCount;
+        V v = mappingFunction.apply(key);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v != null)
+            putVal(key, v, false);
+        return v;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.  Otherwise, replaces the
+     * value with the results of the given remapping function, or
+     * removes it if the result is <tt>null</tt>.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param value the value to use if absent
+     * @param remappingFunction the function to recompute a value if present
+     * @return the new value associated with the specified key, or null
+     *         if no value is associated with the key
+     * @throws NullPointerException if the value or remapping function
+     *         is null
+     * @throws ConcurrentModificationException if the remapping function
+     *         modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V merge(long key, V value,
+                   BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (value == null || remappingFunction == null)
+            throw new NullPointerException();
+        int i;
+        if ((i = slotOf(key)) < 0) {
+            putVal(key, value, false);
+            return value;
+        }
+        int mc = modCount;
+        V v = remappingFunction.apply((V)vals[i], value);
+        if (mc != modCount)
+            throw new ConcurrentModificationException();
+        if (v == null)
+            removeAt(i);
+        else
+            vals[i] = v;
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or
+     *         <tt>null</tt> if there was no mapping for <tt>key</tt>
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i;
+        if ((i = slotOf(key)) < 0)
+            return null;
+        V v = (V)vals[i];
+        removeAt(i);
+        return v;
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The tables are retained
+     * so that refilling the map to a similar size does not reallocate.
+     */
+    public void clear() {
+        Object[] vs;
+        if (size > 0 && (vs = vals) != null) {
+            Arrays.fill(vs, null);
+            size = 0;
+            ++modCount;
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map until all
+     * mappings have been processed or the action throws an exception.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the action is null
+     * @throws ConcurrentModificationException if the map is structurally
+     *         modified by the action
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(EntryConsumer<? super V> action) {
+        long[] ks; Object[] vs;
+        if (action == null)
+            throw new NullPointerException();
+        if (size > 0 && (ks = keys) != null) {
+            vs = vals;
+            int mc = modCount;
+            for (int i = 0; i < vs.length; ++i) {
+                Object v;
+                if ((v = vs[i]) != null)
+                    action.accept(ks[i], (V)v);
+            }
+            if (modCount != mc)
+                throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Returns a {@link Spliterator.OfLong} over the keys in this map.
+     * The spliterator reports {@link Spliterator#SIZED} before splitting
+     * and {@link Spliterator#DISTINCT}, and splits the table by slot range.
+     *
+     * @return a spliterator over the keys in this map
+     */
+    public Spliterator.OfLong keySpliterator() {
+        return new KeySpliterator<>(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Returns a {@link Spliterator} over the values in this map.
+     *
+     * @return a spliterator over the values in this map
+     */
+    public Spliterator<V> valueSpliterator() {
+        return new ValueSpliterator<>(this, 0, -1, 0, 0);
+    }
+
+    /**
+     * Returns a {@link Map} view of this map with boxed keys.  The view
+     * is backed by this map; changes to either are reflected in the
+     * other.  The entry set's iterators do not support removal.
+     *
+     * @return a boxed {@code Map} view of this map
+     */
+    public Map<Long,V> asMap() {
+        Map<Long,V> m;
+        return ((m = mapView) != null) ? m : (mapView = new MapView<>(this));
+    }
+
+    /**
+     * Returns the hash code value for this map, equal to that of
+     * {@code asMap().hashCode()}.
+     */
+    public int hashCode() {
+        int h = 0;
+        Object[] vs;
+        if (size > 0 && (vs = vals) != null) {
+            long[] ks = keys;
+            for (int i = 0; i < vs.length; ++i) {
+                if (vs[i] != null)
+                    h += Long.hashCode(ks[i]) ^ vs[i].hashCode();
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Compares the specified object with this map for equality.  Returns
+     * <tt>true</tt> if the given object is also an <tt>LongObjectMap</tt>
+     * and the two maps represent the same mappings.
+     */
+    public boolean equals(Object o) {
+        if (o == this)
+            return true;
+        if (!(o instanceof LongObjectMap))
+            return false;
+        LongObjectMap<?> m = (LongObjectMap<?>)o;
+        if (m.size != size)
+            return false;
+        Object[] vs;
+        if (size > 0 && (vs = vals) != null) {
+            long[] ks = keys;
+            for (int i = 0; i < vs.length; ++i) {
+                Object v;
+                if ((v = vs[i]) != null && !v.equals(m.get(ks[i])))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a string representation of this map, in the same format
+     * as {@link AbstractMap#toString}.
+     */
+    public String toString() {
+        if (size == 0)
+            return "{}";
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        long[] ks = keys;
+        Object[] vs = vals;
+        boolean first = true;
+        for (int i = 0; i < vs.length; ++i) {
+            Object v;
+            if ((v = vs[i]) != null) {
+                if (!first)
+                    sb.append(',').append(' ');
+                first = false;
+                sb.append(ks[i]).append('=');
+                sb.append(v == this ? "(this Map)" : v);
+            }
+        }
+        return sb.append('}').toString();
+    }
+
+    /* ---------------- Spliterators and views -------------- */
+
+    /**
+     * Represents an operation that accepts a <tt>long</tt> key and its
+     * mapped value and returns no result.
+     *
+     * @param <V> the type of mapped values
+     */
+    @FunctionalInterface
+    public interface EntryConsumer<V> {
+        /**
+         * Performs this operation on the given mapping.
+         *
+         * @param key the key
+         * @param value the mapped value
+         */
+        void accept(long key, V value);
+    }
+
+    static class TableSpliterator<V> {
+        final LongObjectMap<V> map;
+        int index;                  // current index, modified on advance/split
+        int fence;                  // one past last index
+        int est;                    // size estimate
+        int expectedModCount;       // for comodification checks
+
+        TableSpliterator(LongObjectMap<V> m, int origin, int fence, int est,
+                         int expectedModCount) {
+            this.map = m;
+            this.index = origin;
+            this.fence = fence;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getFence() { // initialize fence and size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                LongObjectMap<V> m = map;
+                est = m.size;
+                expectedModCount = m.modCount;
+                Object[] vs = m.vals;
+                hi = fence = (vs == null) ? 0 : vs.length;
+            }
+            return hi;
+        }
+
+        public final long estimateSize() {
+            getFence(); // force init
+            return (long) est;
+        }
+
+        public int characteristics() {
+            return (fence < 0 || est == map.size ? Spliterator.SIZED : 0) |
+                Spliterator.NONNULL;
+        }
+    }
+
+    static final class KeySpliterator<V> extends TableSpliterator<V>
+        implements Spliterator.OfLong {
+        KeySpliterator(LongObjectMap<V> m, int origin, int fence, int est,
+                       int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        public KeySpliterator<V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new KeySpliterator<>(map, lo, index = mid, est >>>= 1,
+                                     expectedModCount);
+        }
+
+        public void forEachRemaining(LongConsumer action) {
+            int i, hi;
+            if (action == null)
+                throw new NullPointerException();
+            hi = getFence();
+            LongObjectMap<V> m = map;
+            long[] ks = m.keys;
+            Object[] vs = m.vals;
+            if (vs != null && vs.length >= hi && (i = index) >= 0 &&
+                i < (index = hi)) {
+                for (; i < hi; ++i) {
+                    if (vs[i] != null)
+                        action.accept(ks[i]);
+                }
+                if (m.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        public boolean tryAdvance(LongConsumer action) {
+            int hi;
+            if (action == null)
+                throw new NullPointerException();
+            Object[] vs = map.vals;
+            if (vs != null && vs.length >= (hi = getFence()) && index >= 0) {
+                while (index < hi) {
+                    int i = index++;
+                    if (vs[i] != null) {
+                        action.accept(map.keys[i]);
+                        if (map.modCount != expectedModCount)
+                            throw new ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        public int characteristics() {
+            return super.characteristics() | Spliterator.DISTINCT;
+        }
+    }
+
+    static final class ValueSpliterator<V> extends TableSpliterator<V>
+        implements Spliterator<V> {
+        ValueSpliterator(LongObjectMap<V> m, int origin, int fence, int est,
+                         int expectedModCount) {
+            super(m, origin, fence, est, expectedModCount);
+        }
+
+        public ValueSpliterator<V> trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            return (lo >= mid) ? null :
+                new ValueSpliterator<>(map, lo, index = mid, est >>>= 1,
+                                       expectedModCount);
+        }
+
+        @SuppressWarnings("unchecked")
+        public void forEachRemaining(Consumer<? super V> action) {
+            int i, hi;
+            if (action == null)
+                throw new NullPointerException();
+            hi = getFence();
+            LongObjectMap<V> m = map;
+            Object[] vs = m.vals;
+            if (vs != null && vs.length >= hi && (i = index) >= 0 &&
+                i < (index = hi)) {
+                for (; i < hi; ++i) {
+                    Object v;
+                    if ((v = vs[i]) != null)
+                        action.accept((V)v);
+                }
+                if (m.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super V> action) {
+            int hi;
+            if (action == null)
+                throw new NullPointerException();
+            Object[] vs = map.vals;
+            if (vs != null && vs.length >= (hi = getFence()) && index >= 0) {
+                while (index < hi) {
+                    Object v;
+                    if ((v = vs[index++]) != null) {
+                        action.accept((V)v);
+                        if (map.modCount != expectedModCount)
+                            throw new ConcurrentModificationException();
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Boxed {@code Map} view returned by {@link #asMap}.
+     */
+    static final class MapView<V> extends AbstractMap<Long,V> {
+        final LongObjectMap<V> map;
+        transient Set<Map.Entry<Long,V>> entrySet;
+
+        MapView(LongObjectMap<V> map) { this.map = map; }
+
+        public int size()                 { return map.size; }
+        public void clear()               { map.clear(); }
+        public boolean containsValue(Object value) {
+            return map.containsValue(value);
+        }
+        public boolean containsKey(Object key) {
+            return (key instanceof Long) && map.containsKey((Long)key);
+        }
+        public V get(Object key) {
+            return (key instanceof Long) ? map.get((Long)key) : null;
+        }
+        public V put(Long key, V value) {
+            return map.put(key, value);
+        }
+        public V remove(Object key) {
+            return (key instanceof Long) ? map.remove((Long)key) : null;
+        }
+        public Set<Map.Entry<Long,V>> entrySet() {
+            Set<Map.Entry<Long,V>> es;
+            return (es = entrySet) != null ? es : (entrySet = new EntrySet());
+        }
+
+        final class EntrySet extends AbstractSet<Map.Entry<Long,V>> {
+            public int size() { return map.size; }
+            public Iterator<Map.Entry<Long,V>> iterator() {
+                return new EntryIterator();
+            }
+        }
+
+        final class EntryIterator implements Iterator<Map.Entry<Long,V>> {
+            int next;                       // next slot to examine
+            int expectedModCount = map.modCount;
+
+            public boolean hasNext() {
+                Object[] vs = map.vals;
+                if (vs == null)
+                    return false;
+                while (next < vs.length && vs[next] == null)
+                    ++next;
+                return next < vs.length;
+            }
+
+            @SuppressWarnings("unchecked")
+            public Map.Entry<Long,V> next() {
+                if (map.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                int i = next++;
+                return new AbstractMap.SimpleImmutableEntry<>(
+                    map.keys[i], (V)map.vals[i]);
+            }
+        }
+    }
+}
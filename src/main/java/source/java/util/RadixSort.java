@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+/**
+ * This class implements least-significant-digit radix sorts for
+ * {@code int}, {@code long}, {@code float} and {@code double} arrays,
+ * used by the sample sort in {@link ArraysParallelSortHelpers} to sort
+ * its buckets.  Each sort makes one counting pass that builds the
+ * histograms of all eight-bit digits at once, then one stable
+ * distribution pass per digit, alternating between the array and a
+ * workspace.  Digits that are the same for every key in the range are
+ * skipped, so keys drawn from a narrow range, or with many trailing
+ * zero bits, cost fewer passes.  The cost is linear in the number of
+ * keys, and memory access is sequential apart from the 256 output
+ * streams of each distribution pass.
+ *
+ * <p>Signed keys are made unsigned by flipping the sign bit.  Floating
+ * point keys are first stripped of NaNs, which are moved to the end of
+ * the range as {@link DualPivotQuicksort} does, and then ordered by
+ * their raw bits with negative values' bits inverted, which also
+ * places {@code -0.0} before {@code 0.0}.
+ *
+ * <p>Ranges shorter than {@link #RADIX_SORT_THRESHOLD} are handed to
+ * {@link DualPivotQuicksort}.  All methods are package-private, and
+ * expect bounds to have been checked by their callers.
+ *
+ * @since 1.8
+ */
+final class RadixSort {
+
+    /**
+     * Prevents instantiation.
+     */
+    private RadixSort() {}
+
+    /**
+     * If the length of a range to be sorted is less than this constant,
+     * Dual-Pivot Quicksort is used in preference to radix sort.
+     */
+    static final int RADIX_SORT_THRESHOLD = 1 << 12;
+
+    /**
+     * Returns true if the given digit histogram holds every key in a
+     * single bucket, so that distributing by the digit would be a copy.
+     */
+    private static boolean isTrivial(int[] count, int c, int digit, int n) {
+        return count[c + digit] == n;
+    }
+
+    /**
+     * Converts the histogram at offset c into exclusive prefix sums.
+     */
+    private static void toOffsets(int[] count, int c) {
+        for (int i = c, end = c + 256, sum = 0; i < end; ++i) {
+            int t = count[i];
+            count[i] = sum;
+            sum += t;
+        }
+    }
+
+    /**
+     * Sorts the specified range of the array, using the given workspace
+     * array slice, which must hold at least the length of the range.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     */
+    static void sort(int[] a, int left, int right,
+                     int[] work, int workBase) {
+        int n = right - left + 1;
+        if (n < RADIX_SORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, left, right, work, workBase, n);
+            return;
+        }
+        int[] count = new int[4 << 8];
+        for (int i = left; i <= right; ++i) {
+            int k = a[i] ^ Integer.MIN_VALUE;
+            ++count[k & 0xFF];
+            ++count[256 + ((k >>> 8) & 0xFF)];
+            ++count[512 + ((k >>> 16) & 0xFF)];
+            ++count[768 + (k >>> 24)];
+        }
+        int first = a[left] ^ Integer.MIN_VALUE;
+        int[] src = a, dst = work;
+        int sb = left, db = workBase;
+        for (int shift = 0, c = 0; shift < 32; shift += 8, c += 256) {
+            if (isTrivial(count, c, (first >>> shift) & 0xFF, n))
+                continue;
+            toOffsets(count, c);
+            for (int i = sb, end = sb + n; i < end; ++i) {
+                int x = src[i];
+                int d = ((x ^ Integer.MIN_VALUE) >>> shift) & 0xFF;
+                dst[db + count[c + d]++] = x;
+            }
+            int[] t = src; src = dst; dst = t;
+            int tb = sb; sb = db; db = tb;
+        }
+        if (src != a)
+            System.arraycopy(src, sb, a, left, n);
+    }
+
+    /**
+     * Sorts the specified range of the array, using the given workspace
+     * array slice, which must hold at least the length of the range.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     */
+    static void sort(long[] a, int left, int right,
+                     long[] work, int workBase) {
+        int n = right - left + 1;
+        if (n < RADIX_SORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, left, right, work, workBase, n);
+            return;
+        }
+        int[] count = new int[8 << 8];
+        for (int i = left; i <= right; ++i) {
+            long k = a[i] ^ Long.MIN_VALUE;
+            for (int c = 0; c < 8 << 8; c += 256, k >>>= 8)
+                ++count[c + ((int)k & 0xFF)];
+        }
+        long first = a[left] ^ Long.MIN_VALUE;
+        long[] src = a, dst = work;
+        int sb = left, db = workBase;
+        for (int shift = 0, c = 0; shift < 64; shift += 8, c += 256) {
+            if (isTrivial(count, c, (int)(first >>> shift) & 0xFF, n))
+                continue;
+            toOffsets(count, c);
+            for (int i = sb, end = sb + n; i < end; ++i) {
+                long x = src[i];
+                int d = (int)((x ^ Long.MIN_VALUE) >>> shift) & 0xFF;
+                dst[db + count[c + d]++] = x;
+            }
+            long[] t = src; src = dst; dst = t;
+            int tb = sb; sb = db; db = tb;
+        }
+        if (src != a)
+            System.arraycopy(src, sb, a, left, n);
+    }
+
+    /**
+     * Returns the unsigned sort key of a non-NaN float.
+     */
+    private static int key(float x) {
+        int b = Float.floatToRawIntBits(x);
+        return b ^ ((b >> 31) | Integer.MIN_VALUE);
+    }
+
+    /**
+     * Sorts the specified range of the array, using the given workspace
+     * array slice, which must hold at least the length of the range.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     */
+    static void sort(float[] a, int left, int right,
+                     float[] work, int workBase) {
+        int n = right - left + 1;
+        if (n < RADIX_SORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, left, right, work, workBase, n);
+            return;
+        }
+        right = moveNaNsToEnd(a, left, right);
+        if ((n = right - left + 1) <= 0)
+            return;
+        int[] count = new int[4 << 8];
+        for (int i = left; i <= right; ++i) {
+            int k = key(a[i]);
+            ++count[k & 0xFF];
+            ++count[256 + ((k >>> 8) & 0xFF)];
+            ++count[512 + ((k >>> 16) & 0xFF)];
+            ++count[768 + (k >>> 24)];
+        }
+        int first = key(a[left]);
+        float[] src = a, dst = work;
+        int sb = left, db = workBase;
+        for (int shift = 0, c = 0; shift < 32; shift += 8, c += 256) {
+            if (isTrivial(count, c, (first >>> shift) & 0xFF, n))
+                continue;
+            toOffsets(count, c);
+            for (int i = sb, end = sb + n; i < end; ++i) {
+                float x = src[i];
+                dst[db + count[c + ((key(x) >>> shift) & 0xFF)]++] = x;
+            }
+            float[] t = src; src = dst; dst = t;
+            int tb = sb; sb = db; db = tb;
+        }
+        if (src != a)
+            System.arraycopy(src, sb, a, left, n);
+    }
+
+    /**
+     * Moves NaNs to the end of the specified range, returning the index
+     * of the last non-NaN element, or left - 1 if there is none.
+     */
+    static int moveNaNsToEnd(float[] a, int left, int right) {
+        while (left <= right && Float.isNaN(a[right])) {
+            --right;
+        }
+        for (int k = right; --k >= left; ) {
+            float ak = a[k];
+            if (ak != ak) { // a[k] is NaN
+                a[k] = a[right];
+                a[right] = ak;
+                --right;
+            }
+        }
+        return right;
+    }
+
+    /**
+     * Returns the unsigned sort key of a non-NaN double.
+     */
+    private static long key(double x) {
+        long b = Double.doubleToRawLongBits(x);
+        return b ^ ((b >> 63) | Long.MIN_VALUE);
+    }
+
+    /**
+     * Sorts the specified range of the array, using the given workspace
+     * array slice, which must hold at least the length of the range.
+     *
+     * @param a the array to be sorted
+     * @param left the index of the first element, inclusive, to be sorted
+     * @param right the index of the last element, inclusive, to be sorted
+     * @param work a workspace array (slice)
+     * @param workBase origin of usable space in work array
+     */
+    static void sort(double[] a, int left, int right,
+                     double[] work, int workBase) {
+        int n = right - left + 1;
+        if (n < RADIX_SORT_THRESHOLD) {
+            DualPivotQuicksort.sort(a, left, right, work, workBase, n);
+            return;
+        }
+        right = moveNaNsToEnd(a, left, right);
+        if ((n = right - left + 1) <= 0)
+            return;
+        int[] count = new int[8 << 8];
+        for (int i = left; i <= right; ++i) {
+            long k = key(a[i]);
+            for (int c = 0; c < 8 << 8; c += 256, k >>>= 8)
+                ++count[c + ((int)k & 0xFF)];
+        }
+        long first = key(a[left]);
+        double[] src = a, dst = work;
+        int sb = left, db = workBase;
+        for (int shift = 0, c = 0; shift < 64; shift += 8, c += 256) {
+            if (isTrivial(count, c, (int)(first >>> shift) & 0xFF, n))
+                continue;
+            toOffsets(count, c);
+            for (int i = sb, end = sb + n; i < end; ++i) {
+                double x = src[i];
+                dst[db + count[c + ((int)(key(x) >>> shift) & 0xFF)]++] = x;
+            }
+            double[] t = src; src = dst; dst = t;
+            int tb = sb; sb = db; db = tb;
+        }
+        if (src != a)
+            System.arraycopy(src, sb, a, left, n);
+    }
+
+    /**
+     * Moves NaNs to the end of the specified range, returning the index
+     * of the last non-NaN element, or left - 1 if there is none.
+     */
+    static int moveNaNsToEnd(double[] a, int left, int right) {
+        while (left <= right && Double.isNaN(a[right])) {
+            --right;
+        }
+        for (int k = right; --k >= left; ) {
+            double ak = a[k];
+            if (ak != ak) { // a[k] is NaN
+                a[k] = a[right];
+                a[right] = ak;
+                --right;
+            }
+        }
+        return right;
+    }
+}
@@ -304,4 +304,204 @@ public abstract class AbstractExecutorService implements ExecutorService {
         }
     }
 
+    /**
+     * Executes each of the given tasks at some time in the future,
+     * handing them to {@link #execute} in a small number of batches
+     * rather than one at a time.  Each batch is run by a worker that
+     * repeatedly claims a chunk of the remaining tasks and runs them,
+     * so tasks may run in any order and in any of the workers, and
+     * workers that finish early take over chunks from slower ones.
+     * An exception thrown by a task does not prevent the remaining
+     * tasks from running; the first exception encountered by a worker
+     * is rethrown from that worker once no tasks remain to be claimed,
+     * as if thrown by a task passed to {@code execute}.
+     *
+     * <p>Because the same batch may be passed to {@code execute}
+     * several times, it may appear more than once in lists of tasks
+     * reported by an executor, such as those returned by {@link
+     * ExecutorService#shutdownNow}.
+     *
+     * @param tasks the tasks to execute
+     * @throws RejectedExecutionException if none of the tasks can be
+     *         accepted for execution
+     * @throws NullPointerException if tasks or any of its elements
+     *         are {@code null}
+     * @since 1.8
+     */
+    public void executeAll(Collection<? extends Runnable> tasks) {
+        Runnable[] a = batchOf(tasks);
+        if (a.length > 0)
+            new Batch(a, null, batchRunners(a.length)).start(this);
+    }
+
+    /**
+     * Submits the given tasks for execution as by {@link #executeAll},
+     * and returns a single future that completes when all of them
+     * have completed.  If any task throws an exception, the future
+     * completes exceptionally with the first such exception, with
+     * any others added as {@linkplain Throwable#addSuppressed
+     * suppressed} exceptions, but only once all tasks have completed.
+     * Cancelling or otherwise completing the future causes tasks that
+     * have not yet started to be skipped.
+     *
+     * <p>Unlike {@link #invokeAll}, this method neither creates a
+     * {@code Future} per task nor waits for the tasks to complete.
+     *
+     * @param tasks the tasks to execute
+     * @return a future completing when all tasks have completed
+     * @throws RejectedExecutionException if none of the tasks can be
+     *         accepted for execution
+     * @throws NullPointerException if tasks or any of its elements
+     *         are {@code null}
+     * @since 1.8
+     */
+    public CompletableFuture<Void> submitAll(
+        Collection<? extends Runnable> tasks) {
+        Runnable[] a = batchOf(tasks);
+        CompletableFuture<Void> f = new CompletableFuture<Void>();
+        if (a.length == 0)
+            f.complete(null);
+        else
+            new Batch(a, f, batchRunners(a.length)).start(this);
+        return f;
+    }
+
+    /**
+     * Returns the number of times a batch of n tasks is passed to
+     * {@code execute}, which bounds the number of threads that may
+     * work on it at once.  Overridden by executors that know their
+     * parallelism.
+     */
+    int batchRunners(int n) {
+        return Math.min(n, Runtime.getRuntime().availableProcessors());
+    }
+
+    private static Runnable[] batchOf(Collection<? extends Runnable> tasks) {
+        Runnable[] a = tasks.toArray(new Runnable[0]);
+        for (Runnable r : a) {
+            if (r == null)
+                throw new NullPointerException();
+        }
+        return a;
+    }
+
+    /**
+     * A batch of tasks submitted by executeAll or submitAll.  The
+     * same Batch is executed up to {@code runners} times; each run
+     * claims chunks of tasks by advancing {@code next} until all
+     * have been claimed.  For submitAll, {@code pending} counts
+     * tasks not yet completed or skipped, and whichever run brings
+     * it to zero completes the handle.
+     */
+    static final class Batch implements Runnable {
+        /** Chunks per runner, for load balance among runners */
+        static final int CHUNKS_PER_RUNNER = 8;
+
+        final Runnable[] tasks;
+        final CompletableFuture<Void> handle; // null for executeAll
+        final int runners, chunk;
+        volatile int next;                    // index of next unclaimed task
+        volatile int pending;                 // for submitAll
+        volatile Throwable failure;           // for submitAll
+
+        Batch(Runnable[] tasks, CompletableFuture<Void> handle,
+              int runners) {
+            int n = tasks.length;
+            this.tasks = tasks;
+            this.handle = handle;
+            this.runners = runners = Math.max(1, runners);
+            this.chunk = Math.max(1, n / (runners * CHUNKS_PER_RUNNER));
+            this.pending = n;
+        }
+
+        /**
+         * Passes this batch to the executor up to runners times,
+         * stopping at the first rejection, which is rethrown only if
+         * no run was accepted.
+         */
+        void start(Executor executor) {
+            for (int k = 0; k < runners; ++k) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException ex) {
+                    if (k == 0)
+                        throw ex;
+                    break;
+                }
+            }
+        }
+
+        public void run() {
+            Runnable[] a = tasks;
+            CompletableFuture<Void> h = handle;
+            int n = a.length, c = chunk;
+            Throwable ex = null;
+            for (int i; next < n && (i = U.getAndAddInt(this, NEXT, c)) < n; ) {
+                int end = Math.min(n - c, i) + c;
+                for (int j = i; j < end; ++j) {
+                    Runnable r = a[j];
+                    a[j] = null;
+                    if (h != null && h.isDone())
+                        continue;       // cancelled
+                    try {
+                        r.run();
+                    } catch (Throwable t) {
+                        if (h != null)
+                            recordFailure(t);
+                        else if (ex == null)
+                            ex = t;
+                        else
+                            ex.addSuppressed(t);
+                    }
+                }
+                if (h != null &&
+                    U.getAndAddInt(this, PENDING, i - end) == end - i) {
+                    Throwable f = failure;
+                    if (f == null)
+                        h.complete(null);
+                    else
+                        h.completeExceptionally(f);
+                }
+            }
+            if (ex != null)
+                Batch.<RuntimeException>uncheckedThrow(ex);
+        }
+
+        void recordFailure(Throwable t) {
+            Throwable f;
+            if (!U.compareAndSwapObject(this, FAILURE, null, t) &&
+                (f = failure) != t)
+                f.addSuppressed(t);
+        }
+
+        /**
+         * Rethrows a Throwable thrown by a task, without wrapping it.
+         */
+        @SuppressWarnings("unchecked")
+        static <T extends Throwable> void uncheckedThrow(Throwable t)
+            throws T {
+            throw (T)t;
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe U;
+        private static final long NEXT;
+        private static final long PENDING;
+        private static final long FAILURE;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                Class<?> k = Batch.class;
+                NEXT = U.objectFieldOffset
+                    (k.getDeclaredField("next"));
+                PENDING = U.objectFieldOffset
+                    (k.getDeclaredField("pending"));
+                FAILURE = U.objectFieldOffset
+                    (k.getDeclaredField("failure"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
 }
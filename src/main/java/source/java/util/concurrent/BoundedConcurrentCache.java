@@ -0,0 +1,1057 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A concurrent cache bounded by total weight, with optional time-based
+ * expiration, built on a {@link ConcurrentHashMap}.
+ *
+ * <p>Entries are held in a {@code ConcurrentHashMap}, so retrievals and
+ * updates have the same concurrency as that class.  The eviction policy,
+ * by contrast, is maintained by one thread at a time.  Rather than
+ * updating the policy on every access, as {@link
+ * java.util.LinkedHashMap#removeEldestEntry LinkedHashMap} must, each
+ * operation records an event in a buffer and the events are applied in
+ * batches under a lock.  Reads record into a set of small lossy ring
+ * buffers, striped across threads in the manner of {@link
+ * java.util.concurrent.atomic.LongAdder LongAdder}'s cells; when a
+ * buffer is full further reads are simply not recorded.  Readers only
+ * ever {@linkplain ReentrantLock#tryLock try} the lock, so a read never
+ * blocks.  Writes are recorded in an unbounded queue that is never lossy,
+ * and writers block on the lock only if that queue grows faster than it
+ * is drained.
+ *
+ * <p>The policy is <em>Window TinyLFU</em>.  New entries enter a small
+ * LRU <em>admission window</em> holding about one percent of the maximum
+ * weight.  Entries leaving the window become candidates for the main
+ * space, a segmented LRU whose protected segment holds entries accessed
+ * since entering it.  When the cache is over its maximum, a candidate
+ * is admitted only if its estimated access frequency exceeds that of the
+ * main space's eviction victim; otherwise the candidate itself is
+ * evicted.  Frequencies are estimated by a compact count-min sketch of
+ * four-bit counters that are periodically halved, so the history ages.
+ *
+ * <p>Instances are created with a {@link Builder}:
+ * <pre> {@code
+ * BoundedConcurrentCache<String, byte[]> cache =
+ *     BoundedConcurrentCache.<String, byte[]>newBuilder()
+ *         .maximumWeight(64 << 20)
+ *         .weigher((k, v) -> v.length)
+ *         .expireAfterWrite(10, TimeUnit.MINUTES)
+ *         .build();}</pre>
+ *
+ * <p>Expired entries are never returned, and are removed lazily during
+ * maintenance.  The size and weight bounds may be exceeded briefly
+ * while maintenance is pending.  Like {@code ConcurrentHashMap}, this
+ * class does not allow {@code null} keys or values.
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ * @since 1.8
+ */
+public class BoundedConcurrentCache<K,V> {
+
+    /* ---------------- Constants -------------- */
+
+    /** Number of CPUS, to place bound on the number of read buffers */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The number of read buffers, a power of two */
+    static final int READ_BUFFERS = Math.min(64, tableSizeFor(NCPU * 2));
+
+    /** Pending writes beyond which writers wait for maintenance */
+    static final int WRITE_BUFFER_MAX = 128 * tableSizeFor(NCPU);
+
+    /** Percentage of the maximum weight given to the admission window */
+    static final int WINDOW_PERCENT = 1;
+
+    /** Percentage of the main space given to its protected segment */
+    static final int PROTECTED_PERCENT = 80;
+
+    /** Queue types of a node */
+    static final int WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    /** Node states */
+    static final int ALIVE = 0, RETIRED = 1, DEAD = 2;
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * A cache entry.  The value, weight and timestamps are written by
+     * updaters holding the node's monitor; the links and policy fields
+     * are guarded by the eviction lock.
+     */
+    static final class Node<K,V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;
+        volatile int state;
+
+        int policyWeight;       // weight as last applied to the policy
+        int queueType;
+        boolean linked;
+        Node<K,V> prevAccess, nextAccess;
+        Node<K,V> prevWrite, nextWrite;
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+
+        boolean isAlive() { return state == ALIVE; }
+    }
+
+    /**
+     * An intrusive doubly-linked list of nodes, in access or write
+     * order.  Guarded by the eviction lock.
+     */
+    static final class NodeDeque<K,V> {
+        final boolean writeOrder;
+        Node<K,V> head, tail;
+        long weight;
+
+        NodeDeque(boolean writeOrder) { this.writeOrder = writeOrder; }
+
+        void addLast(Node<K,V> n) {
+            Node<K,V> t = tail;
+            if (writeOrder) {
+                n.prevWrite = t;
+                n.nextWrite = null;
+                if (t == null) head = n; else t.nextWrite = n;
+            } else {
+                n.prevAccess = t;
+                n.nextAccess = null;
+                if (t == null) head = n; else t.nextAccess = n;
+            }
+            tail = n;
+        }
+
+        void unlink(Node<K,V> n) {
+            Node<K,V> p, s;
+            if (writeOrder) {
+                p = n.prevWrite; s = n.nextWrite;
+                n.prevWrite = n.nextWrite = null;
+                if (p == null) head = s; else p.nextWrite = s;
+                if (s == null) tail = p; else s.prevWrite = p;
+            } else {
+                p = n.prevAccess; s = n.nextAccess;
+                n.prevAccess = n.nextAccess = null;
+                if (p == null) head = s; else p.nextAccess = s;
+                if (s == null) tail = p; else s.prevAccess = p;
+            }
+        }
+
+        void moveToLast(Node<K,V> n) {
+            if (tail != n) {
+                unlink(n);
+                addLast(n);
+            }
+        }
+    }
+
+    /* ---------------- Read buffers -------------- */
+
+    /**
+     * A bounded lossy ring buffer of read events with many producers and
+     * a single consumer, the thread holding the eviction lock.  Padded
+     * to reduce cache contention between stripes.
+     */
+    @sun.misc.Contended static final class ReadBuffer<K,V> {
+        static final int SIZE = 16, MASK = SIZE - 1;
+        final AtomicReferenceArrayLite<Node<K,V>> slots =
+            new AtomicReferenceArrayLite<>(SIZE);
+        volatile long writeCounter;
+        volatile long readCounter;
+
+        /**
+         * Records a read, returning -1 if the buffer was full, 0 if the
+         * slot was lost to another producer, or the number of pending
+         * events otherwise.
+         */
+        int offer(Node<K,V> n) {
+            long head = readCounter, tail = writeCounter;
+            long size = tail - head;
+            if (size >= SIZE)
+                return -1;
+            if (!UNSAFE.compareAndSwapLong(this, WRITECOUNTER, tail, tail + 1))
+                return 0;
+            slots.lazySet((int)tail & MASK, n);
+            return (int)size + 1;
+        }
+
+        void drainTo(BoundedConcurrentCache<K,V> cache) {
+            long head = readCounter, tail = writeCounter;
+            for (; head != tail; ++head) {
+                int i = (int)head & MASK;
+                Node<K,V> n = slots.get(i);
+                if (n == null)
+                    break;          // producer has not yet published
+                slots.lazySet(i, null);
+                cache.onAccess(n);
+            }
+            readCounter = head;
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe UNSAFE;
+        private static final long WRITECOUNTER;
+        static {
+            try {
+                UNSAFE = sun.misc.Unsafe.getUnsafe();
+                Class<?> k = ReadBuffer.class;
+                WRITECOUNTER = UNSAFE.objectFieldOffset
+                    (k.getDeclaredField("writeCounter"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /**
+     * Minimal atomic reference array over Unsafe, avoiding the bounds
+     * checks and indirection of {@code AtomicReferenceArray} on the read
+     * path.  Indices are always masked by callers.
+     */
+    static final class AtomicReferenceArrayLite<E> {
+        final Object[] array;
+        AtomicReferenceArrayLite(int n) { array = new Object[n]; }
+
+        @SuppressWarnings("unchecked")
+        E get(int i) {
+            return (E)UNSAFE.getObjectVolatile(array, offset(i));
+        }
+        void lazySet(int i, E e) {
+            UNSAFE.putOrderedObject(array, offset(i), e);
+        }
+        private static long offset(int i) {
+            return ((long)i << ASHIFT) + ABASE;
+        }
+
+        private static final sun.misc.Unsafe UNSAFE;
+        private static final long ABASE;
+        private static final int ASHIFT;
+        static {
+            try {
+                UNSAFE = sun.misc.Unsafe.getUnsafe();
+                ABASE = UNSAFE.arrayBaseOffset(Object[].class);
+                int scale = UNSAFE.arrayIndexScale(Object[].class);
+                if ((scale & (scale - 1)) != 0)
+                    throw new Error("data type scale not a power of two");
+                ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /* ---------------- Frequency sketch -------------- */
+
+    /**
+     * A count-min sketch of four-bit counters, four per hashed item,
+     * packed sixteen to a {@code long}.  When the number of increments
+     * reaches ten times the table width all counters are halved, so the
+     * sketch favors recent history.  Guarded by the eviction lock.
+     */
+    static final class FrequencySketch {
+        static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        static final long RESET_MASK = 0x7777777777777777L;
+        static final long ONE_MASK = 0x1111111111111111L;
+
+        long[] table = new long[16];
+        int sampleSize = 160;
+        int size;
+
+        /** Grows the table, discarding history, to suit the given size */
+        void ensureCapacity(long maximumSize) {
+            int n = (int)Math.min(maximumSize, 1 << 24);
+            if (table.length < n) {
+                table = new long[tableSizeFor(n)];
+                sampleSize = 10 * table.length;
+                size = 0;
+            }
+        }
+
+        int frequency(Object e) {
+            int hash = spread(e.hashCode());
+            int start = (hash & 3) << 2, freq = 15;
+            long[] tab = table;
+            for (int i = 0; i < 4; ++i) {
+                int index = indexOf(hash, i, tab.length - 1);
+                int count = (int)((tab[index] >>> ((start + i) << 2)) & 0xfL);
+                freq = Math.min(freq, count);
+            }
+            return freq;
+        }
+
+        void increment(Object e) {
+            int hash = spread(e.hashCode());
+            int start = (hash & 3) << 2;
+            long[] tab = table;
+            boolean added = false;
+            for (int i = 0; i < 4; ++i) {
+                int index = indexOf(hash, i, tab.length - 1);
+                long mask = 0xfL << ((start + i) << 2);
+                if ((tab[index] & mask) != mask) {
+                    tab[index] += 1L << ((start + i) << 2);
+                    added = true;
+                }
+            }
+            if (added && ++size >= sampleSize)
+                reset();
+        }
+
+        void reset() {
+            long[] tab = table;
+            int odd = 0;
+            for (int i = 0; i < tab.length; ++i) {
+                odd += Long.bitCount(tab[i] & ONE_MASK);
+                tab[i] = (tab[i] >>> 1) & RESET_MASK;
+            }
+            size = (size >>> 1) - (odd >>> 2);
+        }
+
+        static int indexOf(int item, int i, int mask) {
+            long hash = (item + SEED[i]) * SEED[i];
+            hash += hash >>> 32;
+            return (int)hash & mask;
+        }
+
+        static int spread(int x) {
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            x = ((x >>> 16) ^ x) * 0x45d9f3b;
+            return (x >>> 16) ^ x;
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    final ConcurrentHashMap<K,Node<K,V>> data;
+    final long maximumWeight;
+    final ToIntBiFunction<? super K, ? super V> weigher;
+    final long expireAfterWriteNanos;       // zero if none
+    final long expireAfterAccessNanos;      // zero if none
+
+    @SuppressWarnings("unchecked")
+    final ReadBuffer<K,V>[] readBuffers = new ReadBuffer[READ_BUFFERS];
+    final ConcurrentLinkedQueue<Runnable> writeBuffer =
+        new ConcurrentLinkedQueue<Runnable>();
+    final AtomicInteger pendingWrites = new AtomicInteger();
+    final ReentrantLock evictionLock = new ReentrantLock();
+    volatile boolean drainRequired;
+
+    // Policy state, guarded by evictionLock
+    final FrequencySketch sketch = new FrequencySketch();
+    final NodeDeque<K,V> window = new NodeDeque<>(false);
+    final NodeDeque<K,V> probation = new NodeDeque<>(false);
+    final NodeDeque<K,V> protectedQueue = new NodeDeque<>(false);
+    final NodeDeque<K,V> writeOrder = new NodeDeque<>(true);
+    final long windowMaximum;
+    final long protectedMaximum;
+    volatile long weightedSize;
+
+    final LongAdder hitCount = new LongAdder();
+    final LongAdder missCount = new LongAdder();
+    final LongAdder evictionCount = new LongAdder();
+    final LongAdder evictionWeight = new LongAdder();
+
+    BoundedConcurrentCache(Builder<K,V> builder) {
+        this.data = new ConcurrentHashMap<>(builder.initialCapacity);
+        this.maximumWeight = builder.maximumWeight;
+        this.weigher = builder.weigher;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        long w = percent(maximumWeight, WINDOW_PERCENT);
+        this.windowMaximum = (w == 0L && maximumWeight > 1L) ? 1L : w;
+        this.protectedMaximum =
+            percent(maximumWeight - windowMaximum, PROTECTED_PERCENT);
+        for (int i = 0; i < readBuffers.length; ++i)
+            readBuffers[i] = new ReadBuffer<K,V>();
+        if (builder.weigher == Builder.SINGLETON)
+            sketch.ensureCapacity(maximumWeight);
+    }
+
+    /**
+     * Returns the given percentage of a weight, without overflowing for
+     * weights up to Long.MAX_VALUE.
+     */
+    static long percent(long weight, int percent) {
+        return weight / 100 * percent + weight % 100 * percent / 100;
+    }
+
+    /**
+     * Returns a new builder for a cache.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return a new builder
+     */
+    public static <K,V> Builder<K,V> newBuilder() {
+        return new Builder<K,V>();
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this cache contains no unexpired mapping for it.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the cached value, or {@code null}
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        Node<K,V> n = data.get(key);
+        long now;
+        if (n == null || hasExpired(n, now = System.nanoTime())) {
+            missCount.increment();
+            if (n != null)
+                scheduleDrain();
+            return null;
+        }
+        V v = n.value;
+        afterRead(n, now);
+        return v;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, computing
+     * and caching it with the given function if there is no unexpired
+     * mapping.  As in {@link ConcurrentHashMap#computeIfAbsent}, the
+     * computation is performed at most once per absent key, and other
+     * updates of the key block while it is in progress.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value, or {@code null}
+     *         if the computed value is null
+     * @throws NullPointerException if the key or function is null
+     */
+    public V get(K key, Function<? super K, ? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        Node<K,V> n = data.get(key);
+        long now = System.nanoTime();
+        if (n != null && !hasExpired(n, now)) {
+            V v = n.value;
+            afterRead(n, now);
+            return v;
+        }
+        missCount.increment();
+        @SuppressWarnings("unchecked")
+        Node<K,V>[] changes = (Node<K,V>[])new Node<?,?>[2]; // added, removed
+        Node<K,V> r = data.compute(key, (k, prior) -> {
+            if (prior != null && !hasExpired(prior, now))
+                return prior;
+            V v = mappingFunction.apply(k);
+            if (prior != null) {
+                retire(prior);
+                changes[1] = prior;
+            }
+            return (v == null) ? null :
+                (changes[0] = new Node<K,V>(k, v, weigh(k, v), now));
+        });
+        if (changes[1] != null)
+            afterWrite(new RemovalTask(changes[1]));
+        if (changes[0] != null)
+            afterWrite(new AddTask(changes[0]));
+        return (r == null) ? null : r.value;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this
+     * cache, replacing any existing mapping.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous unexpired value associated with {@code key},
+     *         or {@code null} if there was none
+     * @throws NullPointerException if the key or value is null
+     */
+    public V put(K key, V value) {
+        if (value == null)
+            throw new NullPointerException();
+        int w = weigh(key, value);
+        long now = System.nanoTime();
+        for (;;) {
+            Node<K,V> n = data.get(key);
+            if (n == null) {
+                Node<K,V> added = new Node<K,V>(key, value, w, now);
+                if ((n = data.putIfAbsent(key, added)) == null) {
+                    afterWrite(new AddTask(added));
+                    return null;
+                }
+            }
+            V old;
+            boolean expired;
+            synchronized (n) {
+                if (!n.isAlive())
+                    continue;
+                expired = hasExpired(n, now);
+                old = n.value;
+                n.value = value;
+                n.weight = w;
+                n.writeTime = now;
+                n.accessTime = now;
+            }
+            afterWrite(new UpdateTask(n));
+            return expired ? null : old;
+        }
+    }
+
+    /**
+     * Removes the mapping for a key from this cache if it is present.
+     *
+     * @param key key whose mapping is to be removed from the cache
+     * @return the previous unexpired value associated with {@code key},
+     *         or {@code null} if there was none
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        Node<K,V> n = data.remove(key);
+        if (n == null)
+            return null;
+        V old = n.value;
+        boolean expired = hasExpired(n, System.nanoTime());
+        retire(n);
+        afterWrite(new RemovalTask(n));
+        return expired ? null : old;
+    }
+
+    /**
+     * Removes all of the mappings from this cache.
+     */
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            maintenance();
+            for (Node<K,V> n : data.values()) {
+                if (data.remove(n.key, n)) {
+                    retire(n);
+                    removeFromPolicy(n);
+                }
+            }
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the approximate number of entries in this cache, which may
+     * include entries that have expired but not yet been removed.
+     *
+     * @return the estimated number of entries
+     */
+    public long estimatedSize() {
+        return data.mappingCount();
+    }
+
+    /**
+     * Returns the total weight of the entries known to the eviction
+     * policy.
+     *
+     * @return the weighted size
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Performs any pending maintenance: applies buffered events, removes
+     * expired entries and evicts down to the maximum weight.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of lookups that returned a cached value.
+     *
+     * @return the hit count
+     */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of lookups that found no cached value,
+     * including those that then computed one.
+     *
+     * @return the miss count
+     */
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of entries removed by the policy, because of
+     * the weight bound or expiration.
+     *
+     * @return the eviction count
+     */
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    /**
+     * Returns the total weight of the entries removed by the policy.
+     *
+     * @return the eviction weight
+     */
+    public long evictionWeight() {
+        return evictionWeight.sum();
+    }
+
+    /* ---------------- Event recording -------------- */
+
+    final int weigh(K key, V value) {
+        int w = weigher.applyAsInt(key, value);
+        if (w < 0)
+            throw new IllegalArgumentException("negative weight");
+        return w;
+    }
+
+    final boolean hasExpired(Node<K,V> n, long now) {
+        return (expireAfterWriteNanos > 0L &&
+                now - n.writeTime >= expireAfterWriteNanos) ||
+            (expireAfterAccessNanos > 0L &&
+             now - n.accessTime >= expireAfterAccessNanos);
+    }
+
+    static <K,V> void retire(Node<K,V> n) {
+        synchronized (n) {
+            if (n.state == ALIVE)
+                n.state = RETIRED;
+        }
+    }
+
+    /**
+     * Records a read in the calling thread's read buffer, and tries to
+     * drain the buffers if it has filled.
+     */
+    final void afterRead(Node<K,V> n, long now) {
+        hitCount.increment();
+        if (expireAfterAccessNanos > 0L)
+            n.accessTime = now;
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.current(); // force initialization
+            h = ThreadLocalRandom.getProbe();
+        }
+        ReadBuffer<K,V> b = readBuffers[h & (READ_BUFFERS - 1)];
+        int r = b.offer(n);
+        if (r == 0)
+            ThreadLocalRandom.advanceProbe(h);
+        else if (r < 0 || r >= ReadBuffer.SIZE / 2)
+            scheduleDrain();
+    }
+
+    /**
+     * Queues a policy update and drains the buffers, waiting for the
+     * lock only if too many updates are pending.
+     */
+    final void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        if (pendingWrites.incrementAndGet() <= WRITE_BUFFER_MAX) {
+            scheduleDrain();
+            return;
+        }
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Performs maintenance if the lock is free, and keeps trying until
+     * no request made while another thread held the lock is left over.
+     */
+    final void scheduleDrain() {
+        drainRequired = true;
+        while (drainRequired && evictionLock.tryLock()) {
+            try {
+                maintenance();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /* ---------------- Maintenance -------------- */
+
+    /**
+     * Applies buffered events, expires and evicts.  Called with the
+     * eviction lock held.
+     */
+    final void maintenance() {
+        drainRequired = false;
+        for (ReadBuffer<K,V> b : readBuffers)
+            b.drainTo(this);
+        Runnable task;
+        while ((task = writeBuffer.poll()) != null) {
+            pendingWrites.decrementAndGet();
+            task.run();
+        }
+        if (expireAfterWriteNanos > 0L || expireAfterAccessNanos > 0L)
+            expireEntries(System.nanoTime());
+        evictEntries();
+    }
+
+    /** Applies a buffered read. */
+    final void onAccess(Node<K,V> n) {
+        if (!n.linked)
+            return;
+        sketch.increment(n.key);
+        switch (n.queueType) {
+        case WINDOW:
+            window.moveToLast(n);
+            break;
+        case PROBATION:
+            probation.unlink(n);
+            probation.weight -= n.policyWeight;
+            n.queueType = PROTECTED;
+            protectedQueue.addLast(n);
+            protectedQueue.weight += n.policyWeight;
+            demoteFromProtected();
+            break;
+        default:
+            protectedQueue.moveToLast(n);
+        }
+    }
+
+    final NodeDeque<K,V> queueOf(Node<K,V> n) {
+        return (n.queueType == WINDOW) ? window :
+            (n.queueType == PROBATION) ? probation : protectedQueue;
+    }
+
+    /** Policy side of an insertion. */
+    final class AddTask implements Runnable {
+        final Node<K,V> node;
+        AddTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            Node<K,V> n = node;
+            if (n.linked || !n.isAlive())
+                return;
+            int w = n.policyWeight = n.weight;
+            n.linked = true;
+            n.queueType = WINDOW;
+            window.addLast(n);
+            window.weight += w;
+            writeOrder.addLast(n);
+            weightedSize += w;
+            if (weigher != Builder.SINGLETON)
+                sketch.ensureCapacity(data.mappingCount());
+            sketch.increment(n.key);
+        }
+    }
+
+    /** Policy side of an in-place value update. */
+    final class UpdateTask implements Runnable {
+        final Node<K,V> node;
+        UpdateTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            Node<K,V> n = node;
+            if (!n.linked)
+                return;
+            int w = n.weight, delta = w - n.policyWeight;
+            n.policyWeight = w;
+            queueOf(n).weight += delta;
+            weightedSize += delta;
+            writeOrder.moveToLast(n);
+            onAccess(n);
+        }
+    }
+
+    /** Policy side of an explicit removal. */
+    final class RemovalTask implements Runnable {
+        final Node<K,V> node;
+        RemovalTask(Node<K,V> node) { this.node = node; }
+        public void run() {
+            removeFromPolicy(node);
+        }
+    }
+
+    final void removeFromPolicy(Node<K,V> n) {
+        if (n.linked) {
+            queueOf(n).unlink(n);
+            queueOf(n).weight -= n.policyWeight;
+            writeOrder.unlink(n);
+            weightedSize -= n.policyWeight;
+            n.linked = false;
+        }
+        n.state = DEAD;
+    }
+
+    /**
+     * Removes the given node from the cache on behalf of the policy,
+     * unless a concurrent removal got there first.
+     */
+    final void evict(Node<K,V> n) {
+        if (data.remove(n.key, n)) {
+            retire(n);
+            evictionCount.increment();
+            evictionWeight.add(n.policyWeight);
+        }
+        removeFromPolicy(n);
+    }
+
+    final void demoteFromProtected() {
+        while (protectedQueue.weight > protectedMaximum) {
+            Node<K,V> n = protectedQueue.head;
+            protectedQueue.unlink(n);
+            protectedQueue.weight -= n.policyWeight;
+            n.queueType = PROBATION;
+            probation.addLast(n);
+            probation.weight += n.policyWeight;
+        }
+    }
+
+    final void expireEntries(long now) {
+        if (expireAfterAccessNanos > 0L) {
+            expireAccessOrder(window, now);
+            expireAccessOrder(probation, now);
+            expireAccessOrder(protectedQueue, now);
+        }
+        if (expireAfterWriteNanos > 0L) {
+            Node<K,V> n;
+            while ((n = writeOrder.head) != null &&
+                   now - n.writeTime >= expireAfterWriteNanos)
+                evict(n);
+        }
+    }
+
+    private void expireAccessOrder(NodeDeque<K,V> q, long now) {
+        Node<K,V> n;
+        while ((n = q.head) != null &&
+               now - n.accessTime >= expireAfterAccessNanos)
+            evict(n);
+    }
+
+    /**
+     * Moves entries beyond the window's share into probation, then
+     * evicts until within the maximum weight, admitting each candidate
+     * from the window only if it is used more often than the victim.
+     */
+    final void evictEntries() {
+        int candidates = 0;
+        while (window.weight > windowMaximum) {
+            Node<K,V> n = window.head;
+            window.unlink(n);
+            window.weight -= n.policyWeight;
+            n.queueType = PROBATION;
+            probation.addLast(n);
+            probation.weight += n.policyWeight;
+            ++candidates;
+        }
+        while (weightedSize > maximumWeight) {
+            Node<K,V> victim = probation.head;
+            Node<K,V> candidate = (candidates > 0) ? probation.tail : null;
+            if (victim == null) {
+                victim = (protectedQueue.head != null) ?
+                    protectedQueue.head : window.head;
+                if (victim == null)
+                    break;
+                evict(victim);
+            }
+            else if (candidate == null || candidate == victim) {
+                evict(victim);
+                candidates = 0;
+            }
+            else {
+                --candidates;
+                if (sketch.frequency(candidate.key) >
+                    sketch.frequency(victim.key))
+                    evict(victim);
+                else
+                    evict(candidate);
+            }
+        }
+    }
+
+    /* ---------------- Builder -------------- */
+
+    /**
+     * A builder of {@link BoundedConcurrentCache} instances.  A maximum
+     * size or weight must be set before building.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    public static final class Builder<K,V> {
+        static final ToIntBiFunction<Object,Object> SINGLETON = (k, v) -> 1;
+
+        int initialCapacity = 16;
+        long maximumWeight = -1L;
+        ToIntBiFunction<? super K, ? super V> weigher;
+        long expireAfterWriteNanos;
+        long expireAfterAccessNanos;
+
+        Builder() { }
+
+        /**
+         * Sets the initial capacity of the underlying map.
+         *
+         * @param initialCapacity the initial capacity
+         * @return this builder
+         * @throws IllegalArgumentException if negative
+         */
+        public Builder<K,V> initialCapacity(int initialCapacity) {
+            if (initialCapacity < 0)
+                throw new IllegalArgumentException();
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Bounds the cache to the given number of entries.  May not be
+         * combined with a {@linkplain #weigher weigher}.
+         *
+         * @param maximumSize the maximum number of entries
+         * @return this builder
+         * @throws IllegalArgumentException if negative
+         */
+        public Builder<K,V> maximumSize(long maximumSize) {
+            if (maximumSize < 0L)
+                throw new IllegalArgumentException();
+            this.maximumWeight = maximumSize;
+            return this;
+        }
+
+        /**
+         * Bounds the cache to the given total weight, as computed by the
+         * {@linkplain #weigher weigher}.
+         *
+         * @param maximumWeight the maximum total weight
+         * @return this builder
+         * @throws IllegalArgumentException if negative
+         */
+        public Builder<K,V> maximumWeight(long maximumWeight) {
+            if (maximumWeight < 0L)
+                throw new IllegalArgumentException();
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Sets the function computing the weight of each entry.  Weights
+         * are computed when an entry is written, and must be
+         * non-negative.
+         *
+         * @param weigher the weigher
+         * @return this builder
+         * @throws NullPointerException if the weigher is null
+         */
+        public Builder<K,V> weigher(
+            ToIntBiFunction<? super K, ? super V> weigher) {
+            if (weigher == null)
+                throw new NullPointerException();
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Expires each entry once the given duration has elapsed since
+         * it was created or its value last replaced.
+         *
+         * @param duration the duration
+         * @param unit the unit of the duration
+         * @return this builder
+         * @throws IllegalArgumentException if the duration is not positive
+         */
+        public Builder<K,V> expireAfterWrite(long duration, TimeUnit unit) {
+            if (duration <= 0L)
+                throw new IllegalArgumentException();
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Expires each entry once the given duration has elapsed since
+         * it was last read or written.
+         *
+         * @param duration the duration
+         * @param unit the unit of the duration
+         * @return this builder
+         * @throws IllegalArgumentException if the duration is not positive
+         */
+        public Builder<K,V> expireAfterAccess(long duration, TimeUnit unit) {
+            if (duration <= 0L)
+                throw new IllegalArgumentException();
+            this.expireAfterAccessNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Builds a cache with the current settings.
+         *
+         * @return a new cache
+         * @throws IllegalStateException if neither a maximum size nor a
+         *         maximum weight has been set
+         */
+        public BoundedConcurrentCache<K,V> build() {
+            if (maximumWeight < 0L)
+                throw new IllegalStateException("no maximum size or weight");
+            if (weigher == null)
+                weigher = SINGLETON;
+            return new BoundedConcurrentCache<K,V>(this);
+        }
+    }
+
+    /* ---------------- Utilities -------------- */
+
+    /**
+     * Returns a power of two size for the given target capacity.
+     */
+    static final int tableSizeFor(int c) {
+        int n = c - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= (1 << 30)) ? (1 << 30) : n + 1;
+    }
+}
@@ -0,0 +1,935 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by an
+ * array, in which producers and consumers never acquire a lock.  This
+ * queue orders elements FIFO (first-in-first-out).  The <em>head</em>
+ * of the queue is that element that has been on the queue the longest
+ * time.  The <em>tail</em> of the queue is that element that has been
+ * on the queue the shortest time.
+ *
+ * <p>Each slot of the array carries a sequence number that records
+ * whether it is ready to be written or read at a given position, so
+ * that a producer or consumer claims a slot with a single
+ * compare-and-set of the tail or head position, and hands it over
+ * with a single write of the slot's sequence.  Producers and
+ * consumers thus contend only with each other, and not, as in
+ * {@link ArrayBlockingQueue}, with every other thread using the
+ * queue.  Unlike {@link LinkedBlockingQueue}, no allocation is
+ * performed per element.
+ *
+ * <p>Threads that must wait for space or for an element first spin
+ * briefly, retrying the operation, and are parked only if that fails.
+ * Waiting threads are not served in any particular order.
+ *
+ * <p>The {@link #drainTo(Collection, int) drainTo} and {@link
+ * #offerAll offerAll} methods transfer runs of elements while claiming
+ * all of their slots at once, reducing contention on the head and
+ * tail positions when elements are produced or consumed in batches.
+ *
+ * <p>The {@code size} method is exact only in the absence of
+ * concurrent updates.  Iterators and spliterators are <i>weakly
+ * consistent</i>, and traverse a snapshot of the elements present at
+ * some point at or since their creation.  This queue does not support
+ * removal of elements other than at the head:  {@link #remove(Object)},
+ * {@link #removeAll}, {@link #retainAll}, {@link #removeIf} and the
+ * {@code remove} method of its iterator throw {@link
+ * UnsupportedOperationException}.
+ *
+ * <p>This class and its iterator implement all of the <em>optional</em>
+ * methods of the {@link Collection} and {@link Iterator} interfaces
+ * other than those listed above.
+ *
+ * @since 1.8
+ * @param <E> the type of elements held in this collection
+ */
+public class ConcurrentArrayBlockingQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E>, java.io.Serializable {
+    private static final long serialVersionUID = -3237845612784452893L;
+
+    /*
+     * This is the bounded multi-producer/multi-consumer array queue
+     * of Dmitry Vyukov.  Positions are unbounded longs; position p
+     * maps to slot p % capacity.  Slot i's sequence number is
+     *
+     *   2p       when the slot is free for the producer of position p,
+     *   2p + 1   when it holds the element of position p, and is
+     *            free for that position's consumer.
+     *
+     * (The usual formulation uses p and p + 1, which cannot tell a
+     * full slot from a free one when the capacity is 1.)  A producer
+     * reads the tail position t and the sequence s of its slot.  If
+     * s == 2t it CASes tail from t to t + 1, writes the element and
+     * sets the sequence to 2t + 1.  If s < 2t, the slot still holds
+     * the element from one lap earlier, so the queue is full.
+     * Otherwise another producer has claimed t, and it rereads tail.
+     * Consumers are symmetrical, reading head h, requiring s ==
+     * 2h + 1, and releasing the slot for the next lap by setting its
+     * sequence to 2(h + capacity).  A full or empty report may be
+     * made while the thread in charge of the slot is still between
+     * its claim and its hand-over; this is the usual price of the
+     * scheme, and the blocking methods cover it by being woken at
+     * the hand-over.
+     *
+     * Runs of slots (drainTo, offerAll) are claimed by first checking
+     * each slot's sequence and then advancing head or tail past all
+     * of them with one CAS.  The check cannot be invalidated between
+     * these steps, because only the thread owning a position changes
+     * its slot's sequence.
+     *
+     * The head and tail positions are each written by every consumer
+     * or producer respectively, so they are isolated on their own
+     * cache lines with @Contended, as are the cells of Striped64.
+     *
+     * Blocking uses two Treiber stacks of WaitNodes, one for threads
+     * waiting to take and one for threads waiting to put.  A waiter
+     * pushes its node and then retries its operation before parking,
+     * while a thread that hands over a slot afterwards checks the
+     * opposite stack.  Both the hand-over (a volatile write of the
+     * sequence) and the push (a CAS) are totally ordered with respect
+     * to the reads that follow them, so either the waiter sees the
+     * change or the signaller sees the waiter.  A signaller pops a
+     * node and claims it by CASing its thread field to null; a waiter
+     * leaving on its own (success, timeout or interrupt) does the
+     * same, so each node is consumed at most once, and a waiter that
+     * loses that race passes the signal on.  Nodes cancelled while
+     * still on a stack are popped by later pushes and signals.
+     */
+
+    /** Number of CPUS, to control spinning */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of times to retry an operation before pushing a
+     * wait node.  Spinning is pointless on uniprocessors.
+     */
+    static final int MAX_SPINS = (NCPU < 2) ? 0 : 1 << 6;
+
+    /**
+     * The number of nanoseconds for which it is faster to spin
+     * rather than to use timed park. A rough estimate suffices.
+     */
+    static final long SPIN_FOR_TIMEOUT_THRESHOLD = 1000L;
+
+    /** The queued items */
+    transient Object[] items;
+
+    /** Slot sequence numbers, as described above */
+    transient long[] sequences;
+
+    /** The capacity of this queue */
+    final int capacity;
+
+    /** Position of the next element to take */
+    @sun.misc.Contended transient volatile long head;
+
+    /** Position of the next element to put */
+    @sun.misc.Contended transient volatile long tail;
+
+    /** Threads waiting for an element */
+    transient WaitStack takers;
+
+    /** Threads waiting for space */
+    transient WaitStack putters;
+
+    /**
+     * Creates a {@code ConcurrentArrayBlockingQueue} with the given
+     * (fixed) capacity.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity < 1}
+     */
+    public ConcurrentArrayBlockingQueue(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException();
+        this.capacity = capacity;
+        initialize();
+    }
+
+    /**
+     * Creates a {@code ConcurrentArrayBlockingQueue} with the given
+     * (fixed) capacity, initially containing the elements of the given
+     * collection, added in traversal order of the collection's iterator.
+     *
+     * @param capacity the capacity of this queue
+     * @param c the collection of elements to initially contain
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         {@code c.size()}, or less than 1.
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     */
+    public ConcurrentArrayBlockingQueue(int capacity,
+                                        Collection<? extends E> c) {
+        this(capacity);
+        for (E e : c) {
+            if (!offer(e))
+                throw new IllegalArgumentException("Collection too large");
+        }
+    }
+
+    private void initialize() {
+        int n = capacity;
+        long[] seqs = new long[n];
+        for (int i = 0; i < n; ++i)
+            seqs[i] = (long)i << 1;
+        items = new Object[n];
+        sequences = seqs;
+        takers = new WaitStack();
+        putters = new WaitStack();
+    }
+
+    // Slot access
+
+    private int index(long pos) {
+        return (int)(pos % capacity);
+    }
+
+    /** Returns the sequence of a free slot for position pos */
+    private static long free(long pos) {
+        return pos << 1;
+    }
+
+    /** Returns the sequence of a slot holding the element at pos */
+    private static long full(long pos) {
+        return (pos << 1) + 1L;
+    }
+
+    private static long seqAt(long[] seqs, int i) {
+        return U.getLongVolatile(seqs, ((long)i << SSHIFT) + SBASE);
+    }
+
+    private static void setSeqAt(long[] seqs, int i, long s) {
+        U.putLongVolatile(seqs, ((long)i << SSHIFT) + SBASE, s);
+    }
+
+    /**
+     * Tries to append e at the tail without waiting.
+     */
+    private boolean enqueue(Object e) {
+        long[] seqs = sequences;
+        for (long t = tail;;) {
+            int i = index(t);
+            long d = seqAt(seqs, i) - free(t);
+            if (d == 0L) {
+                if (U.compareAndSwapLong(this, TAIL, t, t + 1L)) {
+                    items[i] = e;
+                    setSeqAt(seqs, i, full(t));
+                    return true;
+                }
+                t = tail;
+            }
+            else if (d < 0L)
+                return false;
+            else
+                t = tail;
+        }
+    }
+
+    /**
+     * Tries to remove and return the element at the head without
+     * waiting, or returns null if there is none.
+     */
+    private Object dequeue() {
+        long[] seqs = sequences;
+        for (long h = head;;) {
+            int i = index(h);
+            long d = seqAt(seqs, i) - full(h);
+            if (d == 0L) {
+                if (U.compareAndSwapLong(this, HEAD, h, h + 1L)) {
+                    Object[] items = this.items;
+                    Object x = items[i];
+                    items[i] = null;
+                    setSeqAt(seqs, i, free(h + capacity));
+                    return x;
+                }
+                h = head;
+            }
+            else if (d < 0L)
+                return null;
+            else
+                h = head;
+        }
+    }
+
+    // BlockingQueue methods
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's capacity,
+     * returning {@code true} upon success and throwing an
+     * {@code IllegalStateException} if this queue is full.
+     *
+     * @param e the element to add
+     * @return {@code true} (as specified by {@link Collection#add})
+     * @throws IllegalStateException if this queue is full
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean add(E e) {
+        return super.add(e);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's capacity,
+     * returning {@code true} upon success and {@code false} if this queue
+     * is full.  This method is generally preferable to method {@link #add},
+     * which can fail to insert an element only by throwing an exception.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        if (!enqueue(e))
+            return false;
+        takers.signal();
+        return true;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * for space to become available if the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        if (e == null) throw new NullPointerException();
+        awaitPut(e, false, 0L);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (e == null) throw new NullPointerException();
+        return awaitPut(e, true, unit.toNanos(timeout));
+    }
+
+    public E poll() {
+        Object x = dequeue();
+        if (x != null)
+            putters.signal();
+        @SuppressWarnings("unchecked") E e = (E)x;
+        return e;
+    }
+
+    public E take() throws InterruptedException {
+        return awaitTake(false, 0L);
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return awaitTake(true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Inserts e, spinning and then parking while the queue is full.
+     *
+     * @return true if inserted, false if timed out
+     */
+    private boolean awaitPut(Object e, boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        WaitStack ws = putters;
+        WaitNode node = null;
+        int spins = MAX_SPINS;
+        for (;;) {
+            if (enqueue(e)) {
+                ws.leave(node);
+                takers.signal();
+                return true;
+            }
+            if (Thread.interrupted()) {
+                ws.leave(node);
+                throw new InterruptedException();
+            }
+            if (timed && (nanos = deadline - System.nanoTime()) <= 0L) {
+                ws.leave(node);
+                return false;
+            }
+            if (spins > 0)
+                --spins;
+            else if (node == null || node.thread == null)
+                node = ws.push();   // retry once more before parking
+            else if (!timed)
+                LockSupport.park(this);
+            else if (nanos > SPIN_FOR_TIMEOUT_THRESHOLD)
+                LockSupport.parkNanos(this, nanos);
+        }
+    }
+
+    /**
+     * Removes the head, spinning and then parking while the queue is
+     * empty.
+     *
+     * @return the head, or null if timed out
+     */
+    private E awaitTake(boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        WaitStack ws = takers;
+        WaitNode node = null;
+        int spins = MAX_SPINS;
+        for (;;) {
+            Object x = dequeue();
+            if (x != null) {
+                ws.leave(node);
+                putters.signal();
+                @SuppressWarnings("unchecked") E e = (E)x;
+                return e;
+            }
+            if (Thread.interrupted()) {
+                ws.leave(node);
+                throw new InterruptedException();
+            }
+            if (timed && (nanos = deadline - System.nanoTime()) <= 0L) {
+                ws.leave(node);
+                return null;
+            }
+            if (spins > 0)
+                --spins;
+            else if (node == null || node.thread == null)
+                node = ws.push();   // retry once more before parking
+            else if (!timed)
+                LockSupport.park(this);
+            else if (nanos > SPIN_FOR_TIMEOUT_THRESHOLD)
+                LockSupport.parkNanos(this, nanos);
+        }
+    }
+
+    public E peek() {
+        long[] seqs = sequences;
+        Object[] items = this.items;
+        for (long h = head;;) {
+            int i = index(h);
+            long d = seqAt(seqs, i) - full(h);
+            if (d < 0L)
+                return null;
+            if (d == 0L) {
+                Object x = items[i];
+                // x is the head only if no consumer has claimed h since
+                if (x != null && head == h) {
+                    @SuppressWarnings("unchecked") E e = (E)x;
+                    return e;
+                }
+            }
+            h = head;
+        }
+    }
+
+    // Batch operations
+
+    /**
+     * Inserts as many of the elements of the specified collection as
+     * there is space for without waiting, in traversal order of the
+     * collection's iterator, and returns the number inserted.  Each run
+     * of elements for which space is available is inserted into
+     * consecutive positions with a single update of the tail, so that
+     * the elements of a run are not interleaved with those of other
+     * producers.
+     *
+     * @param c the collection of elements to insert
+     * @return the number of elements inserted, which are the first
+     *         that many elements of the collection
+     * @throws NullPointerException if the specified collection or any
+     *         of its elements are null
+     * @throws IllegalArgumentException if the specified collection is
+     *         this queue
+     */
+    public int offerAll(Collection<? extends E> c) {
+        if (c == this)
+            throw new IllegalArgumentException();
+        Object[] a = c.toArray();
+        for (Object e : a) {
+            if (e == null)
+                throw new NullPointerException();
+        }
+        int n = a.length, added = 0;
+        long[] seqs = sequences;
+        Object[] items = this.items;
+        outer: while (added < n) {
+            long t = tail;
+            int k = 0, max = Math.min(n - added, capacity);
+            for (long d; k < max; ++k) {
+                if ((d = seqAt(seqs, index(t + k)) - free(t + k)) != 0L) {
+                    if (k == 0 && d < 0L)
+                        break outer;    // full
+                    if (k == 0)
+                        continue outer; // lost race for t
+                    break;
+                }
+            }
+            if (U.compareAndSwapLong(this, TAIL, t, t + k)) {
+                for (int j = 0; j < k; ++j) {
+                    int i = index(t + j);
+                    items[i] = a[added + j];
+                    setSeqAt(seqs, i, full(t + j));
+                }
+                added += k;
+                takers.signal(k);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Removes at most the given number of available elements from this
+     * queue and adds them to the given collection.  Each run of
+     * available elements is removed with a single update of the head,
+     * and its slots are freed before the elements are added, so that a
+     * collection that throws loses elements but no capacity.
+     *
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        long[] seqs = sequences;
+        Object[] items = this.items;
+        Object[] batch = null;
+        int drained = 0;
+        outer: while (drained < maxElements) {
+            long h = head;
+            int k = 0, max = Math.min(maxElements - drained, capacity);
+            for (long d; k < max; ++k) {
+                if ((d = seqAt(seqs, index(h + k)) - full(h + k)) != 0L) {
+                    if (k == 0 && d < 0L)
+                        break outer;    // empty
+                    if (k == 0)
+                        continue outer; // lost race for h
+                    break;
+                }
+            }
+            if (U.compareAndSwapLong(this, HEAD, h, h + k)) {
+                if (batch == null)
+                    batch = new Object[Math.min(maxElements, capacity)];
+                for (int j = 0; j < k; ++j) {
+                    int i = index(h + j);
+                    batch[j] = items[i];
+                    items[i] = null;
+                    setSeqAt(seqs, i, free(h + j + capacity));
+                }
+                drained += k;
+                putters.signal(k);
+                for (int j = 0; j < k; ++j) {
+                    @SuppressWarnings("unchecked") E e = (E)batch[j];
+                    batch[j] = null;
+                    c.add(e);
+                }
+            }
+        }
+        return drained;
+    }
+
+    // Collection methods
+
+    /**
+     * Returns the number of elements in this queue.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        for (;;) {
+            long h = head, t = tail;
+            if (h == head) {
+                long n = t - h;
+                return (n <= 0L) ? 0 : (n >= capacity) ? capacity : (int)n;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        return peek() == null;
+    }
+
+    /**
+     * Returns the number of additional elements that this queue can ideally
+     * (in the absence of memory or resource constraints) accept without
+     * blocking. This is always equal to the initial capacity of this queue
+     * less the current {@code size} of this queue.
+     *
+     * <p>Note that you <em>cannot</em> always tell if an attempt to insert
+     * an element will succeed by inspecting {@code remainingCapacity}
+     * because it may be the case that another thread is about to
+     * insert or remove an element.
+     */
+    public int remainingCapacity() {
+        return capacity - size();
+    }
+
+    /**
+     * Returns a snapshot of the elements between the head and tail
+     * positions, in order.
+     */
+    private Object[] snapshot() {
+        long[] seqs = sequences;
+        Object[] items = this.items;
+        long h = head, t = tail;
+        int n = (int)Math.max(0L, Math.min(t - h, (long)capacity)), size = 0;
+        Object[] a = new Object[n];
+        for (long p = h; size < n && p < t; ++p) {
+            int i = index(p);
+            if (seqAt(seqs, i) == full(p)) {
+                Object x = items[i];
+                // x belongs to p only if its slot has not moved on
+                if (x != null && seqAt(seqs, i) == full(p))
+                    a[size++] = x;
+            }
+        }
+        return (size == n) ? a : Arrays.copyOf(a, size);
+    }
+
+    /**
+     * Returns {@code true} if this queue contains the specified element.
+     * More formally, returns {@code true} if and only if this queue contains
+     * at least one element {@code e} such that {@code o.equals(e)}.
+     *
+     * @param o object to be checked for containment in this queue
+     * @return {@code true} if this queue contains the specified element
+     */
+    public boolean contains(Object o) {
+        if (o != null) {
+            for (Object x : snapshot()) {
+                if (o.equals(x))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException}; elements can
+     * only be removed at the head of this queue.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException}.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean removeAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException}.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean retainAll(Collection<?> c) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Always throws {@code UnsupportedOperationException}.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    public boolean removeIf(Predicate<? super E> filter) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Removes all of the elements from this queue.
+     */
+    public void clear() {
+        int n = 0;
+        while (dequeue() != null)
+            ++n;
+        putters.signal(n);
+    }
+
+    /**
+     * Returns an array containing all of the elements in this queue, in
+     * proper sequence.
+     *
+     * <p>The returned array will be "safe" in that no references to it are
+     * maintained by this queue.  (In other words, this method must allocate
+     * a new array).  The caller is thus free to modify the returned array.
+     *
+     * <p>This method acts as bridge between array-based and collection-based
+     * APIs.
+     *
+     * @return an array containing all of the elements in this queue
+     */
+    public Object[] toArray() {
+        return snapshot();
+    }
+
+    /**
+     * Returns an array containing all of the elements in this queue, in
+     * proper sequence; the runtime type of the returned array is that of
+     * the specified array.  If the queue fits in the specified array, it
+     * is returned therein.  Otherwise, a new array is allocated with the
+     * runtime type of the specified array and the size of this queue.
+     *
+     * <p>If this queue fits in the specified array with room to spare
+     * (i.e., the array has more elements than this queue), the element in
+     * the array immediately following the end of the queue is set to
+     * {@code null}.
+     *
+     * @param a the array into which the elements of the queue are to
+     *          be stored, if it is big enough; otherwise, a new array of the
+     *          same runtime type is allocated for this purpose
+     * @return an array containing all of the elements in this queue
+     * @throws ArrayStoreException if the runtime type of the specified array
+     *         is not a supertype of the runtime type of every element in
+     *         this queue
+     * @throws NullPointerException if the specified array is null
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T[] toArray(T[] a) {
+        Object[] s = snapshot();
+        int n = s.length;
+        if (a.length < n)
+            return (T[]) Arrays.copyOf(s, n, a.getClass());
+        System.arraycopy(s, 0, a, 0, n);
+        if (a.length > n)
+            a[n] = null;
+        return a;
+    }
+
+    /**
+     * Returns an iterator over the elements in this queue in proper sequence.
+     * The elements will be returned in order from first (head) to last (tail).
+     *
+     * <p>The returned iterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>,
+     * and does not support {@code remove}.
+     *
+     * @return an iterator over the elements in this queue in proper sequence
+     */
+    public Iterator<E> iterator() {
+        return new Itr(snapshot());
+    }
+
+    final class Itr implements Iterator<E> {
+        final Object[] array;
+        int cursor;
+        Itr(Object[] array) { this.array = array; }
+        public boolean hasNext() { return cursor < array.length; }
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length)
+                throw new NoSuchElementException();
+            return (E)array[cursor++];
+        }
+    }
+
+    /**
+     * Returns a {@link Spliterator} over the elements in this queue.
+     *
+     * <p>The returned spliterator is
+     * <a href="package-summary.html#Weakly"><i>weakly consistent</i></a>.
+     *
+     * <p>The {@code Spliterator} reports {@link Spliterator#CONCURRENT},
+     * {@link Spliterator#ORDERED}, and {@link Spliterator#NONNULL}.
+     *
+     * @return a {@code Spliterator} over the elements in this queue
+     */
+    public Spliterator<E> spliterator() {
+        return Spliterators.spliterator
+            (snapshot(), Spliterator.ORDERED | Spliterator.NONNULL |
+             Spliterator.CONCURRENT);
+    }
+
+    /**
+     * Saves this queue to a stream (that is, serializes it).
+     *
+     * @param s the stream
+     * @throws java.io.IOException if an I/O error occurs
+     * @serialData The capacity is emitted (int), followed by all of
+     * its elements (each an {@code Object}) in the proper order,
+     * followed by a null
+     */
+    private void writeObject(java.io.ObjectOutputStream s)
+        throws java.io.IOException {
+        s.defaultWriteObject();
+        for (Object x : snapshot())
+            s.writeObject(x);
+        s.writeObject(null);
+    }
+
+    /**
+     * Reconstitutes this queue from a stream (that is, deserializes it).
+     * @param s the stream
+     * @throws ClassNotFoundException if the class of a serialized object
+     *         could not be found
+     * @throws java.io.IOException if an I/O error occurs
+     */
+    private void readObject(java.io.ObjectInputStream s)
+        throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (capacity <= 0)
+            throw new java.io.InvalidObjectException("capacity");
+        initialize();
+        for (Object x; (x = s.readObject()) != null; ) {
+            if (!enqueue(x))
+                throw new java.io.InvalidObjectException("too many elements");
+        }
+    }
+
+    /**
+     * A thread waiting to put or take.  The thread field is cleared,
+     * by CAS, by whichever of a signaller or the waiter itself first
+     * consumes the node.
+     */
+    static final class WaitNode {
+        volatile Thread thread;
+        WaitNode next;
+        WaitNode(Thread thread) { this.thread = thread; }
+
+        boolean tryClaim(Thread t) {
+            return U.compareAndSwapObject(this, THREAD, t, null);
+        }
+    }
+
+    /**
+     * A Treiber stack of waiting threads.
+     */
+    static final class WaitStack {
+        volatile WaitNode top;
+
+        private boolean casTop(WaitNode cmp, WaitNode val) {
+            return U.compareAndSwapObject(this, TOP, cmp, val);
+        }
+
+        /**
+         * Pushes a node for the current thread, first popping any
+         * consumed nodes at the top.
+         */
+        WaitNode push() {
+            WaitNode node = new WaitNode(Thread.currentThread());
+            for (WaitNode h;;) {
+                if ((h = top) != null && h.thread == null)
+                    casTop(h, h.next);
+                else {
+                    node.next = h;
+                    if (casTop(h, node))
+                        return node;
+                }
+            }
+        }
+
+        /**
+         * Wakes up one waiting thread, if there is one.
+         */
+        void signal() {
+            for (WaitNode h; (h = top) != null; ) {
+                if (casTop(h, h.next)) {
+                    Thread t = h.thread;
+                    if (t != null && h.tryClaim(t)) {
+                        LockSupport.unpark(t);
+                        return;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Wakes up to n waiting threads.
+         */
+        void signal(int n) {
+            while (--n >= 0 && top != null)
+                signal();
+        }
+
+        /**
+         * Consumes the current thread's node, if any, when it stops
+         * waiting; if a signaller consumed it first, passes the
+         * signal on to another waiter.
+         */
+        void leave(WaitNode node) {
+            if (node != null && !node.tryClaim(Thread.currentThread()))
+                signal();
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long HEAD;
+    private static final long TAIL;
+    private static final long TOP;
+    private static final long THREAD;
+    private static final long SBASE;
+    private static final int SSHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = ConcurrentArrayBlockingQueue.class;
+            HEAD = U.objectFieldOffset(k.getDeclaredField("head"));
+            TAIL = U.objectFieldOffset(k.getDeclaredField("tail"));
+            TOP = U.objectFieldOffset
+                (WaitStack.class.getDeclaredField("top"));
+            THREAD = U.objectFieldOffset
+                (WaitNode.class.getDeclaredField("thread"));
+            SBASE = U.arrayBaseOffset(long[].class);
+            int scale = U.arrayIndexScale(long[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            SSHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -301,6 +301,35 @@ public class Executors {
         return new ScheduledThreadPoolExecutor(corePoolSize, threadFactory);
     }
 
+    /**
+     * Creates a scheduled executor that keeps delayed tasks in a
+     * timing wheel, so that scheduling and cancellation take constant
+     * time, and runs them in a work-stealing pool with the given
+     * parallelism level. Delays are rounded up to whole milliseconds,
+     * and tasks due in the same millisecond may run in any order.
+     *
+     * @param parallelism the targeted parallelism level
+     * @return the newly created scheduled executor
+     * @throws IllegalArgumentException if {@code parallelism <= 0}
+     * @see TimingWheelScheduledExecutor
+     * @since 1.8
+     */
+    public static ScheduledExecutorService newTimingWheelScheduledPool(int parallelism) {
+        return new TimingWheelScheduledExecutor(parallelism);
+    }
+
+    /**
+     * Creates a timing-wheel scheduled executor using all
+     * {@link Runtime#availableProcessors available processors}
+     * as its target parallelism level.
+     * @return the newly created scheduled executor
+     * @see #newTimingWheelScheduledPool(int)
+     * @since 1.8
+     */
+    public static ScheduledExecutorService newTimingWheelScheduledPool() {
+        return new TimingWheelScheduledExecutor();
+    }
+
     /**
      * Returns an object that delegates all defined {@link
      * ExecutorService} methods to the given executor, but not any
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.concurrent;
+
+/**
+ * Interrelated interfaces for establishing flow-controlled components in
+ * which {@link Publisher Publishers} produce items consumed by one or more
+ * {@link Subscriber Subscribers}, each managed by a {@link Subscription
+ * Subscription}.
+ *
+ * <p>A Subscriber receives items only after it has requested them through
+ * its Subscription, so a fast Publisher never overruns a slow Subscriber:
+ * the Publisher produces, and the Subscriber buffers, no more than has been
+ * requested.  For each subscription, the methods of the Subscriber are
+ * invoked in order: {@code onSubscribe} first, then zero or more {@code
+ * onNext}, then at most one of {@code onError} or {@code onComplete}; and
+ * invocations are never concurrent.
+ *
+ * <p>A simple Subscriber that processes one item at a time:
+ * <pre> {@code
+ * class SampleSubscriber<T> implements Subscriber<T> {
+ *   final Consumer<? super T> consumer;
+ *   Subscription subscription;
+ *   SampleSubscriber(Consumer<? super T> consumer) {
+ *     this.consumer = consumer;
+ *   }
+ *   public void onSubscribe(Subscription subscription) {
+ *     (this.subscription = subscription).request(1);
+ *   }
+ *   public void onNext(T item) {
+ *     consumer.accept(item);
+ *     subscription.request(1);
+ *   }
+ *   public void onError(Throwable ex) { ex.printStackTrace(); }
+ *   public void onComplete() {}
+ * }}</pre>
+ *
+ * @since 1.8
+ */
+public final class Flow {
+
+    private Flow() {} // uninstantiable
+
+    /**
+     * A producer of items received by Subscribers.  Each current Subscriber
+     * receives the same items, in the same order, unless drops or errors
+     * are encountered.
+     *
+     * @param <T> the published item type
+     */
+    @FunctionalInterface
+    public static interface Publisher<T> {
+        /**
+         * Adds the given Subscriber if possible.  If already subscribed, or
+         * the attempt to subscribe fails, the Subscriber's {@code onError}
+         * method is invoked with an {@link IllegalStateException}.
+         * Otherwise its {@code onSubscribe} method is invoked with a new
+         * {@link Subscription}.
+         *
+         * @param subscriber the subscriber
+         * @throws NullPointerException if subscriber is null
+         */
+        public void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of messages.  The methods in this interface are invoked in
+     * strict sequential order for each Subscription.
+     *
+     * @param <T> the subscribed item type
+     */
+    public static interface Subscriber<T> {
+        /**
+         * Method invoked prior to invoking any other Subscriber methods for
+         * the given Subscription.
+         *
+         * @param subscription a new subscription
+         */
+        public void onSubscribe(Subscription subscription);
+
+        /**
+         * Method invoked with a Subscription's next item.
+         *
+         * @param item the item
+         */
+        public void onNext(T item);
+
+        /**
+         * Method invoked upon an unrecoverable error encountered by a
+         * Publisher or Subscription, after which no other Subscriber
+         * methods are invoked by the Subscription.
+         *
+         * @param throwable the exception
+         */
+        public void onError(Throwable throwable);
+
+        /**
+         * Method invoked when it is known that no additional Subscriber
+         * method invocations will occur for a Subscription that is not
+         * already terminated by error.
+         */
+        public void onComplete();
+    }
+
+    /**
+     * Message control linking a {@link Publisher} and {@link Subscriber}.
+     * Subscribers receive items only when requested, and may cancel at any
+     * time.
+     */
+    public static interface Subscription {
+        /**
+         * Adds the given number {@code n} of items to the current unfulfilled
+         * demand for this subscription.  If {@code n} is less than or equal
+         * to zero, the Subscriber will receive an {@code onError} signal with
+         * an {@link IllegalArgumentException} argument.
+         *
+         * @param n the increment of demand; a value of {@code Long.MAX_VALUE}
+         * may be considered as effectively unbounded
+         */
+        public void request(long n);
+
+        /**
+         * Causes the Subscriber to (eventually) stop receiving messages.
+         */
+        public void cancel();
+    }
+
+    /**
+     * A component that acts as both a Subscriber and Publisher.
+     *
+     * @param <T> the subscribed item type
+     * @param <R> the published item type
+     */
+    public static interface Processor<T,R> extends Subscriber<T>, Publisher<R> {
+    }
+}
@@ -0,0 +1,921 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.ObjectName;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * A concurrent hash map from byte-string keys to byte-string values that
+ * keeps both keys and values outside the Java heap, for caches whose
+ * contents would otherwise make garbage collection pauses grow with the
+ * heap.  Only the index lives on the heap: per bin, a pair of small
+ * {@code int} and {@code long} arrays holding each mapping's hash and the
+ * location of its record.  The records themselves are appended to large
+ * direct byte buffer <em>segments</em>.
+ *
+ * <p>Retrieval operations never lock, and update operations lock only
+ * the bin they touch, using the same scheme as
+ * {@link ConcurrentHashMap#put ConcurrentHashMap.putVal}: an insertion
+ * into an empty bin is a single CAS, and other updates synchronize on the
+ * bin's current head.  Bins are copy-on-write, so a reader always sees a
+ * consistent snapshot of a bin.  When the table grows, bins are moved to
+ * the new table one at a time and the old slots replaced by forwarding
+ * markers, as in {@code ConcurrentHashMap.transfer}.
+ *
+ * <p>Records are immutable; replacing or removing a mapping leaves its
+ * old record in place as garbage.  The total off-heap footprint is fixed
+ * by the <em>memory limit</em> given at construction.  When appending a
+ * record would exceed it, the oldest segment is <em>evicted</em>: every
+ * mapping whose record lies in it is removed from the index, and the
+ * segment's memory is reused.  Eviction is therefore size-aware and
+ * first-in first-out by insertion time, and reclaims garbage and live
+ * records alike.
+ *
+ * <p>Keys and values are passed as arrays and copied on the way in and
+ * out; the map never retains references to them.  Null keys and values
+ * are not permitted.  A record (key, value and a twelve byte header)
+ * must fit in one segment.
+ *
+ * <p>Usage statistics are published through an
+ * {@link OffHeapConcurrentMapMXBean}.  The memory held by the map is
+ * released by {@link #close}, which must not be invoked while other
+ * threads are still operating on the map.
+ *
+ * @since 1.8
+ */
+public class OffHeapConcurrentMap implements AutoCloseable {
+
+    /* ---------------- Constants -------------- */
+
+    /**
+     * The largest possible table capacity.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The default initial table capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The default segment size, 64 megabytes.
+     */
+    static final int DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+    /**
+     * The smallest permitted segment size.
+     */
+    static final int MINIMUM_SEGMENT_SIZE = 4 << 10;
+
+    /**
+     * Size of a record header: hash, key length and value length.
+     */
+    static final int HEADER_SIZE = 12;
+
+    /**
+     * Used to generate default map names.
+     */
+    private static final AtomicInteger mapNumber = new AtomicInteger();
+
+    /* ---------------- Bins -------------- */
+
+    /**
+     * An immutable bin: the spread hashes of its mappings, and the
+     * location of each mapping's record.  A location packs the segment
+     * id into the high word and the offset within the segment into the
+     * low word.
+     */
+    static class Bin {
+        final int[] hashes;
+        final long[] refs;
+
+        Bin(int[] hashes, long[] refs) {
+            this.hashes = hashes;
+            this.refs = refs;
+        }
+
+        Bin(int hash, long ref) {
+            this(new int[] { hash }, new long[] { ref });
+        }
+
+        /** Returns a copy of this bin with the given mapping appended. */
+        final Bin with(int hash, long ref) {
+            int n = refs.length;
+            int[] hs = Arrays.copyOf(hashes, n + 1);
+            long[] rs = Arrays.copyOf(refs, n + 1);
+            hs[n] = hash;
+            rs[n] = ref;
+            return new Bin(hs, rs);
+        }
+
+        /** Returns a copy of this bin with the j'th record replaced. */
+        final Bin replace(int j, long ref) {
+            long[] rs = refs.clone();
+            rs[j] = ref;
+            return new Bin(hashes, rs);
+        }
+
+        /** Returns a copy of this bin without its j'th mapping, or null. */
+        final Bin without(int j) {
+            int n = refs.length - 1;
+            if (n == 0)
+                return null;
+            int[] hs = new int[n];
+            long[] rs = new long[n];
+            System.arraycopy(hashes, 0, hs, 0, j);
+            System.arraycopy(refs, 0, rs, 0, j);
+            System.arraycopy(hashes, j + 1, hs, j, n - j);
+            System.arraycopy(refs, j + 1, rs, j, n - j);
+            return new Bin(hs, rs);
+        }
+
+        /** Returns the index of the given record in this bin, or -1. */
+        final int indexOfRef(long ref) {
+            long[] rs = refs;
+            for (int j = 0; j < rs.length; ++j) {
+                if (rs[j] == ref)
+                    return j;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * A bin placed at the head of a transferred slot.
+     */
+    static final class ForwardingBin extends Bin {
+        final Bin[] nextTable;
+        ForwardingBin(Bin[] tab) {
+            super(null, null);
+            this.nextTable = tab;
+        }
+    }
+
+    /* ---------------- Segments -------------- */
+
+    /**
+     * A direct buffer into which records are appended.  Segments are
+     * reused after eviction, so every segment carries the id of its
+     * current generation; a location whose id does not match refers to
+     * a record that no longer exists.
+     */
+    static final class Segment {
+        final ByteBuffer buffer;
+        final long address;
+        final int capacity;
+        volatile int id;                       // current generation, or -1
+        final AtomicInteger position = new AtomicInteger();
+        final AtomicInteger writers = new AtomicInteger();
+        volatile boolean sealed;               // true once no longer current
+
+        Segment(int capacity) {
+            this.buffer = ByteBuffer.allocateDirect(capacity);
+            this.address = ((DirectBuffer)buffer).address();
+            this.capacity = capacity;
+        }
+
+        /**
+         * Reserves space for a record of the given size, returning its
+         * offset, or -1 if the segment is sealed or full.
+         */
+        int reserve(int size) {
+            for (AtomicInteger pos = position;;) {
+                int p = pos.get(), np = p + size;
+                if (sealed || np > capacity || np < 0)
+                    return -1;
+                if (pos.compareAndSet(p, np))
+                    return p;
+            }
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The array of bins.  Size is always a power of two.
+     */
+    private transient volatile Bin[] table;
+
+    /**
+     * Table resizing control.  When negative, the table is being
+     * resized.  Otherwise holds the element count at which to resize.
+     */
+    private transient volatile int sizeCtl;
+
+    /**
+     * Ring of segments indexed by segment id modulo its length.
+     */
+    private final Segment[] segments;
+
+    /**
+     * The segment currently being appended to.
+     */
+    private volatile Segment current;
+
+    /**
+     * Id for the next segment; guarded by allocLock.
+     */
+    private int nextSegmentId;
+
+    /**
+     * Lock held while rolling to a new segment.
+     */
+    private final Object allocLock = new Object();
+
+    private final int segmentSize;
+    private final long memoryLimit;
+    private final String name;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong liveBytes = new AtomicLong();
+    private volatile long evictions;
+    private volatile long evictedMappings;
+    private volatile int allocatedSegments;
+    private volatile boolean closed;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with the given memory limit, the default
+     * segment size (64 megabytes) and the default initial capacity.
+     *
+     * @param memoryLimit the maximum number of off-heap bytes to use
+     * @throws IllegalArgumentException if the memory limit is smaller
+     *         than two segments
+     */
+    public OffHeapConcurrentMap(long memoryLimit) {
+        this(null, memoryLimit, DEFAULT_SEGMENT_SIZE, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new, empty map.
+     *
+     * @param name the name reported by the map's MXBean, or {@code null}
+     *        to generate one
+     * @param memoryLimit the maximum number of off-heap bytes to use; it
+     *        is rounded down to a whole number of segments
+     * @param segmentSize the size of each off-heap segment, in bytes
+     * @param initialCapacity the number of mappings the index should
+     *        accommodate without resizing
+     * @throws IllegalArgumentException if the segment size is smaller
+     *         than 4096, the memory limit is smaller than two segments,
+     *         or the initial capacity is negative
+     */
+    public OffHeapConcurrentMap(String name, long memoryLimit,
+                                int segmentSize, int initialCapacity) {
+        if (segmentSize < MINIMUM_SEGMENT_SIZE || initialCapacity < 0 ||
+            memoryLimit / segmentSize < 2)
+            throw new IllegalArgumentException();
+        long nsegs = Math.min(memoryLimit / segmentSize, Integer.MAX_VALUE);
+        this.segments = new Segment[(int)nsegs];
+        this.segmentSize = segmentSize;
+        this.memoryLimit = nsegs * segmentSize;
+        this.name = (name != null) ? name :
+            "map-" + mapNumber.getAndIncrement();
+        int cap = (initialCapacity >= (MAXIMUM_CAPACITY >>> 1)) ?
+            MAXIMUM_CAPACITY :
+            tableSizeFor(initialCapacity + (initialCapacity >>> 1) + 1);
+        this.table = new Bin[cap];
+        this.sizeCtl = cap - (cap >>> 2);
+    }
+
+    /**
+     * Returns the number of mappings.  The value is an estimate if there
+     * are concurrent insertions or removals.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        long n = count.sum();
+        return (n < 0L) ? 0L : n;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return count.sum() <= 0L;
+    }
+
+    /**
+     * Returns a copy of the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key
+     * @return a copy of the mapped value, or {@code null}
+     * @throws NullPointerException if the specified key is null
+     */
+    public byte[] get(byte[] key) {
+        int h = spread(Arrays.hashCode(key));
+        Bin[] tab = table;
+        for (;;) {
+            Bin f = tabAt(tab, (tab.length - 1) & h);
+            if (f instanceof ForwardingBin) {
+                tab = ((ForwardingBin)f).nextTable;
+                continue;
+            }
+            if (f != null) {
+                int[] hs = f.hashes;
+                for (int j = 0; j < hs.length; ++j) {
+                    byte[] v;
+                    if (hs[j] == h && (v = readValue(f.refs[j], key)) != null) {
+                        hits.increment();
+                        return v;
+                    }
+                }
+            }
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Tests if the specified key is a key in this map.
+     *
+     * @param key the key
+     * @return {@code true} if a mapping for the key is present
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(byte[] key) {
+        int h = spread(Arrays.hashCode(key));
+        Bin[] tab = table;
+        for (;;) {
+            Bin f = tabAt(tab, (tab.length - 1) & h);
+            if (f instanceof ForwardingBin) {
+                tab = ((ForwardingBin)f).nextTable;
+                continue;
+            }
+            return f != null && indexOfKey(f, h, key, false) >= 0;
+        }
+    }
+
+    /**
+     * Maps the specified key to the specified value in this map.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return a copy of the previous value associated with {@code key},
+     *         or {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if the record does not fit in a
+     *         segment
+     * @throws IllegalStateException if the map has been closed
+     */
+    public byte[] put(byte[] key, byte[] value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return a copy of the previous value associated with the specified
+     *         key, or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalArgumentException if the record does not fit in a
+     *         segment
+     * @throws IllegalStateException if the map has been closed
+     */
+    public byte[] putIfAbsent(byte[] key, byte[] value) {
+        byte[] v;
+        return ((v = get(key)) != null) ? v : putVal(key, value, true);
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     *
+     * @param key the key that needs to be removed
+     * @return a copy of the previous value associated with {@code key},
+     *         or {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    public byte[] remove(byte[] key) {
+        int h = spread(Arrays.hashCode(key));
+        for (Bin[] tab = table;;) {
+            int i = (tab.length - 1) & h;
+            Bin f = tabAt(tab, i);
+            if (f == null)
+                return null;
+            if (f instanceof ForwardingBin) {
+                tab = ((ForwardingBin)f).nextTable;
+                continue;
+            }
+            synchronized (f) {
+                if (tabAt(tab, i) == f) {
+                    int j = indexOfKey(f, h, key, true);
+                    if (j < 0)
+                        return null;
+                    long ref = f.refs[j];
+                    byte[] old = readValue(ref, null);
+                    int oldSize = recordSize(ref);
+                    setTabAt(tab, i, f.without(j));
+                    liveBytes.addAndGet(-oldSize);
+                    count.decrement();
+                    return old;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The memory occupied by
+     * their records is reclaimed as segments are reused.
+     */
+    public void clear() {
+        Bin[] tab = table;
+        int i = 0;
+        while (i < tab.length) {
+            Bin f = tabAt(tab, i);
+            if (f == null)
+                ++i;
+            else if (f instanceof ForwardingBin) {
+                tab = ((ForwardingBin)f).nextTable;
+                i = 0;
+            }
+            else {
+                synchronized (f) {
+                    if (tabAt(tab, i) == f) {
+                        long bytes = 0L;
+                        for (long ref : f.refs)
+                            bytes += recordSize(ref);
+                        setTabAt(tab, i++, null);
+                        liveBytes.addAndGet(-bytes);
+                        count.add(-f.refs.length);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the management interface for this map.
+     *
+     * @return the management interface for this map
+     */
+    public OffHeapConcurrentMapMXBean getMXBean() {
+        return new Stats();
+    }
+
+    /**
+     * Releases the off-heap memory held by this map.  Subsequent
+     * insertions throw {@code IllegalStateException}, and lookups find
+     * no mappings.  This method must not be invoked concurrently with
+     * other operations on the map.
+     */
+    public void close() {
+        synchronized (allocLock) {
+            if (closed)
+                return;
+            closed = true;
+            table = new Bin[DEFAULT_CAPACITY];
+            count.reset();
+            liveBytes.set(0L);
+            current = null;
+            for (int i = 0; i < segments.length; ++i) {
+                Segment s = segments[i];
+                if (s != null) {
+                    segments[i] = null;
+                    s.id = -1;
+                    ((DirectBuffer)s.buffer).cleaner().clean();
+                }
+            }
+            allocatedSegments = 0;
+        }
+    }
+
+    /* ---------------- Insertion -------------- */
+
+    /** Implementation for put and putIfAbsent */
+    private byte[] putVal(byte[] key, byte[] value, boolean onlyIfAbsent) {
+        int h = spread(Arrays.hashCode(key));
+        int size = HEADER_SIZE + key.length + value.length;
+        if (key.length > segmentSize || value.length > segmentSize ||
+            size > segmentSize)
+            throw new IllegalArgumentException("record larger than segment");
+        Segment seg = null;
+        int off;
+        for (;;) {
+            Segment s = current;
+            if (s != null) {
+                s.writers.incrementAndGet();
+                if ((off = s.reserve(size)) >= 0) {
+                    seg = s;
+                    break;
+                }
+                s.writers.decrementAndGet();
+            }
+            roll(s);
+        }
+        byte[] old = null;
+        boolean added = false;
+        int binCount = 0;
+        try {
+            long base = seg.address + off;
+            U.putInt(base, h);
+            U.putInt(base + 4, key.length);
+            U.putInt(base + 8, value.length);
+            U.copyMemory(key, BYTE_ARRAY_BASE, null, base + HEADER_SIZE,
+                         key.length);
+            U.copyMemory(value, BYTE_ARRAY_BASE, null,
+                         base + HEADER_SIZE + key.length, value.length);
+            long ref = ((long)seg.id << 32) | (off & 0xffffffffL);
+            for (Bin[] tab = table;;) {
+                int i = (tab.length - 1) & h;
+                Bin f = tabAt(tab, i);
+                if (f == null) {
+                    if (casTabAt(tab, i, null, new Bin(h, ref))) {
+                        added = true;
+                        binCount = 1;
+                        break;
+                    }
+                }
+                else if (f instanceof ForwardingBin)
+                    tab = ((ForwardingBin)f).nextTable;
+                else {
+                    synchronized (f) {
+                        if (tabAt(tab, i) == f) {
+                            int j = indexOfKey(f, h, key, true);
+                            if (j < 0) {
+                                setTabAt(tab, i, f.with(h, ref));
+                                added = true;
+                                binCount = f.refs.length + 1;
+                                break;
+                            }
+                            long oldRef = f.refs[j];
+                            old = readValue(oldRef, null);
+                            if (!onlyIfAbsent) {
+                                int oldSize = recordSize(oldRef);
+                                setTabAt(tab, i, f.replace(j, ref));
+                                liveBytes.addAndGet(size - oldSize);
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            seg.writers.decrementAndGet();
+        }
+        if (added) {
+            liveBytes.addAndGet(size);
+            count.increment();
+            if (binCount > 1)
+                checkResize();
+        }
+        return old;
+    }
+
+    /**
+     * Makes a new segment current, unless another thread has already
+     * replaced the given one, evicting the oldest segment if the memory
+     * limit would otherwise be exceeded.
+     */
+    private void roll(Segment s) {
+        synchronized (allocLock) {
+            if (closed)
+                throw new IllegalStateException("map is closed");
+            if (current != s)
+                return;
+            if (s != null)
+                s.sealed = true;
+            int id = nextSegmentId;
+            if (id < 0)
+                throw new IllegalStateException("segment ids exhausted");
+            int slot = id % segments.length;
+            Segment seg = segments[slot];
+            if (seg == null) {
+                seg = segments[slot] = new Segment(segmentSize);
+                allocatedSegments++;
+            }
+            else
+                evict(seg);
+            seg.position.set(0);
+            seg.id = id;
+            seg.sealed = false;
+            nextSegmentId = id + 1;
+            current = seg;
+        }
+    }
+
+    /**
+     * Removes from the index every mapping whose record lies in the
+     * given sealed segment, and invalidates the segment's id.
+     */
+    private void evict(Segment seg) {
+        while (seg.writers.get() != 0)
+            Thread.yield();
+        long id = seg.id, base = seg.address, dropped = 0L;
+        for (int off = 0, end = seg.position.get(); off < end; ) {
+            int h = U.getInt(base + off);
+            int size = HEADER_SIZE + U.getInt(base + off + 4) +
+                U.getInt(base + off + 8);
+            if (removeRef(h, (id << 32) | off, size))
+                ++dropped;
+            off += size;
+        }
+        seg.id = -1;
+        U.fullFence();
+        evictions = evictions + 1L;
+        evictedMappings = evictedMappings + dropped;
+    }
+
+    /**
+     * Removes the mapping with the given record from the index, if
+     * present.
+     */
+    private boolean removeRef(int h, long ref, int size) {
+        for (Bin[] tab = table;;) {
+            int i = (tab.length - 1) & h;
+            Bin f = tabAt(tab, i);
+            if (f == null)
+                return false;
+            if (f instanceof ForwardingBin) {
+                tab = ((ForwardingBin)f).nextTable;
+                continue;
+            }
+            synchronized (f) {
+                if (tabAt(tab, i) == f) {
+                    int j = f.indexOfRef(ref);
+                    if (j < 0)
+                        return false;
+                    setTabAt(tab, i, f.without(j));
+                    liveBytes.addAndGet(-size);
+                    count.decrement();
+                    return true;
+                }
+            }
+        }
+    }
+
+    /* ---------------- Table resizing -------------- */
+
+    /**
+     * Doubles the table if the element count has passed the threshold
+     * and no other thread is already doing so.
+     */
+    private void checkResize() {
+        int sc;
+        Bin[] tab = table;
+        if (count.sum() >= (long)(sc = sizeCtl) && sc > 0 &&
+            tab.length < MAXIMUM_CAPACITY &&
+            U.compareAndSwapInt(this, SIZECTL, sc, -1)) {
+            int n = tab.length;
+            try {
+                if (tab == table)
+                    transfer(tab);
+            } finally {
+                n = table.length;
+                sizeCtl = n - (n >>> 2);
+            }
+        }
+    }
+
+    /**
+     * Moves each bin to the doubled table.  Updaters that encounter a
+     * moved bin proceed against the new table, which is complete for
+     * the two slots a moved bin splits into.  Lookups do the same, and
+     * never block.
+     */
+    private void transfer(Bin[] tab) {
+        int n = tab.length;
+        Bin[] nextTab = new Bin[n << 1];
+        ForwardingBin fwd = new ForwardingBin(nextTab);
+        for (int i = 0; i < n; ++i) {
+            for (;;) {
+                Bin f = tabAt(tab, i);
+                if (f == null) {
+                    if (casTabAt(tab, i, null, fwd))
+                        break;
+                    continue;
+                }
+                synchronized (f) {
+                    if (tabAt(tab, i) != f)
+                        continue;
+                    int[] hs = f.hashes;
+                    long[] rs = f.refs;
+                    Bin lo = null, hi = null;
+                    for (int j = 0; j < hs.length; ++j) {
+                        if ((hs[j] & n) == 0)
+                            lo = (lo == null) ? new Bin(hs[j], rs[j]) :
+                                lo.with(hs[j], rs[j]);
+                        else
+                            hi = (hi == null) ? new Bin(hs[j], rs[j]) :
+                                hi.with(hs[j], rs[j]);
+                    }
+                    setTabAt(nextTab, i, lo);
+                    setTabAt(nextTab, i + n, hi);
+                    setTabAt(tab, i, fwd);
+                    break;
+                }
+            }
+        }
+        table = nextTab;
+    }
+
+    /* ---------------- Record access -------------- */
+
+    /**
+     * Returns the segment holding the given record, or null if the
+     * record has been evicted.
+     */
+    private Segment segmentFor(long ref) {
+        int id = (int)(ref >>> 32);
+        Segment[] segs = segments;
+        Segment s = segs[id % segs.length];
+        return (s != null && s.id == id) ? s : null;
+    }
+
+    /**
+     * Returns the index in the given bin of the mapping for the given
+     * key, or -1.  Callers holding the bin's lock pass {@code locked},
+     * and may rely on its records not being evicted.
+     */
+    private int indexOfKey(Bin f, int h, byte[] key, boolean locked) {
+        int[] hs = f.hashes;
+        for (int j = 0; j < hs.length; ++j) {
+            if (hs[j] == h && keyMatches(f.refs[j], key, locked))
+                return j;
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the key of the given record with the given key.
+     */
+    private boolean keyMatches(long ref, byte[] key, boolean locked) {
+        Segment s;
+        if ((s = segmentFor(ref)) == null)
+            return false;
+        long base = s.address + (int)ref;
+        int klen = U.getInt(base + 4);
+        boolean eq = (klen == key.length &&
+                      (long)(int)ref + HEADER_SIZE + klen <= s.capacity);
+        for (int k = 0; eq && k < klen; ++k)
+            eq = U.getByte(base + HEADER_SIZE + k) == key[k];
+        return eq && (locked || validate(s, ref));
+    }
+
+    /**
+     * Returns a copy of the value of the given record, or null if the
+     * record has been evicted, or, if key is non-null, if the record's
+     * key differs from it.
+     */
+    private byte[] readValue(long ref, byte[] key) {
+        Segment s;
+        if ((s = segmentFor(ref)) == null)
+            return null;
+        long base = s.address + (int)ref;
+        int klen = U.getInt(base + 4), vlen = U.getInt(base + 8);
+        if (klen < 0 || vlen < 0 ||
+            (long)(int)ref + HEADER_SIZE + klen + vlen > s.capacity ||
+            (key != null && !keyMatches(ref, key, true)))
+            return null;
+        byte[] v = new byte[vlen];
+        U.copyMemory(null, base + HEADER_SIZE + klen, v, BYTE_ARRAY_BASE,
+                     vlen);
+        return validate(s, ref) ? v : null;
+    }
+
+    /**
+     * Returns the size of the given record, which must be reachable
+     * from a locked bin.
+     */
+    private int recordSize(long ref) {
+        Segment s = segmentFor(ref);
+        if (s == null)
+            return 0;
+        long base = s.address + (int)ref;
+        return HEADER_SIZE + U.getInt(base + 4) + U.getInt(base + 8);
+    }
+
+    /**
+     * Returns true if the given segment still holds the generation of
+     * the given record, after reads of the record made without locking.
+     * Segments are invalidated before they are reused, so a successful
+     * validation means the bytes read were those of the record.
+     */
+    private static boolean validate(Segment s, long ref) {
+        U.loadFence();
+        return s.id == (int)(ref >>> 32);
+    }
+
+    /* ---------------- Statistics -------------- */
+
+    final class Stats implements OffHeapConcurrentMapMXBean {
+        public ObjectName getObjectName() {
+            try {
+                return ObjectName.getInstance(
+                    "java.util.concurrent:type=OffHeapConcurrentMap,name=" +
+                    ObjectName.quote(name));
+            } catch (javax.management.MalformedObjectNameException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        public String getName()              { return name; }
+        public long getMappingCount()        { return mappingCount(); }
+        public long getMemoryLimit()         { return memoryLimit; }
+        public long getMemoryUsed() {
+            return (long)allocatedSegments * segmentSize;
+        }
+        public long getLiveBytes()           { return liveBytes.get(); }
+        public int getSegmentCount()         { return allocatedSegments; }
+        public long getHitCount()            { return hits.sum(); }
+        public long getMissCount()           { return misses.sum(); }
+        public long getEvictionCount()       { return evictions; }
+        public long getEvictedMappingCount() { return evictedMappings; }
+    }
+
+    /* ---------------- Utilities -------------- */
+
+    /**
+     * Spreads higher bits of hash to lower, as in ConcurrentHashMap.
+     */
+    static final int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns a power of two table size for the given desired capacity.
+     */
+    private static final int tableSizeFor(int c) {
+        int n = c - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    static final Bin tabAt(Bin[] tab, int i) {
+        return (Bin)U.getObjectVolatile(tab, ((long)i << ASHIFT) + ABASE);
+    }
+
+    static final boolean casTabAt(Bin[] tab, int i, Bin c, Bin v) {
+        return U.compareAndSwapObject(tab, ((long)i << ASHIFT) + ABASE, c, v);
+    }
+
+    static final void setTabAt(Bin[] tab, int i, Bin v) {
+        U.putObjectVolatile(tab, ((long)i << ASHIFT) + ABASE, v);
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long SIZECTL;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    private static final long BYTE_ARRAY_BASE;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = OffHeapConcurrentMap.class;
+            SIZECTL = U.objectFieldOffset
+                (k.getDeclaredField("sizeCtl"));
+            Class<?> ak = Bin[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            BYTE_ARRAY_BASE = U.arrayBaseOffset(byte[].class);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import java.lang.management.PlatformManagedObject;
+
+/**
+ * The management interface for an {@link OffHeapConcurrentMap}.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  An instance for a given map is
+ * obtained with {@link OffHeapConcurrentMap#getMXBean}, and may be
+ * registered with the platform {@link javax.management.MBeanServer
+ * MBeanServer} under its {@link #getObjectName ObjectName}, which takes
+ * the form:
+ * <pre>
+ *     java.util.concurrent:type=OffHeapConcurrentMap,name=<i>map name</i>
+ * </pre>
+ *
+ * <p> All values are estimates gathered without locking, and may be
+ * momentarily inconsistent with each other while the map is being
+ * updated.
+ *
+ * @see OffHeapConcurrentMap
+ * @since 1.8
+ */
+public interface OffHeapConcurrentMapMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns the name of the map.
+     *
+     * @return the name of the map
+     */
+    String getName();
+
+    /**
+     * Returns an estimate of the number of mappings in the map.
+     *
+     * @return the number of mappings
+     */
+    long getMappingCount();
+
+    /**
+     * Returns the maximum amount of off-heap memory the map may use.
+     *
+     * @return the memory limit in bytes
+     */
+    long getMemoryLimit();
+
+    /**
+     * Returns the amount of off-heap memory currently reserved by the
+     * map's segments, whether or not it holds live mappings.
+     *
+     * @return the reserved memory in bytes
+     */
+    long getMemoryUsed();
+
+    /**
+     * Returns the number of off-heap bytes occupied by records that are
+     * still reachable from the index.
+     *
+     * @return the live record bytes
+     */
+    long getLiveBytes();
+
+    /**
+     * Returns the number of segments currently allocated.
+     *
+     * @return the number of segments
+     */
+    int getSegmentCount();
+
+    /**
+     * Returns the number of lookups that found a mapping.
+     *
+     * @return the hit count
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of lookups that found no mapping.
+     *
+     * @return the miss count
+     */
+    long getMissCount();
+
+    /**
+     * Returns the number of segments evicted to stay within the memory
+     * limit.
+     *
+     * @return the segment eviction count
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of mappings dropped by segment eviction.
+     *
+     * @return the evicted mapping count
+     */
+    long getEvictedMappingCount();
+}
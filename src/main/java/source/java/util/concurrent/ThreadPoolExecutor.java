@@ -1369,6 +1369,21 @@ public class ThreadPoolExecutor extends AbstractExecutorService {
             reject(command);
     }
 
+    /**
+     * Runs a batch from executeAll or submitAll in up to as many
+     * workers as there are core threads, or if there are none, as
+     * the maximum pool size and number of processors allow; batches
+     * queued beyond that would only wait for a worker to free up.
+     */
+    @Override
+    int batchRunners(int n) {
+        int p = corePoolSize;
+        if (p <= 0)
+            p = Math.min(maximumPoolSize,
+                         Runtime.getRuntime().availableProcessors());
+        return Math.max(1, Math.min(n, p));
+    }
+
     /**
      * Initiates an orderly shutdown in which previously submitted
      * tasks are executed, but no new tasks will be accepted.
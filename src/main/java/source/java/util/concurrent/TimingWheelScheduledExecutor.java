@@ -0,0 +1,952 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link ScheduledExecutorService} that keeps delayed tasks in a
+ * hierarchical timing wheel and runs them in a {@link ForkJoinPool}.
+ * Scheduling and cancelling a task take constant time, regardless of
+ * the number of tasks pending, which suits uses such as per-request
+ * timeouts where very many tasks are scheduled and most are cancelled
+ * before they are due.
+ *
+ * <p>Time is divided into <em>ticks</em>, one millisecond long unless
+ * otherwise specified, and a task is run at the first tick at or after
+ * the time it is due.  Delays are therefore rounded up to a whole
+ * number of ticks, and tasks due in the same tick may run in any
+ * order, and concurrently.  A single timer thread advances the wheel
+ * and hands tasks that become due to the pool.  The timer thread
+ * sleeps while no task is close to being due, and does not wake up at
+ * all while no tasks are pending.
+ *
+ * <p>As with {@link ScheduledThreadPoolExecutor}, delayed tasks that
+ * have not yet run when the executor is {@linkplain #shutdown shut
+ * down} are still run, and periodic tasks are cancelled.  Tasks
+ * submitted with zero or negative delays, including those submitted
+ * with {@code execute} and {@code submit}, are handed straight to the
+ * pool.  Unlike {@code ScheduledThreadPoolExecutor}, cancelled tasks
+ * are always removed from the wheel, although this may happen some
+ * time after they are cancelled.
+ *
+ * <p>An executor created with a given parallelism uses a pool of its
+ * own, which is shut down along with it.  An executor created with a
+ * given {@code ForkJoinPool} never shuts down that pool, and its
+ * termination does not wait for tasks already handed to the pool.
+ *
+ * @since 1.8
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService
+        implements ScheduledExecutorService {
+
+    /*
+     * The wheel has LEVELS levels of WHEEL_SIZE buckets.  A bucket of
+     * level L spans 64^L ticks, so that the whole wheel spans 64^6
+     * ticks, over two years with millisecond ticks; tasks due later
+     * are parked in the top level and placed again when it is
+     * reached.  A task due at tick d, placed when the current tick
+     * is c, goes to the lowest level L such that d - c < 64^(L+1),
+     * in bucket (d >>> 6L) & 63.  On reaching each tick that is a
+     * multiple of 64^L, the timer empties the level L bucket for
+     * that tick and places its tasks again, which moves them to a
+     * lower level or, for the level 0 bucket, hands them to the
+     * pool.  Each task thus moves at most LEVELS times, and most
+     * timeouts, being short and cancelled, move not at all.
+     *
+     * The wheel itself is confined to the timer thread, and so needs
+     * no locking.  Other threads communicate with it through an
+     * array of Stripes, each holding a Treiber stack of newly
+     * scheduled tasks and one of cancelled tasks, which the timer
+     * takes over whole on each pass.  Threads pick a stripe by their
+     * ThreadLocalRandom probe, moving to another on contention, as
+     * in Striped64.  Cancelled tasks are unlinked from their
+     * bucket's doubly-linked list when the timer takes them over.
+     *
+     * While nothing is due soon, the timer parks until the next tick
+     * at which some bucket must be visited, publishing that tick in
+     * wakeTick.  A thread scheduling a task due earlier unparks it.
+     * Since the push is a CAS and the timer rechecks the stripes
+     * after writing wakeTick, one of the two always sees the other.
+     *
+     * To stop, the timer replaces the stacks of all stripes with the
+     * CLOSED sentinel, after which pushes fail and the task is
+     * rejected, or, for a periodic task being rescheduled, cancelled.
+     */
+
+    /** log2 of the number of buckets per level */
+    static final int WHEEL_BITS = 6;
+
+    /** The number of buckets per level */
+    static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+
+    static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    /** The number of levels */
+    static final int LEVELS = 6;
+
+    /** The default tick duration */
+    static final long DEFAULT_TICK_NANOS = 1000L * 1000L;
+
+    /** Number of CPUS, to size the stripes */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Maximum number of stripes */
+    static final int MAX_STRIPES = 64;
+
+    // runState values, ordered
+    static final int RUNNING    = 0;
+    static final int SHUTDOWN   = 1;
+    static final int STOP       = 2;
+    static final int TERMINATED = 3;
+
+    /**
+     * Sequence number to break scheduling ties, and in turn to
+     * guarantee FIFO order among tied entries when compared.
+     */
+    private static final AtomicLong sequencer = new AtomicLong();
+
+    /** Numbers timer threads */
+    private static final AtomicLong timerNumber = new AtomicLong();
+
+    /** The pool in which tasks are run */
+    final ForkJoinPool pool;
+
+    /** Whether pool is shut down along with this executor */
+    final boolean ownsPool;
+
+    /** Tick duration in nanoseconds */
+    final long tickNanos;
+
+    /** The nanoTime of tick 0 */
+    final long origin;
+
+    /** Stacks of scheduled and cancelled tasks for the timer */
+    final Stripe[] stripes;
+
+    /** Marks closed stacks */
+    final WheelTask<Void> CLOSED;
+
+    /** The timer thread */
+    final Thread timer;
+
+    /** Run state, advanced by CAS */
+    volatile int runState;
+
+    /**
+     * The tick until which the timer is parked, or 0 if it is not
+     * known to be parked.
+     */
+    volatile long wakeTick;
+
+    /** Released when the timer thread exits */
+    final CountDownLatch termination = new CountDownLatch(1);
+
+    /** Tasks drained by the timer on shutdownNow */
+    List<Runnable> unrun;
+
+    // Wheel state, confined to the timer thread
+
+    /** Heads of bucket lists, indexed by level << WHEEL_BITS | slot */
+    final WheelTask<?>[] buckets = new WheelTask<?>[LEVELS << WHEEL_BITS];
+
+    /** Number of tasks in each level */
+    final int[] levelCounts = new int[LEVELS];
+
+    /** Number of tasks in the wheel */
+    int size;
+
+    /** The last tick processed */
+    long currentTick;
+
+    /**
+     * Creates an executor running tasks in a new {@code ForkJoinPool}
+     * with parallelism equal to {@link Runtime#availableProcessors}.
+     */
+    public TimingWheelScheduledExecutor() {
+        this(NCPU);
+    }
+
+    /**
+     * Creates an executor running tasks in a new {@code ForkJoinPool}
+     * with the given parallelism, using a tick of one millisecond.
+     *
+     * @param parallelism the parallelism level of the pool
+     * @throws IllegalArgumentException if parallelism less than or
+     *         equal to zero, or greater than implementation limit
+     */
+    public TimingWheelScheduledExecutor(int parallelism) {
+        this(new ForkJoinPool(parallelism,
+                              ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                              null, true),
+             true, DEFAULT_TICK_NANOS);
+    }
+
+    /**
+     * Creates an executor running tasks in the given pool, using the
+     * given tick duration.
+     *
+     * @param pool the pool in which to run tasks
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the tickDuration argument
+     * @throws NullPointerException if pool or unit is null
+     * @throws IllegalArgumentException if tickDuration is not positive
+     */
+    public TimingWheelScheduledExecutor(ForkJoinPool pool,
+                                        long tickDuration, TimeUnit unit) {
+        this(pool, false, unit.toNanos(tickDuration));
+    }
+
+    private TimingWheelScheduledExecutor(ForkJoinPool pool, boolean ownsPool,
+                                         long tickNanos) {
+        if (pool == null)
+            throw new NullPointerException();
+        if (tickNanos <= 0L)
+            throw new IllegalArgumentException();
+        this.pool = pool;
+        this.ownsPool = ownsPool;
+        this.tickNanos = tickNanos;
+        int n = 1;
+        while (n < NCPU && n < MAX_STRIPES)
+            n <<= 1;
+        Stripe[] ss = new Stripe[n];
+        for (int i = 0; i < n; ++i)
+            ss[i] = new Stripe();
+        this.stripes = ss;
+        this.CLOSED = new WheelTask<Void>(new Runnable() {
+                public void run() {}
+            }, null, 0L, 0L);
+        this.origin = System.nanoTime();
+        Thread t = new Thread(new Runnable() {
+                public void run() { runTimer(); }
+            }, "TimingWheelScheduledExecutor-" + timerNumber.incrementAndGet());
+        t.setDaemon(true);
+        this.timer = t;
+        t.start();
+    }
+
+    /**
+     * Returns the pool in which this executor runs tasks.
+     *
+     * @return the pool
+     */
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Holds the stacks of tasks pushed by other threads for the timer.
+     */
+    @sun.misc.Contended static final class Stripe {
+        volatile WheelTask<?> scheduled;
+        volatile WheelTask<?> cancelled;
+    }
+
+    private class WheelTask<V>
+            extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /** Sequence number to break ties FIFO */
+        private final long sequenceNumber;
+
+        /** The time the task is enabled to execute in nanoTime units */
+        private long time;
+
+        /**
+         * Period in nanoseconds for repeating tasks.  A positive
+         * value indicates fixed-rate execution.  A negative value
+         * indicates fixed-delay execution.  A value of 0 indicates a
+         * non-repeating task.
+         */
+        private final long period;
+
+        /** The tick at which the task is due, set before each push */
+        long deadlineTick;
+
+        /** Bucket index while in the wheel, else -1 */
+        int bucket = -1;
+
+        /** Bucket list links */
+        WheelTask<?> next, prev;
+
+        /** Stripe stack links */
+        WheelTask<?> nextScheduled, nextCancelled;
+
+        WheelTask(Runnable r, V result, long ns, long period) {
+            super(r, result);
+            this.time = ns;
+            this.period = period;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        WheelTask(Callable<V> callable, long ns) {
+            super(callable);
+            this.time = ns;
+            this.period = 0L;
+            this.sequenceNumber = sequencer.getAndIncrement();
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero if same object
+                return 0;
+            if (other instanceof WheelTask) {
+                WheelTask<?> x = (WheelTask<?>)other;
+                long diff = time - x.time;
+                if (diff < 0)
+                    return -1;
+                else if (diff > 0)
+                    return 1;
+                else if (sequenceNumber < x.sequenceNumber)
+                    return -1;
+                else
+                    return 1;
+            }
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        /**
+         * Returns {@code true} if this is a periodic (not a one-shot) action.
+         *
+         * @return {@code true} if periodic
+         */
+        public boolean isPeriodic() {
+            return period != 0L;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled)
+                pushCancelled(this);
+            return cancelled;
+        }
+
+        /**
+         * Overrides FutureTask version so as to reset/reschedule if
+         * periodic.
+         */
+        public void run() {
+            if (!isPeriodic())
+                WheelTask.super.run();
+            else if (runState != RUNNING)
+                cancel(false);
+            else if (WheelTask.super.runAndReset()) {
+                long p = period;
+                time = (p > 0L) ? time + p : triggerTime(-p);
+                if (runState != RUNNING || !pushScheduled(this))
+                    cancel(false);
+            }
+        }
+    }
+
+    // Scheduling
+
+    /**
+     * Returns the nanoTime-based trigger time of a delayed action.
+     */
+    private static long triggerTime(long delay, TimeUnit unit) {
+        return triggerTime(unit.toNanos((delay < 0) ? 0 : delay));
+    }
+
+    /**
+     * Returns the nanoTime-based trigger time of a delayed action,
+     * capped, as in ScheduledThreadPoolExecutor, to avoid overflow
+     * in comparisons.
+     */
+    static long triggerTime(long delay) {
+        long now = System.nanoTime();
+        return now + ((delay < (Long.MAX_VALUE >> 1)) ? delay :
+                      (Long.MAX_VALUE >> 1));
+    }
+
+    /**
+     * Returns the first tick at or after the given nanoTime.
+     */
+    private long tickOf(long time) {
+        long d = time - origin;
+        return (d <= 0L) ? 0L :
+            d / tickNanos + ((d % tickNanos != 0L) ? 1L : 0L);
+    }
+
+    /**
+     * Returns the stripe for the current thread, advancing its probe
+     * if asked to after contention.
+     */
+    private Stripe stripe(boolean contended) {
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        else if (contended)
+            h = ThreadLocalRandom.advanceProbe(h);
+        Stripe[] ss = stripes;
+        return ss[h & (ss.length - 1)];
+    }
+
+    /**
+     * Pushes a task for the timer to place in the wheel.
+     *
+     * @return false if the timer has stopped accepting tasks
+     */
+    final boolean pushScheduled(WheelTask<?> t) {
+        long d = t.deadlineTick = tickOf(t.time);
+        for (boolean contended = false;; contended = true) {
+            Stripe s = stripe(contended);
+            WheelTask<?> h = s.scheduled;
+            if (h == CLOSED)
+                return false;
+            t.nextScheduled = h;
+            if (U.compareAndSwapObject(s, SCHEDULED, h, t))
+                break;
+        }
+        if (d < wakeTick)
+            LockSupport.unpark(timer);
+        return true;
+    }
+
+    /**
+     * Pushes a cancelled task for the timer to remove from the wheel.
+     * The timer is woken only for the first such task while it is
+     * parked for more than a full turn of the lowest level.
+     */
+    final void pushCancelled(WheelTask<?> t) {
+        WheelTask<?> h;
+        for (boolean contended = false;; contended = true) {
+            Stripe s = stripe(contended);
+            if ((h = s.cancelled) == CLOSED)
+                return;
+            t.nextCancelled = h;
+            if (U.compareAndSwapObject(s, CANCELLED, h, t))
+                break;
+        }
+        long w;
+        if (h == null && (w = wakeTick) != 0L &&
+            w - tickOf(System.nanoTime()) > WHEEL_SIZE)
+            LockSupport.unpark(timer);
+    }
+
+    /**
+     * Main execution method for delayed or periodic tasks: hands the
+     * task to the pool if it is already due, else to the timer.
+     */
+    private void delayedExecute(WheelTask<?> t) {
+        if (runState != RUNNING)
+            throw new RejectedExecutionException("Executor is shut down");
+        if (t.time - System.nanoTime() <= 0L)
+            pool.execute(t);
+        else if (!pushScheduled(t))
+            throw new RejectedExecutionException("Executor is shut down");
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<Void> t = new WheelTask<Void>(command, null,
+                                                triggerTime(delay, unit), 0L);
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<V> t = new WheelTask<V>(callable, triggerTime(delay, unit));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t =
+            new WheelTask<Void>(command, null,
+                                triggerTime(initialDelay, unit),
+                                unit.toNanos(period));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t =
+            new WheelTask<Void>(command, null,
+                                triggerTime(initialDelay, unit),
+                                unit.toNanos(-delay));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Executes {@code command} with zero required delay, by handing
+     * it to the pool.
+     *
+     * @throws RejectedExecutionException at discretion of
+     *         {@code RejectedExecutionHandler}, if the task
+     *         cannot be accepted for execution because the
+     *         executor has been shut down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void execute(Runnable command) {
+        if (command == null)
+            throw new NullPointerException();
+        if (runState != RUNNING)
+            throw new RejectedExecutionException("Executor is shut down");
+        pool.execute(command);
+    }
+
+    // The timer
+
+    /**
+     * The timer thread's main loop.
+     */
+    final void runTimer() {
+        boolean periodicCancelled = false;
+        try {
+            for (;;) {
+                int rs = runState;
+                if (rs >= STOP) {
+                    unrun = drainAll();
+                    break;
+                }
+                takeScheduled();
+                takeCancelled();
+                if (rs == SHUTDOWN) {
+                    if (!periodicCancelled) {
+                        cancelPeriodic();
+                        periodicCancelled = true;
+                    }
+                    if (size == 0 && tryClose())
+                        break;
+                }
+                advance(tickOf(System.nanoTime() + 1L) - 1L);
+                long next = nextTick();
+                wakeTick = next;
+                if (rs != runState || hasScheduled() ||
+                    (rs == SHUTDOWN && size == 0))
+                    ;                           // recheck before parking
+                else if (next == Long.MAX_VALUE)
+                    LockSupport.park(this);
+                else {
+                    long ns = origin + next * tickNanos - System.nanoTime();
+                    if (ns > 0L)
+                        LockSupport.parkNanos(this, ns);
+                }
+                wakeTick = 0L;
+            }
+        } finally {
+            runState = TERMINATED;
+            for (Stripe s : stripes) {
+                s.scheduled = CLOSED;
+                s.cancelled = CLOSED;
+            }
+            termination.countDown();
+            if (ownsPool)
+                pool.shutdown();
+        }
+    }
+
+    private boolean hasScheduled() {
+        for (Stripe s : stripes) {
+            WheelTask<?> h = s.scheduled;
+            if (h != null && h != CLOSED)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Takes over all newly scheduled tasks and places them.
+     */
+    private void takeScheduled() {
+        for (Stripe s : stripes) {
+            WheelTask<?> h;
+            while ((h = s.scheduled) != null && h != CLOSED) {
+                if (U.compareAndSwapObject(s, SCHEDULED, h, null)) {
+                    for (WheelTask<?> n; h != null; h = n) {
+                        n = h.nextScheduled;
+                        h.nextScheduled = null;
+                        if (!h.isCancelled())
+                            place(h);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Takes over all newly cancelled tasks and removes them from the
+     * wheel.
+     */
+    private void takeCancelled() {
+        for (Stripe s : stripes) {
+            WheelTask<?> h;
+            while ((h = s.cancelled) != null && h != CLOSED) {
+                if (U.compareAndSwapObject(s, CANCELLED, h, null)) {
+                    for (WheelTask<?> n; h != null; h = n) {
+                        n = h.nextCancelled;
+                        h.nextCancelled = null;
+                        if (h.bucket >= 0)
+                            unlink(h);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes all empty stacks of scheduled tasks, returning true if
+     * all are now closed.
+     */
+    private boolean tryClose() {
+        boolean closed = true;
+        for (Stripe s : stripes) {
+            if (s.scheduled != CLOSED &&
+                !U.compareAndSwapObject(s, SCHEDULED, null, CLOSED))
+                closed = false;
+        }
+        return closed;
+    }
+
+    /**
+     * Places a task in the wheel relative to the current tick, or
+     * hands it to the pool if it is due.
+     */
+    private void place(WheelTask<?> t) {
+        long cur = currentTick, d = t.deadlineTick, delta = d - cur;
+        if (delta <= 0L) {
+            try {
+                pool.execute(t);
+            } catch (RejectedExecutionException ex) {
+                t.cancel(false);
+            }
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 &&
+               delta >= (1L << (WHEEL_BITS * (level + 1))))
+            ++level;
+        if (delta >= (1L << (WHEEL_BITS * LEVELS)))
+            d = cur + (1L << (WHEEL_BITS * LEVELS)) - 1L; // place again later
+        int b = (level << WHEEL_BITS) |
+            (int)((d >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        WheelTask<?> h = buckets[b];
+        t.next = h;
+        t.prev = null;
+        if (h != null)
+            h.prev = t;
+        buckets[b] = t;
+        t.bucket = b;
+        ++levelCounts[level];
+        ++size;
+    }
+
+    private void unlink(WheelTask<?> t) {
+        int b = t.bucket;
+        WheelTask<?> p = t.prev, n = t.next;
+        if (p == null)
+            buckets[b] = n;
+        else
+            p.next = n;
+        if (n != null)
+            n.prev = p;
+        t.next = t.prev = null;
+        t.bucket = -1;
+        --levelCounts[b >>> WHEEL_BITS];
+        --size;
+    }
+
+    /**
+     * Empties bucket b, placing each of its tasks again.
+     */
+    private void cascade(int b) {
+        WheelTask<?> t = buckets[b];
+        if (t != null) {
+            int n = 0;
+            buckets[b] = null;
+            for (WheelTask<?> p = t; p != null; p = p.next)
+                ++n;
+            levelCounts[b >>> WHEEL_BITS] -= n;
+            size -= n;
+            for (WheelTask<?> next; t != null; t = next) {
+                next = t.next;
+                t.next = t.prev = null;
+                t.bucket = -1;
+                if (!t.isCancelled())
+                    place(t);
+            }
+        }
+    }
+
+    /**
+     * Returns the lowest level holding any tasks, or LEVELS if none.
+     */
+    private int lowestLevel() {
+        int level = 0;
+        while (level < LEVELS && levelCounts[level] == 0)
+            ++level;
+        return level;
+    }
+
+    /**
+     * Processes ticks up to and including now, skipping runs of ticks
+     * at which no bucket holding tasks is visited.
+     */
+    private void advance(long now) {
+        long cur = currentTick;
+        while (cur < now) {
+            int low = lowestLevel();
+            if (low == LEVELS) {
+                cur = now;
+                break;
+            }
+            if (low > 0) {          // skip to the next visit of level low
+                long next = (cur | ((1L << (WHEEL_BITS * low)) - 1L)) + 1L;
+                if (next > now) {
+                    cur = now;
+                    break;
+                }
+                cur = next - 1L;
+            }
+            currentTick = ++cur;
+            for (int level = LEVELS - 1; level >= 0; --level) {
+                int shift = WHEEL_BITS * level;
+                if ((cur & ((1L << shift) - 1L)) == 0L &&
+                    levelCounts[level] != 0)
+                    cascade((level << WHEEL_BITS) |
+                            (int)((cur >>> shift) & WHEEL_MASK));
+            }
+        }
+        currentTick = cur;
+    }
+
+    /**
+     * Returns the next tick at which a bucket holding tasks is
+     * visited, or Long.MAX_VALUE if the wheel is empty.
+     */
+    private long nextTick() {
+        int low = lowestLevel();
+        long cur = currentTick;
+        if (low == LEVELS)
+            return Long.MAX_VALUE;
+        if (low > 0)
+            return (cur | ((1L << (WHEEL_BITS * low)) - 1L)) + 1L;
+        for (long t = cur + 1L;; ++t) {
+            if (buckets[(int)(t & WHEEL_MASK)] != null ||
+                (t & WHEEL_MASK) == 0L)
+                return t;
+        }
+    }
+
+    /**
+     * Removes and cancels all periodic tasks in the wheel, on shutdown.
+     */
+    private void cancelPeriodic() {
+        WheelTask<?>[] bs = buckets;
+        for (int b = 0; b < bs.length; ++b) {
+            for (WheelTask<?> t = bs[b], next; t != null; t = next) {
+                next = t.next;
+                if (t.isPeriodic()) {
+                    unlink(t);
+                    t.cancel(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all tasks from the wheel and the stripes, closing the
+     * stripes, on shutdownNow.
+     */
+    private List<Runnable> drainAll() {
+        List<Runnable> list = new ArrayList<Runnable>();
+        WheelTask<?>[] bs = buckets;
+        for (int b = 0; b < bs.length; ++b) {
+            for (WheelTask<?> t = bs[b], next; t != null; t = next) {
+                next = t.next;
+                unlink(t);
+                if (!t.isCancelled())
+                    list.add(t);
+            }
+        }
+        for (Stripe s : stripes) {
+            WheelTask<?> h;
+            while ((h = s.scheduled) != CLOSED) {
+                if (U.compareAndSwapObject(s, SCHEDULED, h, CLOSED)) {
+                    for (; h != null; h = h.nextScheduled) {
+                        if (!h.isCancelled())
+                            list.add(h);
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
+    // Lifecycle
+
+    private void advanceRunState(int targetState) {
+        for (int c;;) {
+            if ((c = runState) >= targetState ||
+                U.compareAndSwapInt(this, RUNSTATE, c, targetState))
+                break;
+        }
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * delayed tasks are still run when due, and periodic tasks are
+     * cancelled.  No new tasks will be accepted.  Invocation has no
+     * additional effect if already shut down.
+     *
+     * <p>This method does not wait for previously submitted tasks to
+     * complete execution.  Use {@link #awaitTermination awaitTermination}
+     * to do that.
+     */
+    public void shutdown() {
+        advanceRunState(SHUTDOWN);
+        LockSupport.unpark(timer);
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution in the wheel.  If this executor
+     * owns its pool, the pool is shut down with {@link
+     * ForkJoinPool#shutdownNow}.
+     *
+     * <p>This method does not wait for actively executing tasks to
+     * terminate.  Use {@link #awaitTermination awaitTermination} to
+     * do that.
+     *
+     * @return list of tasks that never commenced execution.
+     *         Each element of this list is a {@link ScheduledFuture}.
+     */
+    public List<Runnable> shutdownNow() {
+        advanceRunState(STOP);
+        Thread t = timer;
+        LockSupport.unpark(t);
+        boolean interrupted = false;
+        if (Thread.currentThread() != t) {
+            for (;;) {
+                try {
+                    t.join();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (ownsPool)
+            pool.shutdownNow();
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        List<Runnable> list = unrun;
+        unrun = null;
+        return (list == null) ? new ArrayList<Runnable>() : list;
+    }
+
+    public boolean isShutdown() {
+        return runState >= SHUTDOWN;
+    }
+
+    public boolean isTerminated() {
+        return termination.getCount() == 0L &&
+            (!ownsPool || pool.isTerminated());
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!termination.await(timeout, unit))
+            return false;
+        return !ownsPool ||
+            pool.awaitTermination(deadline - System.nanoTime(), NANOSECONDS);
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long RUNSTATE;
+    private static final long SCHEDULED;
+    private static final long CANCELLED;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = TimingWheelScheduledExecutor.class;
+            RUNSTATE = U.objectFieldOffset
+                (k.getDeclaredField("runState"));
+            Class<?> sk = Stripe.class;
+            SCHEDULED = U.objectFieldOffset
+                (sk.getDeclaredField("scheduled"));
+            CANCELLED = U.objectFieldOffset
+                (sk.getDeclaredField("cancelled"));
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -833,6 +833,8 @@ public abstract class AbstractQueuedSynchronizer
      * @return {@code true} if interrupted
      */
     private final boolean parkAndCheckInterrupt() {
+        if (ContentionProfiler.ENABLED)
+            ContentionProfiler.parked();
         LockSupport.park(this);
         return Thread.interrupted();
     }
@@ -856,6 +858,8 @@ public abstract class AbstractQueuedSynchronizer
      */
     final boolean acquireQueued(final Node node, int arg) {
         boolean failed = true;
+        if (ContentionProfiler.ENABLED)
+            ContentionProfiler.begin(this, node);
         try {
             boolean interrupted = false;
             for (;;) {
@@ -873,6 +877,8 @@ public abstract class AbstractQueuedSynchronizer
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (ContentionProfiler.ENABLED)
+                ContentionProfiler.end();
         }
     }
 
@@ -884,6 +890,8 @@ public abstract class AbstractQueuedSynchronizer
         throws InterruptedException {
         final Node node = addWaiter(Node.EXCLUSIVE);
         boolean failed = true;
+        if (ContentionProfiler.ENABLED)
+            ContentionProfiler.begin(this, node);
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -900,6 +908,8 @@ public abstract class AbstractQueuedSynchronizer
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (ContentionProfiler.ENABLED)
+                ContentionProfiler.end();
         }
     }
 
@@ -917,6 +927,8 @@ public abstract class AbstractQueuedSynchronizer
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.EXCLUSIVE);
         boolean failed = true;
+        if (ContentionProfiler.ENABLED)
+            ContentionProfiler.begin(this, node);
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -930,14 +942,19 @@ public abstract class AbstractQueuedSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
+                    nanosTimeout > spinForTimeoutThreshold) {
+                    if (ContentionProfiler.ENABLED)
+                        ContentionProfiler.parked();
                     LockSupport.parkNanos(this, nanosTimeout);
+                }
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (ContentionProfiler.ENABLED)
+                ContentionProfiler.end();
         }
     }
 
@@ -948,6 +965,8 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireShared(int arg) {
         final Node node = addWaiter(Node.SHARED);
         boolean failed = true;
+        if (ContentionProfiler.ENABLED)
+            ContentionProfiler.begin(this, node);
         try {
             boolean interrupted = false;
             for (;;) {
@@ -970,6 +989,8 @@ public abstract class AbstractQueuedSynchronizer
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (ContentionProfiler.ENABLED)
+                ContentionProfiler.end();
         }
     }
 
@@ -981,6 +1002,8 @@ public abstract class AbstractQueuedSynchronizer
         throws InterruptedException {
         final Node node = addWaiter(Node.SHARED);
         boolean failed = true;
+        if (ContentionProfiler.ENABLED)
+            ContentionProfiler.begin(this, node);
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -1000,6 +1023,8 @@ public abstract class AbstractQueuedSynchronizer
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (ContentionProfiler.ENABLED)
+                ContentionProfiler.end();
         }
     }
 
@@ -1017,6 +1042,8 @@ public abstract class AbstractQueuedSynchronizer
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.SHARED);
         boolean failed = true;
+        if (ContentionProfiler.ENABLED)
+            ContentionProfiler.begin(this, node);
         try {
             for (;;) {
                 final Node p = node.predecessor();
@@ -1033,14 +1060,19 @@ public abstract class AbstractQueuedSynchronizer
                 if (nanosTimeout <= 0L)
                     return false;
                 if (shouldParkAfterFailedAcquire(p, node) &&
-                    nanosTimeout > spinForTimeoutThreshold)
+                    nanosTimeout > spinForTimeoutThreshold) {
+                    if (ContentionProfiler.ENABLED)
+                        ContentionProfiler.parked();
                     LockSupport.parkNanos(this, nanosTimeout);
+                }
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (ContentionProfiler.ENABLED)
+                ContentionProfiler.end();
         }
     }
 
@@ -1619,6 +1651,18 @@ public abstract class AbstractQueuedSynchronizer
             "[State = " + s + ", " + q + "empty queue]";
     }
 
+    /**
+     * Returns the management interface reporting contention recorded
+     * on synchronizers of this class, which is also available from
+     * {@link java.lang.management.ManagementFactory#getPlatformMXBean(Class)}.
+     *
+     * @return the contention profiling MXBean
+     * @since 1.8
+     */
+    public static SynchronizerContentionMXBean getContentionMXBean() {
+        return ContentionProfiler.mxBean;
+    }
+
 
     // Internal support methods for Conditions
 
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.management.ObjectName;
+
+/**
+ * Records contention on AbstractQueuedSynchronizers for the
+ * SynchronizerContentionMXBean.
+ *
+ * The acquire methods of AbstractQueuedSynchronizer call begin()
+ * once a thread has been queued, parked() each time it parks, and
+ * end() when it leaves the queue, each guarded by ENABLED.  Since
+ * ENABLED is a constant, the guards cost nothing once compiled when
+ * profiling is disabled.  Samples are appended to a buffer owned by
+ * the current thread, guarded by the buffer's monitor, which is
+ * uncontended except while the MXBean is being queried.  The buffer
+ * is merged into the shared per-synchronizer totals when it fills,
+ * when FLUSH_NANOS have passed since it was last merged, and when
+ * the MXBean is queried.  Buffers of terminated threads are merged
+ * and dropped when the MXBean is queried, and at most once every
+ * FLUSH_NANOS by whichever thread next merges its own buffer, so that
+ * thread churn does not grow the list of buffers.  Totals are kept in
+ * a WeakHashMap, which compares synchronizers by identity since none
+ * override equals, so that profiling does not keep synchronizers
+ * alive.  Lock order is buffer, then totals.
+ */
+final class ContentionProfiler {
+    private ContentionProfiler() {}
+
+    /** Whether profiling is enabled */
+    static final boolean ENABLED =
+        java.security.AccessController.doPrivileged(
+            new java.security.PrivilegedAction<Boolean>() {
+                public Boolean run() {
+                    return Boolean.getBoolean
+                        ("java.util.concurrent.locks.profileContention");
+                }});
+
+    /** Number of wait time histogram buckets */
+    static final int HISTOGRAM_BUCKETS = 40;
+
+    /** Maximum queue length counted on queuing */
+    static final int MAX_QUEUE_LENGTH = 256;
+
+    /** Number of samples in each thread's buffer */
+    static final int BUFFER_SIZE = 256;
+
+    /** Maximum time between merges of a thread's buffer */
+    static final long FLUSH_NANOS = 100L * 1000L * 1000L;
+
+    /** Totals per synchronizer, guarded by itself */
+    static final Map<AbstractQueuedSynchronizer, Totals> totals =
+        new WeakHashMap<AbstractQueuedSynchronizer, Totals>();
+
+    /** All live buffers, for merging when queried */
+    static final ConcurrentLinkedQueue<Buffer> buffers =
+        new ConcurrentLinkedQueue<Buffer>();
+
+    /** Time after which end() next drops buffers of terminated threads */
+    static volatile long nextPrune = System.nanoTime() + FLUSH_NANOS;
+
+    static final ThreadLocal<Buffer> localBuffer = new ThreadLocal<Buffer>() {
+        protected Buffer initialValue() {
+            Buffer b = new Buffer(Thread.currentThread());
+            buffers.add(b);
+            return b;
+        }
+    };
+
+    /**
+     * A thread's samples, plus the sample in progress.
+     */
+    static final class Buffer {
+        final WeakReference<Thread> owner;
+        final AbstractQueuedSynchronizer[] syncs =
+            new AbstractQueuedSynchronizer[BUFFER_SIZE];
+        final long[] waits = new long[BUFFER_SIZE];
+        final int[] parks = new int[BUFFER_SIZE];
+        final int[] queueLengths = new int[BUFFER_SIZE];
+        int count;
+        long lastFlush;
+
+        // the sample in progress, accessed only by owner
+        AbstractQueuedSynchronizer sync;
+        long start;
+        int parkCount, queueLength, depth;
+
+        Buffer(Thread owner) {
+            this.owner = new WeakReference<Thread>(owner);
+            this.lastFlush = System.nanoTime();
+        }
+
+        /** Merges samples into totals; called with lock held */
+        void flush() {
+            int n = count;
+            if (n > 0) {
+                synchronized (totals) {
+                    for (int i = 0; i < n; ++i) {
+                        AbstractQueuedSynchronizer s = syncs[i];
+                        Totals t = totals.get(s);
+                        if (t == null)
+                            totals.put(s, t = new Totals());
+                        t.add(waits[i], parks[i], queueLengths[i]);
+                        syncs[i] = null;
+                    }
+                }
+                count = 0;
+            }
+        }
+    }
+
+    /**
+     * Contention totals for one synchronizer.
+     */
+    static final class Totals {
+        long acquires, parks, waitTime, maxWait, queueLengths;
+        int maxQueueLength;
+        final long[] histogram = new long[HISTOGRAM_BUCKETS];
+
+        void add(long wait, int parkCount, int queueLength) {
+            ++acquires;
+            parks += parkCount;
+            waitTime += wait;
+            if (wait > maxWait)
+                maxWait = wait;
+            queueLengths += queueLength;
+            if (queueLength > maxQueueLength)
+                maxQueueLength = queueLength;
+            int i = 63 - Long.numberOfLeadingZeros(wait);
+            ++histogram[(i < 0) ? 0 :
+                        (i >= HISTOGRAM_BUCKETS) ? HISTOGRAM_BUCKETS - 1 : i];
+        }
+    }
+
+    /**
+     * Starts a sample for the current thread, queued at the given node.
+     */
+    static void begin(AbstractQueuedSynchronizer sync,
+                      AbstractQueuedSynchronizer.Node node) {
+        Buffer b = localBuffer.get();
+        if (b.depth++ == 0) {   // ignore acquires nested in tryAcquire
+            int n = 0;
+            for (AbstractQueuedSynchronizer.Node p = node.prev;
+                 p != null && n < MAX_QUEUE_LENGTH; p = p.prev)
+                ++n;
+            b.sync = sync;
+            b.queueLength = (n > 0) ? n - 1 : 0; // don't count head
+            b.parkCount = 0;
+            b.start = System.nanoTime();
+        }
+    }
+
+    /**
+     * Counts a park by the current thread.
+     */
+    static void parked() {
+        ++localBuffer.get().parkCount;
+    }
+
+    /**
+     * Ends the current thread's sample.
+     */
+    static void end() {
+        Buffer b = localBuffer.get();
+        if (--b.depth == 0) {
+            long now = System.nanoTime();
+            AbstractQueuedSynchronizer s = b.sync;
+            b.sync = null;
+            boolean flushed = false;
+            synchronized (b) {
+                int i = b.count;
+                b.syncs[i] = s;
+                b.waits[i] = now - b.start;
+                b.parks[i] = b.parkCount;
+                b.queueLengths[i] = b.queueLength;
+                b.count = i + 1;
+                if (i + 1 == BUFFER_SIZE || now - b.lastFlush >= FLUSH_NANOS) {
+                    b.flush();
+                    b.lastFlush = now;
+                    flushed = true;
+                }
+            }
+            if (flushed && now - nextPrune >= 0L) {
+                nextPrune = now + FLUSH_NANOS;
+                flushBuffers(false);
+            }
+        }
+    }
+
+    /**
+     * Merges all buffers, dropping those of terminated threads.
+     */
+    static void flushAll() {
+        flushBuffers(true);
+    }
+
+    /**
+     * Merges and drops the buffers of terminated threads, and merges
+     * those of live threads too if all is true.
+     */
+    static void flushBuffers(boolean all) {
+        for (Iterator<Buffer> it = buffers.iterator(); it.hasNext();) {
+            Buffer b = it.next();
+            boolean dead = b.owner.get() == null;
+            if (dead || all) {
+                synchronized (b) {
+                    b.flush();
+                }
+                if (dead)
+                    it.remove();
+            }
+        }
+    }
+
+    static final SynchronizerContentionMXBean mxBean = new MXBean();
+
+    static final class MXBean implements SynchronizerContentionMXBean {
+        public ObjectName getObjectName() {
+            try {
+                return ObjectName.getInstance(
+                    "java.util.concurrent.locks:type=SynchronizerContention");
+            } catch (javax.management.MalformedObjectNameException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        public boolean isProfilingEnabled() {
+            return ENABLED;
+        }
+
+        public List<SynchronizerContentionInfo> getContendedSynchronizers() {
+            return getTopContendedSynchronizers(Integer.MAX_VALUE);
+        }
+
+        public List<SynchronizerContentionInfo> getTopContendedSynchronizers(
+                int maxCount) {
+            if (maxCount < 0)
+                throw new IllegalArgumentException();
+            List<SynchronizerContentionInfo> list =
+                new ArrayList<SynchronizerContentionInfo>();
+            if (ENABLED) {
+                flushAll();
+                synchronized (totals) {
+                    for (Map.Entry<AbstractQueuedSynchronizer, Totals> e :
+                             totals.entrySet()) {
+                        AbstractQueuedSynchronizer s = e.getKey();
+                        Totals t = e.getValue();
+                        if (s != null)
+                            list.add(new SynchronizerContentionInfo(
+                                s.getClass().getName(),
+                                System.identityHashCode(s),
+                                t.acquires, t.parks, t.waitTime, t.maxWait,
+                                t.queueLengths, t.maxQueueLength,
+                                t.histogram));
+                    }
+                }
+                Collections.sort(list,
+                                 new Comparator<SynchronizerContentionInfo>() {
+                    public int compare(SynchronizerContentionInfo a,
+                                       SynchronizerContentionInfo b) {
+                        return Long.compare(b.getTotalWaitTime(),
+                                            a.getTotalWaitTime());
+                    }
+                });
+                if (list.size() > maxCount)
+                    list = new ArrayList<SynchronizerContentionInfo>(
+                        list.subList(0, maxCount));
+            }
+            return list;
+        }
+
+        public void reset() {
+            if (ENABLED) {
+                flushAll();
+                synchronized (totals) {
+                    totals.clear();
+                }
+            }
+        }
+    }
+}
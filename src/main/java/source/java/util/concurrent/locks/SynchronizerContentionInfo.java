@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Contention recorded for one synchronizer by the {@link
+ * SynchronizerContentionMXBean}.  A synchronizer is identified, as in
+ * {@link java.lang.management.LockInfo}, by the name of its class and
+ * its {@linkplain System#identityHashCode identity hash code}.  For
+ * locks and other synchronizers that delegate to an inner {@link
+ * AbstractQueuedSynchronizer}, these are those of the inner object.
+ *
+ * <p> Wait times are also counted in a histogram with power-of-two
+ * buckets: element {@code i} of {@link #getWaitTimeHistogram} is the
+ * number of waits of at least 2<sup>i</sup> but less than
+ * 2<sup>i+1</sup> nanoseconds, except that the first element also
+ * counts shorter waits and the last element also counts longer ones.
+ *
+ * @since 1.8
+ */
+public class SynchronizerContentionInfo {
+
+    private final String className;
+    private final int identityHashCode;
+    private final long queuedAcquireCount;
+    private final long parkCount;
+    private final long totalWaitTime;
+    private final long maxWaitTime;
+    private final long totalQueueLength;
+    private final int maxQueueLength;
+    private final long[] waitTimeHistogram;
+
+    /**
+     * Constructs a {@code SynchronizerContentionInfo} object.
+     *
+     * @param className the fully qualified name of the class of the
+     *        synchronizer
+     * @param identityHashCode the identity hash code of the synchronizer
+     * @param queuedAcquireCount the number of acquisitions that queued
+     * @param parkCount the number of times queued threads parked
+     * @param totalWaitTime the total time spent queued, in nanoseconds
+     * @param maxWaitTime the longest time spent queued, in nanoseconds
+     * @param totalQueueLength the sum of the queue lengths seen on
+     *        queuing
+     * @param maxQueueLength the longest queue length seen on queuing
+     * @param waitTimeHistogram the wait time histogram
+     * @throws NullPointerException if {@code className} or
+     *         {@code waitTimeHistogram} is null
+     */
+    @ConstructorProperties({"className", "identityHashCode",
+                            "queuedAcquireCount", "parkCount",
+                            "totalWaitTime", "maxWaitTime",
+                            "totalQueueLength", "maxQueueLength",
+                            "waitTimeHistogram"})
+    public SynchronizerContentionInfo(String className, int identityHashCode,
+                                      long queuedAcquireCount, long parkCount,
+                                      long totalWaitTime, long maxWaitTime,
+                                      long totalQueueLength, int maxQueueLength,
+                                      long[] waitTimeHistogram) {
+        if (className == null || waitTimeHistogram == null)
+            throw new NullPointerException();
+        this.className = className;
+        this.identityHashCode = identityHashCode;
+        this.queuedAcquireCount = queuedAcquireCount;
+        this.parkCount = parkCount;
+        this.totalWaitTime = totalWaitTime;
+        this.maxWaitTime = maxWaitTime;
+        this.totalQueueLength = totalQueueLength;
+        this.maxQueueLength = maxQueueLength;
+        this.waitTimeHistogram = waitTimeHistogram.clone();
+    }
+
+    /**
+     * Returns the fully qualified name of the class of the synchronizer.
+     *
+     * @return the class name of the synchronizer
+     */
+    public String getClassName() {
+        return className;
+    }
+
+    /**
+     * Returns the identity hash code of the synchronizer.
+     *
+     * @return the identity hash code of the synchronizer
+     */
+    public int getIdentityHashCode() {
+        return identityHashCode;
+    }
+
+    /**
+     * Returns the number of acquisitions for which a thread queued.
+     *
+     * @return the number of queued acquisitions
+     */
+    public long getQueuedAcquireCount() {
+        return queuedAcquireCount;
+    }
+
+    /**
+     * Returns the number of times queued threads parked.
+     *
+     * @return the park count
+     */
+    public long getParkCount() {
+        return parkCount;
+    }
+
+    /**
+     * Returns the total time threads spent queued, in nanoseconds.
+     *
+     * @return the total wait time
+     */
+    public long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * Returns the longest time a thread spent queued, in nanoseconds.
+     *
+     * @return the maximum wait time
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * Returns the sum, over all queued acquisitions, of the number of
+     * threads queued ahead of the acquiring thread.  Queues longer
+     * than 256 threads are counted as 256.
+     *
+     * @return the total queue length
+     */
+    public long getTotalQueueLength() {
+        return totalQueueLength;
+    }
+
+    /**
+     * Returns the largest number of threads seen queued ahead of an
+     * acquiring thread, up to 256.
+     *
+     * @return the maximum queue length
+     */
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    /**
+     * Returns the wait time histogram.
+     *
+     * @return a copy of the wait time histogram
+     */
+    public long[] getWaitTimeHistogram() {
+        return waitTimeHistogram.clone();
+    }
+
+    /**
+     * Returns a string representation of this contention record.
+     *
+     * @return the string representation
+     */
+    public String toString() {
+        return className + '@' + Integer.toHexString(identityHashCode) +
+            "[queued=" + queuedAcquireCount + ", parks=" + parkCount +
+            ", totalWait=" + totalWaitTime + "ns, maxWait=" + maxWaitTime +
+            "ns, maxQueue=" + maxQueueLength + ']';
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.concurrent.locks;
+
+import java.lang.management.PlatformManagedObject;
+import java.util.List;
+
+/**
+ * The management interface for contention profiling of synchronizers
+ * built on {@link AbstractQueuedSynchronizer}, such as {@link
+ * ReentrantLock}, {@link ReentrantReadWriteLock}, {@link
+ * java.util.concurrent.Semaphore Semaphore} and {@link
+ * java.util.concurrent.CountDownLatch CountDownLatch}.
+ *
+ * <p> Profiling is enabled by starting the Java virtual machine with
+ * the system property {@code java.util.concurrent.locks.profileContention}
+ * set to {@code true}.  Each thread that has to queue to acquire a
+ * synchronizer then records how long it waited, how many times it
+ * parked, and how many threads were queued ahead of it.  Records are
+ * kept in per-thread buffers that are merged into per-synchronizer
+ * totals when full, at most every 100 milliseconds, and when this
+ * MXBean is queried.  Acquisitions that succeed without queuing are
+ * not recorded.  When profiling is disabled, nothing is recorded.
+ *
+ * <p> A class implementing this interface is an
+ * {@link javax.management.MXBean}.  The single instance may be
+ * obtained with {@link java.lang.management.ManagementFactory#getPlatformMXBean(Class)
+ * ManagementFactory.getPlatformMXBean(SynchronizerContentionMXBean.class)},
+ * and is registered with the platform {@link javax.management.MBeanServer
+ * MBeanServer} under the {@link #getObjectName ObjectName}:
+ * <pre>
+ *     java.util.concurrent.locks:type=SynchronizerContention
+ * </pre>
+ *
+ * @see SynchronizerContentionInfo
+ * @since 1.8
+ */
+public interface SynchronizerContentionMXBean extends PlatformManagedObject {
+
+    /**
+     * Returns {@code true} if contention profiling is enabled.
+     *
+     * @return {@code true} if contention profiling is enabled
+     */
+    boolean isProfilingEnabled();
+
+    /**
+     * Returns the contention recorded for each reachable synchronizer
+     * on which any thread has queued since profiling started or was
+     * last {@linkplain #reset reset}, in decreasing order of total
+     * wait time.
+     *
+     * @return the contention recorded per synchronizer
+     */
+    List<SynchronizerContentionInfo> getContendedSynchronizers();
+
+    /**
+     * Returns the contention recorded for the given number of
+     * synchronizers with the highest total wait times.
+     *
+     * @param maxCount the maximum number of synchronizers to return
+     * @return the contention recorded per synchronizer
+     * @throws IllegalArgumentException if {@code maxCount} is negative
+     */
+    List<SynchronizerContentionInfo> getTopContendedSynchronizers(int maxCount);
+
+    /**
+     * Discards all contention recorded so far.
+     */
+    void reset();
+}
@@ -26,6 +26,9 @@ package java.util.stream;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -148,6 +151,12 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
      */
     private boolean parallel;
 
+    /**
+     * The pool in which a parallel pipeline is evaluated, or {@code null}
+     * for the common pool; only valid for the source stage.
+     */
+    private ForkJoinPool pool;
+
     /**
      * Constructor for the head of a stream pipeline.
      *
@@ -230,10 +239,63 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         linkedOrConsumed = true;
 
         return isParallel()
-               ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
+               ? inPool(() -> terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags())))
                : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
     }
 
+    /**
+     * Performs the given parallel evaluation in the pool this pipeline is
+     * bound to, if any.  Tasks forked by the evaluation are pushed to the
+     * pool of the thread forking them, so running the evaluation itself as
+     * a task of the bound pool confines the whole computation to it.  A
+     * failure of the evaluation is rethrown as it is, rather than wrapped
+     * again by the task, so that it looks like that of an evaluation in
+     * the common pool.
+     *
+     * @param <R> the type of result
+     * @param evaluation the evaluation to perform
+     * @return the result of the evaluation
+     */
+    final <R> R inPool(Supplier<R> evaluation) {
+        ForkJoinPool p = sourceStage.pool;
+        if (p == null || ForkJoinTask.getPool() == p)
+            return evaluation.get();
+        PoolEvaluation<R> task = new PoolEvaluation<>(evaluation);
+        p.invoke(task);
+        Throwable ex = task.failure;
+        if (ex == null)
+            return task.result;
+        if (ex instanceof RuntimeException)
+            throw (RuntimeException) ex;
+        if (ex instanceof Error)
+            throw (Error) ex;
+        throw new IllegalStateException(ex);
+    }
+
+    /**
+     * Task performing an evaluation in a bound pool, recording rather than
+     * throwing its failure.
+     */
+    @SuppressWarnings("serial")
+    private static final class PoolEvaluation<R> extends RecursiveAction {
+        private final Supplier<R> evaluation;
+        R result;
+        Throwable failure;
+
+        PoolEvaluation(Supplier<R> evaluation) {
+            this.evaluation = evaluation;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                result = evaluation.get();
+            } catch (Throwable ex) {
+                failure = ex;
+            }
+        }
+    }
+
     /**
      * Collect the elements output from the pipeline stage.
      *
@@ -254,7 +316,10 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             // upstream slice and upstream operations will not be included
             // in this slice
             depth = 0;
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            return inPool(() -> opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator));
+        }
+        else if (isParallel()) {
+            return inPool(() -> evaluate(sourceSpliterator(0), true, generator));
         }
         else {
             return evaluate(sourceSpliterator(0), true, generator);
@@ -302,6 +367,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     @SuppressWarnings("unchecked")
     public final S sequential() {
         sourceStage.parallel = false;
+        sourceStage.pool = null;
         return (S) this;
     }
 
@@ -309,6 +375,16 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
     @SuppressWarnings("unchecked")
     public final S parallel() {
         sourceStage.parallel = true;
+        sourceStage.pool = null;
+        return (S) this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S parallel(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        sourceStage.parallel = true;
+        sourceStage.pool = pool;
         return (S) this;
     }
 
@@ -361,7 +437,7 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             }
         }
         else {
-            return wrap(this, () -> sourceSpliterator(0), isParallel());
+            return wrap(this, () -> inPool(() -> sourceSpliterator(0)), isParallel());
         }
     }
 
@@ -27,6 +27,7 @@ package java.util.stream;
 import java.util.Spliterator;
 import java.util.concurrent.CountedCompleter;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Abstract base class for most fork-join tasks used to implement stream ops.
@@ -96,6 +97,21 @@ abstract class AbstractTask<P_IN, P_OUT, R,
      */
     static final int LEAF_TARGET = ForkJoinPool.getCommonPoolParallelism() << 2;
 
+    /**
+     * Lower bound, in nanoseconds, on the observed cost of a leaf.  Once
+     * leaves of a computation are seen to be cheaper than this, the target
+     * size grows so that task overhead does not dominate.
+     */
+    static final long MIN_LEAF_NANOS = 100L * 1000L;
+
+    /**
+     * Upper bound, in nanoseconds, on the observed cost of a leaf.  Once
+     * leaves of a computation are seen to be more expensive than this, the
+     * target size shrinks so that remaining work is spread more finely and
+     * idle workers can help out.
+     */
+    static final long MAX_LEAF_NANOS = 10L * 1000L * 1000L;
+
     /** The pipeline helper, common to all tasks in a computation */
     protected final PipelineHelper<P_OUT> helper;
 
@@ -108,6 +124,9 @@ abstract class AbstractTask<P_IN, P_OUT, R,
     /** Target leaf size, common to all tasks in a computation */
     protected long targetSize; // may be laziliy initialized
 
+    /** Observed leaf costs, common to all tasks in a computation */
+    final LeafCost leafCost;
+
     /**
      * The left child.
      * null if no children
@@ -139,6 +158,7 @@ abstract class AbstractTask<P_IN, P_OUT, R,
         this.helper = helper;
         this.spliterator = spliterator;
         this.targetSize = 0L;
+        this.leafCost = new LeafCost();
     }
 
     /**
@@ -154,6 +174,7 @@ abstract class AbstractTask<P_IN, P_OUT, R,
         this.spliterator = spliterator;
         this.helper = parent.helper;
         this.targetSize = parent.targetSize;
+        this.leafCost = parent.leafCost;
     }
 
     /**
@@ -181,18 +202,32 @@ abstract class AbstractTask<P_IN, P_OUT, R,
      * @return suggested target leaf size
      */
     public static long suggestTargetSize(long sizeEstimate) {
-        long est = sizeEstimate / LEAF_TARGET;
+        long est = sizeEstimate / leafTarget();
         return est > 0L ? est : 1L;
     }
 
+    /**
+     * Returns the target factor of leaf tasks for the pool in which the
+     * current thread runs, or {@link #LEAF_TARGET} if the current thread
+     * is not a {@code ForkJoinPool} worker.
+     */
+    static int leafTarget() {
+        ForkJoinPool pool = ForkJoinTask.getPool();
+        if (pool == null || pool == ForkJoinPool.commonPool())
+            return LEAF_TARGET;
+        int t = pool.getParallelism() << 2;
+        return t > 0 ? t : LEAF_TARGET;
+    }
+
     /**
      * Returns the targetSize, initializing it via the supplied
      * size estimate if not already initialized.
      */
     protected final long getTargetSize(long sizeEstimate) {
         long s;
-        return ((s = targetSize) != 0 ? s :
-                (targetSize = suggestTargetSize(sizeEstimate)));
+        if ((s = targetSize) == 0L)
+            targetSize = s = suggestTargetSize(sizeEstimate);
+        return leafCost.adjust(s);
     }
 
     /**
@@ -313,7 +348,9 @@ abstract class AbstractTask<P_IN, P_OUT, R,
             taskToFork.fork();
             sizeEstimate = rs.estimateSize();
         }
+        long start = System.nanoTime();
         task.setLocalResult(task.doLeaf());
+        leafCost.record(sizeEstimate, System.nanoTime() - start);
         task.tryComplete();
     }
 
@@ -349,4 +386,44 @@ abstract class AbstractTask<P_IN, P_OUT, R,
         }
         return true;
     }
+
+    /**
+     * Running totals of elements processed and time spent by the leaves of
+     * one computation, used to adapt the target leaf size to the observed
+     * per-element cost.  Updates race benignly: the totals only steer the
+     * decomposition and need not be exact.
+     */
+    static final class LeafCost {
+        volatile long elements;
+        volatile long nanos;
+
+        /**
+         * Records a completed leaf, ignoring leaves whose size is unknown.
+         */
+        void record(long size, long elapsed) {
+            if (size > 0L && size < Long.MAX_VALUE && elapsed > 0L) {
+                elements += size;
+                nanos += elapsed;
+            }
+        }
+
+        /**
+         * Returns the given target size adjusted so that leaves cost
+         * between {@link #MIN_LEAF_NANOS} and {@link #MAX_LEAF_NANOS},
+         * or unchanged if no leaf has been observed yet.
+         */
+        long adjust(long target) {
+            long e = elements, n = nanos;
+            if (e <= 0L || n <= 0L || e > (Long.MAX_VALUE / MAX_LEAF_NANOS))
+                return target;
+            long min = MIN_LEAF_NANOS * e / n;
+            long max = MAX_LEAF_NANOS * e / n;
+            if (target < min)
+                return min;
+            else if (target > max)
+                return max > 0L ? max : 1L;
+            else
+                return target;
+        }
+    }
 }
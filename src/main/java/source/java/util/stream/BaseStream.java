@@ -29,8 +29,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.Objects;
 import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
@@ -116,6 +118,40 @@ public interface BaseStream<T, S extends BaseStream<T, S>>
      */
     S parallel();
 
+    /**
+     * Returns an equivalent stream that is parallel and whose terminal
+     * operation is evaluated in the given {@code ForkJoinPool} rather than
+     * in the {@link ForkJoinPool#commonPool() common pool}.  May return
+     * itself, either because the stream was already parallel in that pool,
+     * or because the underlying stream state was modified.
+     *
+     * <p>Binding a pipeline to a dedicated pool isolates its work, so that a
+     * long-running or blocking stage cannot occupy the workers that other
+     * parallel computations in the application rely on.  The degree of
+     * decomposition is derived from the parallelism of the given pool.
+     * A subsequent call to {@link #parallel()} or {@link #sequential()}
+     * reverts to evaluation in the common pool.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation throws {@code UnsupportedOperationException}
+     * after checking the pool for {@code null}, since a stream that does not
+     * override this method cannot direct its evaluation to a pool.
+     *
+     * @param pool the pool in which to evaluate the terminal operation
+     * @return a parallel stream
+     * @throws NullPointerException if the pool is null
+     * @throws UnsupportedOperationException if this stream cannot be
+     *         evaluated in a given pool
+     * @since 1.8
+     */
+    default S parallel(ForkJoinPool pool) {
+        Objects.requireNonNull(pool);
+        throw new UnsupportedOperationException("parallel(ForkJoinPool)");
+    }
+
     /**
      * Returns an equivalent stream that is
      * <a href="package-summary.html#Ordering">unordered</a>.  May return
@@ -36,8 +36,11 @@ import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IntSummaryStatistics;
+import java.util.IntObjectMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.LongLongMap;
+import java.util.LongObjectMap;
 import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.Objects;
@@ -322,6 +325,70 @@ public final class Collectors {
         };
     }
 
+    /**
+     * {@code BinaryOperator<IntObjectMap>} that merges the contents of its
+     * arguments, using the provided merge function to handle duplicate keys.
+     * The smaller map is merged into the larger, which is returned, and the
+     * merge function is always passed the value from the left argument first.
+     *
+     * @param <V> type of the map values
+     * @param mergeFunction a function merging a value from the left map
+     * with one from the right map
+     * @return a merge function for two maps
+     */
+    static <V> BinaryOperator<IntObjectMap<V>>
+    intMapMerger(BinaryOperator<V> mergeFunction) {
+        return (m1, m2) -> {
+            if (m1.size() >= m2.size()) {
+                m2.forEach((k, v) -> m1.merge(k, v, mergeFunction));
+                return m1;
+            }
+            m1.forEach((k, v) -> m2.merge(k, v, (r, l) -> mergeFunction.apply(l, r)));
+            return m2;
+        };
+    }
+
+    /**
+     * {@code BinaryOperator<LongObjectMap>} that merges the contents of its
+     * arguments, using the provided merge function to handle duplicate keys.
+     * The smaller map is merged into the larger, which is returned, and the
+     * merge function is always passed the value from the left argument first.
+     *
+     * @param <V> type of the map values
+     * @param mergeFunction a function merging a value from the left map
+     * with one from the right map
+     * @return a merge function for two maps
+     */
+    static <V> BinaryOperator<LongObjectMap<V>>
+    longMapMerger(BinaryOperator<V> mergeFunction) {
+        return (m1, m2) -> {
+            if (m1.size() >= m2.size()) {
+                m2.forEach((k, v) -> m1.merge(k, v, mergeFunction));
+                return m1;
+            }
+            m1.forEach((k, v) -> m2.merge(k, v, (r, l) -> mergeFunction.apply(l, r)));
+            return m2;
+        };
+    }
+
+    /**
+     * {@code BinaryOperator<LongLongMap>} that merges its arguments by
+     * adding the values of duplicate keys, merging the smaller map into the
+     * larger, which is returned.
+     *
+     * @return a merge function for two maps
+     */
+    static BinaryOperator<LongLongMap> longLongMapSummer() {
+        return (m1, m2) -> {
+            if (m1.size() < m2.size()) {
+                LongLongMap t = m1; m1 = m2; m2 = t;
+            }
+            LongLongMap m = m1;
+            m2.forEach(m::addTo);
+            return m;
+        };
+    }
+
     /**
      * Adapts a {@code Collector} accepting elements of type {@code U} to one
      * accepting elements of type {@code T} by applying a mapping function to
@@ -1091,6 +1158,177 @@ public final class Collectors {
         }
     }
 
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by" operation
+     * on input elements of type {@code T}, grouping elements according to an
+     * {@code int}-valued classification function, and then performing a
+     * reduction operation on the values associated with a given key using the
+     * specified downstream {@code Collector}.  The keys are never boxed, and
+     * the groups are kept in an {@link IntObjectMap}, so that no map entry
+     * objects are allocated.  Since that map does not permit {@code null}
+     * values, a {@code NullPointerException} is thrown if the downstream
+     * finisher returns {@code null} for any group.
+     *
+     * <p>For example, to compute the total salary of the employees of each
+     * department, given integer department numbers:
+     * <pre>{@code
+     *     IntObjectMap<Long> totalByDept
+     *         = employees.stream()
+     *                    .collect(groupingByInt(Employee::getDepartmentNumber,
+     *                                           summingLong(Employee::getSalary)));
+     * }</pre>
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, each thread accumulates into its own map, and the
+     * {@code combiner} function merges the smaller of two maps into the
+     * larger.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     * @see #groupingBy(Function, Collector)
+     * @see #groupingByLong(ToLongFunction, Collector)
+     * @since 1.8
+     */
+    public static <T, A, D>
+    Collector<T, ?, IntObjectMap<D>> groupingByInt(ToIntFunction<? super T> classifier,
+                                                   Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BiConsumer<IntObjectMap<A>, T> accumulator = (m, t) -> {
+            int key = classifier.applyAsInt(t);
+            A container = m.get(key);
+            if (container == null)
+                m.put(key, container = downstreamSupplier.get());
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<IntObjectMap<A>> merger = intMapMerger(downstream.combiner());
+
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(IntObjectMap::new, accumulator, merger, CH_ID);
+        }
+        else {
+            Function<A, D> downstreamFinisher = downstream.finisher();
+            Function<IntObjectMap<A>, IntObjectMap<D>> finisher = intermediate -> {
+                IntObjectMap<D> result = new IntObjectMap<>(intermediate.size());
+                intermediate.forEach((k, v) -> result.put(k, Objects.requireNonNull(
+                    downstreamFinisher.apply(v), "downstream finisher returned null")));
+                return result;
+            };
+            return new CollectorImpl<>(IntObjectMap::new, accumulator, merger, finisher, CH_NOID);
+        }
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by" operation
+     * on input elements of type {@code T}, grouping elements according to a
+     * {@code long}-valued classification function, and then performing a
+     * reduction operation on the values associated with a given key using the
+     * specified downstream {@code Collector}.  The keys are never boxed, and
+     * the groups are kept in a {@link LongObjectMap}, so that no map entry
+     * objects are allocated.  Since that map does not permit {@code null}
+     * values, a {@code NullPointerException} is thrown if the downstream
+     * finisher returns {@code null} for any group.
+     *
+     * <p>For example, to compute statistics of the amounts of the orders
+     * placed by each customer:
+     * <pre>{@code
+     *     LongObjectMap<LongSummaryStatistics> statsByCustomer
+     *         = orders.stream()
+     *                 .collect(groupingByLong(Order::getCustomerId,
+     *                                         summarizingLong(Order::getAmount)));
+     * }</pre>
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, each thread accumulates into its own map, and the
+     * {@code combiner} function merges the smaller of two maps into the
+     * larger.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     * @see #groupingBy(Function, Collector)
+     * @see #groupingByInt(ToIntFunction, Collector)
+     * @since 1.8
+     */
+    public static <T, A, D>
+    Collector<T, ?, LongObjectMap<D>> groupingByLong(ToLongFunction<? super T> classifier,
+                                                     Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BiConsumer<LongObjectMap<A>, T> accumulator = (m, t) -> {
+            long key = classifier.applyAsLong(t);
+            A container = m.get(key);
+            if (container == null)
+                m.put(key, container = downstreamSupplier.get());
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<LongObjectMap<A>> merger = longMapMerger(downstream.combiner());
+
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(LongObjectMap::new, accumulator, merger, CH_ID);
+        }
+        else {
+            Function<A, D> downstreamFinisher = downstream.finisher();
+            Function<LongObjectMap<A>, LongObjectMap<D>> finisher = intermediate -> {
+                LongObjectMap<D> result = new LongObjectMap<>(intermediate.size());
+                intermediate.forEach((k, v) -> result.put(k, Objects.requireNonNull(
+                    downstreamFinisher.apply(v), "downstream finisher returned null")));
+                return result;
+            };
+            return new CollectorImpl<>(LongObjectMap::new, accumulator, merger, finisher, CH_NOID);
+        }
+    }
+
+    /**
+     * Returns a {@code Collector} that groups input elements by a
+     * {@code long}-valued classification function and sums a
+     * {@code long}-valued function of the elements of each group, producing
+     * a {@link LongLongMap}.  Neither keys nor sums are boxed.  If no
+     * elements are present for a key, the key is absent from the result.
+     *
+     * <p>For example, to compute the number of items ordered per product:
+     * <pre>{@code
+     *     LongLongMap quantityByProduct
+     *         = orderLines.stream()
+     *                     .collect(summingLongByKey(OrderLine::getProductId,
+     *                                               OrderLine::getQuantity));
+     * }</pre>
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, each thread accumulates into its own map, and the
+     * {@code combiner} function adds the smaller of two maps into the larger.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @param mapper a function extracting the property to be summed
+     * @return a {@code Collector} producing the sum of the derived property
+     * for each key
+     * @see #groupingByLong(ToLongFunction, Collector)
+     * @since 1.8
+     */
+    public static <T> Collector<T, ?, LongLongMap>
+    summingLongByKey(ToLongFunction<? super T> classifier,
+                     ToLongFunction<? super T> mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<>(
+                LongLongMap::new,
+                (m, t) -> m.addTo(classifier.applyAsLong(t), mapper.applyAsLong(t)),
+                longLongMapSummer(), CH_ID);
+    }
+
     /**
      * Returns a {@code Collector} which partitions the input elements according
      * to a {@code Predicate}, and organizes them into a
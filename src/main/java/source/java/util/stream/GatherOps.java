@@ -0,0 +1,415 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.CountedCompleter;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Factory for instances of the stateful, short-circuiting intermediate
+ * operation that applies a {@link Gatherer} to a stream.
+ *
+ * <p>In sequential evaluation, and in parallel evaluation of sequential
+ * gatherers, the gatherer is applied by a sink that passes output elements
+ * downstream as they are emitted, so that no intermediate {@code Node} is
+ * built.  Gatherers with a combiner are evaluated in parallel by a
+ * {@link GatherTask}, which integrates each leaf into its own state and
+ * buffers the output of each leaf in encounter order.  As in the parallel
+ * evaluation of {@link SliceOps}, a leaf whose integrator stops cancels the
+ * tasks after it, and the states and output of those tasks are discarded,
+ * so that the result is the same as that of sequential evaluation.
+ *
+ * @since 1.8
+ */
+final class GatherOps {
+
+    // No instances
+    private GatherOps() { }
+
+    /**
+     * Stream flags of a gather operation, which produces new elements of
+     * unknown number and may stop consuming its input early.
+     */
+    private static final int FLAGS = StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT |
+                                     StreamOpFlag.NOT_SIZED | StreamOpFlag.IS_SHORT_CIRCUIT;
+
+    @SuppressWarnings("unchecked")
+    private static <T> IntFunction<T[]> castingArray() {
+        return size -> (T[]) new Object[size];
+    }
+
+    /**
+     * Appends a gather operation to the provided stream.
+     *
+     * @param <T> the type of input elements
+     * @param <A> the type of the gatherer state
+     * @param <R> the type of output elements
+     * @param upstream a reference stream with element type T
+     * @param gatherer the gatherer to apply
+     * @return the new stream
+     */
+    public static <T, A, R> Stream<R> makeRef(AbstractPipeline<?, T, ?> upstream,
+                                              Gatherer<T, A, R> gatherer) {
+        Objects.requireNonNull(gatherer);
+        return new ReferencePipeline.StatefulOp<T, R>(upstream, StreamShape.REFERENCE, FLAGS) {
+            @Override
+            <P_IN> Spliterator<R> opEvaluateParallelLazy(PipelineHelper<R> helper,
+                                                         Spliterator<P_IN> spliterator) {
+                if (gatherer.combiner() == null)
+                    return new GatherSpliterator<>(gatherer, upstream.wrapSpliterator(spliterator));
+                return opEvaluateParallel(helper, spliterator, castingArray()).spliterator();
+            }
+
+            @Override
+            <P_IN> Node<R> opEvaluateParallel(PipelineHelper<R> helper,
+                                              Spliterator<P_IN> spliterator,
+                                              IntFunction<R[]> generator) {
+                BinaryOperator<A> combiner = gatherer.combiner();
+                if (combiner == null) {
+                    // Collect using this pipeline, which is empty and therefore
+                    // can be used with the gathering spliterator
+                    Spliterator<R> s = new GatherSpliterator<>(gatherer,
+                                                               upstream.wrapSpliterator(spliterator));
+                    return Nodes.collect(this, s, true, generator);
+                }
+                GatherTask<P_IN, T, A, R> root =
+                    new GatherTask<>(upstream, spliterator, gatherer, generator);
+                GatherTask.Result<A, R> r = root.invoke();
+                Node.Builder<R> nb = Nodes.builder(-1, generator);
+                GatherSink<T, A, R> sink = new GatherSink<>(gatherer, nb, true);
+                sink.state = r.state;
+                nb.begin(-1);
+                sink.finish();
+                nb.end();
+                Node<R> tail = nb.build();
+                return (tail.count() == 0) ? r.node :
+                    Nodes.conc(StreamShape.REFERENCE, r.node, tail);
+            }
+
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<R> sink) {
+                return new GatherSink<>(gatherer, sink, true);
+            }
+        };
+    }
+
+    /**
+     * Applies a gatherer to the elements of a stream that is not a
+     * {@code ReferencePipeline}, for the default {@link Stream#gather}.
+     *
+     * @param <T> the type of input elements
+     * @param <R> the type of output elements
+     * @param upstream the stream whose elements are gathered
+     * @param gatherer the gatherer to apply
+     * @return the new stream
+     */
+    static <T, R> Stream<R> makeDefault(Stream<T> upstream,
+                                        Gatherer<? super T, ?, R> gatherer) {
+        Objects.requireNonNull(gatherer);
+        @SuppressWarnings("unchecked")
+        Gatherer<T, Object, R> g = (Gatherer<T, Object, R>) gatherer;
+        return StreamSupport.stream(new GatherSpliterator<>(g, upstream.spliterator()),
+                                    upstream.isParallel())
+                            .onClose(upstream::close);
+    }
+
+    /**
+     * A sink applying a gatherer, passing output elements downstream.
+     * Sinks for the leaves of a parallel evaluation do not apply the
+     * finisher when ended; the state is then combined with those of
+     * other leaves and finished once.
+     */
+    static final class GatherSink<T, A, R> extends Sink.ChainedReference<T, R>
+            implements Gatherer.Downstream<R> {
+        final Gatherer<T, A, R> gatherer;
+        final Gatherer.Integrator<A, T, R> integrator;
+        final boolean finishing;
+        A state;
+        boolean stopped;
+
+        GatherSink(Gatherer<T, A, R> gatherer, Sink<? super R> downstream,
+                   boolean finishing) {
+            super(downstream);
+            this.gatherer = gatherer;
+            this.integrator = gatherer.integrator();
+            this.finishing = finishing;
+        }
+
+        @Override
+        public void begin(long size) {
+            state = gatherer.initializer().get();
+            stopped = false;
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(T t) {
+            if (!stopped && !integrator.integrate(state, t, this))
+                stopped = true;
+        }
+
+        @Override
+        public boolean cancellationRequested() {
+            return stopped || downstream.cancellationRequested();
+        }
+
+        @Override
+        public void end() {
+            if (finishing)
+                finish();
+            downstream.end();
+        }
+
+        void finish() {
+            gatherer.finisher().accept(state, this);
+            state = null;
+        }
+
+        @Override
+        public boolean push(R r) {
+            if (downstream.cancellationRequested())
+                return false;
+            downstream.accept(r);
+            return !downstream.cancellationRequested();
+        }
+
+        @Override
+        public boolean isRejecting() {
+            return downstream.cancellationRequested();
+        }
+    }
+
+    /**
+     * A spliterator applying a sequential gatherer to the elements of
+     * another, in encounter order, buffering only the output elements
+     * emitted while integrating one input element.
+     */
+    static final class GatherSpliterator<T, A, R> implements Spliterator<R>, Consumer<T> {
+        final Spliterator<T> source;
+        final GatherSink<T, A, R> sink;
+        final SpinedBuffer<R> buffer;
+        long next;
+        boolean started, finished;
+
+        GatherSpliterator(Gatherer<T, A, R> gatherer, Spliterator<T> source) {
+            SpinedBuffer<R> b = new SpinedBuffer<>();
+            this.source = source;
+            this.buffer = b;
+            this.sink = new GatherSink<>(gatherer, (Sink<R>) b::accept, true);
+        }
+
+        @Override
+        public void accept(T t) {
+            sink.accept(t);
+        }
+
+        /**
+         * Fills the buffer with the output of at least one input element,
+         * or the finisher, returning false if there is no more output.
+         */
+        private boolean fill() {
+            if (!started) {
+                started = true;
+                sink.begin(-1);
+            }
+            buffer.clear();
+            next = 0;
+            while (buffer.count() == 0) {
+                if (finished)
+                    return false;
+                if (sink.cancellationRequested() || !source.tryAdvance(this)) {
+                    finished = true;
+                    sink.end();
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            Objects.requireNonNull(action);
+            if (next >= buffer.count() && !fill())
+                return false;
+            action.accept(buffer.get(next++));
+            return true;
+        }
+
+        @Override
+        public Spliterator<R> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public int characteristics() {
+            return source.characteristics() & Spliterator.ORDERED;
+        }
+
+        @Override
+        public Comparator<? super R> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Task evaluating a gatherer with a combiner in parallel.  Each leaf
+     * integrates its portion of the input into its own state, buffering
+     * the output in a node; on completion the states of the left and
+     * right children are combined and their nodes concatenated.  If the
+     * integrator stops in a leaf, the leaf cancels the tasks after it in
+     * encounter order, and the result of a left child that stopped is
+     * taken without its right sibling's.  A canceled task discards its
+     * own or its children's results, whose states are never combined.
+     */
+    @SuppressWarnings("serial")
+    private static final class GatherTask<P_IN, T, A, R>
+            extends AbstractShortCircuitTask<P_IN, T, GatherTask.Result<A, R>,
+                                             GatherTask<P_IN, T, A, R>> {
+        private final Gatherer<T, A, R> gatherer;
+        private final IntFunction<R[]> generator;
+
+        /**
+         * The combined state and output of a subtree, and whether the
+         * integrator stopped within it.  The empty result of a canceled
+         * task counts as stopped, since it follows a stopped leaf.
+         */
+        static final class Result<A, R> {
+            final A state;
+            final Node<R> node;
+            final boolean stopped;
+
+            Result(A state, Node<R> node, boolean stopped) {
+                this.state = state;
+                this.node = node;
+                this.stopped = stopped;
+            }
+        }
+
+        GatherTask(PipelineHelper<T> helper, Spliterator<P_IN> spliterator,
+                   Gatherer<T, A, R> gatherer, IntFunction<R[]> generator) {
+            super(helper, spliterator);
+            this.gatherer = gatherer;
+            this.generator = generator;
+        }
+
+        GatherTask(GatherTask<P_IN, T, A, R> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+            this.gatherer = parent.gatherer;
+            this.generator = parent.generator;
+        }
+
+        @Override
+        protected GatherTask<P_IN, T, A, R> makeChild(Spliterator<P_IN> spliterator) {
+            return new GatherTask<>(this, spliterator);
+        }
+
+        @Override
+        protected Result<A, R> getEmptyResult() {
+            return new Result<>(null, Nodes.emptyNode(StreamShape.REFERENCE), true);
+        }
+
+        @Override
+        protected Result<A, R> doLeaf() {
+            Node.Builder<R> nb = Nodes.builder(-1, generator);
+            GatherSink<T, A, R> sink = new GatherSink<>(gatherer, nb, false);
+            helper.copyIntoWithCancel(helper.wrapSink(sink), spliterator);
+            if (sink.stopped)
+                cancelLaterNodes();
+            else if (taskCanceled())
+                return getEmptyResult();
+            return new Result<>(sink.state, nb.build(), sink.stopped);
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> caller) {
+            if (!isLeaf()) {
+                Result<A, R> left = leftChild.getLocalResult();
+                Result<A, R> right = rightChild.getLocalResult();
+                if (taskCanceled())
+                    setLocalResult(getEmptyResult());
+                else if (left.stopped)
+                    setLocalResult(left);
+                else
+                    setLocalResult(new Result<>(
+                        gatherer.combiner().apply(left.state, right.state),
+                        Nodes.conc(StreamShape.REFERENCE, left.node, right.node),
+                        right.stopped));
+            }
+            // GC spliterator, left and right child
+            super.onCompletion(caller);
+        }
+    }
+
+    /**
+     * Gatherer described by its four functions.
+     */
+    static final class GathererImpl<T, A, R> implements Gatherer<T, A, R> {
+        private final Supplier<A> initializer;
+        private final Integrator<A, T, R> integrator;
+        private final BinaryOperator<A> combiner;
+        private final BiConsumer<A, Downstream<? super R>> finisher;
+
+        GathererImpl(Supplier<A> initializer,
+                     Integrator<A, T, R> integrator,
+                     BinaryOperator<A> combiner,
+                     BiConsumer<A, Downstream<? super R>> finisher) {
+            this.initializer = initializer;
+            this.integrator = integrator;
+            this.combiner = combiner;
+            this.finisher = finisher;
+        }
+
+        @Override
+        public Supplier<A> initializer() {
+            return initializer;
+        }
+
+        @Override
+        public Integrator<A, T, R> integrator() {
+            return integrator;
+        }
+
+        @Override
+        public BinaryOperator<A> combiner() {
+            return combiner;
+        }
+
+        @Override
+        public BiConsumer<A, Downstream<? super R>> finisher() {
+            return finisher;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * An intermediate operation that transforms a stream of input elements into
+ * a stream of output elements, optionally keeping state between elements,
+ * and optionally emitting further elements once the input is exhausted.
+ * Gatherers are applied with {@link Stream#gather(Gatherer)}, and can express
+ * operations such as windowing, running totals and bounded concurrent
+ * mapping, several of which are provided by {@link Gatherers}.
+ *
+ * <p>A gatherer is specified by four functions that work together:
+ * <ul>
+ *     <li>creation of a new state object ({@link #initializer()})</li>
+ *     <li>integration of an input element into the state, possibly emitting
+ *     output elements to a {@link Downstream} ({@link #integrator()})</li>
+ *     <li>combining two states into one ({@link #combiner()}), which is
+ *     optional</li>
+ *     <li>emitting any final output elements from the state once all input
+ *     has been integrated ({@link #finisher()})</li>
+ * </ul>
+ *
+ * <p>The integrator returns {@code false} to indicate that it wants no more
+ * input, making {@code gather} short-circuiting.  Output elements are
+ * passed downstream as they are emitted, so that a gatherer followed by,
+ * for example, {@code limit} or {@code findFirst} may stop consuming its
+ * input early.
+ *
+ * <p>A gatherer without a combiner is <em>sequential</em>: in a parallel
+ * pipeline, its input is consumed in encounter order by a single thread.
+ * A gatherer with a combiner may be evaluated in parallel: each
+ * subtask integrates part of the input into its own state, the states of
+ * adjacent subtasks are combined, and the finisher is applied once to the
+ * state combining all of them.  Elements emitted by the integrator are
+ * kept in encounter order, and precede those emitted by the finisher.
+ *
+ * @param <T> the type of input elements to the gather operation
+ * @param <A> the type of the mutable state of the gather operation (often
+ *            hidden as an implementation detail)
+ * @param <R> the type of output elements of the gather operation
+ * @see Stream#gather(Gatherer)
+ * @see Gatherers
+ * @since 1.8
+ */
+public interface Gatherer<T, A, R> {
+
+    /**
+     * A function that creates a new state object, invoked once per
+     * evaluation, or once per subtask in parallel evaluation.  The state
+     * may be {@code null} for stateless gatherers.
+     *
+     * @return a function that returns a new state object
+     */
+    Supplier<A> initializer();
+
+    /**
+     * A function that integrates an input element into the state, possibly
+     * emitting output elements.
+     *
+     * @return a function that integrates an input element
+     */
+    Integrator<A, T, R> integrator();
+
+    /**
+     * A function that combines the states of two subtasks of a parallel
+     * evaluation, the first covering the input elements preceding those of
+     * the second, or {@code null} if this gatherer is sequential.
+     *
+     * @implSpec The default implementation returns {@code null}.
+     *
+     * @return a function that combines two states, or {@code null}
+     */
+    default BinaryOperator<A> combiner() {
+        return null;
+    }
+
+    /**
+     * A function that emits any final output elements once all input
+     * elements have been integrated.
+     *
+     * @implSpec The default implementation returns a function that does
+     * nothing.
+     *
+     * @return a function that finishes the gather operation
+     */
+    default BiConsumer<A, Downstream<? super R>> finisher() {
+        return (state, downstream) -> { };
+    }
+
+    /**
+     * Integrates an input element into a state, possibly emitting output
+     * elements downstream.
+     *
+     * @param <A> the type of the state
+     * @param <T> the type of input elements
+     * @param <R> the type of output elements
+     * @since 1.8
+     */
+    @FunctionalInterface
+    interface Integrator<A, T, R> {
+        /**
+         * Integrates the given element into the given state, possibly
+         * emitting output elements to the given downstream.
+         *
+         * @param state the state
+         * @param element the input element
+         * @param downstream the downstream to which to emit output elements
+         * @return {@code true} if further input is wanted, or {@code false}
+         *         to end the input
+         */
+        boolean integrate(A state, T element, Downstream<? super R> downstream);
+    }
+
+    /**
+     * The receiver of the output elements of a gatherer.
+     *
+     * @param <T> the type of elements accepted
+     * @since 1.8
+     */
+    @FunctionalInterface
+    interface Downstream<T> {
+        /**
+         * Emits an element downstream.
+         *
+         * @param element the element to emit
+         * @return {@code true} if further elements are wanted, or
+         *         {@code false} if they would be discarded
+         */
+        boolean push(T element);
+
+        /**
+         * Returns {@code true} if elements pushed downstream would be
+         * discarded, in which case the gatherer need not produce them.
+         *
+         * @implSpec The default implementation returns {@code false}.
+         *
+         * @return {@code true} if no more elements are wanted
+         */
+        default boolean isRejecting() {
+            return false;
+        }
+    }
+
+    /**
+     * Returns a new sequential {@code Gatherer} described by the given
+     * initializer, integrator and finisher functions.
+     *
+     * @param initializer the initializer function
+     * @param integrator the integrator function
+     * @param finisher the finisher function
+     * @param <T> the type of input elements
+     * @param <A> the type of the state
+     * @param <R> the type of output elements
+     * @return the new {@code Gatherer}
+     * @throws NullPointerException if any argument is null
+     */
+    static <T, A, R> Gatherer<T, A, R> ofSequential(
+            Supplier<A> initializer,
+            Integrator<A, T, R> integrator,
+            BiConsumer<A, Downstream<? super R>> finisher) {
+        Objects.requireNonNull(initializer);
+        Objects.requireNonNull(integrator);
+        Objects.requireNonNull(finisher);
+        return new GatherOps.GathererImpl<>(initializer, integrator, null, finisher);
+    }
+
+    /**
+     * Returns a new, possibly parallel, {@code Gatherer} described by the
+     * given initializer, integrator, combiner and finisher functions.
+     *
+     * @param initializer the initializer function
+     * @param integrator the integrator function
+     * @param combiner the combiner function
+     * @param finisher the finisher function
+     * @param <T> the type of input elements
+     * @param <A> the type of the state
+     * @param <R> the type of output elements
+     * @return the new {@code Gatherer}
+     * @throws NullPointerException if any argument is null
+     */
+    static <T, A, R> Gatherer<T, A, R> of(
+            Supplier<A> initializer,
+            Integrator<A, T, R> integrator,
+            BinaryOperator<A> combiner,
+            BiConsumer<A, Downstream<? super R>> finisher) {
+        Objects.requireNonNull(initializer);
+        Objects.requireNonNull(integrator);
+        Objects.requireNonNull(combiner);
+        Objects.requireNonNull(finisher);
+        return new GatherOps.GathererImpl<>(initializer, integrator, combiner, finisher);
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Implementations of {@link Gatherer} that provide useful intermediate
+ * operations, such as windowing functions, running totals and bounded
+ * concurrent mapping.
+ *
+ * <p>The following are examples of using the predefined gatherers to
+ * perform common intermediate operations:
+ * <pre>{@code
+ *     // Process records in batches of 100
+ *     Stream<List<Record>> batches
+ *         = records.stream().gather(Gatherers.windowFixed(100));
+ *
+ *     // Compute a moving average over the last 5 samples
+ *     Stream<Double> averages
+ *         = samples.stream()
+ *                  .gather(Gatherers.windowSliding(5))
+ *                  .map(w -> w.stream().mapToDouble(Double::doubleValue).average().getAsDouble());
+ *
+ *     // Fetch pages with up to 8 requests in flight, keeping their order
+ *     Stream<Page> pages
+ *         = urls.stream().gather(Gatherers.mapConcurrent(8, Page::fetch));
+ * }</pre>
+ *
+ * <p>All gatherers returned by this class are sequential: in a parallel
+ * pipeline their input is consumed in encounter order.
+ *
+ * @since 1.8
+ */
+public final class Gatherers {
+
+    private Gatherers() { } // no instances
+
+    /**
+     * Returns a {@code Gatherer} that gathers elements into lists of the
+     * given size, in encounter order.  The last list contains the remaining
+     * elements, and may be shorter.  The lists are unmodifiable.
+     *
+     * <p>For example, {@code Stream.of(1, 2, 3, 4, 5).gather(windowFixed(2))}
+     * produces {@code [1, 2]}, {@code [3, 4]} and {@code [5]}.
+     *
+     * @param <T> the type of elements
+     * @param windowSize the number of elements in each window
+     * @return a new {@code Gatherer} gathering elements into windows
+     * @throws IllegalArgumentException if {@code windowSize} is less than 1
+     */
+    public static <T> Gatherer<T, ?, List<T>> windowFixed(int windowSize) {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("'windowSize' must be greater than zero");
+        class FixedWindow {
+            Object[] window = new Object[windowSize];
+            int at;
+
+            boolean integrate(T element, Gatherer.Downstream<? super List<T>> downstream) {
+                window[at++] = element;
+                if (at < windowSize)
+                    return true;
+                Object[] full = window;
+                window = new Object[windowSize];
+                at = 0;
+                return downstream.push(listOf(full));
+            }
+
+            void finish(Gatherer.Downstream<? super List<T>> downstream) {
+                if (at > 0 && !downstream.isRejecting())
+                    downstream.push(listOf(Arrays.copyOf(window, at)));
+                window = null;
+            }
+        }
+        return Gatherer.<T, FixedWindow, List<T>>ofSequential(
+                FixedWindow::new,
+                FixedWindow::integrate,
+                FixedWindow::finish);
+    }
+
+    /**
+     * Returns a {@code Gatherer} that gathers elements into overlapping lists
+     * of the given size, each starting one element after the previous one,
+     * in encounter order.  If there are fewer elements than the window size,
+     * a single list of all of them is produced.  The lists are unmodifiable.
+     *
+     * <p>For example, {@code Stream.of(1, 2, 3, 4).gather(windowSliding(3))}
+     * produces {@code [1, 2, 3]} and {@code [2, 3, 4]}.
+     *
+     * @param <T> the type of elements
+     * @param windowSize the number of elements in each window
+     * @return a new {@code Gatherer} gathering elements into sliding windows
+     * @throws IllegalArgumentException if {@code windowSize} is less than 1
+     */
+    public static <T> Gatherer<T, ?, List<T>> windowSliding(int windowSize) {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("'windowSize' must be greater than zero");
+        class SlidingWindow {
+            // ring buffer of the last windowSize elements
+            Object[] ring = new Object[windowSize];
+            int head;
+            long count;
+
+            boolean integrate(T element, Gatherer.Downstream<? super List<T>> downstream) {
+                ring[head] = element;
+                head = (head + 1 == windowSize) ? 0 : head + 1;
+                if (++count < windowSize)
+                    return true;
+                Object[] window = new Object[windowSize];
+                int n = windowSize - head;
+                System.arraycopy(ring, head, window, 0, n);
+                System.arraycopy(ring, 0, window, n, head);
+                return downstream.push(listOf(window));
+            }
+
+            void finish(Gatherer.Downstream<? super List<T>> downstream) {
+                if (count > 0 && count < windowSize && !downstream.isRejecting())
+                    downstream.push(listOf(Arrays.copyOf(ring, (int) count)));
+                ring = null;
+            }
+        }
+        return Gatherer.<T, SlidingWindow, List<T>>ofSequential(
+                SlidingWindow::new,
+                SlidingWindow::integrate,
+                SlidingWindow::finish);
+    }
+
+    /**
+     * Returns a {@code Gatherer} that performs a prefix scan: each element
+     * produces the result of applying the scanner function to the previous
+     * result, initially produced by the given supplier, and the element.
+     *
+     * <p>For example,
+     * {@code Stream.of(1, 2, 3).gather(scan(() -> "", (s, i) -> s + i))}
+     * produces {@code "1"}, {@code "12"} and {@code "123"}.
+     *
+     * @param <T> the type of input elements
+     * @param <R> the type of results
+     * @param initial supplier of the initial value of the scan
+     * @param scanner function applied to the previous result and the current
+     *                element to produce the next result
+     * @return a new {@code Gatherer} performing a prefix scan
+     * @throws NullPointerException if any argument is null
+     */
+    public static <T, R> Gatherer<T, ?, R> scan(
+            Supplier<R> initial,
+            BiFunction<? super R, ? super T, ? extends R> scanner) {
+        Objects.requireNonNull(initial, "'initial' must not be null");
+        Objects.requireNonNull(scanner, "'scanner' must not be null");
+        class State {
+            R current = initial.get();
+
+            boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+                return downstream.push(current = scanner.apply(current, element));
+            }
+        }
+        return Gatherer.<T, State, R>ofSequential(
+                State::new,
+                State::integrate,
+                (state, downstream) -> { });
+    }
+
+    /**
+     * Returns a {@code Gatherer} that applies the given function to each
+     * element asynchronously, with at most the given number of applications
+     * in progress at once, and produces the results in encounter order.
+     * The function is applied in the asynchronous execution facility used
+     * by {@link CompletableFuture#supplyAsync(Supplier)}.
+     *
+     * <p>If an application of the function throws an exception, the
+     * exception is rethrown from the stream operation, or wrapped in a
+     * {@link CompletionException} if it is a checked exception, and the
+     * remaining applications are cancelled.  Applications are also
+     * cancelled once the downstream wants no more elements.
+     *
+     * @apiNote
+     * This suits functions that spend most of their time blocked, such as
+     * remote calls, where it bounds the number of calls in flight while
+     * overlapping their latencies.  As the function runs in a shared pool,
+     * a function that blocks for long periods should be used with a small
+     * {@code maxConcurrency}.
+     *
+     * @param <T> the type of input elements
+     * @param <R> the type of results
+     * @param maxConcurrency the maximum number of applications in progress
+     * @param mapper function to apply to each element
+     * @return a new {@code Gatherer} mapping elements concurrently
+     * @throws IllegalArgumentException if {@code maxConcurrency} is less
+     *         than 1
+     * @throws NullPointerException if {@code mapper} is null
+     */
+    public static <T, R> Gatherer<T, ?, R> mapConcurrent(
+            int maxConcurrency,
+            Function<? super T, ? extends R> mapper) {
+        if (maxConcurrency < 1)
+            throw new IllegalArgumentException("'maxConcurrency' must be greater than zero");
+        Objects.requireNonNull(mapper, "'mapper' must not be null");
+        class State {
+            final ArrayDeque<CompletableFuture<R>> window =
+                new ArrayDeque<>(Math.min(maxConcurrency, 16));
+
+            boolean integrate(T element, Gatherer.Downstream<? super R> downstream) {
+                if (window.size() == maxConcurrency && !pushHead(downstream))
+                    return false;
+                window.add(CompletableFuture.supplyAsync(() -> mapper.apply(element)));
+                return true;
+            }
+
+            boolean pushHead(Gatherer.Downstream<? super R> downstream) {
+                CompletableFuture<R> f = window.poll();
+                R r;
+                try {
+                    r = f.join();
+                } catch (CompletionException | CancellationException ex) {
+                    cancelAll();
+                    Throwable cause = ex.getCause();
+                    if (ex instanceof CompletionException) {
+                        if (cause instanceof RuntimeException)
+                            throw (RuntimeException) cause;
+                        if (cause instanceof Error)
+                            throw (Error) cause;
+                    }
+                    throw ex;
+                }
+                if (downstream.push(r))
+                    return true;
+                cancelAll();
+                return false;
+            }
+
+            void cancelAll() {
+                for (CompletableFuture<R> f; (f = window.poll()) != null; )
+                    f.cancel(true);
+            }
+
+            void finish(Gatherer.Downstream<? super R> downstream) {
+                while (!window.isEmpty()) {
+                    if (downstream.isRejecting()) {
+                        cancelAll();
+                        break;
+                    }
+                    pushHead(downstream);
+                }
+            }
+        }
+        return Gatherer.<T, State, R>ofSequential(
+                State::new,
+                State::integrate,
+                State::finish);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> listOf(Object[] elements) {
+        return Collections.unmodifiableList((List<T>) Arrays.asList(elements));
+    }
+}
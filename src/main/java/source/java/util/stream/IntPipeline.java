@@ -24,6 +24,7 @@
  */
 package java.util.stream;
 
+import java.util.IntObjectMap;
 import java.util.IntSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -451,6 +452,25 @@ abstract class IntPipeline<E_IN>
                        IntSummaryStatistics::combine);
     }
 
+    @Override
+    public final <R> IntObjectMap<R> collectBy(IntUnaryOperator classifier,
+                                               Supplier<R> supplier,
+                                               ObjIntConsumer<R> accumulator,
+                                               BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(combiner);
+        BinaryOperator<R> operator = (left, right) -> {
+            combiner.accept(left, right);
+            return left;
+        };
+        return evaluate(ReduceOps.makeIntGrouping(classifier, supplier, accumulator, operator));
+    }
+
+    @Override
+    public final IntObjectMap<IntSummaryStatistics> summaryStatisticsBy(IntUnaryOperator classifier) {
+        return collectBy(classifier, IntSummaryStatistics::new, IntSummaryStatistics::accept,
+                         IntSummaryStatistics::combine);
+    }
+
     @Override
     public final int reduce(int identity, IntBinaryOperator op) {
         return evaluate(ReduceOps.makeInt(identity, op));
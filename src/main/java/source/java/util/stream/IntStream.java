@@ -25,6 +25,7 @@
 package java.util.stream;
 
 import java.util.Arrays;
+import java.util.IntObjectMap;
 import java.util.IntSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -535,6 +536,86 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
      */
     IntSummaryStatistics summaryStatistics();
 
+    /**
+     * Performs a grouped <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream.  Each element
+     * is mapped to a key by the classifier function, and incorporated, as by
+     * {@link #collect(Supplier, ObjIntConsumer, BiConsumer) collect}, into the
+     * result container for that key, which is created by the supplier when
+     * the key is first seen.  Neither elements nor keys are boxed.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @param <R> type of the result containers
+     * @param classifier a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   function mapping elements to keys
+     * @param supplier a function that creates a new result container
+     * @param accumulator an <a href="package-summary.html#Associativity">associative</a>,
+     *                    <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                    <a href="package-summary.html#Statelessness">stateless</a>
+     *                    function for incorporating an additional element into a result
+     * @param combiner an <a href="package-summary.html#Associativity">associative</a>,
+     *                    <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                    <a href="package-summary.html#Statelessness">stateless</a>
+     *                    function for combining two values, which must be
+     *                    compatible with the accumulator function
+     * @return a map from each key to the result of the reduction of the
+     * elements with that key
+     * @implSpec
+     * The default implementation performs a {@link #collect(Supplier,
+     * ObjIntConsumer, BiConsumer) collect} into an {@code IntObjectMap},
+     * merging the maps of different subtasks key by key with the combiner.
+     * @see #collect(Supplier, ObjIntConsumer, BiConsumer)
+     * @see Collectors#groupingByInt
+     * @since 1.8
+     */
+    default <R> IntObjectMap<R> collectBy(IntUnaryOperator classifier,
+                                          Supplier<R> supplier,
+                                          ObjIntConsumer<R> accumulator,
+                                          BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        return collect(IntObjectMap<R>::new,
+                       (map, e) -> accumulator.accept(
+                           map.computeIfAbsent(classifier.applyAsInt(e),
+                                               k -> supplier.get()), e),
+                       (left, right) -> right.forEach(
+                           (k, v) -> left.merge(k, v, (a, b) -> {
+                               combiner.accept(a, b);
+                               return a;
+                           })));
+    }
+
+    /**
+     * Returns an {@code IntSummaryStatistics} describing the elements of
+     * this stream for each key produced by the classifier function.  This is
+     * a special case of a grouped
+     * <a href="package-summary.html#Reduction">reduction</a>.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @param classifier a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   function mapping elements to keys
+     * @return a map from each key to an {@code IntSummaryStatistics}
+     * describing the elements with that key
+     * @implSpec
+     * The default implementation is equivalent to {@code
+     * collectBy(classifier, IntSummaryStatistics::new,
+     * IntSummaryStatistics::accept, IntSummaryStatistics::combine)}.
+     * @see #collectBy
+     * @since 1.8
+     */
+    default IntObjectMap<IntSummaryStatistics> summaryStatisticsBy(IntUnaryOperator classifier) {
+        return collectBy(classifier, IntSummaryStatistics::new, IntSummaryStatistics::accept,
+                         IntSummaryStatistics::combine);
+    }
+
     /**
      * Returns whether any elements of this stream match the provided
      * predicate.  May not evaluate the predicate on all elements if not
@@ -24,6 +24,8 @@
  */
 package java.util.stream;
 
+import java.util.LongLongMap;
+import java.util.LongObjectMap;
 import java.util.LongSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -433,6 +435,35 @@ abstract class LongPipeline<E_IN>
                        LongSummaryStatistics::combine);
     }
 
+    @Override
+    public final <R> LongObjectMap<R> collectBy(LongUnaryOperator classifier,
+                                                Supplier<R> supplier,
+                                                ObjLongConsumer<R> accumulator,
+                                                BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(combiner);
+        BinaryOperator<R> operator = (left, right) -> {
+            combiner.accept(left, right);
+            return left;
+        };
+        return evaluate(ReduceOps.makeLongGrouping(classifier, supplier, accumulator, operator));
+    }
+
+    @Override
+    public final LongObjectMap<LongSummaryStatistics> summaryStatisticsBy(LongUnaryOperator classifier) {
+        return collectBy(classifier, LongSummaryStatistics::new, LongSummaryStatistics::accept,
+                         LongSummaryStatistics::combine);
+    }
+
+    @Override
+    public final LongLongMap sumBy(LongUnaryOperator classifier) {
+        return evaluate(ReduceOps.makeLongSumming(classifier, e -> e));
+    }
+
+    @Override
+    public final LongLongMap countBy(LongUnaryOperator classifier) {
+        return evaluate(ReduceOps.makeLongSumming(classifier, e -> 1L));
+    }
+
     @Override
     public final long reduce(long identity, LongBinaryOperator op) {
         return evaluate(ReduceOps.makeLong(identity, op));
@@ -29,6 +29,8 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LongLongMap;
+import java.util.LongObjectMap;
 import java.util.LongSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -540,6 +542,147 @@ public interface LongStream extends BaseStream<Long, LongStream> {
      */
     LongSummaryStatistics summaryStatistics();
 
+    /**
+     * Performs a grouped <a href="package-summary.html#MutableReduction">mutable
+     * reduction</a> operation on the elements of this stream.  Each element
+     * is mapped to a key by the classifier function, and incorporated, as by
+     * {@link #collect(Supplier, ObjLongConsumer, BiConsumer) collect}, into the
+     * result container for that key, which is created by the supplier when
+     * the key is first seen.  Neither elements nor keys are boxed.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @apiNote
+     * For example, to find which offsets are in use within each block of
+     * 1024 addresses:
+     * <pre>{@code
+     *     LongObjectMap<BitSet> offsetsByBlock =
+     *         addresses.collectBy(a -> a >>> 10, BitSet::new,
+     *                             (bits, a) -> bits.set((int) (a & 1023)),
+     *                             BitSet::or);
+     * }</pre>
+     * Grouping into a {@code LongSummaryStatistics}, sum or count per key is
+     * provided by {@link #summaryStatisticsBy}, {@link #sumBy} and
+     * {@link #countBy}.
+     *
+     * @param <R> type of the result containers
+     * @param classifier a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   function mapping elements to keys
+     * @param supplier a function that creates a new result container
+     * @param accumulator an <a href="package-summary.html#Associativity">associative</a>,
+     *                    <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                    <a href="package-summary.html#Statelessness">stateless</a>
+     *                    function for incorporating an additional element into a result
+     * @param combiner an <a href="package-summary.html#Associativity">associative</a>,
+     *                    <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                    <a href="package-summary.html#Statelessness">stateless</a>
+     *                    function for combining two values, which must be
+     *                    compatible with the accumulator function
+     * @return a map from each key to the result of the reduction of the
+     * elements with that key
+     * @implSpec
+     * The default implementation performs a {@link #collect(Supplier,
+     * ObjLongConsumer, BiConsumer) collect} into a {@code LongObjectMap},
+     * merging the maps of different subtasks key by key with the combiner.
+     * @see #collect(Supplier, ObjLongConsumer, BiConsumer)
+     * @see Collectors#groupingByLong
+     * @since 1.8
+     */
+    default <R> LongObjectMap<R> collectBy(LongUnaryOperator classifier,
+                                           Supplier<R> supplier,
+                                           ObjLongConsumer<R> accumulator,
+                                           BiConsumer<R, R> combiner) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        Objects.requireNonNull(combiner);
+        return collect(LongObjectMap<R>::new,
+                       (map, e) -> accumulator.accept(
+                           map.computeIfAbsent(classifier.applyAsLong(e),
+                                               k -> supplier.get()), e),
+                       (left, right) -> right.forEach(
+                           (k, v) -> left.merge(k, v, (a, b) -> {
+                               combiner.accept(a, b);
+                               return a;
+                           })));
+    }
+
+    /**
+     * Returns a {@code LongSummaryStatistics} describing the elements of
+     * this stream for each key produced by the classifier function.  This is
+     * a special case of a grouped
+     * <a href="package-summary.html#Reduction">reduction</a>.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @param classifier a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   function mapping elements to keys
+     * @return a map from each key to a {@code LongSummaryStatistics}
+     * describing the elements with that key
+     * @implSpec
+     * The default implementation is equivalent to {@code
+     * collectBy(classifier, LongSummaryStatistics::new,
+     * LongSummaryStatistics::accept, LongSummaryStatistics::combine)}.
+     * @see #collectBy
+     * @since 1.8
+     */
+    default LongObjectMap<LongSummaryStatistics> summaryStatisticsBy(LongUnaryOperator classifier) {
+        return collectBy(classifier, LongSummaryStatistics::new, LongSummaryStatistics::accept,
+                         LongSummaryStatistics::combine);
+    }
+
+    /**
+     * Returns the sum of the elements of this stream for each key produced
+     * by the classifier function.  This is a special case of a grouped
+     * <a href="package-summary.html#Reduction">reduction</a>.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @param classifier a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   function mapping elements to keys
+     * @return a map from each key to the sum of the elements with that key
+     * @implSpec
+     * The default implementation performs a {@link #collect(Supplier,
+     * ObjLongConsumer, BiConsumer) collect} into a {@code LongLongMap}.
+     * @since 1.8
+     */
+    default LongLongMap sumBy(LongUnaryOperator classifier) {
+        Objects.requireNonNull(classifier);
+        return collect(LongLongMap::new,
+                       (map, e) -> map.addTo(classifier.applyAsLong(e), e),
+                       (left, right) -> right.forEach(left::addTo));
+    }
+
+    /**
+     * Returns the number of elements of this stream for each key produced
+     * by the classifier function.  This is a special case of a grouped
+     * <a href="package-summary.html#Reduction">reduction</a>.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @param classifier a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   function mapping elements to keys
+     * @return a map from each key to the number of elements with that key
+     * @implSpec
+     * The default implementation performs a {@link #collect(Supplier,
+     * ObjLongConsumer, BiConsumer) collect} into a {@code LongLongMap}.
+     * @since 1.8
+     */
+    default LongLongMap countBy(LongUnaryOperator classifier) {
+        Objects.requireNonNull(classifier);
+        return collect(LongLongMap::new,
+                       (map, e) -> map.addTo(classifier.applyAsLong(e), 1L),
+                       (left, right) -> right.forEach(left::addTo));
+    }
+
     /**
      * Returns whether any elements of this stream match the provided
      * predicate.  May not evaluate the predicate on all elements if not
@@ -202,7 +202,8 @@ final class Nodes {
      * @return a {@code Node.Builder.OfInt}
      */
     static Node.Builder.OfInt intBuilder(long exactSizeIfKnown) {
-        return (exactSizeIfKnown >= 0 && exactSizeIfKnown < MAX_ARRAY_SIZE)
+        return (exactSizeIfKnown >= 0 && exactSizeIfKnown < MAX_ARRAY_SIZE
+                && OffHeapSpinedBuffer.fitsHeap(exactSizeIfKnown, 2))
                ? new IntFixedNodeBuilder(exactSizeIfKnown)
                : intBuilder();
     }
@@ -213,7 +214,9 @@ final class Nodes {
      * @return a {@code Node.Builder.OfInt}
      */
     static Node.Builder.OfInt intBuilder() {
-        return new IntSpinedNodeBuilder();
+        return OffHeapSpinedBuffer.isEnabled()
+               ? new OffHeapSpinedBuffer.OfInt()
+               : new IntSpinedNodeBuilder();
     }
 
     // Long nodes
@@ -239,7 +242,8 @@ final class Nodes {
      * @return a {@code Node.Builder.OfLong}
      */
     static Node.Builder.OfLong longBuilder(long exactSizeIfKnown) {
-        return (exactSizeIfKnown >= 0 && exactSizeIfKnown < MAX_ARRAY_SIZE)
+        return (exactSizeIfKnown >= 0 && exactSizeIfKnown < MAX_ARRAY_SIZE
+                && OffHeapSpinedBuffer.fitsHeap(exactSizeIfKnown, 3))
                ? new LongFixedNodeBuilder(exactSizeIfKnown)
                : longBuilder();
     }
@@ -250,7 +254,9 @@ final class Nodes {
      * @return a {@code Node.Builder.OfLong}
      */
     static Node.Builder.OfLong longBuilder() {
-        return new LongSpinedNodeBuilder();
+        return OffHeapSpinedBuffer.isEnabled()
+               ? new OffHeapSpinedBuffer.OfLong()
+               : new LongSpinedNodeBuilder();
     }
 
     // Double nodes
@@ -276,7 +282,8 @@ final class Nodes {
      * @return a {@code Node.Builder.OfDouble}
      */
     static Node.Builder.OfDouble doubleBuilder(long exactSizeIfKnown) {
-        return (exactSizeIfKnown >= 0 && exactSizeIfKnown < MAX_ARRAY_SIZE)
+        return (exactSizeIfKnown >= 0 && exactSizeIfKnown < MAX_ARRAY_SIZE
+                && OffHeapSpinedBuffer.fitsHeap(exactSizeIfKnown, 3))
                ? new DoubleFixedNodeBuilder(exactSizeIfKnown)
                : doubleBuilder();
     }
@@ -287,7 +294,9 @@ final class Nodes {
      * @return a {@code Node.Builder.OfDouble}
      */
     static Node.Builder.OfDouble doubleBuilder() {
-        return new DoubleSpinedNodeBuilder();
+        return OffHeapSpinedBuffer.isEnabled()
+               ? new OffHeapSpinedBuffer.OfDouble()
+               : new DoubleSpinedNodeBuilder();
     }
 
     // Parallel evaluation of pipelines to nodes
@@ -343,7 +352,10 @@ final class Nodes {
      * tasks at the correct offsets.  If the exact size is not known, output
      * elements are collected into a conc-node whose shape mirrors that
      * of the computation. This conc-node can then be flattened in
-     * parallel to produce a flat {@code Node.OfInt} if desired.
+     * parallel to produce a flat {@code Node.OfInt} if desired.  A known
+     * size that exceeds the heap budget of {@link OffHeapSpinedBuffer} is
+     * treated as unknown unless the tree is to be flattened, so that leaf
+     * tasks collect into buffers that may spill off the heap.
      *
      * @param <P_IN> the type of elements from the source Spliterator
      * @param helper the pipeline helper describing the pipeline
@@ -355,7 +367,8 @@ final class Nodes {
                                                Spliterator<P_IN> spliterator,
                                                boolean flattenTree) {
         long size = helper.exactOutputSizeIfKnown(spliterator);
-        if (size >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+        if (size >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)
+            && (flattenTree || OffHeapSpinedBuffer.fitsHeap(size, 2))) {
             if (size >= MAX_ARRAY_SIZE)
                 throw new IllegalArgumentException(BAD_SIZE);
             int[] array = new int[(int) size];
@@ -381,7 +394,10 @@ final class Nodes {
      * tasks at the correct offsets.  If the exact size is not known, output
      * elements are collected into a conc-node whose shape mirrors that
      * of the computation. This conc-node can then be flattened in
-     * parallel to produce a flat {@code Node.OfLong} if desired.
+     * parallel to produce a flat {@code Node.OfLong} if desired.  A known
+     * size that exceeds the heap budget of {@link OffHeapSpinedBuffer} is
+     * treated as unknown unless the tree is to be flattened, so that leaf
+     * tasks collect into buffers that may spill off the heap.
      *
      * @param <P_IN> the type of elements from the source Spliterator
      * @param helper the pipeline helper describing the pipeline
@@ -393,7 +409,8 @@ final class Nodes {
                                                  Spliterator<P_IN> spliterator,
                                                  boolean flattenTree) {
         long size = helper.exactOutputSizeIfKnown(spliterator);
-        if (size >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+        if (size >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)
+            && (flattenTree || OffHeapSpinedBuffer.fitsHeap(size, 3))) {
             if (size >= MAX_ARRAY_SIZE)
                 throw new IllegalArgumentException(BAD_SIZE);
             long[] array = new long[(int) size];
@@ -419,7 +436,10 @@ final class Nodes {
      * tasks at the correct offsets.  If the exact size is not known, output
      * elements are collected into a conc-node whose shape mirrors that
      * of the computation. This conc-node can then be flattened in
-     * parallel to produce a flat {@code Node.OfDouble} if desired.
+     * parallel to produce a flat {@code Node.OfDouble} if desired.  A known
+     * size that exceeds the heap budget of {@link OffHeapSpinedBuffer} is
+     * treated as unknown unless the tree is to be flattened, so that leaf
+     * tasks collect into buffers that may spill off the heap.
      *
      * @param <P_IN> the type of elements from the source Spliterator
      * @param helper the pipeline helper describing the pipeline
@@ -431,7 +451,8 @@ final class Nodes {
                                                      Spliterator<P_IN> spliterator,
                                                      boolean flattenTree) {
         long size = helper.exactOutputSizeIfKnown(spliterator);
-        if (size >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)) {
+        if (size >= 0 && spliterator.hasCharacteristics(Spliterator.SUBSIZED)
+            && (flattenTree || OffHeapSpinedBuffer.fitsHeap(size, 3))) {
             if (size >= MAX_ARRAY_SIZE)
                 throw new IllegalArgumentException(BAD_SIZE);
             double[] array = new double[(int) size];
@@ -0,0 +1,798 @@
+/*
+ * Copyright (c) 2014, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DirectBufferPool;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.LongConsumer;
+
+/**
+ * An ordered, append-only collection of primitive elements whose storage may
+ * spill out of the Java heap.  Like {@link SpinedBuffer}, elements are held
+ * in a sequence of chunks of increasing size, so growing never copies; but
+ * chunks are {@link ByteBuffer}s, and once the chunks of a buffer occupy
+ * more than its heap budget, further chunks are allocated as direct buffers
+ * or, if a spill directory is configured, as buffers mapped from temporary
+ * files in that directory.  Huge intermediate results then no longer
+ * inflate the heap and provoke full collections.
+ *
+ * <p>Spilling is configured by two system properties, read once:
+ * <ul>
+ * <li>{@code java.util.stream.heapBudget}: the number of bytes of heap
+ * an intermediate primitive buffer may occupy before spilling.  If absent
+ * or negative, spilling is disabled and streams buffer on the heap as
+ * before.</li>
+ * <li>{@code java.util.stream.spillDirectory}: if present, the directory
+ * in which temporary files backing spilled chunks are created; otherwise
+ * spilled chunks are direct buffers from the {@link DirectBufferPool}.</li>
+ * </ul>
+ *
+ * <p>Each buffer is also a {@link Node} and a {@link Node.Builder} of its
+ * shape, so that it can stand in for the heap spined node builders of
+ * {@link Nodes}.  Off-heap storage is reclaimed when the buffer becomes
+ * unreachable, or eagerly by {@link #release()}.
+ *
+ * @since 1.8
+ */
+abstract class OffHeapSpinedBuffer {
+
+    /** Per-buffer heap budget in bytes, or negative if spilling is disabled */
+    static final long HEAP_BUDGET = AccessController.doPrivileged(
+            (PrivilegedAction<Long>) () -> Long.getLong("java.util.stream.heapBudget", -1L));
+
+    /** Directory for files backing spilled chunks, or null for direct buffers */
+    static final String SPILL_DIRECTORY = AccessController.doPrivileged(
+            (PrivilegedAction<String>) () -> System.getProperty("java.util.stream.spillDirectory"));
+
+    /** Minimum power-of-two for the first chunk */
+    static final int MIN_CHUNK_POWER = 4;
+
+    /** Max power-of-two for chunks */
+    static final int MAX_CHUNK_POWER = 20;
+
+    /**
+     * Returns whether spilling is enabled.
+     */
+    static boolean isEnabled() {
+        return HEAP_BUDGET >= 0L;
+    }
+
+    /**
+     * Returns whether {@code count} elements of {@code 1 << elementShift}
+     * bytes each may be buffered on the heap.
+     */
+    static boolean fitsHeap(long count, int elementShift) {
+        return HEAP_BUDGET < 0L || count <= (HEAP_BUDGET >> elementShift);
+    }
+
+    /** log2 of the element size in bytes */
+    private final int elementShift;
+
+    /** Bytes of heap chunks this buffer may still allocate */
+    private long heapRemaining;
+
+    /** Typed views of all chunks */
+    Buffer[] chunks;
+
+    /** The byte buffers backing chunks, for eager release */
+    private ByteBuffer[] backing;
+
+    /** priorElementCount[i] is the number of elements in chunks prior to i */
+    long[] priorElementCount;
+
+    /** Number of chunks in use */
+    int chunkCount;
+
+    /** Number of elements in this buffer */
+    long count;
+
+    /** Whether the buffer is between begin and end when used as a builder */
+    boolean building;
+
+    /**
+     * Constructs an empty buffer.
+     *
+     * @param elementShift log2 of the element size in bytes
+     * @param heapBudget bytes of heap the chunks may occupy before spilling
+     */
+    OffHeapSpinedBuffer(int elementShift, long heapBudget) {
+        this.elementShift = elementShift;
+        this.heapRemaining = heapBudget;
+        this.chunks = new Buffer[8];
+        this.backing = new ByteBuffer[8];
+        this.priorElementCount = new long[8];
+    }
+
+    /** Returns a typed view of a chunk */
+    abstract Buffer view(ByteBuffer chunk);
+
+    /**
+     * Returns the number of elements in this buffer.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Appends a new chunk, on the heap while the budget allows and off the
+     * heap afterwards, and returns its typed view.
+     */
+    final Buffer nextChunk() {
+        int capacity = 1 << Math.min(MIN_CHUNK_POWER + chunkCount, MAX_CHUNK_POWER);
+        int bytes = capacity << elementShift;
+        ByteBuffer chunk;
+        if (bytes <= heapRemaining) {
+            heapRemaining -= bytes;
+            chunk = ByteBuffer.allocate(bytes);
+        }
+        else {
+            heapRemaining = 0L;
+            chunk = allocateOffHeap(bytes);
+        }
+        chunk.order(ByteOrder.nativeOrder());
+        Buffer v = view(chunk);
+        if (chunkCount == chunks.length) {
+            int n = chunkCount << 1;
+            chunks = Arrays.copyOf(chunks, n);
+            backing = Arrays.copyOf(backing, n);
+            priorElementCount = Arrays.copyOf(priorElementCount, n);
+        }
+        chunks[chunkCount] = v;
+        backing[chunkCount] = chunk;
+        priorElementCount[chunkCount] = count;
+        chunkCount++;
+        return v;
+    }
+
+    /**
+     * Allocates a chunk of the given size outside the heap.
+     */
+    private static ByteBuffer allocateOffHeap(int bytes) {
+        String dir = SPILL_DIRECTORY;
+        if (dir == null)
+            return DirectBufferPool.allocate(bytes);
+        return AccessController.doPrivileged((PrivilegedAction<ByteBuffer>) () -> {
+            try {
+                Path file = Files.createTempFile(Paths.get(dir), "stream", ".spill");
+                try (FileChannel fc = FileChannel.open(file, StandardOpenOption.READ,
+                                                       StandardOpenOption.WRITE)) {
+                    return fc.map(FileChannel.MapMode.READ_WRITE, 0L, bytes);
+                }
+                finally {
+                    // The mapping outlives the file on platforms that allow it
+                    try {
+                        Files.delete(file);
+                    }
+                    catch (IOException e) {
+                        file.toFile().deleteOnExit();
+                    }
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Returns the index of the chunk holding the element at the given index.
+     */
+    final int chunkFor(long index) {
+        if (index < 0L || index >= count)
+            throw new IndexOutOfBoundsException(Long.toString(index));
+        int i = Arrays.binarySearch(priorElementCount, 0, chunkCount, index);
+        return (i >= 0) ? i : -i - 2;
+    }
+
+    /**
+     * Returns the number of elements held in the given chunk.
+     */
+    final int chunkLength(int chunk) {
+        long end = (chunk + 1 < chunkCount) ? priorElementCount[chunk + 1] : count;
+        return (int) (end - priorElementCount[chunk]);
+    }
+
+    /**
+     * Removes all elements, dropping the chunks.
+     */
+    public void clear() {
+        Arrays.fill(chunks, 0, chunkCount, null);
+        Arrays.fill(backing, 0, chunkCount, null);
+        chunkCount = 0;
+        count = 0L;
+    }
+
+    /**
+     * Removes all elements and frees off-heap chunks immediately, rather
+     * than when they become unreachable.  The caller must ensure that no
+     * spliterator over this buffer is still in use.
+     */
+    public void release() {
+        for (int i = 0; i < chunkCount; i++) {
+            ByteBuffer b = backing[i];
+            if (!b.isDirect())
+                continue;
+            if (SPILL_DIRECTORY == null) {
+                DirectBufferPool.release(b);
+            }
+            else {
+                sun.misc.Cleaner c = ((sun.nio.ch.DirectBuffer) b).cleaner();
+                if (c != null)
+                    c.clean();
+            }
+        }
+        clear();
+    }
+
+    /**
+     * Base of spliterators over a range of element indexes, tracking the
+     * chunk holding the next element.
+     */
+    abstract class BaseSpliterator {
+        long index;
+        final long fence;
+        int chunk;
+        long chunkStart, chunkEnd;
+
+        BaseSpliterator(long origin, long fence) {
+            this.index = origin;
+            this.fence = fence;
+            this.chunkEnd = -1L;
+        }
+
+        /**
+         * Moves to the chunk holding the element at {@code index} if
+         * necessary, and returns the offset of that element within it.
+         */
+        final int offset() {
+            if (index < chunkStart || index >= chunkEnd) {
+                chunk = chunkFor(index);
+                chunkStart = priorElementCount[chunk];
+                chunkEnd = chunkStart + chunkLength(chunk);
+            }
+            return (int) (index - chunkStart);
+        }
+
+        /**
+         * Returns the number of remaining elements in the current chunk,
+         * after a call to {@link #offset()}.
+         */
+        final int run() {
+            return (int) (Math.min(fence, chunkEnd) - index);
+        }
+
+        /**
+         * Returns the midpoint of the remaining range and advances past it,
+         * or returns -1 if the range is too small to split.
+         */
+        final long split() {
+            long lo = index, mid = (lo + fence) >>> 1;
+            if (mid <= lo)
+                return -1L;
+            index = mid;
+            return lo;
+        }
+
+        public long estimateSize() {
+            return fence - index;
+        }
+
+        public int characteristics() {
+            return Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED;
+        }
+    }
+
+    /**
+     * An off-heap spined buffer of {@code int} elements.
+     */
+    static final class OfInt extends OffHeapSpinedBuffer
+            implements Node.OfInt, Node.Builder.OfInt {
+        private IntBuffer cur;
+
+        /**
+         * Constructs an empty buffer with the configured heap budget.
+         */
+        OfInt() {
+            this(Math.max(HEAP_BUDGET, 0L));
+        }
+
+        /**
+         * Constructs an empty buffer with the given heap budget.
+         */
+        OfInt(long heapBudget) {
+            super(2, heapBudget);
+        }
+
+        @Override
+        Buffer view(ByteBuffer chunk) {
+            return chunk.asIntBuffer();
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            cur = null;
+        }
+
+        @Override
+        public void accept(int i) {
+            IntBuffer c = cur;
+            if (c == null || !c.hasRemaining())
+                cur = c = (IntBuffer) nextChunk();
+            c.put(i);
+            count++;
+        }
+
+        /**
+         * Appends a range of elements of an array.
+         */
+        void accept(int[] array, int offset, int length) {
+            while (length > 0) {
+                IntBuffer c = cur;
+                if (c == null || !c.hasRemaining())
+                    cur = c = (IntBuffer) nextChunk();
+                int n = Math.min(length, c.remaining());
+                c.put(array, offset, n);
+                offset += n;
+                length -= n;
+                count += n;
+            }
+        }
+
+        /**
+         * Returns the element at the given index.
+         */
+        int get(long index) {
+            int i = chunkFor(index);
+            return ((IntBuffer) chunks[i]).get((int) (index - priorElementCount[i]));
+        }
+
+        @Override
+        public void begin(long size) {
+            assert !building : "was already building";
+            building = true;
+            clear();
+        }
+
+        @Override
+        public void end() {
+            assert building : "was not building";
+            building = false;
+        }
+
+        @Override
+        public Node.OfInt build() {
+            assert !building : "during building";
+            return this;
+        }
+
+        @Override
+        public void forEach(IntConsumer consumer) {
+            assert !building : "during building";
+            for (int j = 0; j < chunkCount; j++) {
+                IntBuffer c = (IntBuffer) chunks[j];
+                for (int i = 0, n = chunkLength(j); i < n; i++)
+                    consumer.accept(c.get(i));
+            }
+        }
+
+        @Override
+        public void copyInto(int[] array, int offset) {
+            assert !building : "during building";
+            long finalOffset = offset + count;
+            if (finalOffset > array.length || finalOffset < offset)
+                throw new IndexOutOfBoundsException("does not fit");
+            for (int j = 0; j < chunkCount; j++) {
+                IntBuffer c = ((IntBuffer) chunks[j]).duplicate();
+                int n = chunkLength(j);
+                c.clear();
+                c.get(array, offset, n);
+                offset += n;
+            }
+        }
+
+        @Override
+        public int[] asPrimitiveArray() {
+            if (count >= Nodes.MAX_ARRAY_SIZE)
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            int[] result = new int[(int) count];
+            copyInto(result, 0);
+            return result;
+        }
+
+        @Override
+        public Spliterator.OfInt spliterator() {
+            assert !building : "during building";
+            return new Splitr(0L, count);
+        }
+
+        final class Splitr extends BaseSpliterator implements Spliterator.OfInt {
+            Splitr(long origin, long fence) {
+                super(origin, fence);
+            }
+
+            @Override
+            public boolean tryAdvance(IntConsumer action) {
+                if (index >= fence)
+                    return false;
+                int off = offset();
+                index++;
+                action.accept(((IntBuffer) chunks[chunk]).get(off));
+                return true;
+            }
+
+            @Override
+            public void forEachRemaining(IntConsumer action) {
+                while (index < fence) {
+                    int off = offset(), n = run();
+                    IntBuffer c = (IntBuffer) chunks[chunk];
+                    index += n;
+                    for (int i = off, end = off + n; i < end; i++)
+                        action.accept(c.get(i));
+                }
+            }
+
+            @Override
+            public Spliterator.OfInt trySplit() {
+                long lo = split();
+                return (lo < 0L) ? null : new Splitr(lo, index);
+            }
+        }
+    }
+
+    /**
+     * An off-heap spined buffer of {@code long} elements.
+     */
+    static final class OfLong extends OffHeapSpinedBuffer
+            implements Node.OfLong, Node.Builder.OfLong {
+        private LongBuffer cur;
+
+        /**
+         * Constructs an empty buffer with the configured heap budget.
+         */
+        OfLong() {
+            this(Math.max(HEAP_BUDGET, 0L));
+        }
+
+        /**
+         * Constructs an empty buffer with the given heap budget.
+         */
+        OfLong(long heapBudget) {
+            super(3, heapBudget);
+        }
+
+        @Override
+        Buffer view(ByteBuffer chunk) {
+            return chunk.asLongBuffer();
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            cur = null;
+        }
+
+        @Override
+        public void accept(long i) {
+            LongBuffer c = cur;
+            if (c == null || !c.hasRemaining())
+                cur = c = (LongBuffer) nextChunk();
+            c.put(i);
+            count++;
+        }
+
+        /**
+         * Appends a range of elements of an array.
+         */
+        void accept(long[] array, int offset, int length) {
+            while (length > 0) {
+                LongBuffer c = cur;
+                if (c == null || !c.hasRemaining())
+                    cur = c = (LongBuffer) nextChunk();
+                int n = Math.min(length, c.remaining());
+                c.put(array, offset, n);
+                offset += n;
+                length -= n;
+                count += n;
+            }
+        }
+
+        /**
+         * Returns the element at the given index.
+         */
+        long get(long index) {
+            int i = chunkFor(index);
+            return ((LongBuffer) chunks[i]).get((int) (index - priorElementCount[i]));
+        }
+
+        @Override
+        public void begin(long size) {
+            assert !building : "was already building";
+            building = true;
+            clear();
+        }
+
+        @Override
+        public void end() {
+            assert building : "was not building";
+            building = false;
+        }
+
+        @Override
+        public Node.OfLong build() {
+            assert !building : "during building";
+            return this;
+        }
+
+        @Override
+        public void forEach(LongConsumer consumer) {
+            assert !building : "during building";
+            for (int j = 0; j < chunkCount; j++) {
+                LongBuffer c = (LongBuffer) chunks[j];
+                for (int i = 0, n = chunkLength(j); i < n; i++)
+                    consumer.accept(c.get(i));
+            }
+        }
+
+        @Override
+        public void copyInto(long[] array, int offset) {
+            assert !building : "during building";
+            long finalOffset = offset + count;
+            if (finalOffset > array.length || finalOffset < offset)
+                throw new IndexOutOfBoundsException("does not fit");
+            for (int j = 0; j < chunkCount; j++) {
+                LongBuffer c = ((LongBuffer) chunks[j]).duplicate();
+                int n = chunkLength(j);
+                c.clear();
+                c.get(array, offset, n);
+                offset += n;
+            }
+        }
+
+        @Override
+        public long[] asPrimitiveArray() {
+            if (count >= Nodes.MAX_ARRAY_SIZE)
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            long[] result = new long[(int) count];
+            copyInto(result, 0);
+            return result;
+        }
+
+        @Override
+        public Spliterator.OfLong spliterator() {
+            assert !building : "during building";
+            return new Splitr(0L, count);
+        }
+
+        final class Splitr extends BaseSpliterator implements Spliterator.OfLong {
+            Splitr(long origin, long fence) {
+                super(origin, fence);
+            }
+
+            @Override
+            public boolean tryAdvance(LongConsumer action) {
+                if (index >= fence)
+                    return false;
+                int off = offset();
+                index++;
+                action.accept(((LongBuffer) chunks[chunk]).get(off));
+                return true;
+            }
+
+            @Override
+            public void forEachRemaining(LongConsumer action) {
+                while (index < fence) {
+                    int off = offset(), n = run();
+                    LongBuffer c = (LongBuffer) chunks[chunk];
+                    index += n;
+                    for (int i = off, end = off + n; i < end; i++)
+                        action.accept(c.get(i));
+                }
+            }
+
+            @Override
+            public Spliterator.OfLong trySplit() {
+                long lo = split();
+                return (lo < 0L) ? null : new Splitr(lo, index);
+            }
+        }
+    }
+
+    /**
+     * An off-heap spined buffer of {@code double} elements.
+     */
+    static final class OfDouble extends OffHeapSpinedBuffer
+            implements Node.OfDouble, Node.Builder.OfDouble {
+        private DoubleBuffer cur;
+
+        /**
+         * Constructs an empty buffer with the configured heap budget.
+         */
+        OfDouble() {
+            this(Math.max(HEAP_BUDGET, 0L));
+        }
+
+        /**
+         * Constructs an empty buffer with the given heap budget.
+         */
+        OfDouble(long heapBudget) {
+            super(3, heapBudget);
+        }
+
+        @Override
+        Buffer view(ByteBuffer chunk) {
+            return chunk.asDoubleBuffer();
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            cur = null;
+        }
+
+        @Override
+        public void accept(double i) {
+            DoubleBuffer c = cur;
+            if (c == null || !c.hasRemaining())
+                cur = c = (DoubleBuffer) nextChunk();
+            c.put(i);
+            count++;
+        }
+
+        /**
+         * Appends a range of elements of an array.
+         */
+        void accept(double[] array, int offset, int length) {
+            while (length > 0) {
+                DoubleBuffer c = cur;
+                if (c == null || !c.hasRemaining())
+                    cur = c = (DoubleBuffer) nextChunk();
+                int n = Math.min(length, c.remaining());
+                c.put(array, offset, n);
+                offset += n;
+                length -= n;
+                count += n;
+            }
+        }
+
+        /**
+         * Returns the element at the given index.
+         */
+        double get(long index) {
+            int i = chunkFor(index);
+            return ((DoubleBuffer) chunks[i]).get((int) (index - priorElementCount[i]));
+        }
+
+        @Override
+        public void begin(long size) {
+            assert !building : "was already building";
+            building = true;
+            clear();
+        }
+
+        @Override
+        public void end() {
+            assert building : "was not building";
+            building = false;
+        }
+
+        @Override
+        public Node.OfDouble build() {
+            assert !building : "during building";
+            return this;
+        }
+
+        @Override
+        public void forEach(DoubleConsumer consumer) {
+            assert !building : "during building";
+            for (int j = 0; j < chunkCount; j++) {
+                DoubleBuffer c = (DoubleBuffer) chunks[j];
+                for (int i = 0, n = chunkLength(j); i < n; i++)
+                    consumer.accept(c.get(i));
+            }
+        }
+
+        @Override
+        public void copyInto(double[] array, int offset) {
+            assert !building : "during building";
+            long finalOffset = offset + count;
+            if (finalOffset > array.length || finalOffset < offset)
+                throw new IndexOutOfBoundsException("does not fit");
+            for (int j = 0; j < chunkCount; j++) {
+                DoubleBuffer c = ((DoubleBuffer) chunks[j]).duplicate();
+                int n = chunkLength(j);
+                c.clear();
+                c.get(array, offset, n);
+                offset += n;
+            }
+        }
+
+        @Override
+        public double[] asPrimitiveArray() {
+            if (count >= Nodes.MAX_ARRAY_SIZE)
+                throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            double[] result = new double[(int) count];
+            copyInto(result, 0);
+            return result;
+        }
+
+        @Override
+        public Spliterator.OfDouble spliterator() {
+            assert !building : "during building";
+            return new Splitr(0L, count);
+        }
+
+        final class Splitr extends BaseSpliterator implements Spliterator.OfDouble {
+            Splitr(long origin, long fence) {
+                super(origin, fence);
+            }
+
+            @Override
+            public boolean tryAdvance(DoubleConsumer action) {
+                if (index >= fence)
+                    return false;
+                int off = offset();
+                index++;
+                action.accept(((DoubleBuffer) chunks[chunk]).get(off));
+                return true;
+            }
+
+            @Override
+            public void forEachRemaining(DoubleConsumer action) {
+                while (index < fence) {
+                    int off = offset(), n = run();
+                    DoubleBuffer c = (DoubleBuffer) chunks[chunk];
+                    index += n;
+                    for (int i = off, end = off + n; i < end; i++)
+                        action.accept(c.get(i));
+                }
+            }
+
+            @Override
+            public Spliterator.OfDouble trySplit() {
+                long lo = split();
+                return (lo < 0L) ? null : new Splitr(lo, index);
+            }
+        }
+    }
+}
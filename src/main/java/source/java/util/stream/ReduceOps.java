@@ -24,6 +24,9 @@
  */
 package java.util.stream;
 
+import java.util.IntObjectMap;
+import java.util.LongLongMap;
+import java.util.LongObjectMap;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalDouble;
@@ -36,7 +39,9 @@ import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
 import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
 import java.util.function.ObjDoubleConsumer;
 import java.util.function.ObjIntConsumer;
 import java.util.function.ObjLongConsumer;
@@ -369,6 +374,58 @@ final class ReduceOps {
         };
     }
 
+    /**
+     * Constructs a {@code TerminalOp} that implements a grouped mutable
+     * reduce on {@code int} values, keeping one result container per key
+     * in an {@link IntObjectMap}.  Neither values nor keys are boxed.
+     *
+     * @param <R> the type of the result containers
+     * @param classifier a function mapping values to keys
+     * @param supplier a factory to produce a new result container
+     * @param accumulator a function to incorporate an int into a
+     *        result container
+     * @param combiner a function to combine the contents of one result
+     *        container into another
+     * @return a {@code TerminalOp} implementing the reduction
+     */
+    public static <R> TerminalOp<Integer, IntObjectMap<R>>
+    makeIntGrouping(IntUnaryOperator classifier,
+                    Supplier<R> supplier,
+                    ObjIntConsumer<R> accumulator,
+                    BinaryOperator<R> combiner) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        BinaryOperator<IntObjectMap<R>> merger = Collectors.intMapMerger(combiner);
+        class ReducingSink extends Box<IntObjectMap<R>>
+                implements AccumulatingSink<Integer, IntObjectMap<R>, ReducingSink>, Sink.OfInt {
+            @Override
+            public void begin(long size) {
+                state = new IntObjectMap<>();
+            }
+
+            @Override
+            public void accept(int t) {
+                int key = classifier.applyAsInt(t);
+                R container = state.get(key);
+                if (container == null)
+                    state.put(key, container = supplier.get());
+                accumulator.accept(container, t);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                state = merger.apply(state, other.state);
+            }
+        }
+        return new ReduceOp<Integer, IntObjectMap<R>, ReducingSink>(StreamShape.INT_VALUE) {
+            @Override
+            public ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
     /**
      * Constructs a {@code TerminalOp} that implements a functional reduce on
      * {@code long} values.
@@ -505,6 +562,97 @@ final class ReduceOps {
         };
     }
 
+    /**
+     * Constructs a {@code TerminalOp} that implements a grouped mutable
+     * reduce on {@code long} values, keeping one result container per key
+     * in a {@link LongObjectMap}.  Neither values nor keys are boxed.
+     *
+     * @param <R> the type of the result containers
+     * @param classifier a function mapping values to keys
+     * @param supplier a factory to produce a new result container
+     * @param accumulator a function to incorporate a long into a
+     *        result container
+     * @param combiner a function to combine the contents of one result
+     *        container into another
+     * @return a {@code TerminalOp} implementing the reduction
+     */
+    public static <R> TerminalOp<Long, LongObjectMap<R>>
+    makeLongGrouping(LongUnaryOperator classifier,
+                     Supplier<R> supplier,
+                     ObjLongConsumer<R> accumulator,
+                     BinaryOperator<R> combiner) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(supplier);
+        Objects.requireNonNull(accumulator);
+        BinaryOperator<LongObjectMap<R>> merger = Collectors.longMapMerger(combiner);
+        class ReducingSink extends Box<LongObjectMap<R>>
+                implements AccumulatingSink<Long, LongObjectMap<R>, ReducingSink>, Sink.OfLong {
+            @Override
+            public void begin(long size) {
+                state = new LongObjectMap<>();
+            }
+
+            @Override
+            public void accept(long t) {
+                long key = classifier.applyAsLong(t);
+                R container = state.get(key);
+                if (container == null)
+                    state.put(key, container = supplier.get());
+                accumulator.accept(container, t);
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                state = merger.apply(state, other.state);
+            }
+        }
+        return new ReduceOp<Long, LongObjectMap<R>, ReducingSink>(StreamShape.LONG_VALUE) {
+            @Override
+            public ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
+    /**
+     * Constructs a {@code TerminalOp} that sums a function of {@code long}
+     * values per key, into a {@link LongLongMap}.  Neither values, keys nor
+     * sums are boxed.
+     *
+     * @param classifier a function mapping values to keys
+     * @param mapper a function mapping values to the amounts to be summed
+     * @return a {@code TerminalOp} implementing the reduction
+     */
+    public static TerminalOp<Long, LongLongMap>
+    makeLongSumming(LongUnaryOperator classifier, LongUnaryOperator mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        BinaryOperator<LongLongMap> merger = Collectors.longLongMapSummer();
+        class ReducingSink extends Box<LongLongMap>
+                implements AccumulatingSink<Long, LongLongMap, ReducingSink>, Sink.OfLong {
+            @Override
+            public void begin(long size) {
+                state = new LongLongMap();
+            }
+
+            @Override
+            public void accept(long t) {
+                state.addTo(classifier.applyAsLong(t), mapper.applyAsLong(t));
+            }
+
+            @Override
+            public void combine(ReducingSink other) {
+                state = merger.apply(state, other.state);
+            }
+        }
+        return new ReduceOp<Long, LongLongMap, ReducingSink>(StreamShape.LONG_VALUE) {
+            @Override
+            public ReducingSink makeSink() {
+                return new ReducingSink();
+            }
+        };
+    }
+
     /**
      * Constructs a {@code TerminalOp} that implements a functional reduce on
      * {@code double} values.
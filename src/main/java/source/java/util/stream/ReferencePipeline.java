@@ -411,6 +411,13 @@ abstract class ReferencePipeline<P_IN, P_OUT>
             return SliceOps.makeRef(this, n, -1);
     }
 
+    @Override
+    public final <R> Stream<R> gather(Gatherer<? super P_OUT, ?, R> gatherer) {
+        @SuppressWarnings("unchecked")
+        Gatherer<P_OUT, ?, R> g = (Gatherer<P_OUT, ?, R>) gatherer;
+        return GatherOps.makeRef(this, g);
+    }
+
     // Terminal operations from Stream
 
     @Override
@@ -28,8 +28,13 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Objects;
+import java.util.PrimitiveIterator;
 import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.DoubleConsumer;
+import java.util.function.IntConsumer;
 import java.util.function.IntFunction;
+import java.util.function.LongConsumer;
 
 
 /**
@@ -176,6 +181,8 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (OffHeapSpinedBuffer.isEnabled())
+                return new ExternalIntSortingSink(sink);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedIntSortingSink(sink);
             else
@@ -189,6 +196,21 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (OffHeapSpinedBuffer.isEnabled()) {
+                Node.OfInt n = (Node.OfInt) helper.evaluate(spliterator, false, generator);
+                if (OffHeapSpinedBuffer.fitsHeap(n.count(), 2)) {
+                    int[] content = Nodes.flattenInt(n).asPrimitiveArray();
+                    Arrays.parallelSort(content);
+                    return Nodes.node(content);
+                }
+
+                Node.Builder.OfInt nb = Nodes.intBuilder();
+                ExternalIntSortingSink sink = new ExternalIntSortingSink(nb);
+                sink.begin(n.count());
+                n.forEach((IntConsumer) sink);
+                sink.end();
+                return nb.build();
+            }
             else {
                 Node.OfInt n = (Node.OfInt) helper.evaluate(spliterator, true, generator);
 
@@ -215,6 +237,8 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (OffHeapSpinedBuffer.isEnabled())
+                return new ExternalLongSortingSink(sink);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedLongSortingSink(sink);
             else
@@ -228,6 +252,21 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (OffHeapSpinedBuffer.isEnabled()) {
+                Node.OfLong n = (Node.OfLong) helper.evaluate(spliterator, false, generator);
+                if (OffHeapSpinedBuffer.fitsHeap(n.count(), 3)) {
+                    long[] content = Nodes.flattenLong(n).asPrimitiveArray();
+                    Arrays.parallelSort(content);
+                    return Nodes.node(content);
+                }
+
+                Node.Builder.OfLong nb = Nodes.longBuilder();
+                ExternalLongSortingSink sink = new ExternalLongSortingSink(nb);
+                sink.begin(n.count());
+                n.forEach((LongConsumer) sink);
+                sink.end();
+                return nb.build();
+            }
             else {
                 Node.OfLong n = (Node.OfLong) helper.evaluate(spliterator, true, generator);
 
@@ -254,6 +293,8 @@ final class SortedOps {
 
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if (OffHeapSpinedBuffer.isEnabled())
+                return new ExternalDoubleSortingSink(sink);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedDoubleSortingSink(sink);
             else
@@ -267,6 +308,21 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (OffHeapSpinedBuffer.isEnabled()) {
+                Node.OfDouble n = (Node.OfDouble) helper.evaluate(spliterator, false, generator);
+                if (OffHeapSpinedBuffer.fitsHeap(n.count(), 3)) {
+                    double[] content = Nodes.flattenDouble(n).asPrimitiveArray();
+                    Arrays.parallelSort(content);
+                    return Nodes.node(content);
+                }
+
+                Node.Builder.OfDouble nb = Nodes.doubleBuilder();
+                ExternalDoubleSortingSink sink = new ExternalDoubleSortingSink(nb);
+                sink.begin(n.count());
+                n.forEach((DoubleConsumer) sink);
+                sink.end();
+                return nb.build();
+            }
             else {
                 Node.OfDouble n = (Node.OfDouble) helper.evaluate(spliterator, true, generator);
 
@@ -698,4 +754,408 @@ final class SortedOps {
             b.accept(t);
         }
     }
+
+    // External sorting of primitive streams
+
+    /** Initial length of the heap run of an external sort of unknown size */
+    private static final int INITIAL_RUN_LENGTH = 1 << 10;
+
+    /** Minimum length of a run spilled by an external sort */
+    private static final int MIN_RUN_LENGTH = 1 << 16;
+
+    /**
+     * Returns the maximum length of the heap run of an external sort,
+     * derived from the heap budget of {@link OffHeapSpinedBuffer}.
+     */
+    private static int maxRunLength(int elementShift) {
+        long n = OffHeapSpinedBuffer.HEAP_BUDGET >> elementShift;
+        return (int) Math.min(Math.max(n, MIN_RUN_LENGTH), Nodes.MAX_ARRAY_SIZE);
+    }
+
+    /**
+     * Returns the initial length of the heap run of an external sort.
+     */
+    private static int initialRunLength(long size, int maxRunLength) {
+        return (int) ((size >= 0) ? Math.min(size, maxRunLength)
+                                  : Math.min(INITIAL_RUN_LENGTH, maxRunLength));
+    }
+
+    /**
+     * Returns the length to which a full heap run is grown.
+     */
+    private static int grownRunLength(int length, int maxRunLength) {
+        return (int) Math.min(Math.max(length * 2L, INITIAL_RUN_LENGTH), maxRunLength);
+    }
+
+    /**
+     * Merges sorted runs, pushing their elements downstream in order by
+     * repeatedly taking the run with the least head from a binary heap.
+     *
+     * <p>External sorting sinks gather elements into a run on the heap of at
+     * most the heap budget.  When the run is full it is sorted and spilled to
+     * an off-heap buffer, and at the end of the sink protocol the spilled
+     * runs and the final heap run are merged.  If everything fits in a
+     * single heap run this degenerates to the in-memory sort.
+     */
+    private static abstract class AbstractRunMerger {
+        private final int[] heap;
+        private int size;
+
+        AbstractRunMerger(int runs) {
+            heap = new int[runs];
+        }
+
+        /**
+         * Loads the next element of a run as its head.
+         *
+         * @return false if the run is exhausted
+         */
+        abstract boolean advance(int run);
+
+        /**
+         * Returns whether the head of run {@code a} orders before the head
+         * of run {@code b}.
+         */
+        abstract boolean before(int a, int b);
+
+        /**
+         * Pushes the head of a run downstream.
+         */
+        abstract void push(int run);
+
+        /**
+         * Pushes all elements of all runs downstream in order.
+         *
+         * @param downstream the sink elements are pushed to
+         * @param cancellable whether to stop once the downstream requests
+         *        cancellation
+         */
+        final void merge(Sink<?> downstream, boolean cancellable) {
+            for (int r = 0; r < heap.length; r++) {
+                if (advance(r)) {
+                    heap[size] = r;
+                    siftUp(size++);
+                }
+            }
+            while (size > 0 && !(cancellable && downstream.cancellationRequested())) {
+                int r = heap[0];
+                push(r);
+                if (!advance(r)) {
+                    if (--size == 0)
+                        break;
+                    heap[0] = heap[size];
+                }
+                siftDown(0);
+            }
+        }
+
+        private void siftUp(int i) {
+            int x = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                int p = heap[parent];
+                if (!before(x, p))
+                    break;
+                heap[i] = p;
+                i = parent;
+            }
+            heap[i] = x;
+        }
+
+        private void siftDown(int i) {
+            int x = heap[i];
+            int half = size >>> 1;
+            while (i < half) {
+                int child = (i << 1) + 1;
+                int c = heap[child];
+                int right = child + 1;
+                if (right < size && before(heap[right], c))
+                    c = heap[child = right];
+                if (!before(c, x))
+                    break;
+                heap[i] = c;
+                i = child;
+            }
+            heap[i] = x;
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on int streams whose content may
+     * exceed the heap budget of {@link OffHeapSpinedBuffer}.
+     */
+    private static final class ExternalIntSortingSink extends AbstractIntSortingSink {
+        private final ArrayList<OffHeapSpinedBuffer.OfInt> runs = new ArrayList<>();
+        private final int maxRunLength = maxRunLength(2);
+        private int[] run;
+        private int offset;
+
+        ExternalIntSortingSink(Sink<? super Integer> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            run = new int[initialRunLength(size, maxRunLength)];
+        }
+
+        @Override
+        public void end() {
+            Arrays.sort(run, 0, offset);
+            long total = offset;
+            int k = runs.size();
+            PrimitiveIterator.OfInt[] sources = new PrimitiveIterator.OfInt[k + 1];
+            for (int i = 0; i < k; i++) {
+                OffHeapSpinedBuffer.OfInt b = runs.get(i);
+                total += b.count();
+                sources[i] = Spliterators.iterator(b.spliterator());
+            }
+            sources[k] = Spliterators.iterator(
+                    Spliterators.spliterator(run, 0, offset, Spliterator.ORDERED));
+            downstream.begin(total);
+            new IntRunMerger(sources, downstream).merge(downstream, cancellationWasRequested);
+            downstream.end();
+            for (OffHeapSpinedBuffer.OfInt b : runs)
+                b.release();
+            runs.clear();
+            run = null;
+        }
+
+        @Override
+        public void accept(int t) {
+            if (offset == run.length) {
+                if (run.length < maxRunLength) {
+                    run = Arrays.copyOf(run, grownRunLength(run.length, maxRunLength));
+                }
+                else {
+                    Arrays.sort(run);
+                    OffHeapSpinedBuffer.OfInt b = new OffHeapSpinedBuffer.OfInt(0L);
+                    b.accept(run, 0, offset);
+                    runs.add(b);
+                    offset = 0;
+                }
+            }
+            run[offset++] = t;
+        }
+    }
+
+    /**
+     * Merges sorted runs of int elements.
+     */
+    private static final class IntRunMerger extends AbstractRunMerger {
+        private final PrimitiveIterator.OfInt[] sources;
+        private final int[] heads;
+        private final Sink<? super Integer> downstream;
+
+        IntRunMerger(PrimitiveIterator.OfInt[] sources, Sink<? super Integer> downstream) {
+            super(sources.length);
+            this.sources = sources;
+            this.heads = new int[sources.length];
+            this.downstream = downstream;
+        }
+
+        @Override
+        boolean advance(int run) {
+            if (!sources[run].hasNext())
+                return false;
+            heads[run] = sources[run].nextInt();
+            return true;
+        }
+
+        @Override
+        boolean before(int a, int b) {
+            return heads[a] < heads[b];
+        }
+
+        @Override
+        void push(int run) {
+            downstream.accept(heads[run]);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on long streams whose content may
+     * exceed the heap budget of {@link OffHeapSpinedBuffer}.
+     */
+    private static final class ExternalLongSortingSink extends AbstractLongSortingSink {
+        private final ArrayList<OffHeapSpinedBuffer.OfLong> runs = new ArrayList<>();
+        private final int maxRunLength = maxRunLength(3);
+        private long[] run;
+        private int offset;
+
+        ExternalLongSortingSink(Sink<? super Long> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            run = new long[initialRunLength(size, maxRunLength)];
+        }
+
+        @Override
+        public void end() {
+            Arrays.sort(run, 0, offset);
+            long total = offset;
+            int k = runs.size();
+            PrimitiveIterator.OfLong[] sources = new PrimitiveIterator.OfLong[k + 1];
+            for (int i = 0; i < k; i++) {
+                OffHeapSpinedBuffer.OfLong b = runs.get(i);
+                total += b.count();
+                sources[i] = Spliterators.iterator(b.spliterator());
+            }
+            sources[k] = Spliterators.iterator(
+                    Spliterators.spliterator(run, 0, offset, Spliterator.ORDERED));
+            downstream.begin(total);
+            new LongRunMerger(sources, downstream).merge(downstream, cancellationWasRequested);
+            downstream.end();
+            for (OffHeapSpinedBuffer.OfLong b : runs)
+                b.release();
+            runs.clear();
+            run = null;
+        }
+
+        @Override
+        public void accept(long t) {
+            if (offset == run.length) {
+                if (run.length < maxRunLength) {
+                    run = Arrays.copyOf(run, grownRunLength(run.length, maxRunLength));
+                }
+                else {
+                    Arrays.sort(run);
+                    OffHeapSpinedBuffer.OfLong b = new OffHeapSpinedBuffer.OfLong(0L);
+                    b.accept(run, 0, offset);
+                    runs.add(b);
+                    offset = 0;
+                }
+            }
+            run[offset++] = t;
+        }
+    }
+
+    /**
+     * Merges sorted runs of long elements.
+     */
+    private static final class LongRunMerger extends AbstractRunMerger {
+        private final PrimitiveIterator.OfLong[] sources;
+        private final long[] heads;
+        private final Sink<? super Long> downstream;
+
+        LongRunMerger(PrimitiveIterator.OfLong[] sources, Sink<? super Long> downstream) {
+            super(sources.length);
+            this.sources = sources;
+            this.heads = new long[sources.length];
+            this.downstream = downstream;
+        }
+
+        @Override
+        boolean advance(int run) {
+            if (!sources[run].hasNext())
+                return false;
+            heads[run] = sources[run].nextLong();
+            return true;
+        }
+
+        @Override
+        boolean before(int a, int b) {
+            return heads[a] < heads[b];
+        }
+
+        @Override
+        void push(int run) {
+            downstream.accept(heads[run]);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on double streams whose content may
+     * exceed the heap budget of {@link OffHeapSpinedBuffer}.
+     */
+    private static final class ExternalDoubleSortingSink extends AbstractDoubleSortingSink {
+        private final ArrayList<OffHeapSpinedBuffer.OfDouble> runs = new ArrayList<>();
+        private final int maxRunLength = maxRunLength(3);
+        private double[] run;
+        private int offset;
+
+        ExternalDoubleSortingSink(Sink<? super Double> downstream) {
+            super(downstream);
+        }
+
+        @Override
+        public void begin(long size) {
+            run = new double[initialRunLength(size, maxRunLength)];
+        }
+
+        @Override
+        public void end() {
+            Arrays.sort(run, 0, offset);
+            long total = offset;
+            int k = runs.size();
+            PrimitiveIterator.OfDouble[] sources = new PrimitiveIterator.OfDouble[k + 1];
+            for (int i = 0; i < k; i++) {
+                OffHeapSpinedBuffer.OfDouble b = runs.get(i);
+                total += b.count();
+                sources[i] = Spliterators.iterator(b.spliterator());
+            }
+            sources[k] = Spliterators.iterator(
+                    Spliterators.spliterator(run, 0, offset, Spliterator.ORDERED));
+            downstream.begin(total);
+            new DoubleRunMerger(sources, downstream).merge(downstream, cancellationWasRequested);
+            downstream.end();
+            for (OffHeapSpinedBuffer.OfDouble b : runs)
+                b.release();
+            runs.clear();
+            run = null;
+        }
+
+        @Override
+        public void accept(double t) {
+            if (offset == run.length) {
+                if (run.length < maxRunLength) {
+                    run = Arrays.copyOf(run, grownRunLength(run.length, maxRunLength));
+                }
+                else {
+                    Arrays.sort(run);
+                    OffHeapSpinedBuffer.OfDouble b = new OffHeapSpinedBuffer.OfDouble(0L);
+                    b.accept(run, 0, offset);
+                    runs.add(b);
+                    offset = 0;
+                }
+            }
+            run[offset++] = t;
+        }
+    }
+
+    /**
+     * Merges sorted runs of double elements.
+     */
+    private static final class DoubleRunMerger extends AbstractRunMerger {
+        private final PrimitiveIterator.OfDouble[] sources;
+        private final double[] heads;
+        private final Sink<? super Double> downstream;
+
+        DoubleRunMerger(PrimitiveIterator.OfDouble[] sources, Sink<? super Double> downstream) {
+            super(sources.length);
+            this.sources = sources;
+            this.heads = new double[sources.length];
+            this.downstream = downstream;
+        }
+
+        @Override
+        boolean advance(int run) {
+            if (!sources[run].hasNext())
+                return false;
+            heads[run] = sources[run].nextDouble();
+            return true;
+        }
+
+        @Override
+        boolean before(int a, int b) {
+            return Double.compare(heads[a], heads[b]) < 0;
+        }
+
+        @Override
+        void push(int run) {
+            downstream.accept(heads[run]);
+        }
+    }
 }
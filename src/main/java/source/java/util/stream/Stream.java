@@ -478,6 +478,49 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      */
     Stream<T> skip(long n);
 
+    /**
+     * Returns a stream consisting of the results of applying the given
+     * {@link Gatherer} to the elements of this stream.  The gatherer may
+     * keep state between elements, emit any number of results for each
+     * element, emit further results once this stream is exhausted, and
+     * stop consuming this stream early.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">short-circuiting
+     * stateful intermediate operation</a>.
+     *
+     * @apiNote
+     * Results are passed downstream as they are produced, without first
+     * consuming this whole stream.  For example, to print the first ten
+     * running totals of an infinite stream:
+     * <pre>{@code
+     *     Stream.iterate(1L, x -> x + 1)
+     *           .gather(Gatherers.scan(() -> 0L, Long::sum))
+     *           .limit(10)
+     *           .forEach(System.out::println);
+     * }</pre>
+     * In parallel pipelines, a gatherer without a
+     * {@link Gatherer#combiner() combiner} consumes this stream sequentially,
+     * in encounter order, which constrains the parallelism of the preceding
+     * operations.
+     *
+     * @implSpec
+     * The default implementation returns a stream over the {@link
+     * #spliterator() spliterator} of this stream, parallel if this stream
+     * is, that applies the gatherer to the elements sequentially in
+     * encounter order as they are requested, whether or not it has a
+     * combiner.  Closing the returned stream closes this stream.
+     *
+     * @param <R> the element type of the new stream
+     * @param gatherer the gatherer to apply
+     * @return the new stream
+     * @throws NullPointerException if the gatherer is null
+     * @see Gatherers
+     * @since 1.8
+     */
+    default <R> Stream<R> gather(Gatherer<? super T, ?, R> gatherer) {
+        return GatherOps.makeDefault(this, gatherer);
+    }
+
     /**
      * Performs an action for each element of this stream.
      *